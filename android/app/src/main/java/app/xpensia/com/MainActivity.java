@@ -1,39 +1,59 @@
 package app.xpensia.com;
 
 import android.content.Intent;
+import android.net.Uri;
 import android.os.Bundle;
 import android.util.Log;
 
+import androidx.core.content.IntentCompat;
+
 import com.getcapacitor.BridgeActivity;
 import com.xpensia.plugins.smsreader.SmsReaderPlugin;
 
 import app.xpensia.com.plugins.backgroundsmslistener.BackgroundSmsListenerPlugin;
 import app.xpensia.com.plugins.sharetarget.ShareTargetPlugin;
 import app.xpensia.com.plugins.settings.AndroidSettingsPlugin;
+import app.xpensia.com.plugins.smscommon.StartupTrace;
 import app.xpensia.com.plugins.speechtotext.SpeechToTextPlugin;
 
 public class MainActivity extends BridgeActivity {
   private static final String TAG = "XpensiaMainActivity";
+  private static final String[] SHARED_FILE_TYPES = {
+    "text/plain",
+    "text/csv",
+    "text/comma-separated-values",
+    "text/tab-separated-values",
+    "application/csv",
+  };
 
   @Override
   public void onCreate(Bundle savedInstanceState) {
     Log.d(TAG, "MainActivity.onCreate() - START");
+    StartupTrace.begin("activity.onCreate");
 
     // Register plugins BEFORE super.onCreate() so the Capacitor bridge discovers them
+    StartupTrace.begin("activity.registerPlugins");
     registerPlugin(SmsReaderPlugin.class);
     registerPlugin(BackgroundSmsListenerPlugin.class);
     registerPlugin(AndroidSettingsPlugin.class);
     registerPlugin(ShareTargetPlugin.class);
     registerPlugin(SpeechToTextPlugin.class);
+    StartupTrace.end("activity.registerPlugins");
     Log.d(TAG, "All plugins registered");
 
     // Handle any launch intent payload before Capacitor bridge boot so JS can reliably
     // consume pending data even on cold start.
+    StartupTrace.begin("activity.handleLaunchIntent");
     handleRouteIntent(getIntent());
     handleShareIntent(getIntent());
+    StartupTrace.end("activity.handleLaunchIntent");
 
+    // Bridge boot: creates the WebView and calls load() on every registered plugin.
+    StartupTrace.begin("activity.bridgeBoot");
     super.onCreate(savedInstanceState);
+    StartupTrace.end("activity.bridgeBoot");
 
+    StartupTrace.end("activity.onCreate");
     Log.d(TAG, "MainActivity.onCreate() - END");
   }
 
@@ -60,6 +80,9 @@ public class MainActivity extends BridgeActivity {
 
     String resolvedSource = source != null ? source : "unknown";
     BackgroundSmsListenerPlugin.setPendingOpenRoute(this, route, resolvedSource);
+    if (getApplication() instanceof XpensiaApplication) {
+      ((XpensiaApplication) getApplication()).prefetchInboxSnapshot();
+    }
     Log.d(TAG, "[SMS_NOTIFICATION_FLOW][NATIVE] Stored pending route=" + route + " source=" + resolvedSource);
     intent.removeExtra("xpensia_open_route");
     intent.removeExtra("xpensia_open_source");
@@ -74,7 +97,21 @@ public class MainActivity extends BridgeActivity {
     String action = intent.getAction();
     String type = intent.getType();
     Log.d(TAG, "[SHARE_FLOW][NATIVE] handleShareIntent received action=" + action + " type=" + type);
-    if (!Intent.ACTION_SEND.equals(action) || type == null || !"text/plain".equals(type)) {
+    if (!Intent.ACTION_SEND.equals(action) || !isSharedFileType(type)) {
+      Log.d(TAG, "[SHARE_FLOW][NATIVE] handleShareIntent ignored action=" + action + " type=" + type);
+      return;
+    }
+
+    // Files are passed by URI and streamed later; their content never goes through prefs.
+    Uri stream = IntentCompat.getParcelableExtra(intent, Intent.EXTRA_STREAM, Uri.class);
+    if (stream != null) {
+      ShareTargetPlugin.setPendingSharedFile(this, stream, type, "android_share_sheet");
+      Log.d(TAG, "[SHARE_FLOW][NATIVE] Stored pending shared file from Android share sheet. type=" + type);
+      intent.removeExtra(Intent.EXTRA_STREAM);
+      return;
+    }
+
+    if (!"text/plain".equals(type)) {
       Log.d(TAG, "[SHARE_FLOW][NATIVE] handleShareIntent ignored action=" + action + " type=" + type);
       return;
     }
@@ -89,4 +126,16 @@ public class MainActivity extends BridgeActivity {
     Log.d(TAG, "[SHARE_FLOW][NATIVE] Stored pending shared text from Android share sheet. length=" + sharedText.trim().length());
     intent.removeExtra(Intent.EXTRA_TEXT);
   }
+
+  private static boolean isSharedFileType(String type) {
+    if (type == null) {
+      return false;
+    }
+    for (String supported : SHARED_FILE_TYPES) {
+      if (supported.equals(type)) {
+        return true;
+      }
+    }
+    return false;
+  }
 }
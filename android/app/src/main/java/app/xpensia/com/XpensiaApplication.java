@@ -0,0 +1,72 @@
+package app.xpensia.com;
+
+import android.app.Application;
+import android.os.Process;
+import android.util.Log;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import app.xpensia.com.plugins.backgroundsmslistener.BackgroundSmsListenerPlugin;
+import app.xpensia.com.plugins.sharetarget.ShareTargetPlugin;
+import app.xpensia.com.plugins.smscommon.FinancialSmsClassifier;
+import app.xpensia.com.plugins.smscommon.StartupTrace;
+
+/**
+ * Starts a background warm-up at process start so the main thread does not
+ * pay for preference loading, the receiver lookup or classifier pattern
+ * compilation during cold start. Tasks run in submission order on a single
+ * low-priority thread.
+ */
+public class XpensiaApplication extends Application {
+  private static final String TAG = "XpensiaApplication";
+
+  private final ExecutorService warmUpExecutor = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(() -> {
+      Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+      runnable.run();
+    }, "xpensia-warmup");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  @Override
+  public void onCreate() {
+    StartupTrace.begin("application.onCreate");
+    super.onCreate();
+    warmUpExecutor.execute(this::warmUp);
+    StartupTrace.end("application.onCreate");
+  }
+
+  /**
+   * Parses the persisted SMS inbox queue in the background. Called by
+   * MainActivity when the launch intent opens a route, so the review screen
+   * finds its data ready on the first drain.
+   */
+  void prefetchInboxSnapshot() {
+    warmUpExecutor.execute(() -> {
+      StartupTrace.begin("warmup.inboxSnapshot");
+      try {
+        BackgroundSmsListenerPlugin.prefetchInboxSnapshot(this);
+      } catch (RuntimeException e) {
+        Log.w(TAG, "Inbox snapshot prefetch failed", e);
+      } finally {
+        StartupTrace.end("warmup.inboxSnapshot");
+      }
+    });
+  }
+
+  private void warmUp() {
+    StartupTrace.begin("warmup.preload");
+    try {
+      BackgroundSmsListenerPlugin.warmUp(this);
+      ShareTargetPlugin.warmUp(this);
+      FinancialSmsClassifier.warmUp(this);
+    } catch (RuntimeException e) {
+      // Warm-up is an optimisation only; everything it touches loads lazily anyway.
+      Log.w(TAG, "Background warm-up failed", e);
+    } finally {
+      StartupTrace.end("warmup.preload");
+    }
+  }
+}
@@ -14,6 +14,10 @@ import com.getcapacitor.PluginCall;
 import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
 
+import org.json.JSONException;
+
+import app.xpensia.com.plugins.smscommon.StartupTrace;
+
 @CapacitorPlugin(name = "AndroidSettings")
 public class AndroidSettingsPlugin extends Plugin {
 
@@ -47,6 +51,20 @@ public class AndroidSettingsPlugin extends Plugin {
     }
   }
 
+  /**
+   * Cold-start phases recorded by {@link StartupTrace}: activity creation,
+   * plugin registration and load, launch intent handling, bridge boot and the
+   * first pending-data consume call from JS.
+   */
+  @PluginMethod
+  public void getStartupTimings(PluginCall call) {
+    try {
+      call.resolve(JSObject.fromJSONObject(StartupTrace.toJSON()));
+    } catch (JSONException e) {
+      call.reject("Unable to read startup timings", e);
+    }
+  }
+
   @NonNull
   private Intent buildNotificationSettingsIntent(String packageName) {
     Intent intent = new Intent(Settings.ACTION_APP_NOTIFICATION_SETTINGS);
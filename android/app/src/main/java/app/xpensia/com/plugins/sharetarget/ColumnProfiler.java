@@ -0,0 +1,167 @@
+package app.xpensia.com.plugins.sharetarget;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Infers a header row and per-column kinds (date, amount, text) from the
+ * first rows of a shared file. Only counters are kept, and profiling stops
+ * after {@link #PROFILE_ROWS} rows.
+ */
+final class ColumnProfiler {
+    private static final int PROFILE_ROWS = 200;
+
+    private static final Pattern AMOUNT = Pattern.compile(
+            "^[-+(]?\\s*(?:[A-Za-z]{3}|ر\\.?\\s?س)?\\s*[-+]?\\d[\\d,]*(?:\\.\\d+)?\\s*(?:[A-Za-z]{3}|ر\\.?\\s?س)?\\)?$");
+    private static final Pattern DATE = Pattern.compile(
+            "^\\d{1,4}[-/.]\\d{1,2}[-/.]\\d{1,4}(?:[ T]\\d{1,2}:\\d{2}(?::\\d{2})?)?.*$");
+
+    private List<String> header;
+    private boolean headerDecided;
+    private List<String> firstRow;
+    private int[] dates = new int[0];
+    private int[] amounts = new int[0];
+    private int[] texts = new int[0];
+    private int profiled;
+
+    /**
+     * @return false if {@code row} was consumed as the header
+     */
+    boolean accept(List<String> row) {
+        if (!headerDecided) {
+            if (firstRow == null) {
+                firstRow = row;
+                // Held back until the second row shows whether it was a header.
+                return false;
+            }
+            headerDecided = true;
+            if (looksLikeHeader(firstRow, row)) {
+                header = firstRow;
+            } else {
+                profile(firstRow);
+            }
+        }
+        profile(row);
+        return true;
+    }
+
+    /**
+     * @return the row held back while deciding on the header, once it turned
+     *         out to be data; null otherwise
+     */
+    List<String> takeHeldRow() {
+        if (headerDecided && header == null && firstRow != null) {
+            List<String> row = firstRow;
+            firstRow = null;
+            return row;
+        }
+        return null;
+    }
+
+    /** Resolves a single-row file: that row is data. */
+    List<String> finish() {
+        if (!headerDecided && firstRow != null) {
+            headerDecided = true;
+            profile(firstRow);
+            List<String> row = firstRow;
+            firstRow = null;
+            return row;
+        }
+        return null;
+    }
+
+    List<String> header() {
+        return header;
+    }
+
+    JSArray toJSArray() {
+        int width = Math.max(dates.length, header != null ? header.size() : 0);
+        JSArray columns = new JSArray();
+        for (int i = 0; i < width; i++) {
+            JSObject column = new JSObject();
+            column.put("index", i);
+            if (header != null && i < header.size()) {
+                column.put("name", header.get(i).trim());
+            }
+            column.put("kind", kindOf(i));
+            columns.put(column);
+        }
+        return columns;
+    }
+
+    private String kindOf(int i) {
+        if (i >= dates.length) {
+            return "text";
+        }
+        int filled = dates[i] + amounts[i] + texts[i];
+        if (filled == 0) {
+            return "empty";
+        }
+        if (dates[i] * 2 > filled) {
+            return "date";
+        }
+        if (amounts[i] * 2 > filled) {
+            return "amount";
+        }
+        return "text";
+    }
+
+    private void profile(List<String> row) {
+        if (profiled >= PROFILE_ROWS) {
+            return;
+        }
+        profiled++;
+        if (row.size() > dates.length) {
+            dates = grow(dates, row.size());
+            amounts = grow(amounts, row.size());
+            texts = grow(texts, row.size());
+        }
+        for (int i = 0; i < row.size(); i++) {
+            String cell = row.get(i).trim();
+            if (cell.isEmpty()) {
+                continue;
+            }
+            if (DATE.matcher(cell).matches()) {
+                dates[i]++;
+            } else if (AMOUNT.matcher(cell).matches()) {
+                amounts[i]++;
+            } else {
+                texts[i]++;
+            }
+        }
+    }
+
+    private static boolean looksLikeHeader(List<String> first, List<String> second) {
+        boolean secondHasTyped = false;
+        for (String cell : second) {
+            String value = cell.trim();
+            if (DATE.matcher(value).matches() || AMOUNT.matcher(value).matches()) {
+                secondHasTyped = true;
+                break;
+            }
+        }
+        if (!secondHasTyped) {
+            return false;
+        }
+        List<String> seen = new ArrayList<>();
+        for (String cell : first) {
+            String value = cell.trim();
+            if (value.isEmpty() || DATE.matcher(value).matches() || AMOUNT.matcher(value).matches()
+                    || seen.contains(value)) {
+                return false;
+            }
+            seen.add(value);
+        }
+        return true;
+    }
+
+    private static int[] grow(int[] array, int size) {
+        int[] grown = new int[size];
+        System.arraycopy(array, 0, grown, 0, array.length);
+        return grown;
+    }
+}
@@ -0,0 +1,185 @@
+package app.xpensia.com.plugins.sharetarget;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Row-at-a-time reader for shared CSV/TSV/plain text files. The delimiter
+ * is sniffed from a bounded prefix, quoted fields may span lines, and only
+ * the current row is ever held, so memory does not grow with file size.
+ */
+final class DelimitedTextReader {
+    static final char NO_DELIMITER = 0;
+
+    private static final char[] CANDIDATES = { ',', ';', '\t', '|' };
+    private static final int SNIFF_CHARS = 16 * 1024;
+    private static final int SNIFF_LINES = 10;
+    // A single row larger than this is almost certainly not tabular data.
+    private static final int MAX_FIELD_CHARS = 64 * 1024;
+
+    private final BufferedReader in;
+    private final char delimiter;
+    private long rowsRead;
+
+    DelimitedTextReader(Reader reader) throws IOException {
+        this.in = reader instanceof BufferedReader
+                ? (BufferedReader) reader
+                : new BufferedReader(reader, SNIFF_CHARS);
+        skipBom(in);
+        this.delimiter = sniffDelimiter(in);
+    }
+
+    char delimiter() {
+        return delimiter;
+    }
+
+    long rowsRead() {
+        return rowsRead;
+    }
+
+    /**
+     * @return the next non-blank row, or null at end of input
+     */
+    List<String> nextRow() throws IOException {
+        while (true) {
+            List<String> row = readRecord();
+            if (row == null) {
+                return null;
+            }
+            if (row.size() > 1 || !row.get(0).trim().isEmpty()) {
+                rowsRead++;
+                return row;
+            }
+        }
+    }
+
+    private List<String> readRecord() throws IOException {
+        int c = in.read();
+        if (c == -1) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean fieldStart = true;
+
+        while (c != -1) {
+            char ch = (char) c;
+            if (quoted) {
+                if (ch == '"') {
+                    in.mark(1);
+                    int next = in.read();
+                    if (next == '"') {
+                        append(field, '"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) {
+                            in.reset();
+                        }
+                    }
+                } else {
+                    append(field, ch);
+                }
+            } else if (ch == '"' && fieldStart) {
+                quoted = true;
+            } else if (delimiter != NO_DELIMITER && ch == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+                fieldStart = true;
+                c = in.read();
+                continue;
+            } else if (ch == '\n') {
+                break;
+            } else if (ch == '\r') {
+                in.mark(1);
+                if (in.read() != '\n') {
+                    in.reset();
+                }
+                break;
+            } else {
+                append(field, ch);
+            }
+            fieldStart = false;
+            c = in.read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static void append(StringBuilder field, char ch) throws IOException {
+        if (field.length() >= MAX_FIELD_CHARS) {
+            throw new IOException("Field exceeds " + MAX_FIELD_CHARS + " characters");
+        }
+        field.append(ch);
+    }
+
+    private static void skipBom(BufferedReader in) throws IOException {
+        in.mark(1);
+        if (in.read() != '\uFEFF') {
+            in.reset();
+        }
+    }
+
+    /**
+     * Picks the candidate that appears outside quotes on the sampled lines
+     * the same non-zero number of times most often.
+     */
+    private static char sniffDelimiter(BufferedReader in) throws IOException {
+        in.mark(SNIFF_CHARS);
+        char[] buf = new char[SNIFF_CHARS];
+        int len = 0;
+        int n;
+        while (len < buf.length && (n = in.read(buf, len, buf.length - len)) != -1) {
+            len += n;
+        }
+        in.reset();
+        return detectDelimiter(new String(buf, 0, len));
+    }
+
+    static char detectDelimiter(String sample) {
+        int[][] counts = new int[CANDIDATES.length][SNIFF_LINES];
+        int line = 0;
+        boolean quoted = false;
+        for (int i = 0; i < sample.length() && line < SNIFF_LINES; i++) {
+            char ch = sample.charAt(i);
+            if (ch == '"') {
+                quoted = !quoted;
+            } else if (!quoted && ch == '\n') {
+                line++;
+            } else if (!quoted) {
+                for (int k = 0; k < CANDIDATES.length; k++) {
+                    if (ch == CANDIDATES[k]) {
+                        counts[k][line]++;
+                    }
+                }
+            }
+        }
+        // A trailing partial line is only trusted when it is the only line.
+        int lines = Math.max(1, Math.min(line, SNIFF_LINES));
+
+        char best = NO_DELIMITER;
+        int bestScore = 0;
+        for (int k = 0; k < CANDIDATES.length; k++) {
+            int first = counts[k][0];
+            if (first == 0) {
+                continue;
+            }
+            int consistent = 0;
+            for (int l = 0; l < lines; l++) {
+                if (counts[k][l] == first) {
+                    consistent++;
+                }
+            }
+            int score = consistent * 1000 + first;
+            if (score > bestScore) {
+                bestScore = score;
+                best = CANDIDATES[k];
+            }
+        }
+        return best;
+    }
+}
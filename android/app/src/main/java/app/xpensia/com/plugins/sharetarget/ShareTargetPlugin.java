@@ -1,44 +1,108 @@
 package app.xpensia.com.plugins.sharetarget;
 
+import android.content.ContentResolver;
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.OpenableColumns;
 import android.util.Log;
 
+import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
 import com.getcapacitor.Plugin;
 import com.getcapacitor.PluginCall;
 import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
 
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import app.xpensia.com.plugins.smscommon.StartupTrace;
 
 @CapacitorPlugin(name = "ShareTarget")
 public class ShareTargetPlugin extends Plugin {
     private static final String TAG = "ShareTargetPlugin";
-    private static final String PREFS_NAME = "ShareTargetPrefs";
+    static final String PREFS_NAME = "ShareTargetPrefs";
+    // Shared texts stored as received, before splitting and classification.
+    private static final String PREF_RAW_TEXTS = "pendingRawSharedTexts";
+    // Single-text slot written by earlier versions; migrated into the queue on read.
     private static final String PREF_PENDING_TEXT = "pendingSharedText";
     private static final String PREF_PENDING_SOURCE = "pendingSharedTextSource";
     private static final String PREF_PENDING_RECEIVED_AT = "pendingSharedTextReceivedAt";
+    private static final String PREF_PENDING_FILE_URI = "pendingSharedFileUri";
+    private static final String PREF_PENDING_FILE_MIME = "pendingSharedFileMime";
+    private static final String PREF_PENDING_FILE_NAME = "pendingSharedFileName";
+    private static final String PREF_PENDING_FILE_SIZE = "pendingSharedFileSize";
+    private static final String PREF_PENDING_FILE_SOURCE = "pendingSharedFileSource";
+    private static final String PREF_PENDING_FILE_RECEIVED_AT = "pendingSharedFileReceivedAt";
+    // Last file shared in, kept after consume: the only URI readSharedFile opens.
+    private static final String PREF_SHARED_FILE_URI = "sharedFileUri";
 
-    private static final Object PREF_LOCK = new Object();
-    private static final ArrayList<JSObject> pendingEvents = new ArrayList<>();
+    private static final int DEFAULT_PAGE_SIZE = 200;
+    private static final int MAX_PAGE_SIZE = 1000;
+    // Events are only a wake-up signal; the queue itself is persisted.
+    private static final int MAX_PENDING_EVENTS = 10;
+
+    static final Object PREF_LOCK = new Object();
+    // Keeps raw texts in share order while they move into the queue.
+    private static final Object PROMOTE_LOCK = new Object();
+    // Splits and classifies shares received on the main thread.
+    private static final ExecutorService shareExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ShareIntake");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final ArrayList<PendingEvent> pendingEvents = new ArrayList<>();
     private static ShareTargetPlugin instance;
 
+    private final ExecutorService fileExecutor = Executors.newSingleThreadExecutor();
+
     @Override
     public void load() {
-        super.load();
-        instance = this;
+        StartupTrace.begin("load:ShareTarget");
+        try {
+            super.load();
+            instance = this;
 
-        synchronized (pendingEvents) {
-            if (!pendingEvents.isEmpty()) {
-                for (JSObject event : pendingEvents) {
-                    notifyListeners("sharedTextReceived", event);
+            synchronized (pendingEvents) {
+                if (!pendingEvents.isEmpty()) {
+                    for (PendingEvent event : pendingEvents) {
+                        notifyListeners(event.name, event.payload);
+                    }
+                    pendingEvents.clear();
                 }
-                pendingEvents.clear();
             }
+        } finally {
+            StartupTrace.end("load:ShareTarget");
         }
     }
 
+    /**
+     * Process-start warm-up: loads the share preferences off the main thread.
+     */
+    public static void warmUp(Context context) {
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).contains(PREF_PENDING_FILE_URI);
+    }
+
+    /**
+     * Stores a shared text as received; splitting, classification and
+     * queueing run on a background thread, or on the next
+     * {@link #consumePendingSharedText} if that comes first. Candidates
+     * already queued or drained within the dedup window are still queued,
+     * flagged {@code duplicate}; the event is a wake-up for
+     * {@link #consumePendingSharedText}.
+     */
     public static void setPendingSharedText(Context context, String text, String source) {
         if (context == null || text == null) {
             return;
@@ -49,60 +113,380 @@ public class ShareTargetPlugin extends Plugin {
             return;
         }
 
-        long receivedAt = System.currentTimeMillis();
-
+        JSONObject raw = new JSONObject();
+        try {
+            raw.put("text", normalizedText);
+            raw.put("source", source);
+            raw.put("receivedAt", System.currentTimeMillis());
+        } catch (JSONException e) {
+            Log.e(TAG, "Failed to encode shared text", e);
+            return;
+        }
         synchronized (PREF_LOCK) {
             SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            prefs.edit()
-                .putString(PREF_PENDING_TEXT, normalizedText)
-                .putString(PREF_PENDING_SOURCE, source)
-                .putLong(PREF_PENDING_RECEIVED_AT, receivedAt)
-                .apply();
+            JSONArray rawTexts = readRawTexts(prefs);
+            rawTexts.put(raw);
+            prefs.edit().putString(PREF_RAW_TEXTS, rawTexts.toString()).apply();
+        }
+        Log.d(TAG, "Stored shared text length=" + normalizedText.length());
+
+        Context app = context.getApplicationContext();
+        shareExecutor.execute(() -> {
+            JSONArray added = promotePendingTexts(app);
+            if (added.length() == 0) {
+                return;
+            }
+            JSONObject first = added.optJSONObject(0);
+            JSObject payload = new JSObject();
+            payload.put("text", joinTexts(added));
+            payload.put("source", first.optString("source", null));
+            payload.put("receivedAt", first.optLong("receivedAt"));
+            payload.put("duplicate", allDuplicates(added));
+            payload.put("items", added);
+            notifyOrQueue("sharedTextReceived", payload);
+        });
+    }
+
+    /**
+     * Splits, classifies and queues every text stored raw, plus the legacy
+     * single-text slot. Never runs on the main thread.
+     *
+     * @return the items added, in share order
+     */
+    private static JSONArray promotePendingTexts(Context context) {
+        synchronized (PROMOTE_LOCK) {
+            JSONArray rawTexts;
+            String legacyText;
+            String legacySource;
+            long legacyReceivedAt;
+            synchronized (PREF_LOCK) {
+                SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+                rawTexts = readRawTexts(prefs);
+                legacyText = prefs.getString(PREF_PENDING_TEXT, null);
+                legacySource = prefs.getString(PREF_PENDING_SOURCE, null);
+                legacyReceivedAt = prefs.getLong(PREF_PENDING_RECEIVED_AT, System.currentTimeMillis());
+                if (rawTexts.length() > 0 || legacyText != null) {
+                    prefs.edit()
+                        .remove(PREF_RAW_TEXTS)
+                        .remove(PREF_PENDING_TEXT)
+                        .remove(PREF_PENDING_SOURCE)
+                        .remove(PREF_PENDING_RECEIVED_AT)
+                        .apply();
+                }
+            }
+
+            JSONArray added = new JSONArray();
+            if (legacyText != null) {
+                appendAll(added, SharedItemQueue.enqueue(context, legacyText, legacySource, legacyReceivedAt));
+            }
+            for (int i = 0; i < rawTexts.length(); i++) {
+                JSONObject raw = rawTexts.optJSONObject(i);
+                if (raw != null) {
+                    appendAll(added, SharedItemQueue.enqueue(context, raw.optString("text"),
+                        raw.optString("source", null), raw.optLong("receivedAt")));
+                }
+            }
+            if (added.length() > 0) {
+                Log.d(TAG, "Queued shared text items=" + added.length() + " shares=" + rawTexts.length());
+            }
+            return added;
         }
+    }
 
-        JSObject payload = new JSObject();
-        payload.put("text", normalizedText);
-        payload.put("source", source);
-        payload.put("receivedAt", receivedAt);
+    private static JSONArray readRawTexts(SharedPreferences prefs) {
+        try {
+            return new JSONArray(prefs.getString(PREF_RAW_TEXTS, "[]"));
+        } catch (JSONException e) {
+            Log.w(TAG, "Discarding unreadable shared texts", e);
+            return new JSONArray();
+        }
+    }
 
+    private static void appendAll(JSONArray target, JSONArray items) {
+        for (int i = 0; i < items.length(); i++) {
+            target.put(items.opt(i));
+        }
+    }
+
+    private static void notifyOrQueue(String eventName, JSObject payload) {
         if (instance != null) {
-            instance.notifyListeners("sharedTextReceived", payload);
-        } else {
-            synchronized (pendingEvents) {
-                pendingEvents.add(payload);
+            instance.notifyListeners(eventName, payload);
+            return;
+        }
+        synchronized (pendingEvents) {
+            pendingEvents.add(new PendingEvent(eventName, payload));
+            while (pendingEvents.size() > MAX_PENDING_EVENTS) {
+                pendingEvents.remove(0);
+            }
+        }
+    }
+
+    private static boolean allDuplicates(JSONArray items) {
+        for (int i = 0; i < items.length(); i++) {
+            JSONObject item = items.optJSONObject(i);
+            if (item != null && !item.optBoolean("duplicate")) {
+                return false;
             }
         }
+        return items.length() > 0;
+    }
 
-        Log.d(TAG, "Stored pending shared text. length=" + normalizedText.length());
+    private static String joinTexts(JSONArray items) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < items.length(); i++) {
+            JSONObject item = items.optJSONObject(i);
+            if (item == null) {
+                continue;
+            }
+            if (text.length() > 0) {
+                text.append("\n\n");
+            }
+            text.append(item.optString("text"));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Records a shared CSV or text file by URI only; the content is streamed
+     * later by {@link #readSharedFile}. The read grant lasts as long as the
+     * receiving activity, so JS should read it in the same session.
+     */
+    public static void setPendingSharedFile(Context context, Uri uri, String mimeType, String source) {
+        if (context == null || uri == null) {
+            return;
+        }
+
+        String name = null;
+        long size = -1L;
+        try (Cursor cursor = context.getContentResolver().query(
+                uri, new String[]{ OpenableColumns.DISPLAY_NAME, OpenableColumns.SIZE }, null, null, null)) {
+            if (cursor != null && cursor.moveToFirst()) {
+                name = cursor.getString(0);
+                size = cursor.isNull(1) ? -1L : cursor.getLong(1);
+            }
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Could not read shared file metadata", e);
+        }
+
+        long receivedAt = System.currentTimeMillis();
+        synchronized (PREF_LOCK) {
+            SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+            prefs.edit()
+                .putString(PREF_PENDING_FILE_URI, uri.toString())
+                .putString(PREF_SHARED_FILE_URI, uri.toString())
+                .putString(PREF_PENDING_FILE_MIME, mimeType)
+                .putString(PREF_PENDING_FILE_NAME, name)
+                .putLong(PREF_PENDING_FILE_SIZE, size)
+                .putString(PREF_PENDING_FILE_SOURCE, source)
+                .putLong(PREF_PENDING_FILE_RECEIVED_AT, receivedAt)
+                .apply();
+        }
+
+        notifyOrQueue("sharedFileReceived", fileDescriptor(uri.toString(), mimeType, name, size, source, receivedAt));
+        Log.d(TAG, "Stored pending shared file. mime=" + mimeType + " size=" + size);
+    }
+
+    private static JSObject fileDescriptor(String uri, String mimeType, String name, long size, String source, long receivedAt) {
+        JSObject file = new JSObject();
+        file.put("uri", uri);
+        if (mimeType != null) {
+            file.put("mimeType", mimeType);
+        }
+        if (name != null) {
+            file.put("name", name);
+        }
+        if (size >= 0) {
+            file.put("size", size);
+        }
+        if (source != null) {
+            file.put("source", source);
+        }
+        file.put("receivedAt", receivedAt);
+        return file;
     }
 
     @PluginMethod
-    public void consumePendingSharedText(PluginCall call) {
+    public void consumePendingSharedFile(PluginCall call) {
+        StartupTrace.markOnce("js.firstConsume", "consumePendingSharedFile");
         JSObject ret = new JSObject();
 
         synchronized (PREF_LOCK) {
             SharedPreferences prefs = getContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            String text = prefs.getString(PREF_PENDING_TEXT, null);
-            String source = prefs.getString(PREF_PENDING_SOURCE, null);
-            long receivedAt = prefs.getLong(PREF_PENDING_RECEIVED_AT, 0L);
+            String uri = prefs.getString(PREF_PENDING_FILE_URI, null);
+            if (uri != null) {
+                ret.put("file", fileDescriptor(
+                    uri,
+                    prefs.getString(PREF_PENDING_FILE_MIME, null),
+                    prefs.getString(PREF_PENDING_FILE_NAME, null),
+                    prefs.getLong(PREF_PENDING_FILE_SIZE, -1L),
+                    prefs.getString(PREF_PENDING_FILE_SOURCE, null),
+                    prefs.getLong(PREF_PENDING_FILE_RECEIVED_AT, 0L)));
+            }
 
             prefs.edit()
-                .remove(PREF_PENDING_TEXT)
-                .remove(PREF_PENDING_SOURCE)
-                .remove(PREF_PENDING_RECEIVED_AT)
+                .remove(PREF_PENDING_FILE_URI)
+                .remove(PREF_PENDING_FILE_MIME)
+                .remove(PREF_PENDING_FILE_NAME)
+                .remove(PREF_PENDING_FILE_SIZE)
+                .remove(PREF_PENDING_FILE_SOURCE)
+                .remove(PREF_PENDING_FILE_RECEIVED_AT)
                 .apply();
+        }
 
-            if (text != null) {
-                ret.put("text", text);
+        call.resolve(ret);
+    }
+
+    /**
+     * Streams a shared file as {@code sharedFileRows} events of at most
+     * pageSize rows each and resolves with the totals once the last page is
+     * sent. Only one page is held in memory at a time. Only the file last
+     * shared into the app can be read; any other URI is rejected.
+     */
+    @PluginMethod
+    public void readSharedFile(PluginCall call) {
+        String uriString = call.getString("uri");
+        if (uriString == null || uriString.isEmpty()) {
+            call.reject("uri is required");
+            return;
+        }
+        String sharedUri;
+        synchronized (PREF_LOCK) {
+            sharedUri = getContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+                .getString(PREF_SHARED_FILE_URI, null);
+        }
+        if (!uriString.equals(sharedUri)) {
+            Log.w(TAG, "Refusing to read a URI that was not shared into the app");
+            call.reject("uri is not the file shared into the app", "NOT_SHARED");
+            return;
+        }
+        int pageSize = Math.max(1, Math.min(call.getInt("pageSize", DEFAULT_PAGE_SIZE), MAX_PAGE_SIZE));
+        Uri uri = Uri.parse(uriString);
+        ContentResolver resolver = getContext().getContentResolver();
+
+        fileExecutor.execute(() -> {
+            try (InputStream stream = resolver.openInputStream(uri)) {
+                if (stream == null) {
+                    call.reject("Shared file could not be opened", "NOT_FOUND");
+                    return;
+                }
+                DelimitedTextReader reader = new DelimitedTextReader(
+                    new InputStreamReader(stream, StandardCharsets.UTF_8));
+                ColumnProfiler profiler = new ColumnProfiler();
+                String delimiter = reader.delimiter() == DelimitedTextReader.NO_DELIMITER
+                    ? "" : String.valueOf(reader.delimiter());
+
+                List<List<String>> page = new ArrayList<>(pageSize);
+                int pageIndex = 0;
+                long rowCount = 0;
+                List<String> row;
+                while ((row = reader.nextRow()) != null) {
+                    if (!profiler.accept(row)) {
+                        continue;
+                    }
+                    List<String> held = profiler.takeHeldRow();
+                    if (held != null) {
+                        page.add(held);
+                    }
+                    page.add(row);
+                    if (page.size() >= pageSize) {
+                        rowCount += page.size();
+                        emitRowsPage(uriString, pageIndex++, page, profiler, delimiter, false);
+                        page.clear();
+                    }
+                }
+                List<String> last = profiler.finish();
+                if (last != null) {
+                    page.add(last);
+                }
+                rowCount += page.size();
+                emitRowsPage(uriString, pageIndex++, page, profiler, delimiter, true);
+
+                JSObject ret = new JSObject();
+                ret.put("uri", uriString);
+                ret.put("rowCount", rowCount);
+                ret.put("pages", pageIndex);
+                ret.put("delimiter", delimiter);
+                ret.put("columns", profiler.toJSArray());
+                Log.d(TAG, "Streamed shared file rows=" + rowCount + " pages=" + pageIndex);
+                call.resolve(ret);
+            } catch (SecurityException e) {
+                Log.e(TAG, "Read grant for shared file is gone", e);
+                call.reject("Shared file is no longer accessible", "PERMISSION_LOST", e);
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to read shared file", e);
+                call.reject("Failed to read shared file", "READ_FAILED", e);
             }
-            if (source != null) {
-                ret.put("source", source);
+        });
+    }
+
+    private void emitRowsPage(String uri, int pageIndex, List<List<String>> rows, ColumnProfiler profiler,
+                              String delimiter, boolean done) {
+        JSArray jsRows = new JSArray();
+        for (List<String> row : rows) {
+            JSArray cells = new JSArray();
+            for (String cell : row) {
+                cells.put(cell);
             }
-            if (receivedAt > 0L) {
-                ret.put("receivedAt", receivedAt);
+            jsRows.put(cells);
+        }
+        JSObject event = new JSObject();
+        event.put("uri", uri);
+        event.put("page", pageIndex);
+        event.put("rows", jsRows);
+        event.put("delimiter", delimiter);
+        event.put("columns", profiler.toJSArray());
+        event.put("done", done);
+        notifyListeners("sharedFileRows", event);
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        fileExecutor.shutdownNow();
+        if (instance == this) {
+            instance = null;
+        }
+        super.handleOnDestroy();
+    }
+
+    /**
+     * Drains the oldest queued share: its items, plus {@code text} (the items
+     * joined), {@code source}, {@code receivedAt} and {@code duplicate}.
+     * {@code remaining} counts the items still queued, so callers handling
+     * one text at a time call again once they are done with this one.
+     */
+    @PluginMethod
+    public void consumePendingSharedText(PluginCall call) {
+        StartupTrace.markOnce("js.firstConsume", "consumePendingSharedText");
+        promotePendingTexts(getContext());
+
+        int[] remaining = new int[1];
+        JSONArray items = SharedItemQueue.drainOldestShare(getContext(), remaining);
+
+        JSObject ret = new JSObject();
+        ret.put("items", items);
+        ret.put("remaining", remaining[0]);
+
+        JSONObject first = items.optJSONObject(0);
+        if (first != null) {
+            ret.put("text", joinTexts(items));
+            if (first.has("source")) {
+                ret.put("source", first.optString("source"));
             }
+            ret.put("receivedAt", first.optLong("receivedAt"));
+            ret.put("duplicate", allDuplicates(items));
         }
 
         call.resolve(ret);
     }
+
+    /** An event raised before {@link #load()}, replayed once JS is listening. */
+    private static final class PendingEvent {
+        final String name;
+        final JSObject payload;
+
+        PendingEvent(String name, JSObject payload) {
+            this.name = name;
+            this.payload = payload;
+        }
+    }
 }
@@ -0,0 +1,160 @@
+package app.xpensia.com.plugins.sharetarget;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.List;
+import java.util.UUID;
+
+import app.xpensia.com.plugins.smscommon.FinancialSmsClassifier;
+import app.xpensia.com.plugins.smscommon.SmsFingerprint;
+
+/**
+ * Bounded, persisted queue of shared items. Each share is split into
+ * candidate messages and classified with the same gates as incoming SMS.
+ * Every share is a deliberate user action, so a candidate seen within the
+ * dedup window (queued or already drained) is still queued, flagged
+ * {@code duplicate} for the UI to warn about.
+ */
+final class SharedItemQueue {
+    private static final String TAG = "ShareTargetPlugin";
+    private static final String PREF_ITEMS = "pendingSharedItems";
+    private static final String PREF_RECENT_FINGERPRINTS = "recentSharedFingerprints";
+    // Shared texts carry no sender; fingerprints use a fixed one.
+    private static final String FINGERPRINT_SENDER = "share";
+
+    static final int MAX_QUEUE_ITEMS = 100;
+    private static final int MAX_RECENT_FINGERPRINTS = 500;
+    private static final long DEDUP_WINDOW_MS = 24L * 60 * 60 * 1000;
+
+    private SharedItemQueue() {}
+
+    /** @return the items added, one per candidate */
+    static JSONArray enqueue(Context context, String text, String source, long receivedAt) {
+        List<String> candidates = SharedTextSplitter.split(text);
+        String[] keywords = FinancialSmsClassifier.loadKeywords(context);
+        String shareId = UUID.randomUUID().toString();
+        JSONArray added = new JSONArray();
+
+        synchronized (ShareTargetPlugin.PREF_LOCK) {
+            SharedPreferences prefs = prefs(context);
+            JSONArray queue = readArray(prefs, PREF_ITEMS);
+            JSONObject recent = loadRecent(prefs, receivedAt);
+
+            for (int i = 0; i < candidates.size(); i++) {
+                String candidate = candidates.get(i);
+                String fingerprint = SmsFingerprint.of(FINGERPRINT_SENDER, candidate);
+                boolean duplicate = recent.has(fingerprint);
+                FinancialSmsClassifier.Verdict verdict = FinancialSmsClassifier.classify(candidate, keywords);
+                JSONObject item = new JSONObject();
+                try {
+                    item.put("id", shareId + ":" + i);
+                    item.put("shareId", shareId);
+                    item.put("text", candidate);
+                    item.put("source", source);
+                    item.put("receivedAt", receivedAt);
+                    item.put("fingerprint", fingerprint);
+                    item.put("financial", verdict.isAccepted());
+                    item.put("verdict", verdict.statKey());
+                    item.put("duplicate", duplicate);
+                    recent.put(fingerprint, receivedAt);
+                } catch (JSONException e) {
+                    Log.e(TAG, "Failed to encode shared item", e);
+                    continue;
+                }
+                queue.put(item);
+                added.put(item);
+            }
+
+            if (added.length() > 0) {
+                prefs.edit()
+                    .putString(PREF_ITEMS, keepNewest(queue, MAX_QUEUE_ITEMS).toString())
+                    .putString(PREF_RECENT_FINGERPRINTS, recent.toString())
+                    .apply();
+            }
+            Log.d(TAG, "Shared text split into " + candidates.size() + " candidates, queued " + added.length()
+                + " queueSize=" + Math.min(queue.length(), MAX_QUEUE_ITEMS));
+        }
+        return added;
+    }
+
+    /**
+     * Removes and returns the items of the oldest queued share (a share's
+     * items are queued together); {@code remaining} receives how many items
+     * are left.
+     */
+    static JSONArray drainOldestShare(Context context, int[] remaining) {
+        JSONArray batch = new JSONArray();
+        synchronized (ShareTargetPlugin.PREF_LOCK) {
+            SharedPreferences prefs = prefs(context);
+            JSONArray queue = readArray(prefs, PREF_ITEMS);
+            JSONArray rest = new JSONArray();
+            JSONObject first = queue.optJSONObject(0);
+            String shareId = first != null ? first.optString("shareId") : null;
+            for (int i = 0; i < queue.length(); i++) {
+                JSONObject item = queue.optJSONObject(i);
+                if (item != null && shareId != null && shareId.equals(item.optString("shareId"))) {
+                    batch.put(item);
+                } else if (item != null) {
+                    rest.put(item);
+                }
+            }
+            SharedPreferences.Editor editor = prefs.edit();
+            if (rest.length() == 0) {
+                editor.remove(PREF_ITEMS);
+            } else {
+                editor.putString(PREF_ITEMS, rest.toString());
+            }
+            editor.apply();
+            remaining[0] = rest.length();
+        }
+        return batch;
+    }
+
+    private static JSONObject loadRecent(SharedPreferences prefs, long now) {
+        JSONObject pruned = new JSONObject();
+        try {
+            JSONObject stored = new JSONObject(prefs.getString(PREF_RECENT_FINGERPRINTS, "{}"));
+            JSONArray names = stored.names();
+            for (int i = 0; names != null && i < names.length(); i++) {
+                String key = names.getString(i);
+                long seenAt = stored.optLong(key, 0L);
+                if (Math.abs(now - seenAt) <= DEDUP_WINDOW_MS && pruned.length() < MAX_RECENT_FINGERPRINTS) {
+                    pruned.put(key, seenAt);
+                }
+            }
+        } catch (JSONException e) {
+            Log.w(TAG, "Discarding unreadable shared fingerprint cache", e);
+        }
+        return pruned;
+    }
+
+    private static JSONArray readArray(SharedPreferences prefs, String key) {
+        try {
+            return new JSONArray(prefs.getString(key, "[]"));
+        } catch (JSONException e) {
+            Log.w(TAG, "Discarding unreadable " + key, e);
+            return new JSONArray();
+        }
+    }
+
+    private static JSONArray keepNewest(JSONArray items, int max) {
+        if (items.length() <= max) {
+            return items;
+        }
+        JSONArray trimmed = new JSONArray();
+        for (int i = items.length() - max; i < items.length(); i++) {
+            trimmed.put(items.opt(i));
+        }
+        return trimmed;
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(ShareTargetPlugin.PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
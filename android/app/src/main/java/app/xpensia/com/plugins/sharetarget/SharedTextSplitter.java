@@ -0,0 +1,51 @@
+package app.xpensia.com.plugins.sharetarget;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Splits a shared text into candidate messages. Bank SMS put one field per
+ * line, so single line breaks never split; blank lines and separator lines
+ * (---, ===, ___) do, as produced when several messages are copied at once.
+ */
+final class SharedTextSplitter {
+    static final int MAX_CANDIDATES = 50;
+    static final int MAX_CANDIDATE_CHARS = 4000;
+
+    private static final Pattern BOUNDARY = Pattern.compile(
+            "\\r?\\n[ \\t]*(?:\\r?\\n|[-=_*]{3,}[ \\t]*(?:\\r?\\n|$))\\s*");
+
+    private SharedTextSplitter() {}
+
+    static List<String> split(String text) {
+        List<String> candidates = new ArrayList<>();
+        if (text == null) {
+            return candidates;
+        }
+        for (String part : BOUNDARY.split(text)) {
+            String candidate = part.trim();
+            if (candidate.isEmpty() || isSeparator(candidate)) {
+                continue;
+            }
+            if (candidate.length() > MAX_CANDIDATE_CHARS) {
+                candidate = candidate.substring(0, MAX_CANDIDATE_CHARS);
+            }
+            candidates.add(candidate);
+            if (candidates.size() == MAX_CANDIDATES) {
+                break;
+            }
+        }
+        return candidates;
+    }
+
+    private static boolean isSeparator(String candidate) {
+        for (int i = 0; i < candidate.length(); i++) {
+            char c = candidate.charAt(i);
+            if (c != '-' && c != '=' && c != '_' && c != '*' && !Character.isWhitespace(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,90 @@
+package app.xpensia.com.plugins.speechtotext;
+
+/**
+ * Decides which partial hypotheses reach JS. Identical updates and updates
+ * that are only a prefix of the latest known text are dropped; the rest are
+ * rate-limited to one per {@code minIntervalMs}, keeping only the newest
+ * pending text. Time is passed in so the caller owns the clock and timers.
+ */
+final class PartialResultThrottler {
+    interface Sink {
+        void emit(String text);
+    }
+
+    static final long NOTHING_PENDING = -1;
+
+    private final long minIntervalMs;
+    private String lastEmitted;
+    private long lastEmittedAt;
+    private boolean hasEmitted;
+    private String pending;
+    private int emittedCount;
+    private int suppressedCount;
+
+    PartialResultThrottler(long minIntervalMs) {
+        this.minIntervalMs = Math.max(0, minIntervalMs);
+    }
+
+    /**
+     * @return delay in ms after which {@link #flush} should run, or
+     *         {@link #NOTHING_PENDING} if the text was emitted or dropped
+     */
+    long offer(String text, long nowMs, Sink sink) {
+        if (text == null || text.isEmpty() || isRedundant(text)) {
+            suppressedCount++;
+            return pending != null ? Math.max(0, lastEmittedAt + minIntervalMs - nowMs) : NOTHING_PENDING;
+        }
+
+        if (pending != null) {
+            // Superseded before it was ever sent.
+            suppressedCount++;
+            pending = null;
+        }
+
+        long wait = hasEmitted ? lastEmittedAt + minIntervalMs - nowMs : 0;
+        if (wait <= 0) {
+            emit(text, nowMs, sink);
+            return NOTHING_PENDING;
+        }
+        pending = text;
+        return wait;
+    }
+
+    /** Sends the pending partial, if any. Call from the timer and before the final result. */
+    void flush(long nowMs, Sink sink) {
+        if (pending != null) {
+            String text = pending;
+            pending = null;
+            emit(text, nowMs, sink);
+        }
+    }
+
+    /** Drops the pending partial, e.g. on error. */
+    void discard() {
+        if (pending != null) {
+            suppressedCount++;
+            pending = null;
+        }
+    }
+
+    int emittedCount() {
+        return emittedCount;
+    }
+
+    int suppressedCount() {
+        return suppressedCount;
+    }
+
+    private boolean isRedundant(String text) {
+        String latest = pending != null ? pending : lastEmitted;
+        return latest != null && latest.startsWith(text);
+    }
+
+    private void emit(String text, long nowMs, Sink sink) {
+        lastEmitted = text;
+        lastEmittedAt = nowMs;
+        hasEmitted = true;
+        emittedCount++;
+        sink.emit(text);
+    }
+}
@@ -0,0 +1,129 @@
+package app.xpensia.com.plugins.speechtotext;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+
+import java.util.ArrayDeque;
+
+/**
+ * Per-session latency of the recognizer, measured from the startListening
+ * call: until onReadyForSpeech, until the first partial hypothesis and until
+ * the final result. Keeps the most recent sessions for getMetrics.
+ */
+final class SpeechLatencyMetrics {
+    private static final int MAX_SESSIONS = 20;
+
+    static final class Session {
+        final long startedAt;
+        final boolean warm;
+        final String locale;
+        long readyMs = -1;
+        long firstPartialMs = -1;
+        long finalMs = -1;
+        String outcome = "pending";
+
+        Session(long startedAt, boolean warm, String locale) {
+            this.startedAt = startedAt;
+            this.warm = warm;
+            this.locale = locale;
+        }
+
+        JSObject toJSObject() {
+            JSObject obj = new JSObject();
+            obj.put("locale", locale);
+            obj.put("warm", warm);
+            obj.put("outcome", outcome);
+            putIfSet(obj, "readyMs", readyMs);
+            putIfSet(obj, "firstPartialMs", firstPartialMs);
+            putIfSet(obj, "finalMs", finalMs);
+            return obj;
+        }
+
+        private static void putIfSet(JSObject obj, String key, long value) {
+            if (value >= 0) {
+                obj.put(key, value);
+            }
+        }
+    }
+
+    private final ArrayDeque<Session> sessions = new ArrayDeque<>();
+    private Session current;
+    private int recognizersCreated;
+    private int warmStarts;
+
+    void onRecognizerCreated() {
+        recognizersCreated++;
+    }
+
+    void begin(long now, boolean warm, String locale) {
+        if (current != null) {
+            current.outcome = "cancelled";
+        }
+        current = new Session(now, warm, locale);
+        if (warm) {
+            warmStarts++;
+        }
+        sessions.addLast(current);
+        while (sessions.size() > MAX_SESSIONS) {
+            sessions.removeFirst();
+        }
+    }
+
+    void onReady(long now) {
+        if (current != null && current.readyMs < 0) {
+            current.readyMs = now - current.startedAt;
+        }
+    }
+
+    void onPartial(long now) {
+        if (current != null && current.firstPartialMs < 0) {
+            current.firstPartialMs = now - current.startedAt;
+        }
+    }
+
+    void onFinal(long now) {
+        if (current != null) {
+            current.finalMs = now - current.startedAt;
+            current.outcome = "result";
+            current = null;
+        }
+    }
+
+    void onError(String error) {
+        if (current != null) {
+            current.outcome = error;
+            current = null;
+        }
+    }
+
+    JSObject toJSObject() {
+        JSArray list = new JSArray();
+        long readySum = 0;
+        int readyCount = 0;
+        long finalSum = 0;
+        int finalCount = 0;
+        for (Session session : sessions) {
+            list.put(session.toJSObject());
+            if (session.readyMs >= 0) {
+                readySum += session.readyMs;
+                readyCount++;
+            }
+            if (session.finalMs >= 0) {
+                finalSum += session.finalMs;
+                finalCount++;
+            }
+        }
+
+        JSObject ret = new JSObject();
+        ret.put("recognizersCreated", recognizersCreated);
+        ret.put("warmStarts", warmStarts);
+        if (readyCount > 0) {
+            ret.put("avgReadyMs", readySum / readyCount);
+        }
+        if (finalCount > 0) {
+            ret.put("avgFinalMs", finalSum / finalCount);
+        }
+        ret.put("sessions", list);
+        return ret;
+    }
+}
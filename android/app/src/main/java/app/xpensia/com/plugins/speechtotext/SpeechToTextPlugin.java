@@ -4,6 +4,9 @@ import android.Manifest;
 import android.content.Intent;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.speech.RecognitionListener;
 import android.speech.RecognizerIntent;
 import android.speech.SpeechRecognizer;
@@ -28,12 +31,165 @@ import java.util.Locale;
 public class SpeechToTextPlugin extends Plugin {
 
     private static final String TAG = "SpeechToTextPlugin";
+    private static final long DEFAULT_PARTIAL_INTERVAL_MS = 150;
+    private static final long DEFAULT_IDLE_TIMEOUT_MS = 8000;
+
     private SpeechRecognizer speechRecognizer;
     private boolean isListening = false;
 
+    // The recognizer is kept warm between sessions and only rebuilt after an
+    // error or when the locale changes.
+    private String recognizerLocale;
+    private boolean recognizerDirty;
+    private Intent listeningIntent;
+    private Boolean onDeviceAvailable;
+    private final SpeechLatencyMetrics metrics = new SpeechLatencyMetrics();
+
+    // Recognizer callbacks and the flush timer both run on the main looper.
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private boolean parseTransactionEnabled = true;
+    private boolean parseAlternativesEnabled = false;
+    private PartialResultThrottler partialThrottler = new PartialResultThrottler(DEFAULT_PARTIAL_INTERVAL_MS);
+    private final PartialResultThrottler.Sink partialSink = this::emitPartial;
+    private final Runnable flushPartial = () -> partialThrottler.flush(SystemClock.uptimeMillis(), partialSink);
+
+    // Continuous dictation: one recognizer, restarted after every utterance
+    // until stopListening or idleTimeoutMs without speech.
+    private boolean continuousSession;
+    private boolean sessionStopping;
+    private boolean awaitingResult;
+    private int segmentSequence;
+    private final UtteranceRestartPolicy restartPolicy = new UtteranceRestartPolicy();
+    private long partialIntervalMs = DEFAULT_PARTIAL_INTERVAL_MS;
+    private long idleTimeoutMs = DEFAULT_IDLE_TIMEOUT_MS;
+    private final Runnable restartUtterance = () -> {
+        if (continuousSession) {
+            beginUtterance(SystemClock.elapsedRealtime(), true);
+        }
+    };
+    private final Runnable idleTimeout = () -> {
+        if (speechRecognizer != null) {
+            speechRecognizer.cancel();
+            isListening = false;
+            awaitingResult = false;
+        }
+        endSession("idle");
+    };
+
+    private void emitPartial(String text) {
+        JSObject event = new JSObject();
+        event.put("text", text);
+        event.put("isFinal", false);
+        event.put("confidence", 0.0);
+        notifyListeners("speechResult", event);
+    }
+
+    /**
+     * Runs the spoken-transaction parser over the recognizer's pick or, with
+     * parseAlternatives, over every N-best hypothesis and keeps the one that
+     * parses best.
+     *
+     * @return null when no hypothesis contains an amount
+     */
+    private JSObject parseTransaction(ArrayList<String> matches, int bestIdx) {
+        int chosen = bestIdx;
+        SpokenTransactionParser.Result result;
+        if (parseAlternativesEnabled && matches.size() > 1) {
+            // The recognizer's pick goes first so it wins ties.
+            ArrayList<Integer> order = new ArrayList<>(matches.size());
+            order.add(bestIdx);
+            for (int i = 0; i < matches.size(); i++) {
+                if (i != bestIdx) {
+                    order.add(i);
+                }
+            }
+            ArrayList<SpokenTransactionParser.Result> parsed = new ArrayList<>(order.size());
+            for (int idx : order) {
+                parsed.add(SpokenTransactionParser.parse(matches.get(idx)));
+            }
+            int picked = SpokenTransactionParser.pickBest(parsed);
+            if (picked < 0) {
+                return null;
+            }
+            result = parsed.get(picked);
+            chosen = order.get(picked);
+        } else {
+            result = SpokenTransactionParser.parse(matches.get(bestIdx));
+            if (!result.hasAmount()) {
+                return null;
+            }
+        }
+
+        JSObject transaction = new JSObject();
+        transaction.put("amount", result.amount);
+        transaction.put("type", result.type);
+        transaction.put("confidence", result.confidence);
+        transaction.put("hypothesisIndex", chosen);
+        transaction.put("text", matches.get(chosen));
+        if (result.currency != null) {
+            transaction.put("currency", result.currency);
+        }
+        if (result.merchant != null) {
+            transaction.put("merchant", result.merchant);
+        }
+        if (result.category != null) {
+            transaction.put("category", result.category);
+            transaction.put("subcategory", result.subcategory);
+        }
+        return transaction;
+    }
+
+    private void beginUtterance(long calledAt, boolean warm) {
+        mainHandler.removeCallbacks(flushPartial);
+        partialThrottler = new PartialResultThrottler(partialIntervalMs);
+        metrics.begin(calledAt, warm, recognizerLocale);
+        speechRecognizer.startListening(listeningIntent);
+        isListening = true;
+        awaitingResult = true;
+    }
+
+    private void armIdleTimeout() {
+        mainHandler.removeCallbacks(idleTimeout);
+        mainHandler.postDelayed(idleTimeout, idleTimeoutMs);
+    }
+
+    /**
+     * Listens again after {@code delay} ms, or ends the session if it is
+     * stopping or the delay is {@link UtteranceRestartPolicy#END_SESSION}.
+     */
+    private void continueSession(long delay) {
+        if (sessionStopping) {
+            endSession("stopped");
+        } else if (delay == UtteranceRestartPolicy.END_SESSION) {
+            endSession("idle");
+        } else {
+            mainHandler.postDelayed(restartUtterance, delay);
+        }
+    }
+
+    private void endSession(String reason) {
+        if (!continuousSession) {
+            return;
+        }
+        continuousSession = false;
+        sessionStopping = false;
+        mainHandler.removeCallbacks(idleTimeout);
+        mainHandler.removeCallbacks(restartUtterance);
+        Log.d(TAG, "Continuous session ended: " + reason + " segments=" + segmentSequence);
+
+        JSObject event = new JSObject();
+        event.put("status", "session_end");
+        event.put("reason", reason);
+        event.put("segments", segmentSequence);
+        notifyListeners("speechState", event);
+    }
+
     private SpeechRecognizer createRecognizer() {
         if (Build.VERSION.SDK_INT >= 31) {
-            if (SpeechRecognizer.isOnDeviceRecognitionAvailable(getContext())) {
+            if (onDeviceAvailable == null) {
+                onDeviceAvailable = SpeechRecognizer.isOnDeviceRecognitionAvailable(getContext());
+            }
+            if (onDeviceAvailable) {
                 Log.d(TAG, "Using on-device speech recognizer (API 31+)");
                 return SpeechRecognizer.createOnDeviceSpeechRecognizer(getContext());
             }
@@ -42,142 +198,232 @@ public class SpeechToTextPlugin extends Plugin {
         return SpeechRecognizer.createSpeechRecognizer(getContext());
     }
 
-    @PluginMethod
-    public void startListening(PluginCall call) {
-        if (!SpeechRecognizer.isRecognitionAvailable(getContext())) {
-            call.reject("Speech recognition is not available on this device");
-            return;
-        }
+    private static Intent buildIntent(String locale) {
+        Intent intent = new Intent(RecognizerIntent.ACTION_RECOGNIZE_SPEECH);
+        intent.putExtra(RecognizerIntent.EXTRA_LANGUAGE_MODEL, RecognizerIntent.LANGUAGE_MODEL_FREE_FORM);
+        intent.putExtra(RecognizerIntent.EXTRA_LANGUAGE, locale);
+        intent.putExtra(RecognizerIntent.EXTRA_LANGUAGE_PREFERENCE, locale);
+        intent.putExtra(RecognizerIntent.EXTRA_PARTIAL_RESULTS, true);
+        intent.putExtra(RecognizerIntent.EXTRA_MAX_RESULTS, 5);
+        intent.putExtra(RecognizerIntent.EXTRA_PREFER_OFFLINE, true);
+        return intent;
+    }
 
-        String locale = call.getString("locale", "en-US");
-        Log.d(TAG, "startListening with locale: " + locale);
+    private RecognitionListener newRecognitionListener() {
+        return new RecognitionListener() {
+            @Override
+            public void onReadyForSpeech(Bundle params) {
+                Log.d(TAG, "onReadyForSpeech");
+                metrics.onReady(SystemClock.elapsedRealtime());
+                JSObject event = new JSObject();
+                event.put("status", "ready");
+                notifyListeners("speechState", event);
+            }
 
-        getActivity().runOnUiThread(() -> {
-            try {
-                if (speechRecognizer != null) {
-                    speechRecognizer.destroy();
+            @Override
+            public void onBeginningOfSpeech() {
+                Log.d(TAG, "onBeginningOfSpeech");
+                restartPolicy.reset();
+                if (continuousSession && !sessionStopping) {
+                    armIdleTimeout();
                 }
+            }
 
-                speechRecognizer = createRecognizer();
-                speechRecognizer.setRecognitionListener(new RecognitionListener() {
-                    @Override
-                    public void onReadyForSpeech(Bundle params) {
-                        Log.d(TAG, "onReadyForSpeech");
-                        JSObject event = new JSObject();
-                        event.put("status", "ready");
-                        notifyListeners("speechState", event);
-                    }
+            @Override
+            public void onRmsChanged(float rmsdB) {}
 
-                    @Override
-                    public void onBeginningOfSpeech() {
-                        Log.d(TAG, "onBeginningOfSpeech");
-                    }
+            @Override
+            public void onBufferReceived(byte[] buffer) {}
 
-                    @Override
-                    public void onRmsChanged(float rmsdB) {}
+            @Override
+            public void onEndOfSpeech() {
+                Log.d(TAG, "onEndOfSpeech");
+                isListening = false;
+            }
 
-                    @Override
-                    public void onBufferReceived(byte[] buffer) {}
+            @Override
+            public void onError(int error) {
+                isListening = false;
+                awaitingResult = false;
+                mainHandler.removeCallbacks(flushPartial);
+                partialThrottler.discard();
+                String message;
+                switch (error) {
+                    case SpeechRecognizer.ERROR_NO_MATCH:
+                        message = "no_match";
+                        break;
+                    case SpeechRecognizer.ERROR_SPEECH_TIMEOUT:
+                        message = "speech_timeout";
+                        break;
+                    case SpeechRecognizer.ERROR_AUDIO:
+                        message = "audio_error";
+                        break;
+                    case SpeechRecognizer.ERROR_INSUFFICIENT_PERMISSIONS:
+                        message = "permission_denied";
+                        break;
+                    case SpeechRecognizer.ERROR_NETWORK:
+                    case SpeechRecognizer.ERROR_NETWORK_TIMEOUT:
+                        message = "network_error";
+                        break;
+                    default:
+                        message = "recognition_error";
+                        break;
+                }
+                Log.d(TAG, "onError: " + error + " -> " + message);
+                metrics.onError(message);
+                // No match and silence leave the service healthy; anything else may not.
+                boolean benign = error == SpeechRecognizer.ERROR_NO_MATCH || error == SpeechRecognizer.ERROR_SPEECH_TIMEOUT;
+                if (!benign) {
+                    recognizerDirty = true;
+                }
 
-                    @Override
-                    public void onEndOfSpeech() {
-                        Log.d(TAG, "onEndOfSpeech");
-                        isListening = false;
+                if (continuousSession) {
+                    if (sessionStopping || benign) {
+                        // Wrap up a stopping session, or listen again after silence.
+                        continueSession(restartPolicy.afterQuiet());
+                        return;
                     }
+                    endSession("error");
+                }
 
-                    @Override
-                    public void onError(int error) {
-                        isListening = false;
-                        String message;
-                        switch (error) {
-                            case SpeechRecognizer.ERROR_NO_MATCH:
-                                message = "no_match";
-                                break;
-                            case SpeechRecognizer.ERROR_SPEECH_TIMEOUT:
-                                message = "speech_timeout";
-                                break;
-                            case SpeechRecognizer.ERROR_AUDIO:
-                                message = "audio_error";
-                                break;
-                            case SpeechRecognizer.ERROR_INSUFFICIENT_PERMISSIONS:
-                                message = "permission_denied";
-                                break;
-                            case SpeechRecognizer.ERROR_NETWORK:
-                            case SpeechRecognizer.ERROR_NETWORK_TIMEOUT:
-                                message = "network_error";
-                                break;
-                            default:
-                                message = "recognition_error";
-                                break;
-                        }
-                        Log.d(TAG, "onError: " + error + " -> " + message);
+                JSObject event = new JSObject();
+                event.put("error", message);
+                notifyListeners("speechError", event);
+            }
 
-                        JSObject event = new JSObject();
-                        event.put("error", message);
-                        notifyListeners("speechError", event);
+            @Override
+            public void onResults(Bundle results) {
+                isListening = false;
+                awaitingResult = false;
+                // The last partial must never arrive after the final result.
+                mainHandler.removeCallbacks(flushPartial);
+                partialThrottler.flush(SystemClock.uptimeMillis(), partialSink);
+                metrics.onFinal(SystemClock.elapsedRealtime());
+                ArrayList<String> matches = results.getStringArrayList(SpeechRecognizer.RESULTS_RECOGNITION);
+                long restartDelay = restartPolicy.afterResults(matches);
+                if (matches == null || matches.isEmpty()) {
+                    if (continuousSession) {
+                        continueSession(restartDelay);
                     }
+                    return;
+                }
 
-                    @Override
-                    public void onResults(Bundle results) {
-                        isListening = false;
-                        ArrayList<String> matches = results.getStringArrayList(SpeechRecognizer.RESULTS_RECOGNITION);
-                        if (matches == null || matches.isEmpty()) {
-                            return;
-                        }
+                float[] scores = results.getFloatArray(SpeechRecognizer.CONFIDENCE_SCORES);
+                String bestText = matches.get(0);
+                float bestConfidence = 1.0f;
+                int bestIdx = 0;
 
-                        float[] scores = results.getFloatArray(SpeechRecognizer.CONFIDENCE_SCORES);
-                        String bestText = matches.get(0);
-                        float bestConfidence = 1.0f;
-
-                        if (scores != null && scores.length > 0) {
-                            int bestIdx = 0;
-                            bestConfidence = scores[0];
-                            for (int i = 1; i < Math.min(matches.size(), scores.length); i++) {
-                                if (scores[i] > bestConfidence) {
-                                    bestConfidence = scores[i];
-                                    bestIdx = i;
-                                }
-                            }
-                            bestText = matches.get(bestIdx);
-                            Log.d(TAG, "onResults: " + matches.size() + " alternatives, best[" + bestIdx + "]=\"" + bestText + "\" confidence=" + bestConfidence);
-                        } else {
-                            Log.d(TAG, "onResults: no confidence scores, using first match: " + bestText);
+                if (scores != null && scores.length > 0) {
+                    bestConfidence = scores[0];
+                    for (int i = 1; i < Math.min(matches.size(), scores.length); i++) {
+                        if (scores[i] > bestConfidence) {
+                            bestConfidence = scores[i];
+                            bestIdx = i;
                         }
+                    }
+                    bestText = matches.get(bestIdx);
+                    Log.d(TAG, "onResults: " + matches.size() + " alternatives, best[" + bestIdx + "]=\"" + bestText + "\" confidence=" + bestConfidence);
+                } else {
+                    Log.d(TAG, "onResults: no confidence scores, using first match: " + bestText);
+                }
 
-                        JSObject event = new JSObject();
-                        event.put("text", bestText);
-                        event.put("confidence", (double) bestConfidence);
-                        event.put("isFinal", true);
-                        notifyListeners("speechResult", event);
+                JSObject event = new JSObject();
+                event.put("text", bestText);
+                event.put("confidence", (double) bestConfidence);
+                event.put("isFinal", true);
+                event.put("partialsEmitted", partialThrottler.emittedCount());
+                event.put("partialsSuppressed", partialThrottler.suppressedCount());
+                if (continuousSession) {
+                    event.put("sequence", ++segmentSequence);
+                }
+                if (parseTransactionEnabled) {
+                    JSObject transaction = parseTransaction(matches, bestIdx);
+                    if (transaction != null) {
+                        event.put("transaction", transaction);
                     }
+                }
+                Log.d(TAG, "onResults: partials emitted=" + partialThrottler.emittedCount()
+                        + " suppressed=" + partialThrottler.suppressedCount());
+                notifyListeners("speechResult", event);
 
-                    @Override
-                    public void onPartialResults(Bundle partialResults) {
-                        ArrayList<String> matches = partialResults.getStringArrayList(SpeechRecognizer.RESULTS_RECOGNITION);
-                        if (matches != null && !matches.isEmpty()) {
-                            String text = matches.get(0);
-                            JSObject event = new JSObject();
-                            event.put("text", text);
-                            event.put("isFinal", false);
-                            event.put("confidence", 0.0);
-                            notifyListeners("speechResult", event);
-                        }
+                if (continuousSession) {
+                    if (!sessionStopping) {
+                        armIdleTimeout();
                     }
+                    continueSession(restartDelay);
+                }
+            }
+
+            @Override
+            public void onPartialResults(Bundle partialResults) {
+                ArrayList<String> matches = partialResults.getStringArrayList(SpeechRecognizer.RESULTS_RECOGNITION);
+                if (matches != null && !matches.isEmpty()) {
+                    metrics.onPartial(SystemClock.elapsedRealtime());
+                    if (continuousSession && !sessionStopping) {
+                        armIdleTimeout();
+                    }
+                    long delay = partialThrottler.offer(matches.get(0), SystemClock.uptimeMillis(), partialSink);
+                    mainHandler.removeCallbacks(flushPartial);
+                    if (delay != PartialResultThrottler.NOTHING_PENDING) {
+                        mainHandler.postDelayed(flushPartial, delay);
+                    }
+                }
+            }
+
+            @Override
+            public void onEvent(int eventType, Bundle params) {}
+        };
+    }
+
+    @PluginMethod
+    public void startListening(PluginCall call) {
+        if (!SpeechRecognizer.isRecognitionAvailable(getContext())) {
+            call.reject("Speech recognition is not available on this device");
+            return;
+        }
+
+        long calledAt = SystemClock.elapsedRealtime();
+        String locale = call.getString("locale", "en-US");
+        long partialIntervalOption = call.getLong("partialIntervalMs", DEFAULT_PARTIAL_INTERVAL_MS);
+        boolean continuousOption = call.getBoolean("continuous", false);
+        long idleTimeoutOption = call.getLong("idleTimeoutMs", DEFAULT_IDLE_TIMEOUT_MS);
+        boolean parseTransactionOption = call.getBoolean("parseTransaction", true);
+        boolean parseAlternativesOption = call.getBoolean("parseAlternatives", false);
+        Log.d(TAG, "startListening with locale: " + locale + " partialIntervalMs=" + partialIntervalOption
+                + " continuous=" + continuousOption);
 
-                    @Override
-                    public void onEvent(int eventType, Bundle params) {}
-                });
+        getActivity().runOnUiThread(() -> {
+            try {
+                endSession("restarted");
+                partialIntervalMs = partialIntervalOption;
+                idleTimeoutMs = idleTimeoutOption;
+                parseTransactionEnabled = parseTransactionOption;
+                parseAlternativesEnabled = parseAlternativesOption;
 
-                Intent intent = new Intent(RecognizerIntent.ACTION_RECOGNIZE_SPEECH);
-                intent.putExtra(RecognizerIntent.EXTRA_LANGUAGE_MODEL, RecognizerIntent.LANGUAGE_MODEL_FREE_FORM);
-                intent.putExtra(RecognizerIntent.EXTRA_LANGUAGE, locale);
-                intent.putExtra(RecognizerIntent.EXTRA_LANGUAGE_PREFERENCE, locale);
-                intent.putExtra(RecognizerIntent.EXTRA_PARTIAL_RESULTS, true);
-                intent.putExtra(RecognizerIntent.EXTRA_MAX_RESULTS, 5);
-                intent.putExtra(RecognizerIntent.EXTRA_PREFER_OFFLINE, true);
+                boolean warm = speechRecognizer != null && !recognizerDirty && locale.equals(recognizerLocale);
+                if (warm) {
+                    // A session may still be awaiting results after end of speech.
+                    speechRecognizer.cancel();
+                } else {
+                    if (speechRecognizer != null) {
+                        speechRecognizer.destroy();
+                    }
+                    speechRecognizer = createRecognizer();
+                    speechRecognizer.setRecognitionListener(newRecognitionListener());
+                    recognizerLocale = locale;
+                    recognizerDirty = false;
+                    listeningIntent = buildIntent(locale);
+                    metrics.onRecognizerCreated();
+                }
+                Log.d(TAG, "startListening: " + (warm ? "reusing warm recognizer" : "created recognizer"));
 
-                speechRecognizer.startListening(intent);
-                isListening = true;
+                beginUtterance(calledAt, warm);
+                if (continuousOption) {
+                    continuousSession = true;
+                    segmentSequence = 0;
+                    restartPolicy.reset();
+                    armIdleTimeout();
+                }
                 call.resolve();
             } catch (Exception e) {
                 Log.e(TAG, "Failed to start listening", e);
@@ -190,6 +436,16 @@ public class SpeechToTextPlugin extends Plugin {
     public void stopListening(PluginCall call) {
         getActivity().runOnUiThread(() -> {
             try {
+                if (continuousSession) {
+                    mainHandler.removeCallbacks(restartUtterance);
+                    mainHandler.removeCallbacks(idleTimeout);
+                    if (awaitingResult) {
+                        // The utterance in progress still gets its sequence number.
+                        sessionStopping = true;
+                    } else {
+                        endSession("stopped");
+                    }
+                }
                 if (speechRecognizer != null && isListening) {
                     speechRecognizer.stopListening();
                     isListening = false;
@@ -209,8 +465,17 @@ public class SpeechToTextPlugin extends Plugin {
         call.resolve(result);
     }
 
+    @PluginMethod
+    public void getMetrics(PluginCall call) {
+        getActivity().runOnUiThread(() -> call.resolve(metrics.toJSObject()));
+    }
+
     @Override
     protected void handleOnDestroy() {
+        mainHandler.removeCallbacks(flushPartial);
+        mainHandler.removeCallbacks(restartUtterance);
+        mainHandler.removeCallbacks(idleTimeout);
+        continuousSession = false;
         if (speechRecognizer != null) {
             speechRecognizer.destroy();
             speechRecognizer = null;
@@ -0,0 +1,466 @@
+package app.xpensia.com.plugins.speechtotext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Turns a spoken phrase ("paid fifty riyals at Starbucks", "دفعت خمسين ريال
+ * في المطعم") into transaction hints. Keyword banks mirror
+ * src/lib/freeform-entry/freeformParser.ts; on top of that, Arabic and
+ * English number words are folded into an amount since recognizers often
+ * spell small numbers out.
+ */
+final class SpokenTransactionParser {
+
+    static final class Result {
+        double amount;
+        /** ISO code, or null when no currency was spoken. */
+        String currency;
+        String type = "expense";
+        String merchant;
+        String category;
+        String subcategory;
+        double confidence;
+
+        boolean hasAmount() {
+            return amount > 0;
+        }
+    }
+
+    private static final Map<String, Integer> UNITS = new HashMap<>();
+    private static final Map<String, Integer> TENS = new HashMap<>();
+    private static final Map<String, Integer> HUNDREDS = new HashMap<>();
+    // Multipliers applied to the group before them: "three hundred", "خمس الاف".
+    private static final Map<String, Integer> SCALES = new HashMap<>();
+    // Self-contained amounts that never take a multiplier: "ألفين", "مليونين".
+    private static final Map<String, Integer> FIXED_THOUSANDS = new HashMap<>();
+
+    private static final Map<String, String> CURRENCIES = new HashMap<>();
+    private static final Map<String, String[]> CATEGORIES = new HashMap<>();
+
+    private static final Set<String> EXPENSE_VERBS = new HashSet<>();
+    private static final Set<String> INCOME_VERBS = new HashSet<>();
+    private static final Set<String> TRANSFER_VERBS = new HashSet<>();
+    private static final Set<String> MERCHANT_MARKERS = new HashSet<>();
+    private static final Set<String> CONNECTORS = new HashSet<>();
+    private static final Set<String> STOP_WORDS = new HashSet<>();
+
+    static {
+        String[][] units = {
+            {"zero", "0"}, {"one", "1"}, {"two", "2"}, {"three", "3"}, {"four", "4"},
+            {"five", "5"}, {"six", "6"}, {"seven", "7"}, {"eight", "8"}, {"nine", "9"},
+            {"ten", "10"}, {"eleven", "11"}, {"twelve", "12"}, {"thirteen", "13"},
+            {"fourteen", "14"}, {"fifteen", "15"}, {"sixteen", "16"}, {"seventeen", "17"},
+            {"eighteen", "18"}, {"nineteen", "19"},
+            {"صفر", "0"}, {"واحد", "1"}, {"واحدة", "1"}, {"اثنين", "2"}, {"اثنان", "2"},
+            {"اتنين", "2"}, {"ثلاث", "3"}, {"ثلاثة", "3"}, {"تلات", "3"}, {"تلاتة", "3"},
+            {"أربع", "4"}, {"أربعة", "4"}, {"خمس", "5"}, {"خمسة", "5"}, {"ست", "6"},
+            {"ستة", "6"}, {"سبع", "7"}, {"سبعة", "7"}, {"ثمان", "8"}, {"ثمانية", "8"},
+            {"ثماني", "8"}, {"تمنية", "8"}, {"تسع", "9"}, {"تسعة", "9"}, {"عشر", "10"},
+            {"عشرة", "10"}, {"احدعش", "11"}, {"حداشر", "11"}, {"اتناشر", "12"},
+            {"تلتاشر", "13"}, {"أربعتاشر", "14"}, {"خمستاشر", "15"}, {"ستاشر", "16"},
+            {"سبعتاشر", "17"}, {"تمنتاشر", "18"}, {"تسعتاشر", "19"},
+        };
+        for (String[] u : units) {
+            UNITS.put(normalize(u[0]), Integer.parseInt(u[1]));
+        }
+
+        String[][] tens = {
+            {"twenty", "20"}, {"thirty", "30"}, {"forty", "40"}, {"fifty", "50"},
+            {"sixty", "60"}, {"seventy", "70"}, {"eighty", "80"}, {"ninety", "90"},
+            {"عشرين", "20"}, {"عشرون", "20"}, {"ثلاثين", "30"}, {"تلاتين", "30"},
+            {"أربعين", "40"}, {"خمسين", "50"}, {"ستين", "60"}, {"سبعين", "70"},
+            {"ثمانين", "80"}, {"تمانين", "80"}, {"تسعين", "90"},
+        };
+        for (String[] t : tens) {
+            TENS.put(normalize(t[0]), Integer.parseInt(t[1]));
+        }
+
+        String[][] hundreds = {
+            {"مئتين", "200"}, {"مائتين", "200"}, {"ميتين", "200"}, {"مائتان", "200"},
+            {"ثلاثمائة", "300"}, {"ثلاثمية", "300"}, {"تلتمية", "300"},
+            {"أربعمائة", "400"}, {"أربعمية", "400"}, {"خمسمائة", "500"}, {"خمسمية", "500"},
+            {"ستمائة", "600"}, {"ستمية", "600"}, {"سبعمائة", "700"}, {"سبعمية", "700"},
+            {"ثمانمائة", "800"}, {"تمنمية", "800"}, {"تسعمائة", "900"}, {"تسعمية", "900"},
+        };
+        for (String[] h : hundreds) {
+            HUNDREDS.put(normalize(h[0]), Integer.parseInt(h[1]));
+        }
+
+        String[][] scales = {
+            {"hundred", "100"}, {"thousand", "1000"}, {"million", "1000000"},
+            {"مائة", "100"}, {"مئة", "100"}, {"مية", "100"}, {"ميه", "100"},
+            {"ألف", "1000"}, {"آلاف", "1000"}, {"مليون", "1000000"}, {"ملايين", "1000000"},
+        };
+        for (String[] s : scales) {
+            SCALES.put(normalize(s[0]), Integer.parseInt(s[1]));
+        }
+        FIXED_THOUSANDS.put(normalize("ألفين"), 2000);
+        FIXED_THOUSANDS.put(normalize("ألفان"), 2000);
+        FIXED_THOUSANDS.put(normalize("مليونين"), 2000000);
+
+        String[][] currencies = {
+            {"sar", "SAR"}, {"riyal", "SAR"}, {"riyals", "SAR"}, {"ريال", "SAR"}, {"ريالات", "SAR"},
+            {"usd", "USD"}, {"dollar", "USD"}, {"dollars", "USD"}, {"دولار", "USD"},
+            {"aed", "AED"}, {"dirham", "AED"}, {"dirhams", "AED"}, {"درهم", "AED"},
+            {"egp", "EGP"}, {"جنيه", "EGP"}, {"pound", "EGP"}, {"pounds", "EGP"},
+            {"eur", "EUR"}, {"euro", "EUR"}, {"euros", "EUR"}, {"يورو", "EUR"},
+            {"gbp", "GBP"}, {"kwd", "KWD"}, {"bhd", "BHD"}, {"qar", "QAR"}, {"omr", "OMR"},
+            {"jod", "JOD"}, {"دينار", "KWD"},
+        };
+        for (String[] c : currencies) {
+            CURRENCIES.put(normalize(c[0]), c[1]);
+        }
+
+        String[][] categories = {
+            {"coffee", "Food", "Coffee"}, {"قهوة", "Food", "Coffee"},
+            {"restaurant", "Food", "Restaurants"}, {"مطعم", "Food", "Restaurants"},
+            {"lunch", "Food", "Restaurants"}, {"dinner", "Food", "Restaurants"},
+            {"غداء", "Food", "Restaurants"}, {"عشاء", "Food", "Restaurants"},
+            {"groceries", "Groceries", "none"}, {"بقالة", "Groceries", "none"},
+            {"سوبرماركت", "Groceries", "none"}, {"supermarket", "Groceries", "none"},
+            {"gas", "Transportation", "Fuel"}, {"fuel", "Transportation", "Fuel"},
+            {"بنزين", "Transportation", "Fuel"}, {"petrol", "Transportation", "Fuel"},
+            {"uber", "Transportation", "Ride"}, {"taxi", "Transportation", "Ride"},
+            {"salary", "Income", "Salary"}, {"راتب", "Income", "Salary"},
+            {"bonus", "Income", "Bonus"}, {"مكافأة", "Income", "Bonus"},
+            {"electricity", "Utilities", "Electricity"}, {"كهرباء", "Utilities", "Electricity"},
+            {"water", "Utilities", "Water"}, {"ماء", "Utilities", "Water"},
+            {"internet", "Utilities", "Internet"}, {"انترنت", "Utilities", "Internet"},
+            {"pharmacy", "Health", "Pharmacy"}, {"صيدلية", "Health", "Pharmacy"},
+            {"doctor", "Health", "Doctor"}, {"دكتور", "Health", "Doctor"},
+        };
+        for (String[] c : categories) {
+            CATEGORIES.put(normalize(c[0]), new String[]{ c[1], c[2] });
+        }
+
+        addAll(EXPENSE_VERBS, "paid", "purchase", "purchased", "bought", "spent", "buy",
+                "دفعت", "شراء", "اشتريت", "صرفت");
+        addAll(INCOME_VERBS, "salary", "credited", "received", "earned", "bonus", "income",
+                "راتب", "دخل", "استلمت", "مكافأة", "ايراد", "إيراد");
+        addAll(TRANSFER_VERBS, "transfer", "transferred", "sent", "remittance", "remit",
+                "حولت", "حوالة", "تحويل", "أرسلت", "ارسلت");
+        addAll(MERCHANT_MARKERS, "at", "from", "to", "in", "في", "عند", "من", "إلى", "الى", "لـ");
+        addAll(CONNECTORS, "and", "و");
+        addAll(STOP_WORDS, "a", "an", "the", "for", "on", "my", "today", "yesterday",
+                "اليوم", "أمس", "امس", "امبارح", "على", "حق");
+    }
+
+    private SpokenTransactionParser() {}
+
+    /**
+     * @return hints for {@code text}; {@link Result#hasAmount()} is false when
+     *         no amount could be heard
+     */
+    static Result parse(String text) {
+        Result result = new Result();
+        if (text == null || text.trim().isEmpty()) {
+            return result;
+        }
+
+        List<String> display = new ArrayList<>();
+        List<String> tokens = tokenize(text, display);
+        boolean[] consumed = new boolean[tokens.size()];
+
+        int currencyIdx = -1;
+        for (int i = 0; i < tokens.size(); i++) {
+            String code = CURRENCIES.get(tokens.get(i));
+            if (code != null) {
+                result.currency = code;
+                currencyIdx = i;
+                consumed[i] = true;
+                break;
+            }
+        }
+
+        // Prefer the number group next to the spoken currency, else the first one.
+        List<int[]> spans = findNumberSpans(tokens);
+        int[] chosen = null;
+        for (int[] span : spans) {
+            if (currencyIdx >= 0 && (span[1] == currencyIdx || span[0] == currencyIdx + 1)) {
+                chosen = span;
+                break;
+            }
+        }
+        if (chosen == null && !spans.isEmpty()) {
+            chosen = spans.get(0);
+        }
+        if (chosen != null) {
+            result.amount = evaluate(tokens.subList(chosen[0], chosen[1]));
+            for (int i = chosen[0]; i < chosen[1]; i++) {
+                consumed[i] = true;
+            }
+        }
+
+        double typeConfidence = 0.4;
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            if (INCOME_VERBS.contains(token)) {
+                result.type = "income";
+                typeConfidence = 0.85;
+                consumed[i] = true;
+                break;
+            }
+            if (TRANSFER_VERBS.contains(token)) {
+                result.type = "transfer";
+                typeConfidence = 0.8;
+                consumed[i] = true;
+                break;
+            }
+            if (EXPENSE_VERBS.contains(token)) {
+                typeConfidence = 0.85;
+                consumed[i] = true;
+                break;
+            }
+        }
+
+        double categoryConfidence = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            String[] category = CATEGORIES.get(token);
+            if (category == null && token.startsWith("ال")) {
+                category = CATEGORIES.get(token.substring(2));
+            }
+            if (category != null) {
+                result.category = category[0];
+                result.subcategory = category[1];
+                categoryConfidence = 0.7;
+                consumed[i] = true;
+                break;
+            }
+        }
+        if (result.category == null && "income".equals(result.type)) {
+            result.category = "Income";
+            categoryConfidence = 0.6;
+        }
+
+        double merchantConfidence = 0;
+        String merchant = merchantAfterMarker(tokens, display, consumed);
+        if (merchant != null) {
+            merchantConfidence = 0.75;
+        } else {
+            merchant = residue(tokens, display, consumed);
+            merchantConfidence = merchant != null ? 0.4 : 0;
+        }
+        result.merchant = merchant;
+
+        if (result.hasAmount()) {
+            result.confidence = Math.round((0.95 * 0.4
+                    + typeConfidence * 0.2
+                    + (result.currency != null ? 0.9 : 0.3) * 0.1
+                    + categoryConfidence * 0.15
+                    + merchantConfidence * 0.15) * 100) / 100.0;
+        }
+        return result;
+    }
+
+    /**
+     * Picks the most useful hypothesis from an N-best list: the highest
+     * parse confidence, ties going to the recognizer's own ranking.
+     *
+     * @return index into {@code hypotheses}, or -1 if none has an amount
+     */
+    static int pickBest(List<Result> hypotheses) {
+        int best = -1;
+        for (int i = 0; i < hypotheses.size(); i++) {
+            Result r = hypotheses.get(i);
+            if (r.hasAmount() && (best < 0 || r.confidence > hypotheses.get(best).confidence)) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private static List<int[]> findNumberSpans(List<String> tokens) {
+        List<int[]> spans = new ArrayList<>();
+        int i = 0;
+        while (i < tokens.size()) {
+            if (!isNumberToken(tokens.get(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            int end = i + 1;
+            while (end < tokens.size()) {
+                if (isNumberToken(tokens.get(end))) {
+                    end++;
+                } else if (CONNECTORS.contains(tokens.get(end))
+                        && end + 1 < tokens.size() && isNumberToken(tokens.get(end + 1))) {
+                    end += 2;
+                } else {
+                    break;
+                }
+            }
+            spans.add(new int[]{ start, end });
+            i = end;
+        }
+        return spans;
+    }
+
+    private static boolean isNumberToken(String token) {
+        return parseDigits(token) >= 0
+                || UNITS.containsKey(token)
+                || TENS.containsKey(token)
+                || HUNDREDS.containsKey(token)
+                || SCALES.containsKey(token)
+                || FIXED_THOUSANDS.containsKey(token);
+    }
+
+    /** Left-to-right fold: values add to the current group, scales multiply it. */
+    static double evaluate(List<String> tokens) {
+        double total = 0;
+        double group = 0;
+        for (String token : tokens) {
+            if (CONNECTORS.contains(token)) {
+                continue;
+            }
+            double digits = parseDigits(token);
+            Integer value;
+            if (digits >= 0) {
+                group += digits;
+            } else if ((value = UNITS.get(token)) != null
+                    || (value = TENS.get(token)) != null
+                    || (value = HUNDREDS.get(token)) != null) {
+                group += value;
+            } else if ((value = FIXED_THOUSANDS.get(token)) != null) {
+                total += value;
+            } else if ((value = SCALES.get(token)) != null) {
+                if (value == 100) {
+                    group = (group == 0 ? 1 : group) * 100;
+                } else {
+                    total += (group == 0 ? 1 : group) * value;
+                    group = 0;
+                }
+            }
+        }
+        return total + group;
+    }
+
+    private static double parseDigits(String token) {
+        if (token.isEmpty() || !Character.isDigit(token.charAt(0))) {
+            return -1;
+        }
+        try {
+            double value = Double.parseDouble(token);
+            return value > 0 && value < 10_000_000 ? value : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static String merchantAfterMarker(List<String> tokens, List<String> display, boolean[] consumed) {
+        for (int i = 0; i < tokens.size() - 1; i++) {
+            if (!MERCHANT_MARKERS.contains(tokens.get(i))) {
+                continue;
+            }
+            StringBuilder name = new StringBuilder();
+            for (int j = i + 1; j < tokens.size() && j <= i + 3; j++) {
+                String token = tokens.get(j);
+                if (consumed[j] || MERCHANT_MARKERS.contains(token) || STOP_WORDS.contains(token)) {
+                    break;
+                }
+                if (name.length() > 0) {
+                    name.append(' ');
+                }
+                name.append(display.get(j));
+                consumed[j] = true;
+            }
+            if (name.length() > 0) {
+                consumed[i] = true;
+                return name.toString();
+            }
+        }
+        return null;
+    }
+
+    private static String residue(List<String> tokens, List<String> display, boolean[] consumed) {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            if (consumed[i] || CONNECTORS.contains(token) || STOP_WORDS.contains(token)
+                    || MERCHANT_MARKERS.contains(token)) {
+                continue;
+            }
+            if (name.length() > 0) {
+                name.append(' ');
+            }
+            name.append(display.get(i));
+        }
+        return name.length() > 0 ? name.toString() : null;
+    }
+
+    /**
+     * Splits into normalized tokens used for matching; {@code display}
+     * receives the same tokens as spoken, for the merchant name.
+     */
+    private static List<String> tokenize(String text, List<String> display) {
+        List<String> tokens = new ArrayList<>();
+        // Drop digit-group separators first so "1,500" stays one token.
+        String cleaned = text.replaceAll("(\\d)[,٬](?=\\d{3})", "$1");
+        for (String raw : cleaned.split("[\\s,،؛;:!?()]+")) {
+            String spoken = raw.endsWith(".") ? raw.substring(0, raw.length() - 1) : raw;
+            String token = normalize(spoken);
+            if (token.isEmpty()) {
+                continue;
+            }
+            if (token.length() > 1 && token.charAt(0) == '$') {
+                tokens.add(token.substring(1));
+                display.add(spoken.substring(1));
+                tokens.add("usd");
+                display.add("$");
+                continue;
+            }
+            // Arabic attaches "و" (and) to the next word: "وعشرين", "ومية".
+            if (token.length() > 2 && token.charAt(0) == 'و' && isNumberToken(token.substring(1))) {
+                tokens.add("و");
+                display.add("و");
+                token = token.substring(1);
+                spoken = spoken.substring(1);
+            }
+            tokens.add(token);
+            display.add(spoken);
+        }
+        return tokens;
+    }
+
+    /**
+     * Lower-cases, maps Arabic-Indic digits to ASCII and folds the Arabic
+     * spelling variants recognizers mix freely (hamza forms, taa marbuta,
+     * alif maqsura, tatweel, diacritics).
+     */
+    static String normalize(String text) {
+        StringBuilder out = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '٠' && c <= '٩') {
+                out.append((char) ('0' + (c - '٠')));
+            } else if (c >= '۰' && c <= '۹') {
+                out.append((char) ('0' + (c - '۰')));
+            } else if (c == '٫') {
+                out.append('.');
+            } else if (c == 'أ' || c == 'إ' || c == 'آ') {
+                out.append('ا');
+            } else if (c == 'ة') {
+                out.append('ه');
+            } else if (c == 'ى') {
+                out.append('ي');
+            } else if (c == 'ـ' || (c >= 'ً' && c <= 'ْ')) {
+                // tatweel and harakat carry no meaning here
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString().toLowerCase(Locale.ROOT);
+    }
+
+    private static void addAll(Set<String> set, String... words) {
+        for (String word : words) {
+            set.add(normalize(word));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package app.xpensia.com.plugins.speechtotext;
+
+import java.util.List;
+
+/**
+ * Decides when a continuous session listens again after an utterance ends.
+ * An utterance with text restarts promptly. Silence, no match and an empty
+ * final result back off from {@link #QUIET_BASE_MS}, doubling up to
+ * {@link #QUIET_MAX_MS}, so a recognizer that fails fast does not spin until
+ * the idle timer; after {@link #MAX_QUIET_RESTARTS} in a row the session ends.
+ */
+final class UtteranceRestartPolicy {
+    static final long END_SESSION = -1;
+    // Some recognizer services report busy if restarted from inside onResults.
+    static final long RESTART_DELAY_MS = 50;
+    static final long QUIET_BASE_MS = 250;
+    static final long QUIET_MAX_MS = 2000;
+    static final int MAX_QUIET_RESTARTS = 6;
+
+    // Back-to-back restarts without speech.
+    private int quietRestarts;
+
+    /** Call at session start and whenever speech is heard. */
+    void reset() {
+        quietRestarts = 0;
+    }
+
+    /**
+     * @param matches the final result's hypotheses; some recognizers report a
+     *                silent utterance as an empty result, not ERROR_NO_MATCH
+     * @return restart delay in ms, or {@link #END_SESSION}
+     */
+    long afterResults(List<String> matches) {
+        if (matches == null || matches.isEmpty()) {
+            return afterQuiet();
+        }
+        quietRestarts = 0;
+        return RESTART_DELAY_MS;
+    }
+
+    /** @return restart delay in ms after silence or no match, or {@link #END_SESSION} */
+    long afterQuiet() {
+        if (quietRestarts >= MAX_QUIET_RESTARTS) {
+            return END_SESSION;
+        }
+        long delay = Math.min(QUIET_BASE_MS << quietRestarts, QUIET_MAX_MS);
+        quietRestarts++;
+        return delay;
+    }
+}
@@ -0,0 +1,45 @@
+package app.xpensia.com.plugins.sharetarget;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class DelimitedTextReaderTest {
+
+    @Test
+    public void detectsSemicolonAndHandlesQuotedNewlines() throws IOException {
+        DelimitedTextReader reader = new DelimitedTextReader(new StringReader(
+                "\uFEFFDate;Description;Amount\r\n"
+                        + "2024-01-02;\"Coffee; large\";12,50\r\n"
+                        + "2024-01-03;\"Two\nlines \"\"quoted\"\"\";99\n"));
+
+        assertEquals(';', reader.delimiter());
+        assertEquals(Arrays.asList("Date", "Description", "Amount"), reader.nextRow());
+        assertEquals(Arrays.asList("2024-01-02", "Coffee; large", "12,50"), reader.nextRow());
+        assertEquals(Arrays.asList("2024-01-03", "Two\nlines \"quoted\"", "99"), reader.nextRow());
+        assertNull(reader.nextRow());
+        assertEquals(3, reader.rowsRead());
+    }
+
+    @Test
+    public void prefersDelimiterWithConsistentCountPerLine() {
+        String sample = "date\tamount\tnote\n2024-01-01\t1,000\tsalary, bonus\n2024-01-02\t20\tlunch\n";
+
+        assertEquals('\t', DelimitedTextReader.detectDelimiter(sample));
+    }
+
+    @Test
+    public void plainTextHasNoDelimiterAndSkipsBlankLines() throws IOException {
+        DelimitedTextReader reader = new DelimitedTextReader(new StringReader("first line\n\n  \nsecond line"));
+
+        assertEquals(DelimitedTextReader.NO_DELIMITER, reader.delimiter());
+        assertEquals(Arrays.asList("first line"), reader.nextRow());
+        assertEquals(Arrays.asList("second line"), reader.nextRow());
+        assertNull(reader.nextRow());
+    }
+}
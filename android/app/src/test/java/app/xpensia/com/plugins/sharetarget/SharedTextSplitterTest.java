@@ -0,0 +1,39 @@
+package app.xpensia.com.plugins.sharetarget;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class SharedTextSplitterTest {
+
+    @Test
+    public void keepsMultiLineMessageTogether() {
+        String sms = "شراء\nبـSAR 4\nلـSaba Restaurant\n26/3/10 23:49";
+
+        assertEquals(Arrays.asList(sms), SharedTextSplitter.split(sms));
+    }
+
+    @Test
+    public void splitsOnBlankAndSeparatorLines() {
+        List<String> parts = SharedTextSplitter.split(
+                "Purchase SAR 10 at A\n2024-01-01\n\n  \nPurchase SAR 20 at B\n-----\nPurchase SAR 30 at C\n");
+
+        assertEquals(Arrays.asList(
+                "Purchase SAR 10 at A\n2024-01-01",
+                "Purchase SAR 20 at B",
+                "Purchase SAR 30 at C"), parts);
+    }
+
+    @Test
+    public void capsCandidateCount() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < SharedTextSplitter.MAX_CANDIDATES + 5; i++) {
+            text.append("message ").append(i).append("\n\n");
+        }
+
+        assertEquals(SharedTextSplitter.MAX_CANDIDATES, SharedTextSplitter.split(text.toString()).size());
+    }
+}
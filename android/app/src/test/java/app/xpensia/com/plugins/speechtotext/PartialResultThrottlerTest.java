@@ -0,0 +1,54 @@
+package app.xpensia.com.plugins.speechtotext;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class PartialResultThrottlerTest {
+
+    private final List<String> emitted = new ArrayList<>();
+    private final PartialResultThrottler.Sink sink = emitted::add;
+
+    @Test
+    public void dropsIdenticalAndPrefixOnlyUpdates() {
+        PartialResultThrottler throttler = new PartialResultThrottler(0);
+
+        throttler.offer("paid fifty", 0, sink);
+        throttler.offer("paid fifty", 10, sink);
+        throttler.offer("paid", 20, sink);
+        throttler.offer("paid fifty riyals", 30, sink);
+
+        assertEquals(Arrays.asList("paid fifty", "paid fifty riyals"), emitted);
+        assertEquals(2, throttler.suppressedCount());
+    }
+
+    @Test
+    public void keepsOnlyNewestPartialWithinInterval() {
+        PartialResultThrottler throttler = new PartialResultThrottler(100);
+
+        throttler.offer("a", 0, sink);
+        assertEquals(60, throttler.offer("ab", 40, sink));
+        assertEquals(30, throttler.offer("abc", 70, sink));
+        throttler.flush(100, sink);
+
+        assertEquals(Arrays.asList("a", "abc"), emitted);
+        assertEquals(1, throttler.suppressedCount());
+    }
+
+    @Test
+    public void flushBeforeFinalDeliversPendingPartial() {
+        PartialResultThrottler throttler = new PartialResultThrottler(1000);
+
+        throttler.offer("lunch", 0, sink);
+        throttler.offer("lunch at", 5, sink);
+        throttler.flush(6, sink);
+        throttler.flush(7, sink);
+
+        assertEquals(Arrays.asList("lunch", "lunch at"), emitted);
+        assertEquals(2, throttler.emittedCount());
+    }
+}
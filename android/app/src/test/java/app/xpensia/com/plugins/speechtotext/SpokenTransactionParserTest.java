@@ -0,0 +1,67 @@
+package app.xpensia.com.plugins.speechtotext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class SpokenTransactionParserTest {
+
+    @Test
+    public void parsesEnglishNumberWordsCurrencyAndMerchant() {
+        SpokenTransactionParser.Result r = SpokenTransactionParser.parse("paid fifty riyals at Starbucks");
+
+        assertEquals(50.0, r.amount, 0.0);
+        assertEquals("SAR", r.currency);
+        assertEquals("expense", r.type);
+        assertEquals("Starbucks", r.merchant);
+    }
+
+    @Test
+    public void parsesArabicNumberWordsWithAttachedConjunction() {
+        SpokenTransactionParser.Result r = SpokenTransactionParser.parse("دفعت خمسة وعشرين ريال في المطعم");
+
+        assertEquals(25.0, r.amount, 0.0);
+        assertEquals("SAR", r.currency);
+        assertEquals("Food", r.category);
+        assertEquals("Restaurants", r.subcategory);
+    }
+
+    @Test
+    public void foldsScalesAndFixedThousands() {
+        assertEquals(2500.0, SpokenTransactionParser.parse("two thousand five hundred dollars").amount, 0.0);
+        assertEquals(2500.0, SpokenTransactionParser.parse("ألفين وخمسمية ريال").amount, 0.0);
+        assertEquals(3000.0, SpokenTransactionParser.parse("ثلاث آلاف درهم").amount, 0.0);
+        assertEquals(1500.0, SpokenTransactionParser.parse("spent 1,500 on groceries").amount, 0.0);
+        assertEquals(120.0, SpokenTransactionParser.parse("بنزين ١٢٠").amount, 0.0);
+    }
+
+    @Test
+    public void prefersNumberNextToCurrency() {
+        SpokenTransactionParser.Result r = SpokenTransactionParser.parse("2 coffees for 30 riyals");
+
+        assertEquals(30.0, r.amount, 0.0);
+        assertEquals("SAR", r.currency);
+    }
+
+    @Test
+    public void reportsNoAmountWhenNothingNumeric() {
+        SpokenTransactionParser.Result r = SpokenTransactionParser.parse("coffee at the mall");
+
+        assertFalse(r.hasAmount());
+        assertNull(r.currency);
+    }
+
+    @Test
+    public void pickBestPrefersParsableHypothesis() {
+        int best = SpokenTransactionParser.pickBest(Arrays.asList(
+                SpokenTransactionParser.parse("paid fifteen at"),
+                SpokenTransactionParser.parse("paid fifty riyals at Jarir"),
+                SpokenTransactionParser.parse("pay the fifty")));
+
+        assertEquals(1, best);
+    }
+}
@@ -0,0 +1,45 @@
+package app.xpensia.com.plugins.speechtotext;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class UtteranceRestartPolicyTest {
+
+    @Test
+    public void emptyFinalResultRestartsWithBackoff() {
+        UtteranceRestartPolicy policy = new UtteranceRestartPolicy();
+
+        assertEquals(250, policy.afterResults(Collections.emptyList()));
+        assertEquals(500, policy.afterResults(null));
+        assertEquals(1000, policy.afterQuiet());
+    }
+
+    @Test
+    public void resultWithTextRestartsPromptlyAndClearsBackoff() {
+        UtteranceRestartPolicy policy = new UtteranceRestartPolicy();
+        policy.afterQuiet();
+        policy.afterQuiet();
+
+        assertEquals(UtteranceRestartPolicy.RESTART_DELAY_MS, policy.afterResults(Arrays.asList("paid fifty")));
+        assertEquals(250, policy.afterResults(Collections.emptyList()));
+    }
+
+    @Test
+    public void endsSessionAfterTooManyQuietUtterances() {
+        UtteranceRestartPolicy policy = new UtteranceRestartPolicy();
+        long[] delays = new long[UtteranceRestartPolicy.MAX_QUIET_RESTARTS];
+        for (int i = 0; i < delays.length; i++) {
+            delays[i] = policy.afterResults(Collections.emptyList());
+        }
+
+        assertEquals(UtteranceRestartPolicy.QUIET_MAX_MS, delays[delays.length - 1]);
+        assertEquals(UtteranceRestartPolicy.END_SESSION, policy.afterResults(Collections.emptyList()));
+
+        policy.reset();
+        assertEquals(250, policy.afterQuiet());
+    }
+}
@@ -9,6 +9,7 @@ import android.content.IntentFilter;
 import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
 import android.os.Build;
+import android.os.SystemClock;
 import android.provider.Telephony;
 import android.telephony.SmsMessage;
 import android.util.Log;
@@ -17,13 +18,31 @@ import android.content.ComponentName;
 import androidx.core.content.ContextCompat;
 
 
+import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
+import com.getcapacitor.PermissionState;
 import com.getcapacitor.Plugin;
 import com.getcapacitor.PluginCall;
 import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
 import com.getcapacitor.annotation.Permission;
+import com.getcapacitor.annotation.PermissionCallback;
+import app.xpensia.com.plugins.smscommon.ClassifierShadow;
+import app.xpensia.com.plugins.smscommon.FinancialSmsClassifier;
+import app.xpensia.com.plugins.smscommon.NearDuplicateIndex;
+import app.xpensia.com.plugins.smscommon.RingLog;
+import app.xpensia.com.plugins.smscommon.RulePackStore;
+import app.xpensia.com.plugins.smscommon.SmsFingerprint;
+import app.xpensia.com.plugins.smscommon.SmsSearchIndex;
+import app.xpensia.com.plugins.smscommon.StartupTrace;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -31,26 +50,57 @@ import org.json.JSONObject;
 @CapacitorPlugin(
     name = "BackgroundSmsListener",
     permissions = {
-        @Permission(strings = { Manifest.permission.RECEIVE_SMS }, alias = "receive_sms")
+        @Permission(strings = { Manifest.permission.RECEIVE_SMS }, alias = BackgroundSmsListenerPlugin.RECEIVE_SMS_ALIAS),
+        // Only the provider observer needs it; requested by startProviderObserver.
+        @Permission(strings = { Manifest.permission.READ_SMS }, alias = BackgroundSmsListenerPlugin.READ_SMS_ALIAS)
     }
 )
 public class BackgroundSmsListenerPlugin extends Plugin {
     private static final String TAG = "BackgroundSmsListener";
+    static final String RECEIVE_SMS_ALIAS = "receive_sms";
+    static final String READ_SMS_ALIAS = "read_sms";
     private static final String STATIC_TAG = "STATIC_SMS_RECEIVER";
     private static final String PENDING_TAG = "PENDING_SMS_DELIVERY";
     private static final String INIT_TAG = "PLUGIN_INIT_LOGS";
-    private static final String PREFS_NAME = "BackgroundSmsPrefs";
+    static final String PREFS_NAME = "BackgroundSmsPrefs";
     private static final String PREF_KEY = "newIncomingBuffer";
     private static final String PREF_PENDING_ROUTE = "pendingOpenRoute";
     private static final String PREF_PENDING_SOURCE = "pendingOpenSource";
+    private static final String PREF_RECENT_HASHES = "recentDeliveredHashes";
+    // Legacy JSON copy of the near-duplicate index, migrated to NearDuplicateJournal.
+    private static final String PREF_NEAR_DUPLICATES = "nearDuplicateIndex";
+    private static final String PREF_DRAINED_BODIES = "drainedBodies";
+    static final String PREF_OBSERVER_ENABLED = "providerObserverEnabled";
+    static final String PREF_OBSERVER_LAST_ID = "providerObserverLastId";
     private static final Object PREF_LOCK = new Object();
-    private static final int MAX_INBOX_ITEMS = 200;
-    private static final long DEDUP_WINDOW_MS = 10 * 60 * 1000;
+    private static final int RULE_PACK_TIMEOUT_MS = 15 * 1000;
+    static final int MAX_INBOX_ITEMS = 200;
+    static final long DEDUP_WINDOW_MS = 10 * 60 * 1000;
+    static final int DUPLICATE = -1;
 
     private static BackgroundSmsListenerPlugin instance;
     private static final ArrayList<JSObject> pendingMessages = new ArrayList<>();
+    private static volatile boolean staticReceiverChecked = false;
+    // Parsed inbox queue prefetched at launch; reused by drain only while the
+    // stored JSON is unchanged. Guarded by PREF_LOCK.
+    private static String snapshotRaw;
+    private static JSONArray snapshotMessages;
+    // Loaded from the journal on the ingestion executor, never under
+    // PREF_LOCK; null until then. Guarded by PREF_LOCK.
+    private static NearDuplicateIndex nearDuplicates;
+    private static NearDuplicateJournal nearDuplicateJournal;
+    private static boolean nearDuplicatesRequested;
+    // Derived-data writes (the search index) run here, in arrival order, so
+    // the receiving thread only classifies and queues the message.
+    private static final ExecutorService ingestionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "SmsIngestion");
+        thread.setDaemon(true);
+        return thread;
+    });
     private boolean isListening = false;
     private BroadcastReceiver smsReceiver;
+    // Rule pack downloads run here so they never hold the plugin thread.
+    private final ExecutorService rulePackExecutor = Executors.newSingleThreadExecutor();
 
     /**
      * Returns true if the plugin instance exists and is actively listening for
@@ -60,79 +110,230 @@ public class BackgroundSmsListenerPlugin extends Plugin {
         return instance != null && instance.isListening;
     }
 
+    static boolean hasInstance() {
+        return instance != null;
+    }
+
     @Override
     public void load() {
         Log.d(INIT_TAG, "Plugin load() called");
-        super.load();
-        instance = this;
-        checkStaticReceiver();
-        synchronized (pendingMessages) {
-            if (!pendingMessages.isEmpty()) {
-                Log.d(PENDING_TAG, "Delivering " + pendingMessages.size() + " queued SMS messages");
-                for (JSObject msg : pendingMessages) {
-                    notifyListeners("smsReceived", msg);
+        StartupTrace.begin("load:BackgroundSmsListener");
+        try {
+            super.load();
+            instance = this;
+            if (!staticReceiverChecked) {
+                checkStaticReceiver(getContext());
+            }
+            SmsProviderObserver.restoreIfEnabled(getContext());
+            synchronized (pendingMessages) {
+                RingLog.event(Log.INFO, RingLog.Event.PLUGIN_LOADED, pendingMessages.size(), 0);
+                if (!pendingMessages.isEmpty()) {
+                    Log.d(PENDING_TAG, "Delivering " + pendingMessages.size() + " queued SMS messages");
+                    for (JSObject msg : pendingMessages) {
+                        notifyListeners("smsReceived", msg);
+                        String traceId = msg.optString("traceId", "");
+                        if (!traceId.isEmpty()) {
+                            IngestionTrace.markLate(traceId, IngestionTrace.EMIT);
+                        }
+                    }
+                    pendingMessages.clear();
                 }
-                pendingMessages.clear();
             }
+        } finally {
+            StartupTrace.end("load:BackgroundSmsListener");
         }
     }
 
     public static void notifySmsReceived(Context context, String sender, String body) {
+        notifySmsReceived(context, sender, body, null, null, 0L);
+    }
+
+    /**
+     * @param messageId ID of the persisted copy, as a later summary drain
+     *                  reports it, so JS can skip that header; null if the
+     *                  message was not persisted
+     * @return true if the event reached JS now; false if it was queued until
+     *         the plugin loads
+     */
+    static boolean notifySmsReceived(Context context, String sender, String body, String traceId,
+                                     String messageId, long receivedAt) {
         JSObject data = new JSObject();
         data.put("sender", sender);
         data.put("body", body);
+        if (traceId != null) {
+            data.put("traceId", traceId);
+        }
+        if (messageId != null) {
+            data.put("id", messageId);
+            data.put("receivedAt", receivedAt);
+        }
 
         if (instance != null) {
             instance.notifyListeners("smsReceived", data);
+            return true;
         } else {
-            Log.d(PENDING_TAG, "Instance null, queuing SMS message");
+            if (Log.isLoggable(PENDING_TAG, Log.DEBUG)) {
+                Log.d(PENDING_TAG, "Instance null, queuing SMS message");
+            }
             synchronized (pendingMessages) {
                 pendingMessages.add(data);
             }
+            return false;
         }
     }
 
     static void handleIncomingSms(Context context, String sender, String body, String source, boolean emitToJs) {
-        if (!FinancialSmsClassifier.isFinancialTransactionMessage(context, body)) {
-            Log.d(TAG, "Skipping non-financial SMS from " + sender);
+        IngestionTrace trace = IngestionTrace.start();
+        // Nothing to decode: the caller already has sender and body.
+        trace.mark(IngestionTrace.DECODE);
+        handleIncomingSms(context, sender, body, source, emitToJs, trace);
+    }
+
+    /**
+     * @param trace started by the receiver before PDU decoding, with the
+     *              decode stage already marked
+     */
+    static void handleIncomingSms(Context context, String sender, String body, String source, boolean emitToJs,
+                                  IngestionTrace trace) {
+        IngestionMetrics.increment(IngestionMetrics.Counter.RECEIVED);
+        long stageStart = SystemClock.elapsedRealtimeNanos();
+        FinancialSmsClassifier.Verdict verdict = FinancialSmsClassifier.classify(context, body);
+        IngestionMetrics.recordLatency(IngestionMetrics.Stage.CLASSIFY, stageStart);
+        trace.mark(IngestionTrace.CLASSIFY);
+        IngestionMetrics.recordVerdict(verdict);
+        if (!verdict.isAccepted()) {
+            if (Log.isLoggable(TAG, Log.DEBUG)) {
+                Log.d(TAG, "Skipping non-financial SMS verdict=" + verdict.statKey());
+            }
+            flushMetrics(context);
             return;
         }
 
         long receivedAt = System.currentTimeMillis();
         String hash = buildHash(sender, body);
+        stageStart = SystemClock.elapsedRealtimeNanos();
         int queueSize = persistMessage(
                 context,
                 sender != null ? sender : "",
                 body,
                 receivedAt,
                 source,
-                hash
+                hash,
+                trace
         );
+        IngestionMetrics.recordLatency(IngestionMetrics.Stage.PERSIST, stageStart);
 
-        Log.d(PENDING_TAG, "Persisted qualifying SMS hash=" + hash + " queueSize=" + queueSize + " source=" + source);
+        if (queueSize == DUPLICATE) {
+            // Same SMS already delivered by another source (receiver or provider observer).
+            IngestionMetrics.increment(IngestionMetrics.Counter.DUPLICATE);
+            flushMetrics(context);
+            return;
+        }
+        IngestionMetrics.increment(IngestionMetrics.Counter.PERSISTED);
+
+        if (Log.isLoggable(PENDING_TAG, Log.DEBUG)) {
+            Log.d(PENDING_TAG, "Persisted qualifying SMS hash=" + hash + " queueSize=" + queueSize + " source=" + source);
+        }
+        indexForSearch(context, sender, body, receivedAt, source);
 
-        if (emitToJs) {
-            notifySmsReceived(context, sender != null ? sender : "", body);
+        if (emitToJs && notifySmsReceived(context, sender != null ? sender : "", body, trace.id,
+                InboxHeaders.messageId(hash, receivedAt), receivedAt)) {
+            trace.markLate(IngestionTrace.EMIT);
         }
 
-        SmsBroadcastReceiver.postOrUpdateSummaryNotification(context, queueSize);
+        stageStart = SystemClock.elapsedRealtimeNanos();
+        boolean notified = SmsBroadcastReceiver.postOrUpdateSummaryNotification(context, queueSize);
+        IngestionMetrics.recordLatency(IngestionMetrics.Stage.NOTIFY, stageStart);
+        if (notified) {
+            trace.markLate(IngestionTrace.NOTIFY);
+        }
+        IngestionMetrics.increment(notified ? IngestionMetrics.Counter.NOTIFIED : IngestionMetrics.Counter.NOTIFY_SKIPPED);
+        flushMetrics(context);
+    }
+
+    private static void indexForSearch(Context context, String sender, String body, long receivedAt, String source) {
+        Context app = context.getApplicationContext();
+        ingestionExecutor.execute(() -> {
+            try {
+                SmsSearchIndex.getInstance(app).indexMessage(
+                        new SmsSearchIndex.Doc(null, sender, body, receivedAt, source));
+            } catch (RuntimeException e) {
+                // The index is derived data; never let it block ingestion.
+                Log.w(TAG, "Failed to index SMS for search", e);
+            }
+        });
+    }
+
+    /** Folds this message's metrics into the persisted totals, off the receive path. */
+    private static void flushMetrics(Context context) {
+        Context app = context.getApplicationContext();
+        ingestionExecutor.execute(() -> IngestionMetrics.flush(app));
+    }
+
+    /**
+     * Runs {@code done} on the ingestion thread once the background work
+     * queued so far has finished; the static receiver finishes its
+     * {@code goAsync()} result here so the process outlives the index write.
+     */
+    static void afterBackgroundWork(Runnable done) {
+        ingestionExecutor.execute(done);
     }
 
     static String buildHash(String sender, String body) {
-        String normalizedSender = sender == null ? "" : sender.trim().replaceAll("\\s+", "").toLowerCase();
-        String normalizedBody = body == null ? "" : body.trim().replaceAll("\\s+", " ").toLowerCase();
-        String base = normalizedSender + "|" + normalizedBody + "|" + normalizedBody.length();
-        return Integer.toHexString(base.hashCode());
+        return SmsFingerprint.of(sender, body);
     }
 
-    private void checkStaticReceiver() {
-        ComponentName cn = new ComponentName(getContext(), SmsBroadcastReceiver.class);
+    private static void checkStaticReceiver(Context context) {
+        ComponentName cn = new ComponentName(context, SmsBroadcastReceiver.class);
         try {
-            getContext().getPackageManager().getReceiverInfo(cn, PackageManager.ComponentInfoFlags.of(0));
+            context.getPackageManager().getReceiverInfo(cn, PackageManager.ComponentInfoFlags.of(0));
             Log.d(STATIC_TAG, "Static SMS receiver registered");
         } catch (PackageManager.NameNotFoundException e) {
             Log.w(STATIC_TAG, "SmsBroadcastReceiver not found in manifest");
         }
+        staticReceiverChecked = true;
+    }
+
+    /**
+     * Process-start warm-up, run off the main thread: loads the plugin's
+     * preferences and does the receiver lookup so {@link #load()} does not.
+     */
+    public static void warmUp(Context context) {
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).contains(PREF_KEY);
+        checkStaticReceiver(context);
+        synchronized (PREF_LOCK) {
+            requestNearDuplicates(context);
+        }
+    }
+
+    /**
+     * Parses the persisted inbox queue ahead of the first
+     * drainPersistedMessages call, for launches that open the review route.
+     */
+    public static void prefetchInboxSnapshot(Context context) {
+        synchronized (PREF_LOCK) {
+            SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+            String stored = prefs.getString(PREF_KEY, "[]");
+            snapshotMessages = parseQueue(stored);
+            snapshotRaw = stored;
+            Log.d(PENDING_TAG, "Prefetched inbox snapshot size=" + snapshotMessages.length());
+        }
+    }
+
+    private static JSONArray parseQueue(String stored) {
+        JSONArray messages = new JSONArray();
+        try {
+            JSONArray arr = new JSONArray(stored);
+            for (int i = 0; i < arr.length(); i++) {
+                JSONObject obj = arr.optJSONObject(i);
+                if (obj != null) {
+                    messages.put(obj);
+                }
+            }
+        } catch (JSONException e) {
+            Log.e(TAG, "Failed to parse persisted SMS queue", e);
+        }
+        return messages;
     }
 
     private void deliverPersistedMessages() {
@@ -161,9 +362,35 @@ public class BackgroundSmsListenerPlugin extends Plugin {
         }
     }
 
+    /**
+     * Appends a qualifying SMS to the persisted inbox queue. A likely repeat
+     * of an earlier message in another format is still queued, flagged with
+     * {@code nearDuplicate} (see {@link NearDuplicateIndex}).
+     *
+     * @return the new queue size, or {@link #DUPLICATE} if the same fingerprint
+     *         was seen within DEDUP_WINDOW_MS (even if already drained by JS)
+     */
     static int persistMessage(Context context, String sender, String body, long receivedAt, String source, String hash) {
+        return persistMessage(context, sender, body, receivedAt, source, hash, null);
+    }
+
+    /**
+     * @param trace stored with the entry when non-null; its persist stage is
+     *              marked just before the write
+     */
+    static int persistMessage(Context context, String sender, String body, long receivedAt, String source, String hash,
+                              IngestionTrace trace) {
         synchronized (PREF_LOCK) {
             SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+            JSONObject recent = loadRecentHashes(prefs, receivedAt);
+            if (!hash.isEmpty() && recent.has(hash)) {
+                RingLog.event(Log.DEBUG, RingLog.Event.DUPLICATE, 0, RingLog.fingerprint(hash));
+                if (Log.isLoggable(PENDING_TAG, Log.DEBUG)) {
+                    Log.d(PENDING_TAG, "Skipping native duplicate SMS hash=" + hash + " (recently delivered)");
+                }
+                return DUPLICATE;
+            }
+
             String stored = prefs.getString(PREF_KEY, "[]");
             JSONArray arr;
             try {
@@ -181,12 +408,27 @@ public class BackgroundSmsListenerPlugin extends Plugin {
                 long existingAt = existing.optLong("receivedAt", 0L);
                 String existingHash = existing.optString("hash", "");
                 if (!existingHash.isEmpty() && existingHash.equals(hash) && Math.abs(receivedAt - existingAt) <= DEDUP_WINDOW_MS) {
-                    Log.d(PENDING_TAG, "Skipping native duplicate SMS hash=" + hash);
-                    return arr.length();
+                    RingLog.event(Log.DEBUG, RingLog.Event.DUPLICATE, 0, RingLog.fingerprint(hash));
+                    if (Log.isLoggable(PENDING_TAG, Log.DEBUG)) {
+                        Log.d(PENDING_TAG, "Skipping native duplicate SMS hash=" + hash);
+                    }
+                    return DUPLICATE;
                 }
                 nextArr.put(existing);
             }
 
+            NearDuplicateIndex.Signature signature = NearDuplicateIndex.signature(sender, body, receivedAt, hash);
+            NearDuplicateIndex.Match near = null;
+            if (nearDuplicates != null) {
+                near = nearDuplicates.findAndAdd(signature);
+                saveNearDuplicate(signature);
+            } else {
+                // Index still loading: exact fingerprint dedup only for this
+                // message, which joins the index once it is loaded.
+                requestNearDuplicates(context);
+                ingestionExecutor.execute(() -> addLoadedNearDuplicate(signature));
+            }
+
             JSONObject obj = new JSONObject();
             try {
                 obj.put("sender", sender);
@@ -194,6 +436,13 @@ public class BackgroundSmsListenerPlugin extends Plugin {
                 obj.put("receivedAt", receivedAt);
                 obj.put("source", source);
                 obj.put("hash", hash);
+                if (near != null) {
+                    obj.put("nearDuplicate", describeNearDuplicate(near));
+                }
+                if (trace != null) {
+                    trace.mark(IngestionTrace.PERSIST);
+                    obj.put("trace", trace.toJSON());
+                }
             } catch (JSONException e) {
                 Log.e(TAG, "Failed to encode SMS message", e);
             }
@@ -208,36 +457,408 @@ public class BackgroundSmsListenerPlugin extends Plugin {
                 nextArr = trimmed;
             }
 
-            prefs.edit().putString(PREF_KEY, nextArr.toString()).apply();
-            Log.d(PENDING_TAG, "Persisted SMS from " + sender + " queueSize=" + nextArr.length());
+            try {
+                recent.put(hash, receivedAt);
+            } catch (JSONException e) {
+                Log.e(TAG, "Failed to record SMS fingerprint", e);
+            }
+
+            prefs.edit()
+                    .putString(PREF_KEY, nextArr.toString())
+                    .putString(PREF_RECENT_HASHES, recent.toString())
+                    .apply();
+            if (near != null) {
+                IngestionMetrics.increment(IngestionMetrics.Counter.NEAR_DUPLICATE);
+                RingLog.event(Log.DEBUG, RingLog.Event.NEAR_DUPLICATE, near.reason.ordinal(),
+                        RingLog.fingerprint(near.earlier.fingerprint));
+            }
+            RingLog.event(Log.DEBUG, RingLog.Event.PERSISTED, nextArr.length(), RingLog.fingerprint(hash));
             return nextArr.length();
         }
     }
 
+    static JSONObject loadDrainedBodies(Context context) {
+        synchronized (PREF_LOCK) {
+            return readDrainedBodies(context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE));
+        }
+    }
+
+    private static JSONObject readDrainedBodies(SharedPreferences prefs) {
+        try {
+            return new JSONObject(prefs.getString(PREF_DRAINED_BODIES, "{}"));
+        } catch (JSONException e) {
+            Log.w(TAG, "Discarding unreadable drained SMS bodies", e);
+            return new JSONObject();
+        }
+    }
+
+    /**
+     * Queues the one-time journal load on the ingestion executor, ahead of
+     * any journal write. Caller holds PREF_LOCK.
+     */
+    private static void requestNearDuplicates(Context context) {
+        if (nearDuplicatesRequested) {
+            return;
+        }
+        nearDuplicatesRequested = true;
+        Context app = context.getApplicationContext();
+        ingestionExecutor.execute(() -> {
+            NearDuplicateJournal journal = new NearDuplicateJournal(app);
+            NearDuplicateIndex index = loadNearDuplicates(app, journal, System.currentTimeMillis());
+            synchronized (PREF_LOCK) {
+                nearDuplicateJournal = journal;
+                nearDuplicates = index;
+            }
+        });
+    }
+
+    /** Runs on the ingestion executor, after the load. */
+    private static NearDuplicateIndex loadNearDuplicates(Context context, NearDuplicateJournal journal, long now) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        if (journal.exists() || !prefs.contains(PREF_NEAR_DUPLICATES)) {
+            return NearDuplicateIndex.of(journal.read(), now);
+        }
+        // First run after the move off preferences.
+        NearDuplicateIndex index;
+        try {
+            index = NearDuplicateIndex.fromJSON(new JSONArray(prefs.getString(PREF_NEAR_DUPLICATES, "[]")), now);
+        } catch (JSONException e) {
+            Log.w(TAG, "Discarding unreadable near-duplicate index", e);
+            index = new NearDuplicateIndex();
+        }
+        List<NearDuplicateIndex.Signature> entries = index.snapshot();
+        journal.rewrite(entries);
+        journal.recordRewrite(entries.size());
+        prefs.edit().remove(PREF_NEAR_DUPLICATES).apply();
+        return index;
+    }
+
+    /** Adds a message persisted before the index was loaded. Runs on the ingestion executor. */
+    private static void addLoadedNearDuplicate(NearDuplicateIndex.Signature signature) {
+        synchronized (PREF_LOCK) {
+            nearDuplicates.findAndAdd(signature);
+            saveNearDuplicate(signature);
+        }
+    }
+
+    /**
+     * Queues the journal write for a signature just added to the index: an
+     * append, or a full rewrite once enough entries have piled up. Caller
+     * holds PREF_LOCK, so writes reach the executor in index order.
+     */
+    private static void saveNearDuplicate(NearDuplicateIndex.Signature signature) {
+        NearDuplicateJournal journal = nearDuplicateJournal;
+        if (journal.needsCompaction()) {
+            List<NearDuplicateIndex.Signature> entries = nearDuplicates.snapshot();
+            journal.recordRewrite(entries.size());
+            ingestionExecutor.execute(() -> journal.rewrite(entries));
+        } else {
+            journal.recordAppend();
+            ingestionExecutor.execute(() -> journal.append(signature));
+        }
+    }
+
+    /**
+     * @return {@code {of, sender, receivedAt, reason, distance}} naming the
+     *         earlier message this one likely repeats
+     */
+    private static JSONObject describeNearDuplicate(NearDuplicateIndex.Match near) throws JSONException {
+        JSONObject out = new JSONObject();
+        out.put("of", near.earlier.fingerprint);
+        out.put("sender", near.earlier.sender);
+        out.put("receivedAt", near.earlier.at);
+        out.put("reason", near.reason.key);
+        out.put("distance", near.distance);
+        return out;
+    }
+
+    /**
+     * Fingerprints delivered within DEDUP_WINDOW_MS of {@code now}. Kept apart
+     * from the inbox queue so dedup still works after JS drains the queue.
+     */
+    private static JSONObject loadRecentHashes(SharedPreferences prefs, long now) {
+        JSONObject pruned = new JSONObject();
+        try {
+            JSONObject stored = new JSONObject(prefs.getString(PREF_RECENT_HASHES, "{}"));
+            JSONArray names = stored.names();
+            for (int i = 0; names != null && i < names.length(); i++) {
+                String key = names.getString(i);
+                long seenAt = stored.optLong(key, 0L);
+                if (Math.abs(now - seenAt) <= DEDUP_WINDOW_MS) {
+                    pruned.put(key, seenAt);
+                }
+            }
+        } catch (JSONException e) {
+            Log.w(TAG, "Discarding unreadable SMS fingerprint cache", e);
+        }
+        return pruned;
+    }
+
+    /**
+     * With {@code summary: true}, returns compact headers instead of full
+     * messages and keeps the bodies for {@link #getMessageBodies}.
+     */
     @PluginMethod
     public void drainPersistedMessages(PluginCall call) {
-        JSObject ret = new JSObject();
-        JSONArray messages = new JSONArray();
-        synchronized (PREF_LOCK) {
-            SharedPreferences prefs = getContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            String stored = prefs.getString(PREF_KEY, "[]");
+        StartupTrace.markOnce("js.firstConsume", "drainPersistedMessages");
+        boolean summary = Boolean.TRUE.equals(call.getBoolean("summary", false));
+        JSONArray messages = drainQueue(getContext(), summary);
+        if (summary) {
+            JSONArray headers = new JSONArray();
             try {
-                JSONArray arr = new JSONArray(stored);
-                for (int i = 0; i < arr.length(); i++) {
-                    JSONObject obj = arr.optJSONObject(i);
-                    if (obj != null) {
-                        messages.put(obj);
+                for (int i = 0; i < messages.length(); i++) {
+                    JSONObject message = messages.optJSONObject(i);
+                    if (message != null) {
+                        headers.put(InboxHeaders.header(message));
                     }
                 }
             } catch (JSONException e) {
-                Log.e(TAG, "Failed to parse persisted SMS queue", e);
+                call.reject("Failed to build message headers", e);
+                return;
             }
-            prefs.edit().remove(PREF_KEY).apply();
+            messages = headers;
         }
+        JSObject ret = new JSObject();
         ret.put("messages", messages);
         call.resolve(ret);
     }
 
+    /**
+     * Full text for rows drained with {@code summary: true}. IDs whose body
+     * was evicted or never stored are listed in {@code missing}.
+     */
+    @PluginMethod
+    public void getMessageBodies(PluginCall call) {
+        JSArray ids = call.getArray("ids", new JSArray());
+        JSObject bodies = new JSObject();
+        JSArray missing = new JSArray();
+        JSONObject stored = loadDrainedBodies(getContext());
+        for (int i = 0; i < ids.length(); i++) {
+            String id = ids.optString(i, "");
+            if (stored.has(id)) {
+                bodies.put(id, stored.optString(id, ""));
+            } else {
+                missing.put(id);
+            }
+        }
+        JSObject ret = new JSObject();
+        ret.put("bodies", bodies);
+        ret.put("missing", missing);
+        call.resolve(ret);
+    }
+
+    static JSONArray drainQueue(Context context) {
+        return drainQueue(context, false);
+    }
+
+    /**
+     * Removes and returns every persisted message, oldest first. Traced
+     * entries get their drain stamp and stage offsets from receipt.
+     *
+     * @param keepBodies also copy each body into the drained-body store, in
+     *                   the same write that clears the queue
+     */
+    static JSONArray drainQueue(Context context, boolean keepBodies) {
+        JSONArray messages;
+        synchronized (PREF_LOCK) {
+            SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+            String stored = prefs.getString(PREF_KEY, "[]");
+            messages = stored.equals(snapshotRaw) ? snapshotMessages : parseQueue(stored);
+            snapshotRaw = null;
+            snapshotMessages = null;
+            SharedPreferences.Editor edit = prefs.edit().remove(PREF_KEY);
+            if (keepBodies && messages.length() > 0) {
+                JSONObject bodies = InboxHeaders.storeBodies(readDrainedBodies(prefs), messages, MAX_INBOX_ITEMS);
+                edit.putString(PREF_DRAINED_BODIES, bodies.toString());
+            }
+            edit.apply();
+        }
+        long drainedAt = SystemClock.elapsedRealtime();
+        for (int i = 0; i < messages.length(); i++) {
+            JSONObject message = messages.optJSONObject(i);
+            JSONObject stored = message != null ? message.optJSONObject("trace") : null;
+            if (stored != null) {
+                try {
+                    message.put("trace", IngestionTrace.onDrained(stored, drainedAt));
+                } catch (JSONException e) {
+                    Log.e(TAG, "Failed to attach ingestion trace", e);
+                }
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Closes the traces of messages JS has finished processing and records
+     * their end-to-end latency. Unknown IDs are reported with -1.
+     */
+    @PluginMethod
+    public void acknowledgeMessages(PluginCall call) {
+        JSArray traceIds = call.getArray("traceIds", new JSArray());
+        JSArray traces = new JSArray();
+        int acknowledged = 0;
+        for (int i = 0; i < traceIds.length(); i++) {
+            String traceId = traceIds.optString(i, "");
+            long endToEndMs = IngestionTrace.acknowledge(traceId);
+            if (endToEndMs >= 0) {
+                acknowledged++;
+                IngestionMetrics.recordMicros(IngestionMetrics.Stage.END_TO_END, endToEndMs * 1_000);
+            }
+            JSObject trace = new JSObject();
+            trace.put("traceId", traceId);
+            trace.put("endToEndMs", endToEndMs);
+            traces.put(trace);
+        }
+        if (acknowledged > 0) {
+            flushMetrics(getContext());
+        }
+        JSObject ret = new JSObject();
+        ret.put("acknowledged", acknowledged);
+        ret.put("traces", traces);
+        call.resolve(ret);
+    }
+
+    /**
+     * Ingestion counters, per-gate verdicts and stage latency histograms for
+     * this process, plus cumulative totals across all processes.
+     */
+    @PluginMethod
+    public void getIngestionStats(PluginCall call) {
+        try {
+            call.resolve(JSObject.fromJSONObject(IngestionMetrics.report(getContext())));
+        } catch (JSONException e) {
+            call.reject("Failed to read ingestion stats", e);
+        }
+    }
+
+    /**
+     * Returns the in-memory ingestion event ring, oldest first. Events carry
+     * codes and numbers only, never message text.
+     */
+    @PluginMethod
+    public void dumpNativeLog(PluginCall call) {
+        try {
+            call.resolve(JSObject.fromJSONObject(RingLog.dump()));
+        } catch (JSONException e) {
+            call.reject("Failed to dump native log", e);
+        }
+    }
+
+    /**
+     * Describes the installed classifier rule pack; {@code version} is absent
+     * while the built-in rules are in use.
+     */
+    @PluginMethod
+    public void getRulePackInfo(PluginCall call) {
+        try {
+            call.resolve(JSObject.fromJSONObject(RulePackStore.info(getContext())));
+        } catch (JSONException e) {
+            call.reject("Failed to read rule pack info", e);
+        }
+    }
+
+    /**
+     * Downloads a classifier rule pack from the OTA manifest and activates it
+     * once its SHA-256 and contents check out. Rejects packs that are not
+     * newer than the installed one.
+     */
+    @PluginMethod
+    public void installRulePack(PluginCall call) {
+        String url = call.getString("url");
+        String sha256 = call.getString("sha256");
+        if (url == null || !url.startsWith("https://") || sha256 == null || sha256.isEmpty()) {
+            call.reject("An https url and sha256 are required");
+            return;
+        }
+        Context context = getContext();
+        rulePackExecutor.execute(() -> {
+            HttpURLConnection connection = null;
+            try {
+                connection = (HttpURLConnection) new URL(url).openConnection();
+                connection.setConnectTimeout(RULE_PACK_TIMEOUT_MS);
+                connection.setReadTimeout(RULE_PACK_TIMEOUT_MS);
+                if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                    throw new IOException("HTTP " + connection.getResponseCode());
+                }
+                try (InputStream in = connection.getInputStream()) {
+                    RulePackStore.install(context, in, sha256);
+                }
+                call.resolve(JSObject.fromJSONObject(RulePackStore.info(context)));
+            } catch (IOException | JSONException e) {
+                Log.w(TAG, "Rule pack install failed", e);
+                call.reject("Failed to install rule pack: " + e.getMessage(), e);
+            } finally {
+                if (connection != null) {
+                    connection.disconnect();
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the classifier shadow report: verdict disagreements and
+     * relative latency of the shadowed engine against the active one.
+     * Holds engine IDs, verdicts and lengths only, never message text.
+     */
+    @PluginMethod
+    public void getClassifierShadowReport(PluginCall call) {
+        try {
+            call.resolve(JSObject.fromJSONObject(ClassifierShadow.report(getContext())));
+        } catch (JSONException e) {
+            call.reject("Failed to read classifier shadow report", e);
+        }
+    }
+
+    /**
+     * Shadows the registered engine named {@code engine} on incoming SMS, or
+     * stops with a null engine. Either way the report starts over.
+     */
+    @PluginMethod
+    public void setClassifierShadow(PluginCall call) {
+        try {
+            ClassifierShadow.setCandidate(getContext(), call.getString("engine"));
+            call.resolve(JSObject.fromJSONObject(ClassifierShadow.report(getContext())));
+        } catch (IllegalArgumentException e) {
+            call.reject(e.getMessage(), e);
+        } catch (JSONException e) {
+            call.reject("Failed to read classifier shadow report", e);
+        }
+    }
+
+    /**
+     * Enable the optional Telephony provider observer as a second ingestion
+     * source, asking for READ_SMS first if needed. Stays enabled across
+     * restarts and reboots until stopProviderObserver.
+     */
+    @PluginMethod
+    public void startProviderObserver(PluginCall call) {
+        if (getPermissionState(READ_SMS_ALIAS) != PermissionState.GRANTED) {
+            requestPermissionForAlias(READ_SMS_ALIAS, call, "providerObserverPermissionCallback");
+            return;
+        }
+        resolveProviderObserverStart(call);
+    }
+
+    @PermissionCallback
+    private void providerObserverPermissionCallback(PluginCall call) {
+        // start() reports running=false if READ_SMS was denied.
+        resolveProviderObserverStart(call);
+    }
+
+    private void resolveProviderObserverStart(PluginCall call) {
+        JSObject ret = new JSObject();
+        ret.put("running", SmsProviderObserver.start(getContext()));
+        call.resolve(ret);
+    }
+
+    @PluginMethod
+    public void stopProviderObserver(PluginCall call) {
+        SmsProviderObserver.stop(getContext());
+        JSObject ret = new JSObject();
+        ret.put("running", false);
+        call.resolve(ret);
+    }
+
     public static void setPendingOpenRoute(Context context, String route, String source) {
         synchronized (PREF_LOCK) {
             SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
@@ -247,6 +868,7 @@ public class BackgroundSmsListenerPlugin extends Plugin {
 
     @PluginMethod
     public void consumePendingOpenRoute(PluginCall call) {
+        StartupTrace.markOnce("js.firstConsume", "consumePendingOpenRoute");
         JSObject ret = new JSObject();
         synchronized (PREF_LOCK) {
             SharedPreferences prefs = getContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
@@ -270,7 +892,7 @@ public class BackgroundSmsListenerPlugin extends Plugin {
     public void checkPermission(PluginCall call) {
         Log.d(TAG, "checkPermission called");
         try {
-            boolean hasPermission = hasRequiredPermissions();
+            boolean hasPermission = hasReceiveSmsPermission();
             JSObject ret = new JSObject();
             ret.put("granted", hasPermission);
             call.resolve(ret);
@@ -285,7 +907,7 @@ public class BackgroundSmsListenerPlugin extends Plugin {
     public void checkPermissionWithRationale(PluginCall call) {
         Log.d(TAG, "checkPermissionWithRationale called");
         try {
-            boolean hasPermission = hasRequiredPermissions();
+            boolean hasPermission = hasReceiveSmsPermission();
             boolean shouldShowRationale = false;
             if (!hasPermission && Build.VERSION.SDK_INT >= Build.VERSION_CODES.M && getActivity() != null) {
                 shouldShowRationale = getActivity()
@@ -302,6 +924,14 @@ public class BackgroundSmsListenerPlugin extends Plugin {
         }
     }
 
+    /**
+     * RECEIVE_SMS only: READ_SMS is optional (provider observer), so
+     * hasRequiredPermissions() would be too strict here.
+     */
+    private boolean hasReceiveSmsPermission() {
+        return getPermissionState(RECEIVE_SMS_ALIAS) == PermissionState.GRANTED;
+    }
+
     /**
      * Request SMS permission
      */
@@ -309,7 +939,7 @@ public class BackgroundSmsListenerPlugin extends Plugin {
     public void requestPermission(PluginCall call) {
         Log.d(TAG, "requestPermission called");
         try {
-            if (hasRequiredPermissions()) {
+            if (hasReceiveSmsPermission()) {
                 JSObject ret = new JSObject();
                 ret.put("granted", true);
                 call.resolve(ret);
@@ -333,7 +963,7 @@ public class BackgroundSmsListenerPlugin extends Plugin {
     public void startListening(PluginCall call) {
         Log.d(TAG, "startListening called");
         try {
-            if (!hasRequiredPermissions()) {
+            if (!hasReceiveSmsPermission()) {
                 call.reject("SMS permission not granted");
                 Log.d(TAG, "Cannot start listening, permission not granted");
                 return;
@@ -391,8 +1021,8 @@ public class BackgroundSmsListenerPlugin extends Plugin {
         smsReceiver = new BroadcastReceiver() {
             @Override
             public void onReceive(Context context, Intent intent) {
-                Log.d(TAG, "SMS received in broadcast receiver");
                 if (Telephony.Sms.Intents.SMS_RECEIVED_ACTION.equals(intent.getAction())) {
+                    IngestionTrace trace = IngestionTrace.start();
                     SmsMessage[] messages = null;
                     
                     if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
@@ -418,9 +1048,13 @@ public class BackgroundSmsListenerPlugin extends Plugin {
                         }
                         String body = bodyBuilder.toString();
                         
-                        Log.d(TAG, "SMS received from " + sender + ": " + body);
+                        RingLog.event(Log.DEBUG, RingLog.Event.SMS_RECEIVED, body.length(), messages.length);
+                        if (Log.isLoggable(TAG, Log.DEBUG)) {
+                            Log.d(TAG, "SMS received parts=" + messages.length + " length=" + body.length());
+                        }
 
-                        handleIncomingSms(context, sender, body, "listener", true);
+                        trace.mark(IngestionTrace.DECODE);
+                        handleIncomingSms(context, sender, body, "listener", true, trace);
                     }
                 }
             }
@@ -481,6 +1115,7 @@ public class BackgroundSmsListenerPlugin extends Plugin {
     protected void handleOnDestroy() {
         Log.d(TAG, "Plugin is being destroyed, cleaning up");
         unregisterSmsReceiver();
+        rulePackExecutor.shutdownNow();
         instance = null;
         super.handleOnDestroy();
     }
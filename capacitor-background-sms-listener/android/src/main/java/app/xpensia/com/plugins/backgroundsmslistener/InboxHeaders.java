@@ -0,0 +1,117 @@
+package app.xpensia.com.plugins.backgroundsmslistener;
+
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import app.xpensia.com.plugins.smscommon.FinancialSmsClassifier;
+import app.xpensia.com.plugins.smscommon.NearDuplicateIndex;
+
+/**
+ * Compact rows for the review inbox. A summary drain sends each queued
+ * message as a header (ID, sender, time, amount, currency) and keeps the
+ * body on the native side, keyed by the same ID, until JS asks for it with
+ * getMessageBodies. The body store holds at most
+ * {@link BackgroundSmsListenerPlugin#MAX_INBOX_ITEMS} entries, oldest
+ * evicted first, matching the JS inbox cap.
+ */
+final class InboxHeaders {
+    private static final String TAG = "BackgroundSmsListener";
+    private static final Pattern CURRENCY_CODE = Pattern.compile(
+            "(?i)SAR|USD|EGP|AED|BHD|EUR|GBP|JPY|INR|CNY|CAD|AUD");
+    private static final Pattern SAR_SYMBOL = Pattern.compile("ر\\.?\\s?س|ريال");
+    private static final Pattern EGP_SYMBOL = Pattern.compile("جنيه");
+
+    private InboxHeaders() {
+    }
+
+    /** Stable per message: the fingerprint plus the receive time. */
+    static String messageId(JSONObject message) {
+        return messageId(message.optString("hash", ""), message.optLong("receivedAt", 0L));
+    }
+
+    static String messageId(String hash, long receivedAt) {
+        return hash + "-" + receivedAt;
+    }
+
+    /**
+     * @return {@code stored} plus the bodies of {@code messages}, trimmed to
+     *         the newest {@code max} entries
+     */
+    static JSONObject storeBodies(JSONObject stored, JSONArray messages, int max) {
+        try {
+            for (int i = 0; i < messages.length(); i++) {
+                JSONObject message = messages.optJSONObject(i);
+                if (message != null) {
+                    String id = messageId(message);
+                    // Re-insert so a re-stored ID moves to the newest end.
+                    stored.remove(id);
+                    stored.put(id, message.optString("body", ""));
+                }
+            }
+            JSONArray names = stored.names();
+            int excess = names == null ? 0 : names.length() - max;
+            // JSONObject keeps insertion order, oldest first.
+            for (int i = 0; i < excess; i++) {
+                stored.remove(names.getString(i));
+            }
+        } catch (JSONException e) {
+            Log.e(TAG, "Failed to store drained SMS bodies", e);
+        }
+        return stored;
+    }
+
+    /**
+     * @return the message without its body, plus {@code id}, {@code amount}
+     *         and {@code currency} (when an amount is found) and {@code bodyLength}
+     */
+    static JSONObject header(JSONObject message) throws JSONException {
+        String body = message.optString("body", "");
+        JSONObject header = new JSONObject();
+        header.put("id", messageId(message));
+        header.put("sender", message.optString("sender", ""));
+        header.put("receivedAt", message.optLong("receivedAt", 0L));
+        header.put("source", message.optString("source", ""));
+        header.put("bodyLength", body.length());
+        long minor = NearDuplicateIndex.amountMinorUnits(body);
+        if (minor != NearDuplicateIndex.NO_AMOUNT) {
+            header.put("amount", BigDecimal.valueOf(minor).movePointLeft(2).doubleValue());
+            String currency = currencyOf(FinancialSmsClassifier.findAmount(body));
+            if (currency != null) {
+                header.put("currency", currency);
+            }
+        }
+        for (String key : new String[]{ "nearDuplicate", "trace" }) {
+            Object value = message.opt(key);
+            if (value != null) {
+                header.put(key, value);
+            }
+        }
+        return header;
+    }
+
+    /** ISO code named in an amount-gate match, or null. */
+    static String currencyOf(String amountText) {
+        if (amountText == null) {
+            return null;
+        }
+        Matcher code = CURRENCY_CODE.matcher(amountText);
+        if (code.find()) {
+            return code.group().toUpperCase(Locale.ROOT);
+        }
+        if (SAR_SYMBOL.matcher(amountText).find()) {
+            return "SAR";
+        }
+        if (EGP_SYMBOL.matcher(amountText).find()) {
+            return "EGP";
+        }
+        return null;
+    }
+}
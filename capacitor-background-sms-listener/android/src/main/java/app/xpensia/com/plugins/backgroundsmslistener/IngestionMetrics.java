@@ -0,0 +1,299 @@
+package app.xpensia.com.plugins.backgroundsmslistener;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.SystemClock;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import app.xpensia.com.plugins.smscommon.FinancialSmsClassifier;
+
+/**
+ * Ingestion counters and latency histograms. Recording is lock-free (atomic
+ * increments only) so it can sit on the receiver path.
+ * <p>
+ * Every value is counted twice: into this process's session, reported as
+ * {@code current}, and into a pending delta. {@link #flush} folds the delta
+ * into cumulative totals in the plugin's preferences. Callers flush after
+ * every handled message, because a receiver-spawned process is usually
+ * killed soon after, and totals carry across any number of such processes.
+ */
+final class IngestionMetrics {
+    private static final String TAG = "BackgroundSmsListener";
+    private static final String PREF_TOTALS = "ingestionStatsTotals";
+    // Written by the per-process ring this replaced; dropped on first flush.
+    private static final String PREF_LEGACY_RING = "ingestionStatsRing";
+
+    enum Counter {
+        RECEIVED("received"),
+        DUPLICATE("duplicate"),
+        PERSISTED("persisted"),
+        NEAR_DUPLICATE("nearDuplicate"),
+        NOTIFIED("notified"),
+        NOTIFY_SKIPPED("notifySkipped");
+
+        final String key;
+
+        Counter(String key) {
+            this.key = key;
+        }
+    }
+
+    enum Stage {
+        CLASSIFY("classify"),
+        PERSIST("persist"),
+        NOTIFY("notify"),
+        // Trace start to JS acknowledgement.
+        END_TO_END("endToEnd");
+
+        final String key;
+
+        Stage(String key) {
+            this.key = key;
+        }
+    }
+
+    // Upper bounds in microseconds; the last bucket is open-ended.
+    static final long[] BUCKET_BOUNDS_US = {
+            100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000,
+            1_000_000, 10_000_000, 60_000_000,
+    };
+    private static final int BUCKETS = BUCKET_BOUNDS_US.length + 1;
+
+    private static final Counter[] COUNTERS = Counter.values();
+    private static final Stage[] STAGES = Stage.values();
+    private static final FinancialSmsClassifier.Verdict[] VERDICTS = FinancialSmsClassifier.Verdict.values();
+
+    // One flat slot layout for both arrays: counters, verdicts, histograms, stage totals.
+    private static final int VERDICT_BASE = COUNTERS.length;
+    private static final int HISTOGRAM_BASE = VERDICT_BASE + VERDICTS.length;
+    private static final int TOTAL_BASE = HISTOGRAM_BASE + STAGES.length * BUCKETS;
+    private static final int SLOTS = TOTAL_BASE + STAGES.length;
+
+    private static final AtomicLongArray session = new AtomicLongArray(SLOTS);
+    private static final AtomicLongArray pending = new AtomicLongArray(SLOTS);
+    private static final String sessionId = UUID.randomUUID().toString();
+    private static final long sessionStartedAt = System.currentTimeMillis();
+    private static final Object TOTALS_LOCK = new Object();
+
+    private IngestionMetrics() {
+    }
+
+    static void increment(Counter counter) {
+        add(counter.ordinal(), 1);
+    }
+
+    static void recordVerdict(FinancialSmsClassifier.Verdict verdict) {
+        add(VERDICT_BASE + verdict.ordinal(), 1);
+    }
+
+    /**
+     * @param startNanos value of {@link SystemClock#elapsedRealtimeNanos()}
+     *                   when the stage began
+     */
+    static void recordLatency(Stage stage, long startNanos) {
+        recordMicros(stage, (SystemClock.elapsedRealtimeNanos() - startNanos) / 1_000);
+    }
+
+    static void recordMicros(Stage stage, long elapsedMicros) {
+        long micros = Math.max(0, elapsedMicros);
+        add(HISTOGRAM_BASE + stage.ordinal() * BUCKETS + bucketFor(micros), 1);
+        add(TOTAL_BASE + stage.ordinal(), micros);
+    }
+
+    private static void add(int slot, long value) {
+        session.addAndGet(slot, value);
+        pending.addAndGet(slot, value);
+    }
+
+    static int bucketFor(long micros) {
+        for (int i = 0; i < BUCKET_BOUNDS_US.length; i++) {
+            if (micros <= BUCKET_BOUNDS_US[i]) {
+                return i;
+            }
+        }
+        return BUCKET_BOUNDS_US.length;
+    }
+
+    /**
+     * Adds everything recorded since the last flush to the persisted totals.
+     * Cheap when nothing changed; otherwise one small read-modify-apply.
+     */
+    static void flush(Context context) {
+        synchronized (TOTALS_LOCK) {
+            long[] delta = new long[SLOTS];
+            boolean changed = false;
+            for (int i = 0; i < SLOTS; i++) {
+                delta[i] = pending.getAndSet(i, 0);
+                changed |= delta[i] != 0;
+            }
+            if (!changed) {
+                return;
+            }
+
+            SharedPreferences prefs = prefs(context);
+            JSONObject stored = readTotals(prefs);
+            long[] totals = decode(stored);
+            for (int i = 0; i < SLOTS; i++) {
+                totals[i] += delta[i];
+            }
+            long now = System.currentTimeMillis();
+            JSONObject next = encode(totals);
+            try {
+                next.put("since", stored.optLong("since", now));
+                next.put("updatedAt", now);
+            } catch (JSONException e) {
+                Log.e(TAG, "Failed to encode ingestion totals", e);
+                return;
+            }
+            prefs.edit()
+                    .putString(PREF_TOTALS, next.toString())
+                    .remove(PREF_LEGACY_RING)
+                    .apply();
+        }
+    }
+
+    /**
+     * @return {@code {current, totals}}: this process's session, and the
+     *         cumulative totals across every process since {@code since}
+     */
+    static JSONObject report(Context context) {
+        flush(context);
+        JSONObject report = new JSONObject();
+        try {
+            report.put("current", snapshot());
+            JSONObject totals;
+            synchronized (TOTALS_LOCK) {
+                totals = readTotals(prefs(context));
+            }
+            report.put("totals", totals.has("counters") ? totals : JSONObject.NULL);
+        } catch (JSONException e) {
+            Log.e(TAG, "Failed to encode ingestion stats", e);
+        }
+        return report;
+    }
+
+    static JSONObject snapshot() {
+        long[] values = new long[SLOTS];
+        for (int i = 0; i < SLOTS; i++) {
+            values[i] = session.get(i);
+        }
+        JSONObject snapshot = encode(values);
+        try {
+            snapshot.put("sessionId", sessionId);
+            snapshot.put("startedAt", sessionStartedAt);
+            snapshot.put("capturedAt", System.currentTimeMillis());
+        } catch (JSONException e) {
+            Log.e(TAG, "Failed to encode ingestion snapshot", e);
+        }
+        return snapshot;
+    }
+
+    private static JSONObject encode(long[] values) {
+        JSONObject encoded = new JSONObject();
+        try {
+            JSONObject counts = new JSONObject();
+            for (Counter counter : COUNTERS) {
+                counts.put(counter.key, values[counter.ordinal()]);
+            }
+            encoded.put("counters", counts);
+
+            JSONObject gates = new JSONObject();
+            for (FinancialSmsClassifier.Verdict verdict : VERDICTS) {
+                gates.put(verdict.statKey(), values[VERDICT_BASE + verdict.ordinal()]);
+            }
+            encoded.put("gates", gates);
+
+            JSONArray bounds = new JSONArray();
+            for (long bound : BUCKET_BOUNDS_US) {
+                bounds.put(bound);
+            }
+            encoded.put("bucketBoundsUs", bounds);
+
+            JSONObject latency = new JSONObject();
+            for (Stage stage : STAGES) {
+                JSONArray buckets = new JSONArray();
+                long count = 0;
+                for (int b = 0; b < BUCKETS; b++) {
+                    long value = values[HISTOGRAM_BASE + stage.ordinal() * BUCKETS + b];
+                    buckets.put(value);
+                    count += value;
+                }
+                JSONObject entry = new JSONObject();
+                entry.put("count", count);
+                entry.put("totalUs", values[TOTAL_BASE + stage.ordinal()]);
+                entry.put("buckets", buckets);
+                latency.put(stage.key, entry);
+            }
+            encoded.put("latency", latency);
+        } catch (JSONException e) {
+            Log.e(TAG, "Failed to encode ingestion values", e);
+        }
+        return encoded;
+    }
+
+    /**
+     * Inverse of {@link #encode}, by key, so adding a counter or verdict
+     * keeps the other totals. Histograms written with different bucket
+     * bounds are dropped.
+     */
+    private static long[] decode(JSONObject encoded) {
+        long[] values = new long[SLOTS];
+        JSONObject counts = encoded.optJSONObject("counters");
+        for (Counter counter : COUNTERS) {
+            values[counter.ordinal()] = counts != null ? counts.optLong(counter.key) : 0;
+        }
+        JSONObject gates = encoded.optJSONObject("gates");
+        for (FinancialSmsClassifier.Verdict verdict : VERDICTS) {
+            values[VERDICT_BASE + verdict.ordinal()] = gates != null ? gates.optLong(verdict.statKey()) : 0;
+        }
+        JSONArray bounds = encoded.optJSONArray("bucketBoundsUs");
+        JSONObject latency = encoded.optJSONObject("latency");
+        if (latency == null || bounds == null || !sameBounds(bounds)) {
+            return values;
+        }
+        for (Stage stage : STAGES) {
+            JSONObject entry = latency.optJSONObject(stage.key);
+            JSONArray buckets = entry != null ? entry.optJSONArray("buckets") : null;
+            if (buckets == null || buckets.length() != BUCKETS) {
+                continue;
+            }
+            for (int b = 0; b < BUCKETS; b++) {
+                values[HISTOGRAM_BASE + stage.ordinal() * BUCKETS + b] = buckets.optLong(b);
+            }
+            values[TOTAL_BASE + stage.ordinal()] = entry.optLong("totalUs");
+        }
+        return values;
+    }
+
+    private static boolean sameBounds(JSONArray bounds) {
+        if (bounds.length() != BUCKET_BOUNDS_US.length) {
+            return false;
+        }
+        for (int i = 0; i < BUCKET_BOUNDS_US.length; i++) {
+            if (bounds.optLong(i) != BUCKET_BOUNDS_US[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static JSONObject readTotals(SharedPreferences prefs) {
+        try {
+            return new JSONObject(prefs.getString(PREF_TOTALS, "{}"));
+        } catch (JSONException e) {
+            Log.w(TAG, "Discarding unreadable ingestion totals", e);
+            return new JSONObject();
+        }
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(BackgroundSmsListenerPlugin.PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
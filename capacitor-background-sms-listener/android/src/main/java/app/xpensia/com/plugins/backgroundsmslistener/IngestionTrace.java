@@ -0,0 +1,174 @@
+package app.xpensia.com.plugins.backgroundsmslistener;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-message trace: an ID plus {@link SystemClock#elapsedRealtime()} stamps
+ * for each ingestion stage. Stamps up to persist are stored with the queue
+ * entry; notify and JS emit happen after the write, so they are kept in a
+ * bounded in-memory table and merged in at drain. Drained traces wait for
+ * the JS acknowledgement, which closes the end-to-end measurement.
+ * <p>
+ * elapsedRealtime keeps counting across process restarts, so a message
+ * persisted by one process and drained by the next still gets valid
+ * latencies (not across a reboot).
+ */
+final class IngestionTrace {
+    private static final String TAG = "BackgroundSmsListener";
+
+    static final String DECODE = "decode";
+    static final String CLASSIFY = "classify";
+    static final String PERSIST = "persist";
+    static final String NOTIFY = "notify";
+    static final String EMIT = "emit";
+    static final String DRAIN = "drain";
+
+    private static final int MAX_LATE_STAMPS = 256;
+    private static final int MAX_AWAITING_ACK = 512;
+    private static final AtomicLong sequence = new AtomicLong();
+
+    // traceId -> stamps recorded after the queue write.
+    private static final Map<String, JSONObject> lateStamps = boundedMap(MAX_LATE_STAMPS);
+    // traceId -> decode stamp, for drained traces not yet acknowledged.
+    private static final Map<String, Long> awaitingAck = boundedMap(MAX_AWAITING_ACK);
+
+    final String id;
+    // Only touched by the thread handling the message.
+    private final JSONObject stamps = new JSONObject();
+
+    private IngestionTrace(String id) {
+        this.id = id;
+    }
+
+    /** Starts a trace; call before decoding the PDUs so decode cost is included. */
+    static IngestionTrace start() {
+        long now = SystemClock.elapsedRealtime();
+        IngestionTrace trace = new IngestionTrace(
+                Long.toString(System.currentTimeMillis(), 36) + "-" + Long.toString(sequence.incrementAndGet(), 36));
+        trace.put("start", now);
+        return trace;
+    }
+
+    void mark(String stage) {
+        put(stage, SystemClock.elapsedRealtime());
+    }
+
+    /** Stage stamps recorded so far, for storing with the queue entry. */
+    JSONObject toJSON() {
+        JSONObject stored = new JSONObject();
+        try {
+            stored.put("id", id);
+            stored.put("stamps", new JSONObject(stamps.toString()));
+        } catch (JSONException e) {
+            Log.e(TAG, "Failed to encode ingestion trace", e);
+        }
+        return stored;
+    }
+
+    /** Records a stage that happened after this trace was persisted. */
+    void markLate(String stage) {
+        markLate(id, stage);
+    }
+
+    static void markLate(String traceId, String stage) {
+        long now = SystemClock.elapsedRealtime();
+        synchronized (lateStamps) {
+            JSONObject late = lateStamps.get(traceId);
+            if (late == null) {
+                late = new JSONObject();
+                lateStamps.put(traceId, late);
+            }
+            try {
+                late.put(stage, now);
+            } catch (JSONException e) {
+                Log.e(TAG, "Failed to record late trace stamp", e);
+            }
+        }
+    }
+
+    /**
+     * Completes a stored trace at drain: merges late stamps, adds the drain
+     * stamp and returns {@code {id, start, stages}} where stages are ms
+     * offsets from {@code start}.
+     */
+    static JSONObject onDrained(JSONObject stored, long drainedAt) {
+        JSONObject out = new JSONObject();
+        String id = stored.optString("id", "");
+        JSONObject stamps = stored.optJSONObject("stamps");
+        if (id.isEmpty() || stamps == null) {
+            return out;
+        }
+        try {
+            JSONObject late;
+            synchronized (lateStamps) {
+                late = lateStamps.remove(id);
+            }
+            if (late != null) {
+                for (Iterator<String> keys = late.keys(); keys.hasNext(); ) {
+                    String stage = keys.next();
+                    stamps.put(stage, late.optLong(stage));
+                }
+            }
+            stamps.put(DRAIN, drainedAt);
+
+            long start = stamps.optLong("start", drainedAt);
+            JSONObject stages = new JSONObject();
+            for (String stage : new String[] { DECODE, CLASSIFY, PERSIST, NOTIFY, EMIT, DRAIN }) {
+                if (stamps.has(stage)) {
+                    stages.put(stage, stamps.optLong(stage) - start);
+                }
+            }
+            out.put("id", id);
+            out.put("start", start);
+            out.put("stages", stages);
+        } catch (JSONException e) {
+            Log.e(TAG, "Failed to complete ingestion trace", e);
+            return out;
+        }
+        synchronized (awaitingAck) {
+            awaitingAck.put(id, out.optLong("start"));
+        }
+        return out;
+    }
+
+    /**
+     * @return ms from trace start to now, or -1 if the trace is unknown
+     *         (already acknowledged, evicted, or drained by another process)
+     */
+    static long acknowledge(String id) {
+        Long start;
+        synchronized (awaitingAck) {
+            start = awaitingAck.remove(id);
+        }
+        if (start == null) {
+            return -1;
+        }
+        return Math.max(0, SystemClock.elapsedRealtime() - start);
+    }
+
+    private void put(String stage, long value) {
+        try {
+            stamps.put(stage, value);
+        } catch (JSONException e) {
+            Log.e(TAG, "Failed to record trace stamp " + stage, e);
+        }
+    }
+
+    private static <V> Map<String, V> boundedMap(int max) {
+        return new LinkedHashMap<String, V>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > max;
+            }
+        };
+    }
+}
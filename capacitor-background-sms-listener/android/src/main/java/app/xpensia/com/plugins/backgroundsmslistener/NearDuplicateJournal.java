@@ -0,0 +1,147 @@
+package app.xpensia.com.plugins.backgroundsmslistener;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import app.xpensia.com.plugins.smscommon.NearDuplicateIndex;
+
+/**
+ * Append-only file behind the near-duplicate index. Each persisted SMS adds
+ * one binary entry ({@link NearDuplicateIndex#write}); the whole index is only
+ * rewritten once {@link #COMPACT_AFTER} entries have piled up, which is also
+ * when pruned entries leave the file.
+ *
+ * <pre>
+ * magic    4 bytes  "XNDJ"
+ * version  1 byte   1
+ * entries  oldest first, until end of file
+ * </pre>
+ *
+ * The one read per process and all writes run on the plugin's ingestion
+ * executor, so they are never concurrent with each other.
+ */
+final class NearDuplicateJournal {
+    private static final String TAG = "NearDuplicateJournal";
+    static final String FILE_NAME = "near_duplicates.bin";
+    static final int COMPACT_AFTER = 2000;
+    private static final byte[] MAGIC = { 'X', 'N', 'D', 'J' };
+    private static final int VERSION = 1;
+    private static final int BUFFER_BYTES = 16 * 1024;
+
+    private final File file;
+    // Entries in the file, live or pruned. Guarded by the caller.
+    private int written;
+
+    NearDuplicateJournal(Context context) {
+        file = new File(context.getFilesDir(), FILE_NAME);
+    }
+
+    boolean exists() {
+        return file.exists();
+    }
+
+    /**
+     * Reads every whole entry. A torn tail from an interrupted append or an
+     * unreadable header forces a rewrite before the next append.
+     */
+    List<NearDuplicateIndex.Signature> read() {
+        List<NearDuplicateIndex.Signature> entries = new ArrayList<>();
+        written = 0;
+        if (!file.exists()) {
+            return entries;
+        }
+        boolean intact = false;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file), BUFFER_BYTES))) {
+            if (readHeader(in)) {
+                while (in.available() > 0) {
+                    entries.add(NearDuplicateIndex.read(in));
+                }
+                intact = true;
+            }
+        } catch (EOFException e) {
+            Log.w(TAG, "Dropping torn near-duplicate entry");
+        } catch (IOException e) {
+            Log.w(TAG, "Stopping at unreadable near-duplicate entry", e);
+        }
+        written = intact ? entries.size() : COMPACT_AFTER;
+        return entries;
+    }
+
+    /** @return true if the next write should replace the file */
+    boolean needsCompaction() {
+        return written >= COMPACT_AFTER;
+    }
+
+    /** Counts an append or rewrite queued by the caller. */
+    void recordAppend() {
+        written++;
+    }
+
+    void recordRewrite(int entries) {
+        written = entries;
+    }
+
+    /** Runs on the ingestion executor. */
+    void append(NearDuplicateIndex.Signature entry) {
+        boolean fresh = file.length() == 0;
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file, true), BUFFER_BYTES))) {
+            if (fresh) {
+                writeHeader(out);
+            }
+            NearDuplicateIndex.write(out, entry);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to append near-duplicate entry", e);
+        }
+    }
+
+    /** Replaces the file with {@code entries}. Runs on the ingestion executor. */
+    void rewrite(List<NearDuplicateIndex.Signature> entries) {
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(temp), BUFFER_BYTES))) {
+            writeHeader(out);
+            for (NearDuplicateIndex.Signature entry : entries) {
+                NearDuplicateIndex.write(out, entry);
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to rewrite near-duplicate journal", e);
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(file)) {
+            Log.w(TAG, "Failed to replace near-duplicate journal");
+            temp.delete();
+        }
+    }
+
+    private static void writeHeader(DataOutputStream out) throws IOException {
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+    }
+
+    private static boolean readHeader(DataInputStream in) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (magic[i] != MAGIC[i]) {
+                Log.w(TAG, "Ignoring near-duplicate journal with unknown header");
+                return false;
+            }
+        }
+        return in.readUnsignedByte() == VERSION;
+    }
+}
@@ -15,5 +15,7 @@ public class SmsBootReceiver extends BroadcastReceiver {
             return;
         }
         Log.d(TAG, "BOOT_COMPLETED received");
+        // The observer is process-bound; bring it back without waiting for the UI.
+        SmsProviderObserver.restoreIfEnabled(context);
     }
 }
@@ -17,28 +17,49 @@ import androidx.core.app.NotificationCompat;
 import androidx.core.app.NotificationManagerCompat;
 import androidx.core.content.ContextCompat;
 
+import app.xpensia.com.plugins.smscommon.RingLog;
+
 public class SmsBroadcastReceiver extends BroadcastReceiver {
     private static final String TAG = "STATIC_SMS_RECEIVER";
     private static final String LOG_TAG = "XP_NOTIF";
     private static final String CHANNEL_ID = "xpensia_sms_inbox";
     private static final int INBOX_NOTIFICATION_ID = 41001;
 
+    // RingLog RECEIVER_IGNORED / NOTIFY_SKIPPED reasons.
+    static final int IGNORED_ACTION = 1;
+    static final int IGNORED_PLUGIN_ACTIVE = 2;
+    static final int IGNORED_NO_PDUS = 3;
+    static final int SKIP_EMPTY_QUEUE = 1;
+    static final int SKIP_DISABLED = 2;
+    static final int SKIP_PERMISSION = 3;
+    static final int SKIP_NO_MANAGER = 4;
+    static final int SKIP_FAILED = 5;
+
     @Override
     public void onReceive(Context context, Intent intent) {
+        boolean debug = Log.isLoggable(TAG, Log.DEBUG);
         if (intent == null || !Telephony.Sms.Intents.SMS_RECEIVED_ACTION.equals(intent.getAction())) {
-            Log.d(TAG, "Ignored intent action=" + (intent != null ? intent.getAction() : "null"));
+            RingLog.event(Log.DEBUG, RingLog.Event.RECEIVER_IGNORED, IGNORED_ACTION, 0);
+            if (debug) {
+                Log.d(TAG, "Ignored intent action=" + (intent != null ? intent.getAction() : "null"));
+            }
             return;
         }
-        Log.d(TAG, "[" + LOG_TAG + "] receiver fired action=" + intent.getAction());
+        if (debug) {
+            Log.d(TAG, "[" + LOG_TAG + "] receiver fired action=" + intent.getAction());
+        }
 
         if (BackgroundSmsListenerPlugin.isPluginActive()) {
-            Log.d(TAG, "Plugin active, ignoring static receiver event");
+            RingLog.event(Log.DEBUG, RingLog.Event.RECEIVER_IGNORED, IGNORED_PLUGIN_ACTIVE, 0);
             return;
         }
+        // A process started for this SMS has not run the plugin's load().
+        SmsProviderObserver.restoreIfEnabled(context);
 
+        IngestionTrace trace = IngestionTrace.start();
         SmsMessage[] messages = Telephony.Sms.Intents.getMessagesFromIntent(intent);
         if (messages == null || messages.length == 0) {
-            Log.d(TAG, "SMS intent had no PDUs");
+            RingLog.event(Log.DEBUG, RingLog.Event.RECEIVER_IGNORED, IGNORED_NO_PDUS, 0);
             return;
         }
 
@@ -48,32 +69,48 @@ public class SmsBroadcastReceiver extends BroadcastReceiver {
             bodyBuilder.append(message.getMessageBody());
         }
         String body = bodyBuilder.toString();
-        BackgroundSmsListenerPlugin.handleIncomingSms(context, sender, body, "static_receiver", false);
+        trace.mark(IngestionTrace.DECODE);
+        RingLog.event(Log.DEBUG, RingLog.Event.SMS_RECEIVED, body.length(), messages.length);
+        // Keep the process alive until the search index write queued by ingestion is done.
+        PendingResult pending = goAsync();
+        try {
+            BackgroundSmsListenerPlugin.handleIncomingSms(context, sender, body, "static_receiver", false, trace);
+        } finally {
+            BackgroundSmsListenerPlugin.afterBackgroundWork(pending::finish);
+        }
     }
 
-    static void postOrUpdateSummaryNotification(Context context, int messageCount) {
+    static boolean postOrUpdateSummaryNotification(Context context, int messageCount) {
         if (messageCount <= 0) {
-            return;
+            RingLog.event(Log.DEBUG, RingLog.Event.NOTIFY_SKIPPED, SKIP_EMPTY_QUEUE, 0);
+            return false;
         }
+        boolean debug = Log.isLoggable(TAG, Log.DEBUG);
 
         NotificationManagerCompat managerCompat = NotificationManagerCompat.from(context);
         if (!managerCompat.areNotificationsEnabled()) {
-            Log.d(TAG, "[" + LOG_TAG + "] skip notify (permission/disabled)");
-            return;
+            RingLog.event(Log.DEBUG, RingLog.Event.NOTIFY_SKIPPED, SKIP_DISABLED, messageCount);
+            if (debug) {
+                Log.d(TAG, "[" + LOG_TAG + "] skip notify (permission/disabled)");
+            }
+            return false;
         }
 
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU
                 && ContextCompat.checkSelfPermission(context, Manifest.permission.POST_NOTIFICATIONS)
                 != PackageManager.PERMISSION_GRANTED) {
-            Log.d(TAG, "[" + LOG_TAG + "] skip notify (permission/disabled)");
-            return;
+            RingLog.event(Log.DEBUG, RingLog.Event.NOTIFY_SKIPPED, SKIP_PERMISSION, messageCount);
+            if (debug) {
+                Log.d(TAG, "[" + LOG_TAG + "] skip notify (permission/disabled)");
+            }
+            return false;
         }
 
         NotificationManager notificationManager =
                 (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
         if (notificationManager == null) {
-            Log.d(TAG, "[" + LOG_TAG + "] skip notify (notification manager null)");
-            return;
+            RingLog.event(Log.DEBUG, RingLog.Event.NOTIFY_SKIPPED, SKIP_NO_MANAGER, messageCount);
+            return false;
         }
 
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
@@ -83,7 +120,6 @@ public class SmsBroadcastReceiver extends BroadcastReceiver {
                     NotificationManager.IMPORTANCE_DEFAULT);
             channel.setDescription("Alerts for new SMS waiting in Xpensia inbox review");
             notificationManager.createNotificationChannel(channel);
-            Log.d(TAG, "[" + LOG_TAG + "] channel ensured id=" + CHANNEL_ID);
         }
 
         PackageManager pm = context.getPackageManager();
@@ -98,9 +134,9 @@ public class SmsBroadcastReceiver extends BroadcastReceiver {
         String targetSource = "sms_notification";
         openIntent.putExtra("xpensia_open_route", targetRoute);
         openIntent.putExtra("xpensia_open_source", targetSource);
-        Log.d(TAG, "[" + LOG_TAG + "] notification payload prepared route=" + targetRoute + " source=" + targetSource + " count=" + messageCount);
-
-        Log.d(TAG, "[" + LOG_TAG + "] creating content intent requestCode=1001 flags=FLAG_UPDATE_CURRENT|FLAG_IMMUTABLE");
+        if (debug) {
+            Log.d(TAG, "[" + LOG_TAG + "] notification payload prepared route=" + targetRoute + " source=" + targetSource + " count=" + messageCount);
+        }
 
         PendingIntent pendingIntent = PendingIntent.getActivity(
                 context,
@@ -112,7 +148,6 @@ public class SmsBroadcastReceiver extends BroadcastReceiver {
         if (smallIcon == 0) {
             smallIcon = android.R.drawable.ic_dialog_info;
         }
-        Log.d(TAG, "[" + LOG_TAG + "] using smallIcon=" + smallIcon);
 
         NotificationCompat.Builder builder = new NotificationCompat.Builder(context, CHANNEL_ID)
                 .setSmallIcon(smallIcon)
@@ -123,12 +158,17 @@ public class SmsBroadcastReceiver extends BroadcastReceiver {
                 .setOnlyAlertOnce(true)
                 .setPriority(NotificationCompat.PRIORITY_DEFAULT);
 
-        Log.d(TAG, "[" + LOG_TAG + "] notification attempt count=" + messageCount);
+        if (debug) {
+            Log.d(TAG, "[" + LOG_TAG + "] notification attempt count=" + messageCount);
+        }
         try {
             notificationManager.notify(INBOX_NOTIFICATION_ID, builder.build());
-            Log.d(TAG, "[" + LOG_TAG + "] notify succeeded id=" + INBOX_NOTIFICATION_ID + " count=" + messageCount);
+            RingLog.event(Log.DEBUG, RingLog.Event.NOTIFY_POSTED, messageCount, 0);
+            return true;
         } catch (RuntimeException ex) {
+            RingLog.event(Log.ERROR, RingLog.Event.NOTIFY_SKIPPED, SKIP_FAILED, messageCount);
             Log.e(TAG, "[" + LOG_TAG + "][ERROR] notify failed", ex);
+            return false;
         }
     }
 }
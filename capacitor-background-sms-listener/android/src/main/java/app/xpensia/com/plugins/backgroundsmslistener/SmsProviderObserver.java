@@ -0,0 +1,185 @@
+package app.xpensia.com.plugins.backgroundsmslistener;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.provider.Telephony;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+/**
+ * Optional ingestion source for OEMs that drop SMS_RECEIVED broadcasts:
+ * watches the Telephony provider and feeds inbox rows newer than the last
+ * seen {@code _id} into {@link BackgroundSmsListenerPlugin#handleIncomingSms}.
+ * Copies already delivered by a receiver are dropped there by fingerprint.
+ * <p>
+ * The cursor only moves while the observer runs. Rows that reached the
+ * provider while it was down and are older than the fingerprint window are
+ * skipped when it comes back: the static receiver already queued them and
+ * their fingerprints have expired, so replaying them would queue them again.
+ */
+final class SmsProviderObserver extends ContentObserver {
+    private static final String TAG = "SMS_PROVIDER_OBSERVER";
+    private static final String SOURCE = "provider_observer";
+    // Providers fire several changes per SMS; coalesce them into one scan.
+    private static final long DEBOUNCE_MS = 500;
+    private static final int MAX_ROWS_PER_SCAN = 50;
+
+    private static SmsProviderObserver active;
+
+    private final Context context;
+    private final HandlerThread thread;
+    private final Handler handler;
+    private final Runnable scan = this::scanAndContinue;
+
+    private SmsProviderObserver(Context context, HandlerThread thread) {
+        super(new Handler(thread.getLooper()));
+        this.context = context;
+        this.thread = thread;
+        this.handler = new Handler(thread.getLooper());
+    }
+
+    static synchronized boolean isRunning() {
+        return active != null;
+    }
+
+    /**
+     * Registers the observer. On first start the last seen id is set to the
+     * newest existing row so history is never re-ingested.
+     *
+     * @return false if READ_SMS is not granted
+     */
+    static synchronized boolean start(Context context) {
+        Context appContext = context.getApplicationContext();
+        if (ContextCompat.checkSelfPermission(appContext, Manifest.permission.READ_SMS)
+                != PackageManager.PERMISSION_GRANTED) {
+            Log.w(TAG, "READ_SMS not granted, observer not started");
+            return false;
+        }
+        if (active != null) {
+            return true;
+        }
+
+        SharedPreferences prefs = prefs(appContext);
+        if (!prefs.contains(BackgroundSmsListenerPlugin.PREF_OBSERVER_LAST_ID)) {
+            prefs.edit().putLong(BackgroundSmsListenerPlugin.PREF_OBSERVER_LAST_ID, queryMaxId(appContext)).apply();
+        }
+        prefs.edit().putBoolean(BackgroundSmsListenerPlugin.PREF_OBSERVER_ENABLED, true).apply();
+
+        HandlerThread thread = new HandlerThread("SmsProviderObserver");
+        thread.start();
+        active = new SmsProviderObserver(appContext, thread);
+        appContext.getContentResolver().registerContentObserver(Telephony.Sms.CONTENT_URI, true, active);
+        Log.d(TAG, "Observer registered");
+        return true;
+    }
+
+    static synchronized void stop(Context context) {
+        prefs(context).edit().putBoolean(BackgroundSmsListenerPlugin.PREF_OBSERVER_ENABLED, false).apply();
+        if (active == null) {
+            return;
+        }
+        context.getApplicationContext().getContentResolver().unregisterContentObserver(active);
+        active.handler.removeCallbacks(active.scan);
+        active.thread.quitSafely();
+        active = null;
+        Log.d(TAG, "Observer unregistered");
+    }
+
+    /** Restarts the observer in a new process if it was enabled before. */
+    static void restoreIfEnabled(Context context) {
+        if (prefs(context).getBoolean(BackgroundSmsListenerPlugin.PREF_OBSERVER_ENABLED, false)) {
+            start(context);
+        }
+    }
+
+    @Override
+    public void onChange(boolean selfChange, Uri uri) {
+        handler.removeCallbacks(scan);
+        handler.postDelayed(scan, DEBOUNCE_MS);
+    }
+
+    private void scanAndContinue() {
+        if (scanNewRows(context) == MAX_ROWS_PER_SCAN) {
+            handler.post(scan);
+        }
+    }
+
+    /**
+     * Feeds inbox rows after the last seen id into ingestion and moves the
+     * cursor past them.
+     *
+     * @return rows read, delivered or skipped
+     */
+    static int scanNewRows(Context context) {
+        SharedPreferences prefs = prefs(context);
+        long lastSeenId = prefs.getLong(BackgroundSmsListenerPlugin.PREF_OBSERVER_LAST_ID, 0L);
+        long maxId = lastSeenId;
+        long cutoff = System.currentTimeMillis() - BackgroundSmsListenerPlugin.DEDUP_WINDOW_MS;
+        int rows = 0;
+        int delivered = 0;
+
+        try (Cursor cursor = context.getContentResolver().query(
+                Telephony.Sms.Inbox.CONTENT_URI,
+                new String[]{ Telephony.Sms._ID, Telephony.Sms.ADDRESS, Telephony.Sms.BODY, Telephony.Sms.DATE },
+                Telephony.Sms._ID + " > ?",
+                new String[]{ String.valueOf(lastSeenId) },
+                Telephony.Sms._ID + " ASC LIMIT " + MAX_ROWS_PER_SCAN)) {
+            if (cursor == null) {
+                return;
+            }
+            int idIdx = cursor.getColumnIndexOrThrow(Telephony.Sms._ID);
+            int addressIdx = cursor.getColumnIndexOrThrow(Telephony.Sms.ADDRESS);
+            int bodyIdx = cursor.getColumnIndexOrThrow(Telephony.Sms.BODY);
+            int dateIdx = cursor.getColumnIndexOrThrow(Telephony.Sms.DATE);
+            while (cursor.moveToNext()) {
+                maxId = cursor.getLong(idIdx);
+                rows++;
+                if (cursor.getLong(dateIdx) < cutoff) {
+                    continue;
+                }
+                BackgroundSmsListenerPlugin.handleIncomingSms(
+                        context,
+                        cursor.getString(addressIdx),
+                        cursor.getString(bodyIdx),
+                        SOURCE,
+                        BackgroundSmsListenerPlugin.hasInstance());
+                delivered++;
+            }
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Provider scan failed", e);
+        }
+
+        if (maxId != lastSeenId) {
+            prefs.edit().putLong(BackgroundSmsListenerPlugin.PREF_OBSERVER_LAST_ID, maxId).apply();
+        }
+        Log.d(TAG, "Provider scan handled rows=" + delivered + " skipped=" + (rows - delivered)
+                + " lastSeenId=" + maxId);
+        return rows;
+    }
+
+    private static long queryMaxId(Context context) {
+        try (Cursor cursor = context.getContentResolver().query(
+                Telephony.Sms.Inbox.CONTENT_URI,
+                new String[]{ Telephony.Sms._ID },
+                null,
+                null,
+                Telephony.Sms._ID + " DESC LIMIT 1")) {
+            return cursor != null && cursor.moveToFirst() ? cursor.getLong(0) : 0L;
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Failed to read newest SMS id", e);
+            return 0L;
+        }
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(BackgroundSmsListenerPlugin.PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
@@ -1,12 +1,16 @@
 package app.xpensia.com.plugins.backgroundsmslistener;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import android.content.Context;
+import android.util.Log;
 
 import androidx.test.core.app.ApplicationProvider;
 
+import app.xpensia.com.plugins.smscommon.FinancialSmsClassifier;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -24,6 +28,9 @@ public class FinancialSmsClassifierTest {
     public void setUp() {
         context = ApplicationProvider.getApplicationContext();
         ShadowLog.clear();
+        // Gate and notification text is only logged when the tag is loggable.
+        ShadowLog.setLoggable("FinancialClassifier", Log.DEBUG);
+        ShadowLog.setLoggable("STATIC_SMS_RECEIVER", Log.DEBUG);
     }
 
     @Test
@@ -91,6 +98,27 @@ public class FinancialSmsClassifierTest {
         ));
     }
 
+    @Test
+    public void classifyReportsRejectingGateWithoutLogging() {
+        String[] keywords = FinancialSmsClassifier.loadKeywords(context);
+
+        assertEquals(FinancialSmsClassifier.Verdict.ACCEPTED,
+                FinancialSmsClassifier.classify("Purchase alert: SAR 123 on 09/03/2026", keywords));
+        assertEquals(FinancialSmsClassifier.Verdict.REJECTED_EMPTY,
+                FinancialSmsClassifier.classify("", keywords));
+        assertEquals(FinancialSmsClassifier.Verdict.REJECTED_OTP,
+                FinancialSmsClassifier.classify("Your OTP is 123456", keywords));
+        assertEquals(FinancialSmsClassifier.Verdict.REJECTED_NO_KEYWORD,
+                FinancialSmsClassifier.classify("See you at 5 tomorrow", keywords));
+        assertEquals(FinancialSmsClassifier.Verdict.REJECTED_NO_AMOUNT,
+                FinancialSmsClassifier.classify("Purchase alert on 09/03/2026", keywords));
+        assertEquals(FinancialSmsClassifier.Verdict.REJECTED_NO_DATE,
+                FinancialSmsClassifier.classify("Purchase alert: SAR 123", keywords));
+
+        assertTrue(ShadowLog.getLogsForTag("FinancialClassifier").stream()
+                .noneMatch(item -> item.msg.startsWith("Gate")));
+    }
+
     @Test
     public void logsGate2AndNotificationPathForReproSms() {
         BackgroundSmsListenerPlugin.handleIncomingSms(
@@ -0,0 +1,75 @@
+package app.xpensia.com.plugins.backgroundsmslistener;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 32)
+public class InboxHeadersTest {
+
+    private static final String BODY = "Purchase alert: SAR 1,234.50 at Jarir on 09/03/2026";
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        context.getSharedPreferences(BackgroundSmsListenerPlugin.PREFS_NAME, Context.MODE_PRIVATE).edit().clear().commit();
+    }
+
+    @Test
+    public void summaryDrainKeepsBodyNativeAndReturnsCompactHeader() throws Exception {
+        BackgroundSmsListenerPlugin.persistMessage(context, "ALRAJHI", BODY, 1773100000000L, "listener", "abc123");
+
+        JSONArray drained = BackgroundSmsListenerPlugin.drainQueue(context, true);
+        assertEquals(1, drained.length());
+        JSONObject header = InboxHeaders.header(drained.getJSONObject(0));
+
+        assertEquals("abc123-1773100000000", header.getString("id"));
+        assertEquals("ALRAJHI", header.getString("sender"));
+        assertEquals(1234.5, header.getDouble("amount"), 0.0);
+        assertEquals("SAR", header.getString("currency"));
+        assertEquals(BODY.length(), header.getInt("bodyLength"));
+        assertFalse(header.has("body"));
+
+        JSONObject bodies = BackgroundSmsListenerPlugin.loadDrainedBodies(context);
+        assertEquals(BODY, bodies.getString("abc123-1773100000000"));
+        assertEquals(0, BackgroundSmsListenerPlugin.drainQueue(context).length());
+    }
+
+    @Test
+    public void bodyStoreEvictsOldestBeyondCap() throws Exception {
+        JSONArray messages = new JSONArray();
+        for (int i = 0; i < 3; i++) {
+            messages.put(new JSONObject().put("hash", "h" + i).put("receivedAt", i).put("body", "body " + i));
+        }
+
+        JSONObject stored = InboxHeaders.storeBodies(new JSONObject(), messages, 2);
+
+        assertEquals(2, stored.length());
+        assertFalse(stored.has("h0-0"));
+        assertTrue(stored.has("h2-2"));
+    }
+
+    @Test
+    public void mapsArabicCurrencySymbols() {
+        assertEquals("SAR", InboxHeaders.currencyOf("مبلغ: 500 ر.س"));
+        assertEquals("EGP", InboxHeaders.currencyOf("1200 جنيه"));
+        assertEquals("USD", InboxHeaders.currencyOf("usd 5"));
+        assertNull(InboxHeaders.currencyOf(null));
+    }
+}
@@ -0,0 +1,77 @@
+package app.xpensia.com.plugins.backgroundsmslistener;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 32)
+public class IngestionMetricsTest {
+
+    private Context context;
+    private SharedPreferences prefs;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        prefs = context.getSharedPreferences(BackgroundSmsListenerPlugin.PREFS_NAME, Context.MODE_PRIVATE);
+        IngestionMetrics.flush(context);
+        prefs.edit().clear().commit();
+    }
+
+    @Test
+    public void everyFlushReachesPreferences() throws Exception {
+        IngestionMetrics.increment(IngestionMetrics.Counter.RECEIVED);
+        IngestionMetrics.flush(context);
+        assertEquals(1, storedTotals().getJSONObject("counters").getLong("received"));
+
+        IngestionMetrics.increment(IngestionMetrics.Counter.RECEIVED);
+        IngestionMetrics.recordMicros(IngestionMetrics.Stage.CLASSIFY, 300);
+        IngestionMetrics.flush(context);
+
+        JSONObject totals = storedTotals();
+        assertEquals(2, totals.getJSONObject("counters").getLong("received"));
+        JSONObject classify = totals.getJSONObject("latency").getJSONObject("classify");
+        assertEquals(1, classify.getLong("count"));
+        assertEquals(300, classify.getLong("totalUs"));
+    }
+
+    @Test
+    public void totalsAccumulateAcrossProcesses() throws Exception {
+        // Totals left by an earlier process, written the same way.
+        IngestionMetrics.increment(IngestionMetrics.Counter.PERSISTED);
+        IngestionMetrics.flush(context);
+        JSONObject earlier = storedTotals();
+        earlier.getJSONObject("counters").put("persisted", 40);
+        prefs.edit().putString("ingestionStatsTotals", earlier.toString()).commit();
+
+        IngestionMetrics.increment(IngestionMetrics.Counter.PERSISTED);
+        JSONObject report = IngestionMetrics.report(context);
+
+        assertEquals(41, report.getJSONObject("totals").getJSONObject("counters").getLong("persisted"));
+        assertEquals(earlier.getLong("since"), report.getJSONObject("totals").getLong("since"));
+        assertTrue(report.getJSONObject("current").getJSONObject("counters").getLong("persisted") >= 2);
+    }
+
+    @Test
+    public void flushWithoutNewValuesDoesNotWrite() {
+        IngestionMetrics.flush(context);
+        assertNull(prefs.getString("ingestionStatsTotals", null));
+    }
+
+    private JSONObject storedTotals() throws Exception {
+        return new JSONObject(prefs.getString("ingestionStatsTotals", "{}"));
+    }
+}
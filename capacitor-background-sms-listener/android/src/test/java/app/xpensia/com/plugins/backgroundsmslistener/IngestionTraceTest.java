@@ -0,0 +1,64 @@
+package app.xpensia.com.plugins.backgroundsmslistener;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 32)
+public class IngestionTraceTest {
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        context.getSharedPreferences(BackgroundSmsListenerPlugin.PREFS_NAME, Context.MODE_PRIVATE).edit().clear().commit();
+    }
+
+    @Test
+    public void drainReturnsTraceWithOrderedStagesAndAckClosesIt() throws Exception {
+        IngestionTrace trace = IngestionTrace.start();
+        trace.mark(IngestionTrace.DECODE);
+        BackgroundSmsListenerPlugin.handleIncomingSms(
+                context, "+966500000001", "Purchase alert: SAR 123 on 09/03/2026", "static_receiver", false, trace);
+
+        JSONArray drained = BackgroundSmsListenerPlugin.drainQueue(context);
+        assertEquals(1, drained.length());
+        JSONObject drainedTrace = drained.getJSONObject(0).getJSONObject("trace");
+        assertEquals(trace.id, drainedTrace.getString("id"));
+
+        JSONObject stages = drainedTrace.getJSONObject("stages");
+        long previous = 0;
+        for (String stage : new String[] {
+                IngestionTrace.DECODE, IngestionTrace.CLASSIFY, IngestionTrace.PERSIST, IngestionTrace.DRAIN }) {
+            assertTrue("Missing stage " + stage, stages.has(stage));
+            assertTrue(stage + " out of order", stages.getLong(stage) >= previous);
+            previous = stages.getLong(stage);
+        }
+        // Static receiver deliveries are not emitted to JS.
+        assertFalse(stages.has(IngestionTrace.EMIT));
+
+        assertTrue(IngestionTrace.acknowledge(trace.id) >= 0);
+        assertEquals(-1, IngestionTrace.acknowledge(trace.id));
+    }
+
+    @Test
+    public void rejectedMessagesAreNotQueued() {
+        BackgroundSmsListenerPlugin.handleIncomingSms(context, "+966500000001", "Your OTP is 123456", "listener", false);
+
+        assertEquals(0, BackgroundSmsListenerPlugin.drainQueue(context).length());
+    }
+}
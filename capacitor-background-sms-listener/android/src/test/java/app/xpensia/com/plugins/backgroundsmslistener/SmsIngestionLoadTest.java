@@ -0,0 +1,297 @@
+package app.xpensia.com.plugins.backgroundsmslistener;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.content.Intent;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.json.JSONArray;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLog;
+
+/**
+ * Drives the ingestion pipeline with bursts of synthetic SMS delivered
+ * concurrently through the static receiver (real PDUs) and the in-app
+ * listener path, then checks every qualifying message is queued exactly once.
+ * Latency figures are printed as "[LOAD]" lines so pipeline changes can be
+ * compared run to run; they are reported, not asserted.
+ * <p>
+ * Size is tunable with -Dxpensia.loadtest.rounds (150 messages per round).
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 32)
+public class SmsIngestionLoadTest {
+
+    private static final int ROUNDS = Integer.getInteger("xpensia.loadtest.rounds", 10);
+    // Below MAX_INBOX_ITEMS so a round never trims before it is drained.
+    private static final int MESSAGES_PER_ROUND = 150;
+    private static final int REDELIVERED_PER_ROUND = 10;
+    private static final int THREADS = 4;
+
+    private Context context;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        context.getSharedPreferences(BackgroundSmsListenerPlugin.PREFS_NAME, Context.MODE_PRIVATE).edit().clear().commit();
+        context.deleteDatabase("xpensia_sms_index.db");
+        executor = Executors.newFixedThreadPool(THREADS);
+        ShadowLog.clear();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void concurrentBurstsThroughBothReceiversAreQueuedExactlyOnce() throws Exception {
+        SmsBroadcastReceiver receiver = new SmsBroadcastReceiver();
+        LatencyRecorder receiverLatency = new LatencyRecorder();
+        LatencyRecorder listenerLatency = new LatencyRecorder();
+        LatencyRecorder drainLatency = new LatencyRecorder();
+        Map<String, Integer> queuedCount = new HashMap<>();
+        List<Synthetic> expected = new ArrayList<>();
+        List<Synthetic> previousRound = Collections.emptyList();
+        int rejected = 0;
+
+        for (int round = 0; round < ROUNDS; round++) {
+            List<Synthetic> batch = generateRound(round);
+            List<Callable<Void>> deliveries = new ArrayList<>();
+            for (Synthetic sms : batch) {
+                if (sms.financial) {
+                    expected.add(sms);
+                } else {
+                    rejected++;
+                }
+                deliveries.add(() -> timeReceiver(receiver, sms, receiverLatency));
+                deliveries.add(() -> timeListener(sms, listenerLatency));
+            }
+            // Already drained by JS; the recent-fingerprint window must suppress them.
+            for (Synthetic sms : previousRound.subList(0, Math.min(REDELIVERED_PER_ROUND, previousRound.size()))) {
+                deliveries.add(() -> timeReceiver(receiver, sms, receiverLatency));
+            }
+            Collections.shuffle(deliveries, new Random(round));
+            runAll(deliveries);
+
+            long start = System.nanoTime();
+            JSONArray drained = BackgroundSmsListenerPlugin.drainQueue(context);
+            drainLatency.record(System.nanoTime() - start);
+            for (int i = 0; i < drained.length(); i++) {
+                queuedCount.merge(drained.getJSONObject(i).getString("body"), 1, Integer::sum);
+            }
+            previousRound = financialOnly(batch);
+        }
+
+        for (Synthetic sms : expected) {
+            assertEquals("Queued count for " + sms.body, Integer.valueOf(1), queuedCount.get(sms.body));
+        }
+        assertEquals("Unexpected messages in queue", expected.size(), queuedCount.size());
+        assertEquals(0, BackgroundSmsListenerPlugin.drainQueue(context).length());
+
+        report("messages=" + (expected.size() + rejected) + " financial=" + expected.size()
+                + " rejected=" + rejected + " deliveries=" + (receiverLatency.count() + listenerLatency.count()));
+        report("static receiver onReceive " + receiverLatency.summary());
+        report("listener handleIncomingSms " + listenerLatency.summary());
+        // Both receivers run onReceive on the main thread on a device.
+        report("main-thread blocking total=" + toMs(receiverLatency.total() + listenerLatency.total())
+                + "ms max=" + toMs(Math.max(receiverLatency.max(), listenerLatency.max())) + "ms");
+        report("drain " + drainLatency.summary());
+    }
+
+    @Test
+    public void queueWriteCostAtCapacityKeepsNewestMessages() {
+        int writes = BackgroundSmsListenerPlugin.MAX_INBOX_ITEMS * 3;
+        LatencyRecorder filling = new LatencyRecorder();
+        LatencyRecorder atCapacity = new LatencyRecorder();
+        long now = System.currentTimeMillis();
+
+        for (int i = 0; i < writes; i++) {
+            String body = financialBody(i, 0);
+            long start = System.nanoTime();
+            int size = BackgroundSmsListenerPlugin.persistMessage(context, "+966500000000", body, now + i, "load_test",
+                    BackgroundSmsListenerPlugin.buildHash("+966500000000", body));
+            long elapsed = System.nanoTime() - start;
+            (i < BackgroundSmsListenerPlugin.MAX_INBOX_ITEMS ? filling : atCapacity).record(elapsed);
+            assertEquals(Math.min(i + 1, BackgroundSmsListenerPlugin.MAX_INBOX_ITEMS), size);
+        }
+
+        JSONArray queue = BackgroundSmsListenerPlugin.drainQueue(context);
+        assertEquals(BackgroundSmsListenerPlugin.MAX_INBOX_ITEMS, queue.length());
+        assertEquals(financialBody(writes - 1, 0), queue.optJSONObject(queue.length() - 1).optString("body"));
+        for (int i = 0; i < queue.length(); i++) {
+            assertFalse("Oldest message should be trimmed",
+                    financialBody(0, 0).equals(queue.optJSONObject(i).optString("body")));
+        }
+
+        report("queue write while filling " + filling.summary());
+        report("queue write at capacity " + atCapacity.summary());
+    }
+
+    private Void timeReceiver(SmsBroadcastReceiver receiver, Synthetic sms, LatencyRecorder latency) {
+        Intent intent = SyntheticSmsPdu.smsReceivedIntent(sms.senderDigits, sms.body, sms.reference);
+        long start = System.nanoTime();
+        receiver.onReceive(context, intent);
+        latency.record(System.nanoTime() - start);
+        return null;
+    }
+
+    private Void timeListener(Synthetic sms, LatencyRecorder latency) {
+        long start = System.nanoTime();
+        // Same call the in-app receiver makes after decoding the PDUs.
+        BackgroundSmsListenerPlugin.handleIncomingSms(context, "+" + sms.senderDigits, sms.body, "listener", true);
+        latency.record(System.nanoTime() - start);
+        return null;
+    }
+
+    private void runAll(List<Callable<Void>> deliveries) throws Exception {
+        List<Future<Void>> futures = new ArrayList<>();
+        for (Callable<Void> delivery : deliveries) {
+            futures.add(executor.submit(delivery));
+        }
+        for (Future<Void> future : futures) {
+            future.get();
+        }
+    }
+
+    /**
+     * One round: mostly financial messages, some longer than one PDU segment,
+     * plus OTP and chatter that the classifier must drop under load.
+     */
+    private static List<Synthetic> generateRound(int round) {
+        List<Synthetic> batch = new ArrayList<>();
+        for (int i = 0; i < MESSAGES_PER_ROUND; i++) {
+            int id = round * MESSAGES_PER_ROUND + i;
+            String sender = String.format(Locale.ROOT, "96650%07d", id % 7);
+            String body;
+            boolean financial = true;
+            if (i % 10 == 3) {
+                body = "Your OTP is " + (100000 + id) + " for SAR " + id + " on 09/03/2026";
+                financial = false;
+            } else if (i % 10 == 7) {
+                body = "See you at " + (id % 12 + 1) + " tomorrow, message " + id;
+                financial = false;
+            } else {
+                body = financialBody(id, i % 3);
+            }
+            batch.add(new Synthetic(sender, body, financial, id));
+        }
+        return batch;
+    }
+
+    private static String financialBody(int id, int variant) {
+        switch (variant) {
+            case 1:
+                return "شراء\nعبر:3965;mada-apple pay\nبـSAR " + (id % 900 + 10) + "." + (id % 100)
+                        + "\nلـMerchant " + id + "\n26/3/10 23:49";
+            case 2:
+                return "Debit card purchase of SAR " + (id % 900 + 10) + ".50 at Merchant " + id
+                        + " on 09/03/2026 12:30. Available balance SAR 10,000.00. Call 920000000 if this was not you.";
+            default:
+                return "Purchase alert: SAR " + (id % 900 + 10) + " at Merchant " + id + " on 09/03/2026";
+        }
+    }
+
+    private static List<Synthetic> financialOnly(List<Synthetic> batch) {
+        List<Synthetic> financial = new ArrayList<>();
+        for (Synthetic sms : batch) {
+            if (sms.financial) {
+                financial.add(sms);
+            }
+        }
+        return financial;
+    }
+
+    private static void report(String line) {
+        System.out.println("[LOAD] " + line);
+    }
+
+    private static String toMs(long nanos) {
+        return String.format(Locale.ROOT, "%.2f", nanos / 1_000_000.0);
+    }
+
+    private static final class Synthetic {
+        final String senderDigits;
+        final String body;
+        final boolean financial;
+        final int reference;
+
+        Synthetic(String senderDigits, String body, boolean financial, int reference) {
+            this.senderDigits = senderDigits;
+            this.body = body;
+            this.financial = financial;
+            this.reference = reference;
+        }
+    }
+
+    private static final class LatencyRecorder {
+        private long[] samples = new long[256];
+        private int size;
+
+        synchronized void record(long nanos) {
+            if (size == samples.length) {
+                samples = Arrays.copyOf(samples, size * 2);
+            }
+            samples[size++] = nanos;
+        }
+
+        synchronized int count() {
+            return size;
+        }
+
+        synchronized long total() {
+            long total = 0;
+            for (int i = 0; i < size; i++) {
+                total += samples[i];
+            }
+            return total;
+        }
+
+        synchronized long max() {
+            long max = 0;
+            for (int i = 0; i < size; i++) {
+                max = Math.max(max, samples[i]);
+            }
+            return max;
+        }
+
+        synchronized String summary() {
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            assertTrue("No samples recorded", sorted.length > 0);
+            return "n=" + size
+                    + " p50=" + toMs(percentile(sorted, 50)) + "ms"
+                    + " p95=" + toMs(percentile(sorted, 95)) + "ms"
+                    + " p99=" + toMs(percentile(sorted, 99)) + "ms"
+                    + " max=" + toMs(sorted[sorted.length - 1]) + "ms";
+        }
+
+        private static long percentile(long[] sorted, int p) {
+            int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+}
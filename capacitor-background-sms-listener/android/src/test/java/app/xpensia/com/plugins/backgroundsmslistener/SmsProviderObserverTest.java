@@ -0,0 +1,145 @@
+package app.xpensia.com.plugins.backgroundsmslistener;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.Manifest;
+import android.app.Application;
+import android.content.ContentProvider;
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.net.Uri;
+import android.provider.Telephony;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.json.JSONArray;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 32)
+public class SmsProviderObserverTest {
+
+    private static final String SENDER = "966500000001";
+
+    private Context context;
+    private SharedPreferences prefs;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        shadowOf((Application) context).grantPermissions(Manifest.permission.READ_SMS);
+        prefs = context.getSharedPreferences(BackgroundSmsListenerPlugin.PREFS_NAME, Context.MODE_PRIVATE);
+        prefs.edit().clear().commit();
+        context.deleteDatabase("xpensia_sms_index.db");
+        Robolectric.setupContentProvider(FakeSmsProvider.class, "sms");
+        FakeSmsProvider.rows.execSQL("DELETE FROM inbox");
+    }
+
+    @After
+    public void tearDown() {
+        SmsProviderObserver.stop(context);
+    }
+
+    @Test
+    public void restoredObserverDoesNotReplayMessagesTheReceiverQueued() throws Exception {
+        // Enabled in an earlier process that has since been killed.
+        prefs.edit()
+                .putBoolean(BackgroundSmsListenerPlugin.PREF_OBSERVER_ENABLED, true)
+                .putLong(BackgroundSmsListenerPlugin.PREF_OBSERVER_LAST_ID, 1L)
+                .commit();
+        long now = System.currentTimeMillis();
+        String earlier = "Purchase alert: SAR 120 at Merchant 1 on 09/03/2026";
+        String latest = "Purchase alert: SAR 75 at Merchant 2 on 09/03/2026";
+        FakeSmsProvider.insert(2, "+" + SENDER, earlier, now - 60 * 60 * 1000);
+        FakeSmsProvider.insert(3, "+" + SENDER, latest, now);
+
+        // The SMS starts a new process; the receiver queues it and restores the observer.
+        new SmsBroadcastReceiver().onReceive(context, SyntheticSmsPdu.smsReceivedIntent(SENDER, latest, 1));
+        assertTrue(SmsProviderObserver.isRunning());
+        assertEquals(1, BackgroundSmsListenerPlugin.drainQueue(context).length());
+
+        // First provider change after the restore.
+        assertEquals(2, SmsProviderObserver.scanNewRows(context));
+
+        JSONArray replayed = BackgroundSmsListenerPlugin.drainQueue(context);
+        assertEquals(replayed.toString(), 0, replayed.length());
+        assertEquals(3L, prefs.getLong(BackgroundSmsListenerPlugin.PREF_OBSERVER_LAST_ID, 0L));
+    }
+
+    @Test
+    public void rowsMissedByTheReceiverAreStillDelivered() throws Exception {
+        prefs.edit()
+                .putBoolean(BackgroundSmsListenerPlugin.PREF_OBSERVER_ENABLED, true)
+                .putLong(BackgroundSmsListenerPlugin.PREF_OBSERVER_LAST_ID, 1L)
+                .commit();
+        String body = "Purchase alert: SAR 40 at Merchant 3 on 09/03/2026";
+        FakeSmsProvider.insert(2, "+" + SENDER, body, System.currentTimeMillis());
+
+        SmsProviderObserver.restoreIfEnabled(context);
+        assertEquals(1, SmsProviderObserver.scanNewRows(context));
+
+        JSONArray queued = BackgroundSmsListenerPlugin.drainQueue(context);
+        assertEquals(1, queued.length());
+        assertEquals(body, queued.getJSONObject(0).getString("body"));
+    }
+
+    /** Telephony inbox stand-in over an in-memory table. */
+    public static final class FakeSmsProvider extends ContentProvider {
+        static SQLiteDatabase rows;
+
+        static void insert(long id, String address, String body, long date) {
+            ContentValues values = new ContentValues();
+            values.put(Telephony.Sms._ID, id);
+            values.put(Telephony.Sms.ADDRESS, address);
+            values.put(Telephony.Sms.BODY, body);
+            values.put(Telephony.Sms.DATE, date);
+            rows.insert("inbox", null, values);
+        }
+
+        @Override
+        public boolean onCreate() {
+            if (rows == null) {
+                rows = SQLiteDatabase.create(null);
+                rows.execSQL("CREATE TABLE inbox (_id INTEGER PRIMARY KEY, address TEXT, body TEXT, date INTEGER)");
+            }
+            return true;
+        }
+
+        @Override
+        public Cursor query(Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
+            // Sort orders carry a LIMIT clause, as the real provider accepts.
+            return rows.query("inbox", projection, selection, selectionArgs, null, null, sortOrder);
+        }
+
+        @Override
+        public String getType(Uri uri) {
+            return null;
+        }
+
+        @Override
+        public Uri insert(Uri uri, ContentValues values) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int delete(Uri uri, String selection, String[] selectionArgs) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int update(Uri uri, ContentValues values, String selection, String[] selectionArgs) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
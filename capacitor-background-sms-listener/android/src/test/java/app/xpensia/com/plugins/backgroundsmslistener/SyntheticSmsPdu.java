@@ -0,0 +1,81 @@
+package app.xpensia.com.plugins.backgroundsmslistener;
+
+import android.content.Intent;
+import android.provider.Telephony;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Builds 3GPP SMS-DELIVER PDUs for load tests. Bodies are UCS-2 encoded so
+ * Arabic and Latin text take the same path; bodies longer than one segment
+ * are split with an 8-bit concatenation header, as a carrier would.
+ */
+final class SyntheticSmsPdu {
+    private static final int SINGLE_SEGMENT_CHARS = 70;
+    // 140 octets minus the 6-octet concatenation header, in UCS-2 chars.
+    private static final int MULTI_SEGMENT_CHARS = 67;
+    private static final int DCS_UCS2 = 0x08;
+    private static final int TYPE_INTERNATIONAL = 0x91;
+    // 2026-03-10 12:00:00 +00, swapped semi-octets.
+    private static final byte[] SERVICE_CENTRE_TIMESTAMP = { 0x62, 0x30, 0x01, 0x21, 0x00, 0x00, 0x00 };
+
+    private SyntheticSmsPdu() {
+    }
+
+    static Intent smsReceivedIntent(String sender, String body, int reference) {
+        byte[][] pdus = deliverPdus(sender, body, reference);
+        Intent intent = new Intent(Telephony.Sms.Intents.SMS_RECEIVED_ACTION);
+        intent.putExtra("pdus", (Object[]) pdus);
+        intent.putExtra("format", "3gpp");
+        return intent;
+    }
+
+    /**
+     * @param sender    digits only, without the leading '+'
+     * @param reference concatenation reference; only its low byte is used
+     */
+    static byte[][] deliverPdus(String sender, String body, int reference) {
+        if (body.length() <= SINGLE_SEGMENT_CHARS) {
+            return new byte[][] { deliverPdu(sender, body, null) };
+        }
+        int parts = (body.length() + MULTI_SEGMENT_CHARS - 1) / MULTI_SEGMENT_CHARS;
+        byte[][] pdus = new byte[parts][];
+        for (int i = 0; i < parts; i++) {
+            String segment = body.substring(i * MULTI_SEGMENT_CHARS, Math.min(body.length(), (i + 1) * MULTI_SEGMENT_CHARS));
+            byte[] header = { 0x05, 0x00, 0x03, (byte) reference, (byte) parts, (byte) (i + 1) };
+            pdus[i] = deliverPdu(sender, segment, header);
+        }
+        return pdus;
+    }
+
+    private static byte[] deliverPdu(String sender, String text, byte[] userDataHeader) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0x00); // no service centre address
+        // SMS-DELIVER, no more messages to send, UDHI when a header is present.
+        out.write(0x04 | (userDataHeader != null ? 0x40 : 0x00));
+        out.write(sender.length());
+        out.write(TYPE_INTERNATIONAL);
+        writeSemiOctets(out, sender);
+        out.write(0x00); // protocol identifier
+        out.write(DCS_UCS2);
+        out.write(SERVICE_CENTRE_TIMESTAMP, 0, SERVICE_CENTRE_TIMESTAMP.length);
+
+        byte[] ucs2 = text.getBytes(StandardCharsets.UTF_16BE);
+        int headerLength = userDataHeader != null ? userDataHeader.length : 0;
+        out.write(headerLength + ucs2.length);
+        if (userDataHeader != null) {
+            out.write(userDataHeader, 0, userDataHeader.length);
+        }
+        out.write(ucs2, 0, ucs2.length);
+        return out.toByteArray();
+    }
+
+    private static void writeSemiOctets(ByteArrayOutputStream out, String digits) {
+        for (int i = 0; i < digits.length(); i += 2) {
+            int low = digits.charAt(i) - '0';
+            int high = i + 1 < digits.length() ? digits.charAt(i + 1) - '0' : 0x0F;
+            out.write((high << 4) | low);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package app.xpensia.com.plugins.smscommon;
+
+/**
+ * One way of deciding whether an SMS is a financial transaction. Engines are
+ * registered in {@link ClassifierEngines}; {@link FinancialSmsClassifier}
+ * runs the active one, and {@link ClassifierShadow} can run a candidate next
+ * to it on live messages.
+ * <p>
+ * Implementations must be thread-safe: bulk scans call one engine from
+ * several workers at once.
+ */
+public interface ClassifierEngine {
+
+    /** Stable ID, used by the registry and in shadow reports. */
+    String id();
+
+    /**
+     * @param body       the message as received; never empty
+     * @param normalized {@code body} NFC-normalised, whitespace collapsed and
+     *                   lower-cased, as messageFilter.ts does
+     * @param keywords   user-customised keywords, normalised the same way, or
+     *                   null to use the engine's own list
+     * @param verbose    log gate-by-gate decisions to logcat
+     * @return the verdict, naming the rejecting gate when not accepted
+     */
+    FinancialSmsClassifier.Verdict evaluate(String body, String normalized, String[] keywords, boolean verbose);
+}
@@ -0,0 +1,91 @@
+package app.xpensia.com.plugins.smscommon;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of {@link ClassifierEngine}s by ID. The built-in regex gates are
+ * always registered as {@link #REGEX}, the reference engine; a rule pack
+ * registers itself as {@link #RULE_PACK} when installed.
+ * <p>
+ * {@link #active()} is the engine {@link FinancialSmsClassifier} runs: the
+ * preferred engine when it is registered, otherwise the reference. The
+ * default preference is {@link #RULE_PACK}, so an installed pack takes over
+ * from the built-in rules and removing it falls back to them.
+ */
+public final class ClassifierEngines {
+    public static final String REGEX = "regex";
+    public static final String RULE_PACK = "rulePack";
+
+    private static final Map<String, ClassifierEngine> engines = new ConcurrentHashMap<>();
+    private static volatile String preferred = RULE_PACK;
+
+    static {
+        engines.put(REGEX, RegexClassifierEngine.INSTANCE);
+    }
+
+    private ClassifierEngines() {
+    }
+
+    /**
+     * Adds {@code engine}, replacing any engine with the same ID.
+     *
+     * @throws IllegalArgumentException for the reference engine's ID
+     */
+    public static void register(ClassifierEngine engine) {
+        if (REGEX.equals(engine.id())) {
+            throw new IllegalArgumentException("The " + REGEX + " engine cannot be replaced");
+        }
+        engines.put(engine.id(), engine);
+    }
+
+    /**
+     * Removes the engine registered as {@code id}, if any.
+     *
+     * @throws IllegalArgumentException for the reference engine's ID
+     */
+    public static void unregister(String id) {
+        if (REGEX.equals(id)) {
+            throw new IllegalArgumentException("The " + REGEX + " engine cannot be removed");
+        }
+        engines.remove(id);
+    }
+
+    /** @return the engine registered as {@code id}, or null */
+    public static ClassifierEngine get(String id) {
+        return id == null ? null : engines.get(id);
+    }
+
+    /** @return registered engine IDs, sorted */
+    public static List<String> ids() {
+        List<String> ids = new ArrayList<>(engines.keySet());
+        Collections.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Makes {@code id} the active engine whenever it is registered; null
+     * pins the reference engine. The engine does not have to be registered
+     * yet.
+     */
+    public static void prefer(String id) {
+        preferred = id == null ? REGEX : id;
+    }
+
+    public static String preferred() {
+        return preferred;
+    }
+
+    /** The built-in regex gates, kept in step with messageFilter.ts. */
+    public static ClassifierEngine reference() {
+        return RegexClassifierEngine.INSTANCE;
+    }
+
+    public static ClassifierEngine active() {
+        ClassifierEngine engine = engines.get(preferred);
+        return engine != null ? engine : RegexClassifierEngine.INSTANCE;
+    }
+}
@@ -0,0 +1,565 @@
+package app.xpensia.com.plugins.smscommon;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Locale;
+import java.util.zip.CRC32;
+
+/**
+ * Precompiled classifier rules, read straight from a memory-mapped pack file.
+ * Packs are compiled from {@code updates/rules/classifier-rules.json} by
+ * {@code scripts/build-rule-pack.mjs} and shipped through the OTA manifest,
+ * so a new bank format does not need an APK release.
+ * <p>
+ * Layout (little-endian):
+ * <pre>
+ * header   magic "XRP1" u32 | format u16 | sections u16 | pack version u32
+ *          | total length u32 | CRC32 of bytes [32, total) u32 | reserved (12)
+ * table    per section: id u16 | reserved u16 | offset u32 | length u32
+ * AUTOMATON    Aho-Corasick over lower-cased UTF-16 units: keywords, OTP
+ *              markers, currency codes/symbols and amount prefixes.
+ *              Currencies allowed right after a prefix carry
+ *              {@link #FLAG_PREFIX_CURRENCY}.
+ *              stateCount u32 | edgeCount u32
+ *              | states: first edge u32, edge count u16, flags u8,
+ *                amount kind u8, fail u32, amount token length u8, pad (3)
+ *              | edges, sorted by char per state: char u16, pad u16, target u32
+ * DATE_GRAMMAR ruleCount u16 | pad u16 | per rule: element count u8, then
+ *              elements of kind u8, char set u8, min u8, max u8 (255 = unbounded)
+ * CHAR_SETS    count u16 | pad u16 | offsets u32[count] | per set: length u16, UTF-16 units.
+ *              Set 0 spells the prefix allowed between a word boundary and
+ *              a currency code: its first unit is required, the rest optional
+ *              (the Arabic "بـ", as in "بـSAR 4").
+ * </pre>
+ * Loading validates the header, the checksum and every table index once;
+ * matching then reads the mapping with absolute gets only, so one pack can
+ * be shared by concurrent scans. Nothing is parsed into objects.
+ * <p>
+ * An installed pack is registered in {@link ClassifierEngines} as the
+ * {@link ClassifierEngines#RULE_PACK} engine.
+ */
+public final class ClassifierRulePack implements ClassifierEngine {
+    public static final int FORMAT_VERSION = 2;
+    static final int MAGIC = 0x31505258; // "XRP1"
+    static final int HEADER_BYTES = 32;
+    static final int SECTION_ENTRY_BYTES = 12;
+    static final int MAX_PACK_BYTES = 1024 * 1024;
+
+    static final int SECTION_AUTOMATON = 1;
+    static final int SECTION_DATE_GRAMMAR = 2;
+    static final int SECTION_CHAR_SETS = 3;
+
+    // Automaton state flags.
+    static final int FLAG_KEYWORD = 1;
+    static final int FLAG_OTP = 2;
+    // A currency that may sit between an amount prefix and its number
+    // ("مبلغ ريال 500"); set on the state of the longest token ending there.
+    static final int FLAG_PREFIX_CURRENCY = 4;
+    // Amount token kinds.
+    static final int AMOUNT_CODE = 1;
+    static final int AMOUNT_SYMBOL = 2;
+    static final int AMOUNT_PREFIX = 3;
+
+    // Date grammar element kinds and built-in char sets.
+    static final int ELEMENT_CHARS = 0;
+    static final int ELEMENT_MONTH = 1;
+    static final int ELEMENT_MONTH_WORD = 2;
+    static final int SET_DIGIT = 255;
+    static final int SET_SPACE = 254;
+    static final int SET_LETTER = 253;
+    static final int UNBOUNDED = 255;
+
+    private static final int STATE_BYTES = 16;
+    private static final int EDGE_BYTES = 8;
+    private static final int CODE_PREFIX_SET = 0;
+    private static final String TAG = "FinancialClassifier";
+
+    private final ByteBuffer buffer;
+    private final int version;
+    private final long checksum;
+    private final int statesAt;
+    private final int edgesAt;
+    private final int grammarAt;
+    private final int ruleCount;
+    private final int setsAt;
+
+    private ClassifierRulePack(ByteBuffer buffer, int version, long checksum, int automatonAt,
+                               int grammarAt, int setsAt) {
+        this.buffer = buffer;
+        this.version = version;
+        this.checksum = checksum;
+        this.statesAt = automatonAt + 8;
+        this.edgesAt = statesAt + buffer.getInt(automatonAt) * STATE_BYTES;
+        this.grammarAt = grammarAt;
+        this.ruleCount = buffer.getShort(grammarAt) & 0xFFFF;
+        this.setsAt = setsAt;
+    }
+
+    /**
+     * Maps {@code file} read-only and validates it.
+     *
+     * @throws IOException if the file cannot be read or is not a valid pack
+     *                     of a supported format
+     */
+    public static ClassifierRulePack map(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > MAX_PACK_BYTES) {
+                throw new IOException("Rule pack size out of range: " + size);
+            }
+            // The mapping stays valid after the channel is closed.
+            return wrap(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    /** Validates a pack already in memory; used by {@link #map(File)}. */
+    static ClassifierRulePack wrap(ByteBuffer source) throws IOException {
+        ByteBuffer buffer = source.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int size = buffer.limit();
+        if (size < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a classifier rule pack");
+        }
+        int format = buffer.getShort(4) & 0xFFFF;
+        if (format != FORMAT_VERSION) {
+            throw new IOException("Unsupported rule pack format " + format);
+        }
+        int sections = buffer.getShort(6) & 0xFFFF;
+        int version = buffer.getInt(8);
+        if (buffer.getInt(12) != size) {
+            throw new IOException("Rule pack length mismatch");
+        }
+        long expected = buffer.getInt(16) & 0xFFFFFFFFL;
+        long actual = crc32(buffer, HEADER_BYTES, size);
+        if (expected != actual) {
+            throw new IOException("Rule pack checksum mismatch");
+        }
+        if (HEADER_BYTES + (long) sections * SECTION_ENTRY_BYTES > size) {
+            throw new IOException("Rule pack section table truncated");
+        }
+
+        int automatonAt = -1;
+        int automatonLength = 0;
+        int grammarAt = -1;
+        int grammarLength = 0;
+        int setsAt = -1;
+        int setsLength = 0;
+        for (int i = 0; i < sections; i++) {
+            int entry = HEADER_BYTES + i * SECTION_ENTRY_BYTES;
+            int id = buffer.getShort(entry) & 0xFFFF;
+            long offset = buffer.getInt(entry + 4) & 0xFFFFFFFFL;
+            long length = buffer.getInt(entry + 8) & 0xFFFFFFFFL;
+            if (offset + length > size) {
+                throw new IOException("Rule pack section " + id + " out of bounds");
+            }
+            if (id == SECTION_AUTOMATON) {
+                automatonAt = (int) offset;
+                automatonLength = (int) length;
+            } else if (id == SECTION_DATE_GRAMMAR) {
+                grammarAt = (int) offset;
+                grammarLength = (int) length;
+            } else if (id == SECTION_CHAR_SETS) {
+                setsAt = (int) offset;
+                setsLength = (int) length;
+            }
+            // Unknown sections are skipped so newer compilers can add data.
+        }
+        if (automatonAt < 0 || grammarAt < 0 || setsAt < 0) {
+            throw new IOException("Rule pack is missing a required section");
+        }
+        int setCount = validateCharSets(buffer, setsAt, setsLength);
+        validateAutomaton(buffer, automatonAt, automatonLength);
+        validateGrammar(buffer, grammarAt, grammarLength, setCount);
+        return new ClassifierRulePack(buffer, version, expected, automatonAt, grammarAt, setsAt);
+    }
+
+    public int version() {
+        return version;
+    }
+
+    /** CRC32 of the pack body, as stored in the header. */
+    public long checksum() {
+        return checksum;
+    }
+
+    public int sizeBytes() {
+        return buffer.limit();
+    }
+
+    @Override
+    public String id() {
+        return ClassifierEngines.RULE_PACK;
+    }
+
+    @Override
+    public FinancialSmsClassifier.Verdict evaluate(String body, String normalized, String[] keywords,
+                                                   boolean verbose) {
+        FinancialSmsClassifier.Verdict verdict = evaluate(normalized, keywords);
+        if (verbose) {
+            Log.d(TAG, "Rule pack v" + version + " verdict: " + verdict.statKey());
+        }
+        return verdict;
+    }
+
+    /**
+     * Runs the gates on text already normalised by the classifier
+     * (NFC, whitespace collapsed, lower-cased).
+     *
+     * @param keywords user-customised keywords, or null to use the pack's
+     *                 keyword list
+     */
+    FinancialSmsClassifier.Verdict evaluate(String text, String[] keywords) {
+        int length = text.length();
+        int state = 0;
+        boolean keyword = false;
+        boolean amount = false;
+        // Where a number may start after an amount prefix such as "مبلغ:".
+        int prefixEnd = -1;
+        for (int i = 0; i < length; i++) {
+            state = step(state, text.charAt(i));
+            int at = statesAt + state * STATE_BYTES;
+            int flags = buffer.get(at + 6) & 0xFF;
+            if ((flags & FLAG_OTP) != 0) {
+                return FinancialSmsClassifier.Verdict.REJECTED_OTP;
+            }
+            keyword |= (flags & FLAG_KEYWORD) != 0;
+            int kind = buffer.get(at + 7) & 0xFF;
+            if (amount || kind == 0) {
+                continue;
+            }
+            int end = i + 1;
+            int start = end - (buffer.get(at + 12) & 0xFF);
+            if (kind == AMOUNT_PREFIX) {
+                int next = skipSeparators(text, end);
+                if (isDigitAt(text, next)) {
+                    amount = true;
+                } else {
+                    prefixEnd = next;
+                }
+            } else {
+                boolean numberAfter = isDigitAt(text, skipSeparators(text, end));
+                if (start == prefixEnd && (flags & FLAG_PREFIX_CURRENCY) != 0) {
+                    // "مبلغ: SAR 500"; other currencies after the prefix
+                    // (such as "مبلغ جنيه 500") get the usual checks below.
+                    amount = numberAfter;
+                } else if (kind == AMOUNT_SYMBOL) {
+                    // "500 ر.س"
+                    amount = numberBefore(text, start);
+                } else {
+                    // "500 SAR" or "SAR 500"
+                    amount = (numberBefore(text, start) && !isWordChar(text, end))
+                            || (numberAfter && hasCodeBoundary(text, start));
+                }
+            }
+        }
+
+        if (keywords != null) {
+            keyword = false;
+            for (String kw : keywords) {
+                if (text.contains(kw.toLowerCase(Locale.ROOT))) {
+                    keyword = true;
+                    break;
+                }
+            }
+        }
+        if (!keyword) {
+            return FinancialSmsClassifier.Verdict.REJECTED_NO_KEYWORD;
+        }
+        if (!amount) {
+            return FinancialSmsClassifier.Verdict.REJECTED_NO_AMOUNT;
+        }
+        if (!hasDate(text)) {
+            return FinancialSmsClassifier.Verdict.REJECTED_NO_DATE;
+        }
+        return FinancialSmsClassifier.Verdict.ACCEPTED;
+    }
+
+    private int step(int state, char c) {
+        while (true) {
+            int at = statesAt + state * STATE_BYTES;
+            int target = findEdge(buffer.getInt(at), buffer.getShort(at + 4) & 0xFFFF, c);
+            if (target >= 0) {
+                return target;
+            }
+            if (state == 0) {
+                return 0;
+            }
+            state = buffer.getInt(at + 8);
+        }
+    }
+
+    private int findEdge(int first, int count, char c) {
+        int low = first;
+        int high = first + count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int at = edgesAt + mid * EDGE_BYTES;
+            char edge = buffer.getChar(at);
+            if (edge < c) {
+                low = mid + 1;
+            } else if (edge > c) {
+                high = mid - 1;
+            } else {
+                return buffer.getInt(at + 4);
+            }
+        }
+        return -1;
+    }
+
+    /** Boundary before a currency code, allowing the code prefix in between. */
+    private boolean hasCodeBoundary(String text, int start) {
+        if (!isWordChar(text, start - 1)) {
+            return true;
+        }
+        int p = start;
+        while (p > 0 && FinancialSmsClassifier.isSpace(text.charAt(p - 1))) {
+            p--;
+        }
+        int at = setOffset(CODE_PREFIX_SET);
+        int length = buffer.getShort(at) & 0xFFFF;
+        if (length == 0) {
+            return false;
+        }
+        for (int i = length - 1; i > 0; i--) {
+            if (p > 0 && text.charAt(p - 1) == buffer.getChar(at + 2 + i * 2)) {
+                p--;
+            }
+        }
+        if (p == 0 || text.charAt(p - 1) != buffer.getChar(at + 2)) {
+            return false;
+        }
+        return !isWordChar(text, p - 2);
+    }
+
+    private static boolean numberBefore(String text, int start) {
+        int p = start;
+        while (p > 0 && isSeparator(text.charAt(p - 1))) {
+            p--;
+        }
+        return isDigitAt(text, p - 1);
+    }
+
+    private static int skipSeparators(String text, int from) {
+        int p = from;
+        while (p < text.length() && isSeparator(text.charAt(p))) {
+            p++;
+        }
+        return p;
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == ':' || FinancialSmsClassifier.isSpace(c);
+    }
+
+    private static boolean isDigitAt(String text, int index) {
+        if (index < 0 || index >= text.length()) {
+            return false;
+        }
+        char c = text.charAt(index);
+        return c >= '0' && c <= '9';
+    }
+
+    /** Letters, ASCII digits and '_', as {@code [\p{L}\w]} in the built-in pattern. */
+    private static boolean isWordChar(String text, int index) {
+        if (index < 0 || index >= text.length()) {
+            return false;
+        }
+        char c = text.charAt(index);
+        return Character.isLetter(c) || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    // ── Date grammar ─────────────────────────────────────────────────────
+
+    private boolean hasDate(String text) {
+        for (int start = 0; start < text.length(); start++) {
+            int rule = grammarAt + 4;
+            for (int r = 0; r < ruleCount; r++) {
+                int elements = buffer.get(rule) & 0xFF;
+                if (matchElements(text, rule + 1, elements, start)) {
+                    return true;
+                }
+                rule += 1 + elements * 4;
+            }
+        }
+        return false;
+    }
+
+    /** Backtracking match of {@code remaining} elements starting at {@code pos}. */
+    private boolean matchElements(String text, int element, int remaining, int pos) {
+        if (remaining == 0) {
+            return true;
+        }
+        int kind = buffer.get(element) & 0xFF;
+        int set = buffer.get(element + 1) & 0xFF;
+        int min = buffer.get(element + 2) & 0xFF;
+        int max = buffer.get(element + 3) & 0xFF;
+        int next = element + 4;
+        if (kind == ELEMENT_CHARS) {
+            int limit = max == UNBOUNDED ? Integer.MAX_VALUE : max;
+            int run = 0;
+            while (run < limit && pos + run < text.length() && inSet(set, text.charAt(pos + run))) {
+                run++;
+            }
+            for (int take = run; take >= min; take--) {
+                if (matchElements(text, next, remaining - 1, pos + take)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (!matchesMonth(text, pos, set)) {
+            return false;
+        }
+        int end = pos + 3;
+        if (kind == ELEMENT_MONTH_WORD) {
+            while (end < text.length() && inSet(SET_LETTER, text.charAt(end))) {
+                end++;
+            }
+        }
+        return matchElements(text, next, remaining - 1, end);
+    }
+
+    /** Month sets hold three-letter abbreviations back to back. */
+    private boolean matchesMonth(String text, int pos, int set) {
+        if (pos + 3 > text.length()) {
+            return false;
+        }
+        int at = setOffset(set);
+        int length = buffer.getShort(at) & 0xFFFF;
+        for (int m = 0; m + 3 <= length; m += 3) {
+            int unit = at + 2 + m * 2;
+            if (buffer.getChar(unit) == text.charAt(pos)
+                    && buffer.getChar(unit + 2) == text.charAt(pos + 1)
+                    && buffer.getChar(unit + 4) == text.charAt(pos + 2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean inSet(int set, char c) {
+        switch (set) {
+            case SET_DIGIT:
+                return c >= '0' && c <= '9';
+            case SET_SPACE:
+                return FinancialSmsClassifier.isSpace(c);
+            case SET_LETTER:
+                return c >= 'a' && c <= 'z';
+            default:
+                int at = setOffset(set);
+                int length = buffer.getShort(at) & 0xFFFF;
+                for (int i = 0; i < length; i++) {
+                    if (buffer.getChar(at + 2 + i * 2) == c) {
+                        return true;
+                    }
+                }
+                return false;
+        }
+    }
+
+    private int setOffset(int set) {
+        return setsAt + buffer.getInt(setsAt + 4 + set * 4);
+    }
+
+    // ── Validation ───────────────────────────────────────────────────────
+
+    private static long crc32(ByteBuffer buffer, int from, int to) {
+        CRC32 crc = new CRC32();
+        ByteBuffer body = buffer.duplicate();
+        body.limit(to);
+        body.position(from);
+        // CRC32.update(ByteBuffer) needs API 26; copy through a small chunk.
+        byte[] chunk = new byte[8192];
+        while (body.hasRemaining()) {
+            int n = Math.min(chunk.length, body.remaining());
+            body.get(chunk, 0, n);
+            crc.update(chunk, 0, n);
+        }
+        return crc.getValue();
+    }
+
+    private static int validateCharSets(ByteBuffer buffer, int at, int length) throws IOException {
+        if (length < 4) {
+            throw new IOException("Rule pack char sets truncated");
+        }
+        int count = buffer.getShort(at) & 0xFFFF;
+        if (count == 0 || 4 + count * 4L > length) {
+            throw new IOException("Rule pack char set table invalid");
+        }
+        for (int i = 0; i < count; i++) {
+            long offset = buffer.getInt(at + 4 + i * 4) & 0xFFFFFFFFL;
+            if (offset + 2 > length || offset + 2 + (buffer.getShort(at + (int) offset) & 0xFFFF) * 2L > length) {
+                throw new IOException("Rule pack char set " + i + " out of bounds");
+            }
+        }
+        return count;
+    }
+
+    private static void validateAutomaton(ByteBuffer buffer, int at, int length) throws IOException {
+        if (length < 8) {
+            throw new IOException("Rule pack automaton truncated");
+        }
+        long states = buffer.getInt(at) & 0xFFFFFFFFL;
+        long edges = buffer.getInt(at + 4) & 0xFFFFFFFFL;
+        if (states == 0 || 8 + states * STATE_BYTES + edges * EDGE_BYTES > length) {
+            throw new IOException("Rule pack automaton size invalid");
+        }
+        int statesAt = at + 8;
+        int edgesAt = statesAt + (int) states * STATE_BYTES;
+        for (int s = 0; s < states; s++) {
+            int state = statesAt + s * STATE_BYTES;
+            long first = buffer.getInt(state) & 0xFFFFFFFFL;
+            int count = buffer.getShort(state + 4) & 0xFFFF;
+            long fail = buffer.getInt(state + 8) & 0xFFFFFFFFL;
+            int kind = buffer.get(state + 7) & 0xFF;
+            if (first + count > edges || fail >= states || kind > AMOUNT_PREFIX) {
+                throw new IOException("Rule pack automaton state " + s + " invalid");
+            }
+        }
+        for (int e = 0; e < edges; e++) {
+            long target = buffer.getInt(edgesAt + e * EDGE_BYTES + 4) & 0xFFFFFFFFL;
+            if (target == 0 || target >= states) {
+                throw new IOException("Rule pack automaton edge " + e + " invalid");
+            }
+        }
+    }
+
+    private static void validateGrammar(ByteBuffer buffer, int at, int length, int setCount)
+            throws IOException {
+        if (length < 4) {
+            throw new IOException("Rule pack date grammar truncated");
+        }
+        int rules = buffer.getShort(at) & 0xFFFF;
+        int p = 4;
+        for (int r = 0; r < rules; r++) {
+            if (p >= length) {
+                throw new IOException("Rule pack date rule " + r + " truncated");
+            }
+            int elements = buffer.get(at + p) & 0xFF;
+            if (elements == 0 || p + 1 + elements * 4 > length) {
+                throw new IOException("Rule pack date rule " + r + " invalid");
+            }
+            for (int e = 0; e < elements; e++) {
+                int element = at + p + 1 + e * 4;
+                int kind = buffer.get(element) & 0xFF;
+                int set = buffer.get(element + 1) & 0xFF;
+                int min = buffer.get(element + 2) & 0xFF;
+                int max = buffer.get(element + 3) & 0xFF;
+                boolean builtIn = set == SET_DIGIT || set == SET_SPACE || set == SET_LETTER;
+                boolean valid = kind == ELEMENT_CHARS
+                        ? (builtIn || set < setCount) && min <= max
+                        : (kind == ELEMENT_MONTH || kind == ELEMENT_MONTH_WORD) && set < setCount;
+                if (!valid) {
+                    throw new IOException("Rule pack date rule " + r + " element " + e + " invalid");
+                }
+            }
+            p += 1 + elements * 4;
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package app.xpensia.com.plugins.smscommon;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import app.xpensia.com.plugins.smscommon.FinancialSmsClassifier.Verdict;
+
+/**
+ * Shadow mode: runs a candidate {@link ClassifierEngine} next to the active
+ * one on live messages and reports where they disagree and what each costs,
+ * without changing any verdict.
+ * <p>
+ * {@link FinancialSmsClassifier#classify(Context, String)} hands each message
+ * here after deciding it. The comparison runs on one background thread,
+ * which times both engines back to back, alternating which goes first, so
+ * the receiver never waits for the candidate. At most {@link #MAX_PENDING}
+ * comparisons queue; beyond that they are dropped and counted. Bulk scans
+ * are not shadowed.
+ * <p>
+ * The report is kept in memory and saved to SharedPreferences from the
+ * comparison thread every {@link #SAVE_EVERY} comparisons, or on the first
+ * one {@link #SAVE_INTERVAL_MS} after the last save, so it survives restarts
+ * until a new candidate is set, minus at most one unsaved batch. It holds
+ * counters, summed timings and the last {@link #MAX_SAMPLES} disagreements
+ * as engine IDs, verdicts and lengths; never message text.
+ */
+public final class ClassifierShadow {
+    private static final String TAG = "ClassifierShadow";
+    private static final String PREFS = "ClassifierShadow";
+    private static final String ENGINE_KEY = "engine";
+    private static final String REPORT_KEY = "report";
+    static final int MAX_SAMPLES = 50;
+    static final int MAX_PENDING = 32;
+    static final int SAVE_EVERY = 20;
+    static final long SAVE_INTERVAL_MS = 60 * 1000;
+    private static final long IDLE_TIMEOUT_MS = 2000;
+
+    private static final Object LOCK = new Object();
+    private static final ThreadPoolExecutor executor = newExecutor();
+
+    private static volatile boolean loaded;
+    private static volatile String candidate;
+    // Guarded by LOCK; bumped by setCandidate so queued comparisons for the
+    // previous candidate are discarded.
+    private static int generation;
+    private static Report report = new Report(System.currentTimeMillis());
+    // Comparisons since the report was last saved, and when that was; guarded by LOCK.
+    private static int unsaved;
+    private static long savedAt;
+    // Only touched by the executor thread.
+    private static boolean candidateFirst;
+
+    private ClassifierShadow() {
+    }
+
+    /**
+     * Sets the engine to shadow, or null to stop, and starts a new report.
+     *
+     * @throws IllegalArgumentException if no engine is registered as {@code id}
+     */
+    public static void setCandidate(Context context, String id) {
+        RulePackStore.ensureLoaded(context);
+        if (id != null && ClassifierEngines.get(id) == null) {
+            throw new IllegalArgumentException("Unknown classifier engine: " + id);
+        }
+        ensureLoaded(context);
+        synchronized (LOCK) {
+            candidate = id;
+            generation++;
+            report = new Report(System.currentTimeMillis());
+            unsaved = 0;
+            savedAt = SystemClock.elapsedRealtime();
+            SharedPreferences.Editor editor = prefs(context).edit();
+            if (id == null) {
+                editor.remove(ENGINE_KEY);
+            } else {
+                editor.putString(ENGINE_KEY, id);
+            }
+            editor.putString(REPORT_KEY, report.toJson().toString()).apply();
+        }
+    }
+
+    /** @return the shadowed engine's ID, or null when shadow mode is off */
+    public static String candidate(Context context) {
+        ensureLoaded(context);
+        return candidate;
+    }
+
+    /**
+     * Returns the in-memory report without waiting for queued comparisons:
+     * {@code {active, engines, candidate?, since, compared, disagreements,
+     * errors, dropped, activeNanos, candidateNanos, latencyRatio?,
+     * comparedWith, samples}}. {@code latencyRatio} is the candidate's total
+     * time over the active engine's; {@code comparedWith} counts comparisons
+     * per active engine, which changes when a rule pack is installed.
+     */
+    public static JSONObject report(Context context) throws JSONException {
+        RulePackStore.ensureLoaded(context);
+        ensureLoaded(context);
+        JSONObject json;
+        synchronized (LOCK) {
+            json = report.toJson();
+        }
+        json.put("active", ClassifierEngines.active().id());
+        json.put("engines", new JSONArray(ClassifierEngines.ids()));
+        String id = candidate;
+        if (id != null) {
+            json.put("candidate", id);
+        }
+        long activeNanos = json.getLong("activeNanos");
+        if (activeNanos > 0) {
+            json.put("latencyRatio", json.getLong("candidateNanos") / (double) activeNanos);
+        }
+        return json;
+    }
+
+    /**
+     * Queues a comparison of {@code verdict}, just returned by {@code active},
+     * with the candidate's verdict for the same message. A no-op when shadow
+     * mode is off or the candidate is the active engine.
+     */
+    static void offer(Context context, ClassifierEngine active, Verdict verdict, String body,
+                      String normalized, String[] keywords) {
+        String id = candidate(context);
+        if (id == null || id.equals(active.id())) {
+            return;
+        }
+        ClassifierEngine shadow = ClassifierEngines.get(id);
+        if (shadow == null) {
+            return;
+        }
+        Context app = context.getApplicationContext();
+        int expected;
+        synchronized (LOCK) {
+            expected = generation;
+        }
+        try {
+            executor.execute(() -> compare(app, expected, active, verdict, shadow, body, normalized, keywords));
+        } catch (RejectedExecutionException e) {
+            synchronized (LOCK) {
+                report.dropped++;
+            }
+        }
+    }
+
+    private static void compare(Context context, int expected, ClassifierEngine active, Verdict verdict,
+                                ClassifierEngine shadow, String body, String normalized, String[] keywords) {
+        // Alternate the order so neither engine always runs with a warm cache.
+        candidateFirst = !candidateFirst;
+        long activeNanos = 0;
+        long shadowNanos = 0;
+        Verdict shadowVerdict = null;
+        boolean failed = false;
+        for (int pass = 0; pass < 2; pass++) {
+            boolean runShadow = (pass == 0) == candidateFirst;
+            long start = System.nanoTime();
+            if (runShadow) {
+                try {
+                    shadowVerdict = shadow.evaluate(body, normalized, keywords, false);
+                } catch (RuntimeException e) {
+                    failed = true;
+                    Log.w(TAG, "Shadow engine " + shadow.id() + " failed", e);
+                }
+                shadowNanos = System.nanoTime() - start;
+            } else {
+                active.evaluate(body, normalized, keywords, false);
+                activeNanos = System.nanoTime() - start;
+            }
+        }
+
+        synchronized (LOCK) {
+            if (expected != generation) {
+                return;
+            }
+            report.compared++;
+            report.comparedWith.merge(active.id(), 1L, Long::sum);
+            if (failed || shadowVerdict == null) {
+                report.errors++;
+            } else {
+                report.activeNanos += activeNanos;
+                report.candidateNanos += shadowNanos;
+                if (shadowVerdict != verdict) {
+                    report.disagreements++;
+                    report.addSample(new Sample(System.currentTimeMillis(), active.id(), verdict,
+                            shadowVerdict, body.length()));
+                    RingLog.event(Log.INFO, RingLog.Event.SHADOW_DISAGREED, verdict.ordinal(),
+                            shadowVerdict.ordinal());
+                }
+            }
+            unsaved++;
+            long now = SystemClock.elapsedRealtime();
+            if (unsaved >= SAVE_EVERY || now - savedAt >= SAVE_INTERVAL_MS) {
+                unsaved = 0;
+                savedAt = now;
+                prefs(context).edit().putString(REPORT_KEY, report.toJson().toString()).apply();
+            }
+        }
+    }
+
+    /** Waits up to {@link #IDLE_TIMEOUT_MS} for comparisons already queued. For tests. */
+    static void awaitIdle() {
+        Future<?> marker;
+        try {
+            marker = executor.submit(() -> { });
+        } catch (RejectedExecutionException e) {
+            return;
+        }
+        try {
+            marker.get(IDLE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            Log.w(TAG, "Shadow comparisons still pending", e);
+        }
+    }
+
+    private static void ensureLoaded(Context context) {
+        if (loaded) {
+            return;
+        }
+        synchronized (LOCK) {
+            if (loaded) {
+                return;
+            }
+            SharedPreferences prefs = prefs(context);
+            candidate = prefs.getString(ENGINE_KEY, null);
+            String raw = prefs.getString(REPORT_KEY, null);
+            if (raw != null) {
+                try {
+                    report = Report.fromJson(new JSONObject(raw));
+                } catch (JSONException e) {
+                    Log.w(TAG, "Discarding unreadable shadow report", e);
+                }
+            }
+            loaded = true;
+        }
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+
+    private static ThreadPoolExecutor newExecutor() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(MAX_PENDING), runnable -> {
+                    Thread thread = new Thread(() -> {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        runnable.run();
+                    }, "ClassifierShadow");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /** One disagreement: which engines, what each said, and the body length. */
+    private static final class Sample {
+        final long at;
+        final String active;
+        final Verdict activeVerdict;
+        final Verdict candidateVerdict;
+        final int length;
+
+        Sample(long at, String active, Verdict activeVerdict, Verdict candidateVerdict, int length) {
+            this.at = at;
+            this.active = active;
+            this.activeVerdict = activeVerdict;
+            this.candidateVerdict = candidateVerdict;
+            this.length = length;
+        }
+
+        JSONObject toJson() throws JSONException {
+            return new JSONObject()
+                    .put("at", at)
+                    .put("active", active)
+                    .put("activeVerdict", activeVerdict.statKey())
+                    .put("candidateVerdict", candidateVerdict.statKey())
+                    .put("length", length);
+        }
+
+        static Sample fromJson(JSONObject json) throws JSONException {
+            return new Sample(json.getLong("at"), json.getString("active"),
+                    verdict(json.getString("activeVerdict")), verdict(json.getString("candidateVerdict")),
+                    json.getInt("length"));
+        }
+
+        private static Verdict verdict(String statKey) throws JSONException {
+            for (Verdict verdict : Verdict.values()) {
+                if (verdict.statKey().equals(statKey)) {
+                    return verdict;
+                }
+            }
+            throw new JSONException("Unknown verdict " + statKey);
+        }
+    }
+
+    /** Counters since the candidate was set; guarded by LOCK. */
+    private static final class Report {
+        final long since;
+        long compared;
+        long disagreements;
+        long errors;
+        long dropped;
+        long activeNanos;
+        long candidateNanos;
+        final Map<String, Long> comparedWith = new TreeMap<>();
+        // Oldest first.
+        final ArrayDeque<Sample> samples = new ArrayDeque<>();
+
+        Report(long since) {
+            this.since = since;
+        }
+
+        void addSample(Sample sample) {
+            if (samples.size() == MAX_SAMPLES) {
+                samples.removeFirst();
+            }
+            samples.addLast(sample);
+        }
+
+        JSONObject toJson() {
+            try {
+                JSONObject pairs = new JSONObject();
+                for (Map.Entry<String, Long> entry : comparedWith.entrySet()) {
+                    pairs.put(entry.getKey(), entry.getValue());
+                }
+                JSONArray list = new JSONArray();
+                for (Sample sample : samples) {
+                    list.put(sample.toJson());
+                }
+                return new JSONObject()
+                        .put("since", since)
+                        .put("compared", compared)
+                        .put("disagreements", disagreements)
+                        .put("errors", errors)
+                        .put("dropped", dropped)
+                        .put("activeNanos", activeNanos)
+                        .put("candidateNanos", candidateNanos)
+                        .put("comparedWith", pairs)
+                        .put("samples", list);
+            } catch (JSONException e) {
+                // Only thrown for non-finite doubles, and there are none.
+                throw new IllegalStateException(e);
+            }
+        }
+
+        static Report fromJson(JSONObject json) throws JSONException {
+            Report report = new Report(json.getLong("since"));
+            report.compared = json.optLong("compared");
+            report.disagreements = json.optLong("disagreements");
+            report.errors = json.optLong("errors");
+            report.dropped = json.optLong("dropped");
+            report.activeNanos = json.optLong("activeNanos");
+            report.candidateNanos = json.optLong("candidateNanos");
+            JSONObject pairs = json.optJSONObject("comparedWith");
+            if (pairs != null) {
+                for (Iterator<String> keys = pairs.keys(); keys.hasNext(); ) {
+                    String key = keys.next();
+                    report.comparedWith.put(key, pairs.getLong(key));
+                }
+            }
+            JSONArray list = json.optJSONArray("samples");
+            if (list != null) {
+                for (int i = 0; i < list.length(); i++) {
+                    report.addSample(Sample.fromJson(list.getJSONObject(i)));
+                }
+            }
+            return report;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package app.xpensia.com.plugins.smscommon;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.json.JSONArray;
+
+/**
+ * Triple-gate financial SMS classifier aligned with the JS messageFilter.ts.
+ * Gates: keyword match AND currency-amount match AND date match.
+ * Also rejects OTP / verification-code messages before the gates.
+ *
+ * Both sides are held to the labelled corpus in
+ * {@code updates/rules/classifier-golden-corpus.json}
+ * ({@code ClassifierParityTest} here, {@code classifierParity.test.ts} in JS);
+ * {@code scripts/classifier-parity.mjs} runs both and reports disagreements.
+ * Whitespace means what JavaScript's {@code \s} means, and lower-casing
+ * ignores the device locale, so a Turkish-locale phone matches "DEBIT".
+ *
+ * User-customised keywords are read from SharedPreferences
+ * (synced from JS localStorage via Capacitor Preferences).
+ *
+ * The gates themselves live in the {@link ClassifierEngines#active() active}
+ * {@link ClassifierEngine}: the built-in {@link RegexClassifierEngine}, or an
+ * installed {@link ClassifierRulePack} (see {@link RulePackStore}), whose
+ * keyword, OTP, currency and date tables replace the built-in ones;
+ * user-customised keywords still take precedence over the pack's keywords.
+ *
+ * Shared by the background listener (one message at a time, gate logs when
+ * the tag is loggable) and the SMS reader (bulk historical scans, keywords loaded once and
+ * no per-message logging).
+ */
+public final class FinancialSmsClassifier {
+    private static final String TAG = "FinancialClassifier";
+    private static final String CAP_PREFS = "CapacitorStorage";
+    private static final String KEYWORDS_KEY = "xpensia_native_financial_keywords";
+
+    // JavaScript's \s: ASCII whitespace plus the Unicode spaces (NBSP, thin
+    // space, ...) that Java's \s leaves out. Body of a character class.
+    static final String SPACE_CHARS =
+            "\\s\\u00A0\\u1680\\u2000-\\u200A\\u2028\\u2029\\u202F\\u205F\\u3000\\uFEFF";
+    private static final Pattern SPACE_RUN = Pattern.compile("[" + SPACE_CHARS + "]+");
+
+    /**
+     * Outcome of a classification, naming the gate that rejected the message.
+     * {@link #statKey()} is the key used in rejection statistics returned to JS.
+     */
+    public enum Verdict {
+        ACCEPTED("accepted"),
+        REJECTED_EMPTY("empty"),
+        REJECTED_OTP("otp"),
+        REJECTED_NO_KEYWORD("noKeyword"),
+        REJECTED_NO_AMOUNT("noAmount"),
+        REJECTED_NO_DATE("noDate");
+
+        private final String statKey;
+
+        Verdict(String statKey) {
+            this.statKey = statKey;
+        }
+
+        public String statKey() {
+            return statKey;
+        }
+
+        public boolean isAccepted() {
+            return this == ACCEPTED;
+        }
+    }
+
+    private FinancialSmsClassifier() {
+    }
+
+    /**
+     * Registers {@code pack} as the {@link ClassifierEngines#RULE_PACK}
+     * engine, replacing any earlier pack; null unregisters it and restores
+     * the built-in rules.
+     */
+    public static void setRulePack(ClassifierRulePack pack) {
+        if (pack == null) {
+            ClassifierEngines.unregister(ClassifierEngines.RULE_PACK);
+        } else {
+            ClassifierEngines.register(pack);
+        }
+    }
+
+    public static ClassifierRulePack rulePack() {
+        ClassifierEngine engine = ClassifierEngines.get(ClassifierEngines.RULE_PACK);
+        return engine instanceof ClassifierRulePack ? (ClassifierRulePack) engine : null;
+    }
+
+    /**
+     * Triple-gate classifier: OTP rejection → keyword → amount → date.
+     *
+     * @param context Android context for reading SharedPreferences
+     * @param body    SMS body text
+     * @return true if the SMS looks like a financial transaction
+     */
+    public static boolean isFinancialTransactionMessage(Context context, String body) {
+        return classify(context, body).isAccepted();
+    }
+
+    /**
+     * Single-message variant of {@link #isFinancialTransactionMessage} that
+     * reports which gate rejected the message. Records the verdict in
+     * {@link RingLog}; gate-by-gate text goes to logcat only when the
+     * FinancialClassifier tag is loggable at DEBUG. This is the live path,
+     * so it also feeds {@link ClassifierShadow} when a candidate is set.
+     */
+    public static Verdict classify(Context context, String body) {
+        Verdict verdict;
+        if (body == null || body.isEmpty()) {
+            if (Log.isLoggable(TAG, Log.DEBUG)) {
+                Log.d(TAG, "Rejected: null/empty body");
+            }
+            verdict = Verdict.REJECTED_EMPTY;
+        } else {
+            RulePackStore.ensureLoaded(context);
+            String normalized = normalize(body);
+            String[] keywords = customKeywords(loadKeywords(context));
+            ClassifierEngine engine = ClassifierEngines.active();
+            verdict = engine.evaluate(body, normalized, keywords, Log.isLoggable(TAG, Log.DEBUG));
+            ClassifierShadow.offer(context, engine, verdict, body, normalized, keywords);
+        }
+        RingLog.event(Log.DEBUG, RingLog.Event.CLASSIFIED, verdict.ordinal(), body == null ? 0 : body.length());
+        return verdict;
+    }
+
+    /**
+     * Bulk variant for historical scans: uses keywords loaded once by the
+     * caller via {@link #loadKeywords(Context)} and does not log per message.
+     *
+     * @param body     SMS body text
+     * @param keywords keyword list from {@link #loadKeywords(Context)}
+     * @return the verdict, naming the rejecting gate when not accepted
+     */
+    public static Verdict classify(String body, String[] keywords) {
+        if (body == null || body.isEmpty()) {
+            return Verdict.REJECTED_EMPTY;
+        }
+        return ClassifierEngines.active().evaluate(body, normalize(body), customKeywords(keywords), false);
+    }
+
+    /** Null for the default list, so each engine falls back to its own. */
+    private static String[] customKeywords(String[] keywords) {
+        return keywords == RegexClassifierEngine.DEFAULT_KEYWORDS ? null : keywords;
+    }
+
+    /**
+     * NFC, whitespace runs collapsed to one space, trimmed, lower-cased;
+     * the same steps as {@code normalize} in messageFilter.ts.
+     */
+    static String normalize(String text) {
+        String nfc = Normalizer.normalize(text, Normalizer.Form.NFC);
+        return SPACE_RUN.matcher(nfc).replaceAll(" ").trim().toLowerCase(Locale.ROOT);
+    }
+
+    /** True for the characters {@link #SPACE_CHARS} matches. */
+    static boolean isSpace(char c) {
+        switch (c) {
+            case ' ':
+            case '\t':
+            case '\n':
+            case '\u000B':
+            case '\f':
+            case '\r':
+            case '\u00A0':
+            case '\u1680':
+            case '\u2028':
+            case '\u2029':
+            case '\u202F':
+            case '\u205F':
+            case '\u3000':
+            case '\uFEFF':
+                return true;
+            default:
+                return c >= '\u2000' && c <= '\u200A';
+        }
+    }
+
+    /**
+     * @return the text matched by the built-in amount gate, e.g.
+     *         {@code "SAR 1,234.56"}, or null when there is none
+     */
+    public static String findAmount(String body) {
+        if (body == null) {
+            return null;
+        }
+        Matcher amount = RegexClassifierEngine.AMOUNT_PATTERN.matcher(body);
+        return amount.find() ? amount.group() : null;
+    }
+
+    /**
+     * Loads the keyword preferences and runs one classification so the class
+     * initialiser compiles the gate patterns off the thread that receives the
+     * first SMS. Safe to call from any thread.
+     */
+    public static void warmUp(Context context) {
+        classify("Purchase of SAR 1,234.56 on 01/02/2024 12:30", loadKeywords(context));
+    }
+
+    /**
+     * Read user-customised keywords from Capacitor SharedPreferences,
+     * normalised like message text so the gates compare like with like.
+     * Falls back to the default keywords if nothing stored or parsing fails;
+     * the active engine then uses its own list (the pack's, with a rule pack).
+     * Also maps the installed rule pack, so bulk callers pick it up here.
+     */
+    public static String[] loadKeywords(Context context) {
+        RulePackStore.ensureLoaded(context);
+        try {
+            SharedPreferences prefs = context.getSharedPreferences(CAP_PREFS, Context.MODE_PRIVATE);
+            String raw = prefs.getString(KEYWORDS_KEY, null);
+            if (raw != null && !raw.isEmpty()) {
+                JSONArray arr = new JSONArray(raw);
+                if (arr.length() > 0) {
+                    String[] result = new String[arr.length()];
+                    for (int i = 0; i < arr.length(); i++) {
+                        result[i] = normalize(arr.optString(i, ""));
+                    }
+                    if (Log.isLoggable(TAG, Log.DEBUG)) {
+                        Log.d(TAG, "Loaded " + result.length + " keywords from SharedPreferences");
+                    }
+                    return result;
+                }
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to load keywords from SharedPreferences, using fallback", e);
+        }
+        return RegexClassifierEngine.DEFAULT_KEYWORDS;
+    }
+}
@@ -0,0 +1,481 @@
+package app.xpensia.com.plugins.smscommon;
+
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory near-duplicate index for financial SMS. It catches the same
+ * transaction sent twice in different forms, such as a second sender ID or a
+ * reformatted resend, which the exact {@link SmsFingerprint} misses.
+ * <p>
+ * A message is reduced to a {@link Signature} with these parts:
+ * <ul>
+ *   <li>a 64-bit SimHash of its template: words and word pairs, with every
+ *   number masked;</li>
+ *   <li>a bottom-{@value #SKETCH_SIZE} MinHash sketch of its numbers. Numbers
+ *   are normalised so "1,234.50" and "1234.5" agree, and dates and times are
+ *   kept as single tokens;</li>
+ *   <li>the first currency amount, in minor units.</li>
+ * </ul>
+ * Candidates come from hash lookups, never a scan. There are two sources:
+ * <ul>
+ *   <li>LSH bands. The SimHash is split into four 16-bit bands. By pigeonhole,
+ *   any template within {@link #TEXT_DISTANCE} bits shares at least one band
+ *   exactly.</li>
+ *   <li>Amount buckets.</li>
+ * </ul>
+ * A candidate matches in one of two ways:
+ * <ul>
+ *   <li>{@link Reason#TEXT}: near-identical template and the same numbers,
+ *   within {@link #RETENTION_MS}.</li>
+ *   <li>{@link Reason#AMOUNT}: the same amount in a different template, within
+ *   {@link #AMOUNT_WINDOW_MS}. The numbers of the shorter message must also
+ *   mostly appear in the longer one: at least {@link #MIN_CONTAINMENT} of
+ *   them, such as the date, time and card digits.</li>
+ * </ul>
+ * A near-identical template with different numbers is treated as a separate
+ * transaction. Matches are flags for review; the index never drops a message.
+ * <p>
+ * Not thread-safe; callers serialise access.
+ */
+public final class NearDuplicateIndex {
+    private static final String TAG = "NearDuplicateIndex";
+
+    public static final long RETENTION_MS = 7L * 24 * 60 * 60 * 1000;
+    static final long AMOUNT_WINDOW_MS = 30 * 60 * 1000;
+    static final int MAX_ENTRIES = 1000;
+    static final int TEXT_DISTANCE = 3;
+    static final int SKETCH_SIZE = 8;
+    static final double MIN_CONTAINMENT = 0.75;
+    static final long NO_AMOUNT = -1;
+    private static final int BANDS = 4;
+    private static final int BAND_BITS = 64 / BANDS;
+
+    private static final Pattern TOKEN_PATTERN = Pattern.compile("\\p{L}+|\\d+(?:[.,:/\\-]\\d+)*");
+    private static final Pattern NUMBER_PATTERN = Pattern.compile("\\d{1,3}(?:,\\d{3})*(?:[.,]\\d{1,2})?");
+    private static final Pattern DECIMAL_TOKEN = Pattern.compile("[\\d.,]+");
+    private static final Pattern THOUSANDS_SEPARATOR = Pattern.compile(",(?=\\d{3}(?:\\D|$))");
+    private static final String NUMBER_TOKEN = "#";
+
+    public enum Reason {
+        TEXT("text"),
+        AMOUNT("amount");
+
+        public final String key;
+
+        Reason(String key) {
+            this.key = key;
+        }
+    }
+
+    public static final class Signature {
+        public final long template;
+        /** Sorted bottom-k hashes of the numeric tokens. */
+        final int[] numbers;
+        public final long amountMinor;
+        public final long at;
+        public final String sender;
+        public final String fingerprint;
+
+        Signature(long template, int[] numbers, long amountMinor, long at, String sender, String fingerprint) {
+            this.template = template;
+            this.numbers = numbers;
+            this.amountMinor = amountMinor;
+            this.at = at;
+            this.sender = sender;
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    public static final class Match {
+        public final Signature earlier;
+        public final Reason reason;
+        /** Hamming distance between the two template SimHashes. */
+        public final int distance;
+
+        Match(Signature earlier, Reason reason, int distance) {
+            this.earlier = earlier;
+            this.reason = reason;
+            this.distance = distance;
+        }
+    }
+
+    // Oldest first; entries are added in arrival order.
+    private final ArrayDeque<Signature> entries = new ArrayDeque<>();
+    // (band index << BAND_BITS | band value) -> entries with that band.
+    private final Map<Long, List<Signature>> bands = new HashMap<>();
+    private final Map<Long, List<Signature>> amounts = new HashMap<>();
+
+    /**
+     * @param sender      originating address, kept so JS can find the earlier
+     *                    message
+     * @param fingerprint {@link SmsFingerprint} of the message
+     */
+    public static Signature signature(String sender, String body, long at, String fingerprint) {
+        String text = body == null ? "" : Normalizer.normalize(body, Normalizer.Form.NFC).toLowerCase();
+        long[] weights = new long[64];
+        TreeSet<Integer> numbers = new TreeSet<>();
+        String previous = null;
+        Matcher tokens = TOKEN_PATTERN.matcher(text);
+        while (tokens.find()) {
+            String token = tokens.group();
+            if (Character.isDigit(token.charAt(0))) {
+                numbers.add((int) hash(normalizeNumber(token)));
+                token = NUMBER_TOKEN;
+            }
+            addFeature(weights, hash(token));
+            if (previous != null) {
+                addFeature(weights, hash(previous + ' ' + token));
+            }
+            previous = token;
+        }
+        long template = 0;
+        for (int bit = 0; bit < 64; bit++) {
+            if (weights[bit] > 0) {
+                template |= 1L << bit;
+            }
+        }
+        int[] sketch = new int[Math.min(SKETCH_SIZE, numbers.size())];
+        Iterator<Integer> lowest = numbers.iterator();
+        for (int i = 0; i < sketch.length; i++) {
+            sketch[i] = lowest.next();
+        }
+        return new Signature(template, sketch, amountMinorUnits(body), at,
+                sender == null ? "" : sender.trim(), fingerprint == null ? "" : fingerprint);
+    }
+
+    /**
+     * First currency amount in {@code body} (same pattern as the classifier's
+     * amount gate) in minor units, or {@link #NO_AMOUNT}.
+     */
+    public static long amountMinorUnits(String body) {
+        if (body == null) {
+            return NO_AMOUNT;
+        }
+        Matcher amount = RegexClassifierEngine.AMOUNT_PATTERN.matcher(body);
+        if (!amount.find()) {
+            return NO_AMOUNT;
+        }
+        Matcher number = NUMBER_PATTERN.matcher(amount.group());
+        if (!number.find()) {
+            return NO_AMOUNT;
+        }
+        try {
+            return new BigDecimal(normalizeNumber(number.group())).movePointRight(2).longValue();
+        } catch (NumberFormatException e) {
+            return NO_AMOUNT;
+        }
+    }
+
+    /**
+     * Looks up the closest earlier match for {@code signature}, then indexes it
+     * and drops entries outside the retention window or over capacity.
+     *
+     * @return the match, or null if the message looks new
+     */
+    public Match findAndAdd(Signature signature) {
+        Match match = find(signature);
+        add(signature);
+        prune(signature.at);
+        return match;
+    }
+
+    public Match find(Signature signature) {
+        Match best = null;
+        for (int band = 0; band < BANDS; band++) {
+            List<Signature> bucket = bands.get(bandKey(signature.template, band));
+            if (bucket != null) {
+                for (Signature candidate : bucket) {
+                    best = closer(best, compare(signature, candidate));
+                }
+            }
+        }
+        if (signature.amountMinor != NO_AMOUNT) {
+            List<Signature> bucket = amounts.get(signature.amountMinor);
+            if (bucket != null) {
+                for (Signature candidate : bucket) {
+                    best = closer(best, compare(signature, candidate));
+                }
+            }
+        }
+        return best;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /** Current entries, oldest first, for writing out off the caller's thread. */
+    public List<Signature> snapshot() {
+        return new ArrayList<>(entries);
+    }
+
+    private static Match compare(Signature signature, Signature candidate) {
+        long age = Math.abs(signature.at - candidate.at);
+        if (age > RETENTION_MS) {
+            return null;
+        }
+        int distance = Long.bitCount(signature.template ^ candidate.template);
+        if (distance <= TEXT_DISTANCE) {
+            // Same template: only the same numbers make it the same transaction.
+            return Arrays.equals(signature.numbers, candidate.numbers)
+                    ? new Match(candidate, Reason.TEXT, distance) : null;
+        }
+        if (signature.amountMinor != NO_AMOUNT && signature.amountMinor == candidate.amountMinor
+                && age <= AMOUNT_WINDOW_MS
+                && containment(signature.numbers, candidate.numbers) >= MIN_CONTAINMENT) {
+            return new Match(candidate, Reason.AMOUNT, distance);
+        }
+        return null;
+    }
+
+    /** Share of the smaller sketch found in the larger; both are sorted. */
+    static double containment(int[] a, int[] b) {
+        int smaller = Math.min(a.length, b.length);
+        if (smaller == 0) {
+            return 0;
+        }
+        int shared = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] == b[j]) {
+                shared++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) shared / smaller;
+    }
+
+    private static Match closer(Match best, Match next) {
+        if (next == null) {
+            return best;
+        }
+        if (best == null || next.distance < best.distance
+                || (next.distance == best.distance && next.earlier.at > best.earlier.at)) {
+            return next;
+        }
+        return best;
+    }
+
+    private void add(Signature signature) {
+        entries.addLast(signature);
+        for (int band = 0; band < BANDS; band++) {
+            bucket(bands, bandKey(signature.template, band)).add(signature);
+        }
+        if (signature.amountMinor != NO_AMOUNT) {
+            bucket(amounts, signature.amountMinor).add(signature);
+        }
+    }
+
+    private void prune(long now) {
+        while (!entries.isEmpty()
+                && (entries.size() > MAX_ENTRIES || now - entries.peekFirst().at > RETENTION_MS)) {
+            Signature oldest = entries.pollFirst();
+            for (int band = 0; band < BANDS; band++) {
+                unlink(bands, bandKey(oldest.template, band), oldest);
+            }
+            if (oldest.amountMinor != NO_AMOUNT) {
+                unlink(amounts, oldest.amountMinor, oldest);
+            }
+        }
+    }
+
+    private static List<Signature> bucket(Map<Long, List<Signature>> map, long key) {
+        List<Signature> bucket = map.get(key);
+        if (bucket == null) {
+            bucket = new ArrayList<>(2);
+            map.put(key, bucket);
+        }
+        return bucket;
+    }
+
+    private static void unlink(Map<Long, List<Signature>> map, long key, Signature signature) {
+        List<Signature> bucket = map.get(key);
+        if (bucket == null) {
+            return;
+        }
+        for (int i = 0; i < bucket.size(); i++) {
+            if (bucket.get(i) == signature) {
+                bucket.remove(i);
+                break;
+            }
+        }
+        if (bucket.isEmpty()) {
+            map.remove(key);
+        }
+    }
+
+    private static long bandKey(long template, int band) {
+        long value = (template >>> (band * BAND_BITS)) & ((1L << BAND_BITS) - 1);
+        return ((long) band << BAND_BITS) | value;
+    }
+
+    /**
+     * @return {@code [[template, [numbers], amountMinor, at, sender, fingerprint], ...]}
+     *         oldest first, the template as hex
+     */
+    public JSONArray toJSON() {
+        JSONArray out = new JSONArray();
+        for (Signature entry : entries) {
+            JSONArray row = new JSONArray();
+            row.put(Long.toHexString(entry.template));
+            JSONArray numbers = new JSONArray();
+            for (int number : entry.numbers) {
+                numbers.put(number);
+            }
+            row.put(numbers);
+            row.put(entry.amountMinor);
+            row.put(entry.at);
+            row.put(entry.sender);
+            row.put(entry.fingerprint);
+            out.put(row);
+        }
+        return out;
+    }
+
+    /** Rebuilds an index from {@link #toJSON()}, skipping unreadable rows. */
+    public static NearDuplicateIndex fromJSON(JSONArray stored, long now) {
+        NearDuplicateIndex index = new NearDuplicateIndex();
+        for (int i = 0; stored != null && i < stored.length(); i++) {
+            JSONArray row = stored.optJSONArray(i);
+            if (row == null || row.length() < 6) {
+                continue;
+            }
+            try {
+                JSONArray storedNumbers = row.getJSONArray(1);
+                int[] numbers = new int[storedNumbers.length()];
+                for (int n = 0; n < numbers.length; n++) {
+                    numbers[n] = storedNumbers.getInt(n);
+                }
+                index.add(new Signature(
+                        Long.parseUnsignedLong(row.getString(0), 16),
+                        numbers,
+                        row.getLong(2),
+                        row.getLong(3),
+                        row.getString(4),
+                        row.getString(5)));
+            } catch (JSONException | NumberFormatException e) {
+                Log.w(TAG, "Skipping unreadable near-duplicate entry", e);
+            }
+        }
+        index.prune(now);
+        return index;
+    }
+
+    /**
+     * Binary form of one entry, for append-only storage: template, number
+     * count and numbers, amountMinor, at, sender, fingerprint.
+     */
+    public static void write(DataOutput out, Signature entry) throws IOException {
+        out.writeLong(entry.template);
+        out.writeByte(entry.numbers.length);
+        for (int number : entry.numbers) {
+            out.writeInt(number);
+        }
+        out.writeLong(entry.amountMinor);
+        out.writeLong(entry.at);
+        out.writeUTF(entry.sender);
+        out.writeUTF(entry.fingerprint);
+    }
+
+    /** Reads one entry written by {@link #write(DataOutput, Signature)}. */
+    public static Signature read(DataInput in) throws IOException {
+        long template = in.readLong();
+        int count = in.readUnsignedByte();
+        if (count > SKETCH_SIZE) {
+            throw new IOException("Corrupt near-duplicate entry");
+        }
+        int[] numbers = new int[count];
+        for (int n = 0; n < count; n++) {
+            numbers[n] = in.readInt();
+        }
+        long amountMinor = in.readLong();
+        long at = in.readLong();
+        return new Signature(template, numbers, amountMinor, at, in.readUTF(), in.readUTF());
+    }
+
+    /** Rebuilds an index from stored entries, oldest first. */
+    public static NearDuplicateIndex of(List<Signature> stored, long now) {
+        NearDuplicateIndex index = new NearDuplicateIndex();
+        for (Signature entry : stored) {
+            index.add(entry);
+        }
+        index.prune(now);
+        return index;
+    }
+
+    /**
+     * "1,234.50" -> "1234.5", "09" -> "9", "09/03/2026" -> "9.3.2026". A comma
+     * followed by exactly three digits is a thousands separator; any other
+     * comma is a decimal point.
+     */
+    static String normalizeNumber(String token) {
+        String plain = THOUSANDS_SEPARATOR.matcher(token).replaceAll("").replace(',', '.')
+                .replace(':', '.').replace('/', '.').replace('-', '.');
+        if (plain.indexOf('.') == plain.lastIndexOf('.') && DECIMAL_TOKEN.matcher(token).matches()) {
+            try {
+                BigDecimal value = new BigDecimal(plain).stripTrailingZeros();
+                return value.scale() < 0 ? value.setScale(0).toPlainString() : value.toPlainString();
+            } catch (NumberFormatException e) {
+                return plain;
+            }
+        }
+        // Dates, times and references: compare group by group.
+        StringBuilder groups = new StringBuilder();
+        for (String group : plain.split("\\.")) {
+            if (groups.length() > 0) {
+                groups.append('.');
+            }
+            String trimmed = group.replaceFirst("^0+(?=\\d)", "");
+            groups.append(trimmed);
+        }
+        return groups.toString();
+    }
+
+    private static void addFeature(long[] weights, long featureHash) {
+        for (int bit = 0; bit < 64; bit++) {
+            weights[bit] += ((featureHash >>> bit) & 1L) != 0 ? 1 : -1;
+        }
+    }
+
+    // 64-bit FNV-1a over UTF-16 units, finalised with the MurmurHash3 mixer.
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,165 @@
+package app.xpensia.com.plugins.smscommon;
+
+import android.util.Log;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import app.xpensia.com.plugins.smscommon.FinancialSmsClassifier.Verdict;
+
+/**
+ * The reference {@link ClassifierEngine}: the built-in OTP, keyword, amount
+ * and date gates, kept in step with messageFilter.ts by the golden corpus.
+ * Always registered, active whenever no preferred engine is, and the engine
+ * shadow candidates are usually compared with.
+ */
+final class RegexClassifierEngine implements ClassifierEngine {
+    static final RegexClassifierEngine INSTANCE = new RegexClassifierEngine();
+    private static final String TAG = "FinancialClassifier";
+
+    // ── Default keywords (aligned with messageFilter.ts) ───────────────────
+    static final String[] DEFAULT_KEYWORDS = {
+            // Arabic
+            "مبلغ", "حوالة", "رصيد", "بطاقة", "شراء", "تحويل", "دفع", "إيداع",
+            "عملية", "مشتريات", "سحب", "استلام", "رسوم", "الرسوم", "خصم",
+            "الرصيد", "مدفوعات",
+            // English
+            "transaction", "purchase", "debit", "debited", "credit", "credited",
+            "withdrawal", "withdraw", "deposit", "deposited", "payment", "paid",
+            "transfer", "transferred", "remittance", "charged", "balance", "fee", "fees",
+    };
+
+    // ── OTP / verification-code negative keywords ──────────────────────────
+    private static final String[] OTP_KEYWORDS = {
+            "otp", "verification code", "رمز التحقق", "رمز التفعيل",
+            "one-time", "one time password", "passcode", "pin code",
+            "security code", "auth code", "كلمة المرور", "رمز التأكيد",
+    };
+
+    // Whitespace as JavaScript's \s matches it; see FinancialSmsClassifier.
+    private static final String SPACE_CHARS = FinancialSmsClassifier.SPACE_CHARS;
+    private static final String SPACE = "[" + SPACE_CHARS + "]";
+    private static final String SEPARATOR = "[" + SPACE_CHARS + ":]";
+
+    // ── Amount regex (fixed: no \b, uses flexible boundary) ────────────────
+    // Supports: SAR 1,234.56 | 1,234.56 SAR | بـSAR 4 | ب SAR 4 | مبلغ: 500 ر.س
+    static final Pattern AMOUNT_PATTERN = Pattern.compile(
+            "(?i)" +
+            "(?:" +
+                // Branch 1: currency code then number (flexible left boundary)
+                "(?:^|[^\\p{L}\\w])" +
+                "(?:ب(?:ـ)?" + SPACE + "*)?" +
+                "(?:SAR|USD|EGP|AED|BHD|EUR|GBP|JPY|INR|CNY|CAD|AUD)" +
+                SEPARATOR + "*" +
+                "\\d{1,3}(?:,\\d{3})*(?:[.,]\\d{1,2})?" +
+            "|" +
+                // Branch 2: number then currency code
+                "\\d{1,3}(?:,\\d{3})*(?:[.,]\\d{1,2})?" +
+                SEPARATOR + "*" +
+                "(?:SAR|USD|EGP|AED|BHD|EUR|GBP|JPY|INR|CNY|CAD|AUD)" +
+                "(?:$|[^\\p{L}\\w])" +
+            "|" +
+                // Branch 3: number then Arabic currency symbols
+                "\\d{1,3}(?:,\\d{3})*(?:[.,]\\d{1,2})?" +
+                SEPARATOR + "*" +
+                "(?:ر\\.?" + SPACE + "?س|ريال|جنيه(?:" + SPACE + "?مصري)?)" +
+            "|" +
+                // Branch 4: Arabic prefix (مبلغ) then optional currency then number
+                "(?:مبلغ)" + SEPARATOR + "*" +
+                "(?:(?:SAR|USD|EGP|AED|BHD|EUR|GBP|ر\\.?" + SPACE + "?س|ريال)" + SEPARATOR + "*)?" +
+                "\\d{1,3}(?:,\\d{3})*(?:[.,]\\d{1,2})?" +
+            ")"
+    );
+
+    // ── Date regex (ported from messageFilter.ts) ──────────────────────────
+    private static final Pattern DATE_PATTERN = Pattern.compile(
+            "(?i)" +
+            "(?:في" + SEPARATOR + "*)?(?:on" + SPACE + "*)?" +
+            "(?:" +
+                "\\d{1,2}[/\\-.](\\d{1,2})[/\\-.]\\d{1,4}" +          // DD/MM/YYYY or YY/M/D
+            "|" +
+                "\\d{4}[/\\-.]\\d{1,2}[/\\-.]\\d{1,2}" +              // YYYY-MM-DD
+            "|" +
+                "\\d{1,2}-(?:Jan|Feb|Mar|Apr|May|Jun|Jul|Aug|Sep|Oct|Nov|Dec)-\\d{2,4}" +
+            "|" +
+                "\\d{1,2}" + SPACE + "+(?:Jan|Feb|Mar|Apr|May|Jun|Jul|Aug|Sep|Oct|Nov|Dec)[a-z]*" + SPACE + "+\\d{4}" +
+            "|" +
+                "(?:Jan|Feb|Mar|Apr|May|Jun|Jul|Aug|Sep|Oct|Nov|Dec)[a-z]*" + SPACE + "+\\d{1,2},?" + SPACE + "+\\d{4}" +
+            "|" +
+                // Compact bank-style: 09MAR26, 09MAR2026, 09-Mar-26
+                "\\d{2}[" + SPACE_CHARS + "-]?(?:Jan|Feb|Mar|Apr|May|Jun|Jul|Aug|Sep|Oct|Nov|Dec)[a-z]*[" + SPACE_CHARS + "-]?\\d{2,4}" +
+            "|" +
+                "\\d{2}[01]\\d{3}" +                                    // YYDDD (julian)
+            "|" +
+                "\\d{8}" +                                               // YYYYMMDD
+            ")" +
+            "(?:" + SPACE + "+\\d{1,2}:\\d{2}(?::\\d{2})?)?" // optional time
+    );
+
+    private RegexClassifierEngine() {
+    }
+
+    @Override
+    public String id() {
+        return ClassifierEngines.REGEX;
+    }
+
+    @Override
+    public Verdict evaluate(String body, String normalized, String[] keywords, boolean verbose) {
+        if (keywords == null) {
+            keywords = DEFAULT_KEYWORDS;
+        }
+
+        // ── Gate 0: OTP exclusion ──────────────────────────────────────────
+        for (String otp : OTP_KEYWORDS) {
+            if (normalized.contains(otp.toLowerCase(Locale.ROOT))) {
+                if (verbose) {
+                    Log.d(TAG, "Rejected: OTP keyword found [" + otp + "]");
+                }
+                return Verdict.REJECTED_OTP;
+            }
+        }
+
+        // ── Gate 1: keyword match ──────────────────────────────────────────
+        String matchedKeyword = null;
+        for (String kw : keywords) {
+            if (normalized.contains(kw.toLowerCase(Locale.ROOT))) {
+                matchedKeyword = kw;
+                break;
+            }
+        }
+        if (matchedKeyword == null) {
+            if (verbose) {
+                Log.d(TAG, "Rejected: no keyword match");
+            }
+            return Verdict.REJECTED_NO_KEYWORD;
+        }
+        if (verbose) {
+            Log.d(TAG, "Gate 1 passed: keyword [" + matchedKeyword + "]");
+        }
+
+        // ── Gate 2: amount match ───────────────────────────────────────────
+        if (!AMOUNT_PATTERN.matcher(body).find()) {
+            if (verbose) {
+                Log.d(TAG, "Rejected: no amount match");
+            }
+            return Verdict.REJECTED_NO_AMOUNT;
+        }
+        if (verbose) {
+            Log.d(TAG, "Gate 2 passed: amount found");
+        }
+
+        // ── Gate 3: date match ─────────────────────────────────────────────
+        if (!DATE_PATTERN.matcher(body).find()) {
+            if (verbose) {
+                Log.d(TAG, "Rejected: no date match");
+            }
+            return Verdict.REJECTED_NO_DATE;
+        }
+        if (verbose) {
+            Log.d(TAG, "Gate 3 passed: date found → ACCEPTED as financial SMS");
+        }
+
+        return Verdict.ACCEPTED;
+    }
+}
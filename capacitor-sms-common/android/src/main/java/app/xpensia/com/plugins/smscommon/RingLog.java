@@ -0,0 +1,160 @@
+package app.xpensia.com.plugins.smscommon;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size binary event log for the SMS ingestion hot path. An event is
+ * a code plus two numeric arguments (lengths, sizes, fingerprints); never
+ * message text. Recording allocates nothing and takes no locks, so it is
+ * cheap enough to leave on in release builds. The ring is only turned into
+ * JSON by {@link #dump()}.
+ * <p>
+ * Text logging stays available for debugging, but call sites gate it with
+ * {@link Log#isLoggable(String, int)} so nothing is formatted unless the tag
+ * is enabled, e.g. {@code adb shell setprop log.tag.FinancialClassifier DEBUG}.
+ */
+public final class RingLog {
+    /** Ingestion stage an event belongs to. */
+    public enum Category {
+        INIT,
+        RECEIVER,
+        CLASSIFIER,
+        PERSIST,
+        NOTIFY
+    }
+
+    /** Event codes; argument meaning is given per event. */
+    public enum Event {
+        /** a = body length, b = PDU count. */
+        SMS_RECEIVED(Category.RECEIVER),
+        /** a = reason (see IGNORED_* in the receiver). */
+        RECEIVER_IGNORED(Category.RECEIVER),
+        /** a = verdict ordinal, b = body length. */
+        CLASSIFIED(Category.CLASSIFIER),
+        /** a = rule pack version, b = pack checksum. */
+        RULE_PACK_ACTIVATED(Category.CLASSIFIER),
+        /** A downloaded or installed rule pack failed validation. */
+        RULE_PACK_REJECTED(Category.CLASSIFIER),
+        /** a = active engine's verdict ordinal, b = shadow candidate's verdict ordinal. */
+        SHADOW_DISAGREED(Category.CLASSIFIER),
+        /** a = queue size, b = fingerprint. */
+        PERSISTED(Category.PERSIST),
+        /** b = fingerprint. */
+        DUPLICATE(Category.PERSIST),
+        /** a = NearDuplicateIndex.Reason ordinal, b = fingerprint of the earlier message. */
+        NEAR_DUPLICATE(Category.PERSIST),
+        /** a = messages in the queue. */
+        NOTIFY_POSTED(Category.NOTIFY),
+        /** a = reason (see SKIP_* in the receiver). */
+        NOTIFY_SKIPPED(Category.NOTIFY),
+        /** a = pending messages delivered. */
+        PLUGIN_LOADED(Category.INIT);
+
+        public final Category category;
+
+        Event(Category category) {
+            this.category = category;
+        }
+    }
+
+    static final int CAPACITY = 512;
+    // Per slot: sequence, timestamp, level/event header, arg a, arg b.
+    private static final int SLOT_WIDTH = 5;
+
+    private static final AtomicLongArray ring = new AtomicLongArray(CAPACITY * SLOT_WIDTH);
+    private static final AtomicLong written = new AtomicLong();
+    private static final Event[] EVENTS = Event.values();
+    private static volatile int minLevel = Log.DEBUG;
+
+    private RingLog() {
+    }
+
+    /** Events below this level are not recorded; defaults to DEBUG. */
+    public static void setMinLevel(int level) {
+        minLevel = level;
+    }
+
+    public static void event(int level, Event event, long a, long b) {
+        if (level < minLevel) {
+            return;
+        }
+        long seq = written.getAndIncrement();
+        int base = (int) (seq % CAPACITY) * SLOT_WIDTH;
+        // Invalidate the slot first so a concurrent dump skips it until the
+        // new sequence is published last.
+        ring.set(base, -1);
+        ring.set(base + 1, SystemClock.elapsedRealtime());
+        ring.set(base + 2, ((long) level << 16) | event.ordinal());
+        ring.set(base + 3, a);
+        ring.set(base + 4, b);
+        ring.set(base, seq);
+    }
+
+    /**
+     * @return {@code {capacity, written, overwritten, events:[{seq, t, level,
+     *         category, event, a, b}]}} oldest first; {@code t} is
+     *         elapsedRealtime in ms
+     */
+    public static JSONObject dump() {
+        long end = written.get();
+        long start = Math.max(0, end - CAPACITY);
+        JSONObject out = new JSONObject();
+        JSONArray events = new JSONArray();
+        try {
+            for (long seq = start; seq < end; seq++) {
+                int base = (int) (seq % CAPACITY) * SLOT_WIDTH;
+                if (ring.get(base) != seq) {
+                    continue;
+                }
+                long time = ring.get(base + 1);
+                long header = ring.get(base + 2);
+                long a = ring.get(base + 3);
+                long b = ring.get(base + 4);
+                // Overwritten while we read.
+                if (ring.get(base) != seq) {
+                    continue;
+                }
+                int code = (int) (header & 0xFFFF);
+                if (code >= EVENTS.length) {
+                    continue;
+                }
+                JSONObject item = new JSONObject();
+                item.put("seq", seq);
+                item.put("t", time);
+                item.put("level", (int) (header >>> 16));
+                item.put("category", EVENTS[code].category.name());
+                item.put("event", EVENTS[code].name());
+                item.put("a", a);
+                item.put("b", b);
+                events.put(item);
+            }
+            out.put("capacity", CAPACITY);
+            out.put("written", end);
+            out.put("overwritten", start);
+            out.put("events", events);
+        } catch (JSONException e) {
+            Log.e("RingLog", "Failed to encode log dump", e);
+        }
+        return out;
+    }
+
+    /** Numeric form of a hex {@link SmsFingerprint}, for event arguments. */
+    public static long fingerprint(String hash) {
+        if (hash == null || hash.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(hash, 16);
+        } catch (NumberFormatException e) {
+            return hash.hashCode();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package app.xpensia.com.plugins.smscommon;
+
+import android.content.Context;
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+
+/**
+ * Installs and activates {@link ClassifierRulePack} files under
+ * {@code files/classifier-rules/}. The active pack is
+ * {@code active.xrp}; an install writes a temp file, checks its SHA-256
+ * against the OTA manifest, validates it as a pack, then renames it over
+ * the active file and swaps it into {@link FinancialSmsClassifier}.
+ * Classifications already running keep the old mapping, which the rename
+ * does not invalidate.
+ * <p>
+ * Without a valid pack the classifier keeps its built-in rules.
+ */
+public final class RulePackStore {
+    private static final String TAG = "FinancialClassifier";
+    private static final String DIR = "classifier-rules";
+    private static final String ACTIVE_FILE = "active.xrp";
+    private static final String TEMP_FILE = "download.tmp";
+    private static final Object LOCK = new Object();
+    private static volatile boolean loaded;
+
+    private RulePackStore() {
+    }
+
+    /**
+     * Maps the installed pack once per process. Cheap after the first call,
+     * so classification entry points call it unconditionally.
+     */
+    public static void ensureLoaded(Context context) {
+        if (loaded) {
+            return;
+        }
+        synchronized (LOCK) {
+            if (loaded) {
+                return;
+            }
+            File active = new File(directory(context), ACTIVE_FILE);
+            if (active.exists()) {
+                try {
+                    activate(ClassifierRulePack.map(active));
+                } catch (IOException e) {
+                    Log.w(TAG, "Discarding unreadable rule pack, using built-in rules", e);
+                    RingLog.event(Log.WARN, RingLog.Event.RULE_PACK_REJECTED, 0, 0);
+                    if (!active.delete()) {
+                        Log.w(TAG, "Failed to delete rule pack " + active);
+                    }
+                }
+            }
+            loaded = true;
+        }
+    }
+
+    /**
+     * Installs the pack read from {@code source} and makes it active.
+     *
+     * @param sha256 expected lower-case hex SHA-256 of the pack file
+     * @return the installed pack
+     * @throws IOException if the download does not match {@code sha256}, is
+     *                     not a valid pack, or is not newer than the active one
+     */
+    public static ClassifierRulePack install(Context context, InputStream source, String sha256)
+            throws IOException {
+        ensureLoaded(context);
+        synchronized (LOCK) {
+            File dir = directory(context);
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                throw new IOException("Cannot create " + dir);
+            }
+            File temp = new File(dir, TEMP_FILE);
+            try {
+                String digest = copyWithDigest(source, temp);
+                if (!digest.equalsIgnoreCase(sha256)) {
+                    throw new IOException("Rule pack SHA-256 mismatch");
+                }
+                ClassifierRulePack pack = ClassifierRulePack.map(temp);
+                ClassifierRulePack current = FinancialSmsClassifier.rulePack();
+                if (current != null && pack.version() <= current.version()) {
+                    throw new IOException("Rule pack version " + pack.version()
+                            + " is not newer than " + current.version());
+                }
+                if (!temp.renameTo(new File(dir, ACTIVE_FILE))) {
+                    throw new IOException("Failed to activate rule pack");
+                }
+                activate(pack);
+                return pack;
+            } catch (IOException e) {
+                RingLog.event(Log.WARN, RingLog.Event.RULE_PACK_REJECTED, 0, 0);
+                throw e;
+            } finally {
+                if (temp.exists() && !temp.delete()) {
+                    Log.w(TAG, "Failed to delete " + temp);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return {@code {version, formatVersion, checksum, sizeBytes}} of the
+     *         active pack, or only {@code formatVersion} when the built-in
+     *         rules are in use
+     */
+    public static JSONObject info(Context context) throws JSONException {
+        ensureLoaded(context);
+        JSONObject info = new JSONObject();
+        info.put("formatVersion", ClassifierRulePack.FORMAT_VERSION);
+        ClassifierRulePack pack = FinancialSmsClassifier.rulePack();
+        if (pack != null) {
+            info.put("version", pack.version());
+            info.put("checksum", String.format(Locale.US, "%08x", pack.checksum()));
+            info.put("sizeBytes", pack.sizeBytes());
+        }
+        return info;
+    }
+
+    private static void activate(ClassifierRulePack pack) {
+        FinancialSmsClassifier.setRulePack(pack);
+        RingLog.event(Log.INFO, RingLog.Event.RULE_PACK_ACTIVATED, pack.version(), pack.checksum());
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, "Activated rule pack v" + pack.version());
+        }
+    }
+
+    private static String copyWithDigest(InputStream source, File target) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("SHA-256 unavailable", e);
+        }
+        long total = 0;
+        try (FileOutputStream out = new FileOutputStream(target)) {
+            byte[] chunk = new byte[8192];
+            int n;
+            while ((n = source.read(chunk)) != -1) {
+                total += n;
+                if (total > ClassifierRulePack.MAX_PACK_BYTES) {
+                    throw new IOException("Rule pack exceeds " + ClassifierRulePack.MAX_PACK_BYTES + " bytes");
+                }
+                digest.update(chunk, 0, n);
+                out.write(chunk, 0, n);
+            }
+            out.getFD().sync();
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format(Locale.US, "%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private static File directory(Context context) {
+        return new File(context.getFilesDir(), DIR);
+    }
+}
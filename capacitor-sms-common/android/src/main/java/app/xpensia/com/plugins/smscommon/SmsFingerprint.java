@@ -0,0 +1,18 @@
+package app.xpensia.com.plugins.smscommon;
+
+/**
+ * Whitespace- and case-insensitive identity of an SMS, used for native dedup
+ * in the persisted inbox queue and to match broadcast-delivered copies with
+ * their Telephony provider rows.
+ */
+public final class SmsFingerprint {
+    private SmsFingerprint() {
+    }
+
+    public static String of(String sender, String body) {
+        String normalizedSender = sender == null ? "" : sender.trim().replaceAll("\\s+", "").toLowerCase();
+        String normalizedBody = body == null ? "" : body.trim().replaceAll("\\s+", " ").toLowerCase();
+        String base = normalizedSender + "|" + normalizedBody + "|" + normalizedBody.length();
+        return Integer.toHexString(base.hashCode());
+    }
+}
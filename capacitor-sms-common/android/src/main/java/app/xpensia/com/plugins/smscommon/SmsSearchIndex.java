@@ -0,0 +1,340 @@
+package app.xpensia.com.plugins.smscommon;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.util.Log;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * On-device full-text index of financial SMS (SQLite FTS4 over an external
+ * content table). Written by the background listener as messages arrive and
+ * by the SMS reader's incremental provider scans; searched by the reader
+ * without touching the Telephony provider.
+ *
+ * Rows are keyed by provider {@code _id} when known. A broadcast-delivered copy
+ * (no provider id yet) is matched to its provider row later by
+ * {@link SmsFingerprint} within {@link #MATCH_WINDOW_MS}, so a message is
+ * indexed once whichever path sees it first.
+ */
+public final class SmsSearchIndex extends SQLiteOpenHelper {
+    private static final String TAG = "SmsSearchIndex";
+    private static final String DB_NAME = "xpensia_sms_index.db";
+    private static final int DB_VERSION = 1;
+    private static final long MATCH_WINDOW_MS = 10 * 60 * 1000;
+    private static final int MAX_CANDIDATES = 2000;
+    private static final String META_PROVIDER_WATERMARK = "provider_watermark";
+
+    // BM25 parameters and per-column weights (sender, body).
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double[] COLUMN_WEIGHTS = { 0.5, 1.0 };
+    private static final String[] COLUMN_NAMES = { "sender", "body" };
+
+    private static SmsSearchIndex instance;
+
+    /** A message to index. {@code providerId} is null for broadcast-delivered copies. */
+    public static final class Doc {
+        public final Long providerId;
+        public final String sender;
+        public final String body;
+        public final long date;
+        public final String source;
+
+        public Doc(Long providerId, String sender, String body, long date, String source) {
+            this.providerId = providerId;
+            this.sender = sender != null ? sender : "";
+            this.body = body != null ? body : "";
+            this.date = date;
+            this.source = source;
+        }
+    }
+
+    /** A matched term, as a UTF-16 range into {@link Hit#sender} or {@link Hit#body}. */
+    public static final class Match {
+        public final String column;
+        public final int start;
+        public final int length;
+
+        Match(String column, int start, int length) {
+            this.column = column;
+            this.start = start;
+            this.length = length;
+        }
+    }
+
+    public static final class Hit {
+        public final long docId;
+        public final Long providerId;
+        public final String sender;
+        public final String body;
+        public final long date;
+        public final double score;
+        public final List<Match> matches;
+
+        Hit(long docId, Long providerId, String sender, String body, long date, double score, List<Match> matches) {
+            this.docId = docId;
+            this.providerId = providerId;
+            this.sender = sender;
+            this.body = body;
+            this.date = date;
+            this.score = score;
+            this.matches = matches;
+        }
+    }
+
+    public static synchronized SmsSearchIndex getInstance(Context context) {
+        if (instance == null) {
+            instance = new SmsSearchIndex(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private SmsSearchIndex(Context context) {
+        super(context, DB_NAME, null, DB_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE sms_docs ("
+                + "_id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "provider_id INTEGER UNIQUE, "
+                + "fingerprint TEXT NOT NULL, "
+                + "sender TEXT NOT NULL, "
+                + "body TEXT NOT NULL, "
+                + "date INTEGER NOT NULL, "
+                + "source TEXT)");
+        db.execSQL("CREATE INDEX sms_docs_fingerprint ON sms_docs(fingerprint, date)");
+        db.execSQL("CREATE VIRTUAL TABLE sms_fts USING fts4(content=\"sms_docs\", sender, body)");
+        db.execSQL("CREATE TABLE index_meta (key TEXT PRIMARY KEY, value INTEGER NOT NULL)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Derived data: rebuild from the provider on the next incremental scan.
+        db.execSQL("DROP TABLE IF EXISTS sms_fts");
+        db.execSQL("DROP TABLE IF EXISTS sms_docs");
+        db.execSQL("DROP TABLE IF EXISTS index_meta");
+        onCreate(db);
+    }
+
+    public boolean indexMessage(Doc doc) {
+        return indexMessages(Collections.singletonList(doc)) > 0;
+    }
+
+    /**
+     * Indexes a batch in one transaction.
+     *
+     * @return number of newly indexed messages (already-known ones are skipped)
+     */
+    public int indexMessages(List<Doc> docs) {
+        if (docs.isEmpty()) {
+            return 0;
+        }
+        SQLiteDatabase db = getWritableDatabase();
+        int inserted = 0;
+        db.beginTransaction();
+        try {
+            for (Doc doc : docs) {
+                if (indexInTransaction(db, doc)) {
+                    inserted++;
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return inserted;
+    }
+
+    private boolean indexInTransaction(SQLiteDatabase db, Doc doc) {
+        if (doc.providerId != null && exists(db, "provider_id = ?", String.valueOf(doc.providerId))) {
+            return false;
+        }
+
+        String fingerprint = SmsFingerprint.of(doc.sender, doc.body);
+        String window = " AND date BETWEEN ? AND ?";
+        String from = String.valueOf(doc.date - MATCH_WINDOW_MS);
+        String to = String.valueOf(doc.date + MATCH_WINDOW_MS);
+        if (doc.providerId != null) {
+            // Attach the provider id to a copy indexed earlier from the broadcast.
+            try (Cursor c = db.query("sms_docs", new String[]{ "_id" },
+                    "fingerprint = ? AND provider_id IS NULL" + window,
+                    new String[]{ fingerprint, from, to }, null, null, null, "1")) {
+                if (c.moveToFirst()) {
+                    ContentValues values = new ContentValues();
+                    values.put("provider_id", doc.providerId);
+                    db.update("sms_docs", values, "_id = ?", new String[]{ String.valueOf(c.getLong(0)) });
+                    return false;
+                }
+            }
+        } else if (exists(db, "fingerprint = ?" + window, fingerprint, from, to)) {
+            return false;
+        }
+
+        ContentValues values = new ContentValues();
+        values.put("provider_id", doc.providerId);
+        values.put("fingerprint", fingerprint);
+        values.put("sender", doc.sender);
+        values.put("body", doc.body);
+        values.put("date", doc.date);
+        values.put("source", doc.source);
+        long rowId = db.insertOrThrow("sms_docs", null, values);
+
+        ContentValues ftsValues = new ContentValues();
+        ftsValues.put("docid", rowId);
+        ftsValues.put("sender", doc.sender);
+        ftsValues.put("body", doc.body);
+        db.insertOrThrow("sms_fts", null, ftsValues);
+        return true;
+    }
+
+    private static boolean exists(SQLiteDatabase db, String selection, String... args) {
+        try (Cursor c = db.query("sms_docs", new String[]{ "_id" }, selection, args, null, null, null, "1")) {
+            return c.moveToFirst();
+        }
+    }
+
+    /** Highest provider {@code _id} covered by the incremental provider walk. */
+    public long getProviderWatermark() {
+        try (Cursor c = getReadableDatabase().query("index_meta", new String[]{ "value" },
+                "key = ?", new String[]{ META_PROVIDER_WATERMARK }, null, null, null)) {
+            return c.moveToFirst() ? c.getLong(0) : 0L;
+        }
+    }
+
+    public void setProviderWatermark(long providerId) {
+        ContentValues values = new ContentValues();
+        values.put("key", META_PROVIDER_WATERMARK);
+        values.put("value", providerId);
+        getWritableDatabase().insertWithOnConflict("index_meta", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    public int count() {
+        try (Cursor c = getReadableDatabase().rawQuery("SELECT COUNT(*) FROM sms_docs", null)) {
+            return c.moveToFirst() ? c.getInt(0) : 0;
+        }
+    }
+
+    /**
+     * Ranked search. Each whitespace-separated term of {@code query} is
+     * prefix-matched and all terms must match (FTS implicit AND). Results are
+     * ordered by BM25 score, newest first on ties.
+     */
+    public List<Hit> search(String query, int limit) {
+        String match = toMatchExpression(query);
+        List<Hit> hits = new ArrayList<>();
+        if (match == null || limit <= 0) {
+            return hits;
+        }
+
+        String sql = "SELECT d._id, d.provider_id, d.sender, d.body, d.date, "
+                + "offsets(sms_fts), matchinfo(sms_fts, 'pcnalx') "
+                + "FROM sms_fts JOIN sms_docs d ON d._id = sms_fts.docid "
+                + "WHERE sms_fts MATCH ? ORDER BY d.date DESC LIMIT " + MAX_CANDIDATES;
+        try (Cursor c = getReadableDatabase().rawQuery(sql, new String[]{ match })) {
+            while (c.moveToNext()) {
+                String sender = c.getString(2);
+                String body = c.getString(3);
+                hits.add(new Hit(
+                        c.getLong(0),
+                        c.isNull(1) ? null : c.getLong(1),
+                        sender,
+                        body,
+                        c.getLong(4),
+                        bm25(c.getBlob(6)),
+                        parseOffsets(c.getString(5), sender, body)));
+            }
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Search failed", e);
+            return new ArrayList<>();
+        }
+
+        Collections.sort(hits, (a, b) -> a.score != b.score
+                ? Double.compare(b.score, a.score)
+                : Long.compare(b.date, a.date));
+        return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+    }
+
+    static String toMatchExpression(String query) {
+        if (query == null) {
+            return null;
+        }
+        StringBuilder match = new StringBuilder();
+        for (String term : query.trim().split("\\s+")) {
+            String cleaned = term.replace("\"", "").replace("*", "");
+            if (cleaned.isEmpty()) {
+                continue;
+            }
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            // The * goes inside the quotes: FTS4 reads "term"* as the exact term.
+            match.append('"').append(cleaned).append("*\"");
+        }
+        return match.length() > 0 ? match.toString() : null;
+    }
+
+    private static double bm25(byte[] blob) {
+        IntBuffer mi = ByteBuffer.wrap(blob).order(ByteOrder.nativeOrder()).asIntBuffer();
+        int phrases = mi.get(0);
+        int columns = mi.get(1);
+        int docs = mi.get(2);
+        double score = 0;
+        for (int col = 0; col < columns; col++) {
+            double avgLength = Math.max(1, mi.get(3 + col));
+            double length = mi.get(3 + columns + col);
+            double weight = col < COLUMN_WEIGHTS.length ? COLUMN_WEIGHTS[col] : 1.0;
+            for (int phrase = 0; phrase < phrases; phrase++) {
+                int base = 3 + 2 * columns + 3 * (phrase * columns + col);
+                int hitsThisRow = mi.get(base);
+                int docsWithHits = mi.get(base + 2);
+                if (hitsThisRow == 0) {
+                    continue;
+                }
+                double idf = Math.max(0.01, Math.log((docs - docsWithHits + 0.5) / (docsWithHits + 0.5)));
+                double tf = hitsThisRow;
+                score += weight * idf * (tf * (K1 + 1)) / (tf + K1 * (1 - B + B * length / avgLength));
+            }
+        }
+        return score;
+    }
+
+    /** offsets() reports UTF-8 byte ranges; JS needs UTF-16 ranges. */
+    private static List<Match> parseOffsets(String offsets, String sender, String body) {
+        List<Match> matches = new ArrayList<>();
+        if (offsets == null || offsets.isEmpty()) {
+            return matches;
+        }
+        String[] parts = offsets.trim().split(" ");
+        for (int i = 0; i + 3 < parts.length; i += 4) {
+            int column = Integer.parseInt(parts[i]);
+            int byteStart = Integer.parseInt(parts[i + 2]);
+            int byteLength = Integer.parseInt(parts[i + 3]);
+            String text = column == 0 ? sender : body;
+            int start = utf8ToCharOffset(text, byteStart);
+            int end = utf8ToCharOffset(text, byteStart + byteLength);
+            matches.add(new Match(COLUMN_NAMES[Math.min(column, COLUMN_NAMES.length - 1)], start, end - start));
+        }
+        return matches;
+    }
+
+    static int utf8ToCharOffset(String text, int byteOffset) {
+        int bytes = 0;
+        int i = 0;
+        while (i < text.length() && bytes < byteOffset) {
+            int cp = text.codePointAt(i);
+            bytes += cp < 0x80 ? 1 : cp < 0x800 ? 2 : cp < 0x10000 ? 3 : 4;
+            i += Character.charCount(cp);
+        }
+        return i;
+    }
+}
@@ -0,0 +1,156 @@
+package app.xpensia.com.plugins.smscommon;
+
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records cold-start phases for this process. Each phase is also emitted as
+ * an {@link Trace} section so it shows up in Perfetto/systrace captures, and
+ * its monotonic start/end are kept for {@link #toJSON()}.
+ * <p>
+ * Times are {@link SystemClock#elapsedRealtime()} offsets from process start
+ * (API 24+) or from the first recorded phase on older devices. Phases must be
+ * ended on the thread that began them, as required by {@link Trace}.
+ */
+public final class StartupTrace {
+    // Trace section names are truncated by the platform past this length.
+    private static final int MAX_SECTION_NAME = 127;
+    // Startup has a fixed, small set of phases; anything past this is a leak.
+    private static final int MAX_ENTRIES = 64;
+
+    private static final Object LOCK = new Object();
+    private static final List<Entry> entries = new ArrayList<>();
+    private static long originMs = -1;
+    private static boolean originIsProcessStart;
+
+    private StartupTrace() {
+    }
+
+    public static void begin(String phase) {
+        Trace.beginSection(sectionName(phase));
+        long now = SystemClock.elapsedRealtime();
+        synchronized (LOCK) {
+            ensureOrigin(now);
+            if (entries.size() < MAX_ENTRIES) {
+                entries.add(new Entry(phase, now, -1, null));
+            }
+        }
+    }
+
+    public static void end(String phase) {
+        long now = SystemClock.elapsedRealtime();
+        synchronized (LOCK) {
+            for (int i = entries.size() - 1; i >= 0; i--) {
+                Entry entry = entries.get(i);
+                if (entry.name.equals(phase) && entry.endMs < 0 && entry.detail == null) {
+                    entry.endMs = now;
+                    break;
+                }
+            }
+        }
+        Trace.endSection();
+    }
+
+    /**
+     * Records an instant the first time {@code event} happens in this
+     * process; later calls are ignored.
+     *
+     * @return true when this call recorded the event
+     */
+    public static boolean markOnce(String event, String detail) {
+        long now = SystemClock.elapsedRealtime();
+        synchronized (LOCK) {
+            for (Entry entry : entries) {
+                if (entry.name.equals(event)) {
+                    return false;
+                }
+            }
+            ensureOrigin(now);
+            if (entries.size() >= MAX_ENTRIES) {
+                return false;
+            }
+            entries.add(new Entry(event, now, now, detail == null ? "" : detail));
+        }
+        Trace.beginSection(sectionName(event));
+        Trace.endSection();
+        return true;
+    }
+
+    /**
+     * @return {@code {origin, uptimeMs, phases:[{name, startMs, durationMs}],
+     *         marks:[{name, atMs, detail}]}}; a phase still running has a
+     *         durationMs of -1
+     */
+    public static JSONObject toJSON() {
+        long now = SystemClock.elapsedRealtime();
+        JSONObject report = new JSONObject();
+        JSONArray phases = new JSONArray();
+        JSONArray marks = new JSONArray();
+        try {
+            synchronized (LOCK) {
+                ensureOrigin(now);
+                report.put("origin", originIsProcessStart ? "process_start" : "first_phase");
+                report.put("uptimeMs", now - originMs);
+                for (Entry entry : entries) {
+                    JSONObject item = new JSONObject();
+                    item.put("name", entry.name);
+                    if (entry.detail != null) {
+                        item.put("atMs", entry.startMs - originMs);
+                        item.put("detail", entry.detail);
+                        marks.put(item);
+                    } else {
+                        item.put("startMs", entry.startMs - originMs);
+                        item.put("durationMs", entry.endMs < 0 ? -1 : entry.endMs - entry.startMs);
+                        phases.put(item);
+                    }
+                }
+            }
+            report.put("phases", phases);
+            report.put("marks", marks);
+        } catch (JSONException e) {
+            // Only thrown for non-finite numbers; all values here are longs.
+        }
+        return report;
+    }
+
+    private static void ensureOrigin(long now) {
+        if (originMs >= 0) {
+            return;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            originMs = Process.getStartElapsedRealtime();
+            originIsProcessStart = true;
+        } else {
+            originMs = now;
+        }
+    }
+
+    private static String sectionName(String name) {
+        String section = "xpensia:" + name;
+        return section.length() > MAX_SECTION_NAME ? section.substring(0, MAX_SECTION_NAME) : section;
+    }
+
+    private static final class Entry {
+        final String name;
+        final long startMs;
+        long endMs;
+        // Non-null for instant marks.
+        final String detail;
+
+        Entry(String name, long startMs, long endMs, String detail) {
+            this.name = name;
+            this.startMs = startMs;
+            this.endMs = endMs;
+            this.detail = detail;
+        }
+    }
+}
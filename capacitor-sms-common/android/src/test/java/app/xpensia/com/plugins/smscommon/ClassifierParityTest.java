@@ -0,0 +1,155 @@
+package app.xpensia.com.plugins.smscommon;
+
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * Holds the built-in rules and the bundled rule pack to the labelled corpus
+ * in updates/rules/classifier-golden-corpus.json, which messageFilter.ts is
+ * held to by classifierParity.test.ts. Per-message cost is printed as
+ * "[PARITY]" lines and written, with every verdict, to the
+ * xpensia.parity.report file that scripts/classifier-parity.mjs compares
+ * with the JS side. Timings are reported, not asserted.
+ * <p>
+ * Timing length is tunable with -Dxpensia.parity.rounds (passes over the corpus).
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 32)
+public class ClassifierParityTest {
+
+    // Compiled from updates/rules/classifier-rules.json by scripts/build-rule-pack.mjs.
+    private static final String PACK_RESOURCE = "/classifier-rules.xrp";
+    private static final String DEFAULT_CORPUS = "../../updates/rules/classifier-golden-corpus.json";
+    private static final int ROUNDS = Integer.getInteger("xpensia.parity.rounds", 200);
+    private static final int WARM_UP_ROUNDS = 20;
+
+    private Context context;
+    private final List<String> ids = new ArrayList<>();
+    private final List<String> bodies = new ArrayList<>();
+    private final List<String> expected = new ArrayList<>();
+
+    @Before
+    public void setUp() throws IOException, JSONException {
+        context = ApplicationProvider.getApplicationContext();
+        FinancialSmsClassifier.setRulePack(null);
+        File corpus = new File(System.getProperty("xpensia.parity.corpus", DEFAULT_CORPUS));
+        JSONArray messages = new JSONObject(new String(Files.readAllBytes(corpus.toPath()), StandardCharsets.UTF_8))
+                .getJSONArray("messages");
+        for (int i = 0; i < messages.length(); i++) {
+            JSONObject message = messages.getJSONObject(i);
+            ids.add(message.getString("id"));
+            bodies.add(message.getString("body"));
+            expected.add(message.getString("expected"));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        FinancialSmsClassifier.setRulePack(null);
+    }
+
+    @Test
+    public void builtInRulesAndRulePackMatchGoldenLabels() throws Exception {
+        String[] keywords = FinancialSmsClassifier.loadKeywords(context);
+        List<String> mismatches = new ArrayList<>();
+        JSONObject engines = new JSONObject();
+
+        engines.put("builtIn", run("builtIn", keywords, mismatches));
+        FinancialSmsClassifier.setRulePack(ClassifierRulePack.wrap(ByteBuffer.wrap(readResource())));
+        engines.put("rulePack", run("rulePack", keywords, mismatches));
+
+        writeReport(new JSONObject().put("messages", ids.size()).put("engines", engines));
+        assertTrue("Verdicts differ from the golden corpus:\n" + String.join("\n", mismatches),
+                mismatches.isEmpty());
+    }
+
+    private JSONObject run(String engine, String[] keywords, List<String> mismatches) throws JSONException {
+        JSONObject verdicts = new JSONObject();
+        for (int i = 0; i < bodies.size(); i++) {
+            String verdict = FinancialSmsClassifier.classify(bodies.get(i), keywords).statKey();
+            verdicts.put(ids.get(i), verdict);
+            if (!verdict.equals(expected.get(i))) {
+                mismatches.add(engine + " " + ids.get(i) + ": " + verdict + ", expected " + expected.get(i));
+            }
+        }
+
+        for (int round = 0; round < WARM_UP_ROUNDS; round++) {
+            classifyAll(keywords);
+        }
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            classifyAll(keywords);
+        }
+        double nsPerMessage = (System.nanoTime() - start) / (double) (ROUNDS * bodies.size());
+        report(String.format(Locale.ROOT, "%s: %.0f ns/message over %d messages x %d rounds",
+                engine, nsPerMessage, bodies.size(), ROUNDS));
+
+        return new JSONObject()
+                .put("nsPerMessage", Math.round(nsPerMessage))
+                .put("verdicts", verdicts);
+    }
+
+    private void classifyAll(String[] keywords) {
+        for (String body : bodies) {
+            FinancialSmsClassifier.classify(body, keywords);
+        }
+    }
+
+    private void writeReport(JSONObject report) throws IOException, JSONException {
+        String path = System.getProperty("xpensia.parity.report");
+        if (path == null) {
+            return;
+        }
+        File file = new File(path);
+        File dir = file.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            out.write(report.toString(2));
+        }
+    }
+
+    private byte[] readResource() throws IOException {
+        try (InputStream in = getClass().getResourceAsStream(PACK_RESOURCE)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] chunk = new byte[4096];
+            int n;
+            while ((n = in.read(chunk)) != -1) {
+                out.write(chunk, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static void report(String line) {
+        System.out.println("[PARITY] " + line);
+    }
+}
@@ -0,0 +1,162 @@
+package app.xpensia.com.plugins.smscommon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.Locale;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 32)
+public class ClassifierRulePackTest {
+
+    // Compiled from updates/rules/classifier-rules.json by scripts/build-rule-pack.mjs.
+    private static final String PACK_RESOURCE = "/classifier-rules.xrp";
+    private static final String[] MESSAGES = {
+            "Purchase SAR 45.00 at Starbucks on 09/03/2026 14:05 card *1234",
+            "شراء بطاقة مدى مبلغ: 45 SAR لدى Starbucks في 09/03/2026 14:05",
+            "تم خصم مبلغ 150 ر.س من حسابك في 2026-03-09",
+            "تم خصم مبلغ ريال 150 من حسابك في 2026-03-09",
+            "paid مبلغ جنيه 24123 on 09/03/2026",
+            "حوالة واردة بـSAR 4 بتاريخ 09-Mar-26",
+            "Payment of EUR 99 received Mar 9, 2026",
+            "Balance: 500SAR as of 20260309",
+            "Transfer of 300 EGP to Ahmed",
+            "payment xSAR 45 on 09/03/2026",
+            "Your OTP is 123456 for SAR 45 purchase on 09/03/2026",
+            "Hello, meet me on 09/03/2026",
+    };
+
+    private Context context;
+    private byte[] packBytes;
+
+    @Before
+    public void setUp() throws IOException {
+        context = ApplicationProvider.getApplicationContext();
+        deleteRecursively(new File(context.getFilesDir(), "classifier-rules"));
+        FinancialSmsClassifier.setRulePack(null);
+        packBytes = readResource();
+    }
+
+    @After
+    public void tearDown() {
+        FinancialSmsClassifier.setRulePack(null);
+    }
+
+    @Test
+    public void mappedPackAgreesWithBuiltInRules() throws IOException {
+        String[] keywords = FinancialSmsClassifier.loadKeywords(context);
+        FinancialSmsClassifier.Verdict[] builtIn = new FinancialSmsClassifier.Verdict[MESSAGES.length];
+        for (int i = 0; i < MESSAGES.length; i++) {
+            builtIn[i] = FinancialSmsClassifier.classify(MESSAGES[i], keywords);
+        }
+
+        ClassifierRulePack pack = ClassifierRulePack.map(writeTemp(packBytes));
+        assertEquals(2, pack.version());
+        FinancialSmsClassifier.setRulePack(pack);
+        for (int i = 0; i < MESSAGES.length; i++) {
+            assertEquals(MESSAGES[i], builtIn[i], FinancialSmsClassifier.classify(MESSAGES[i], keywords));
+        }
+    }
+
+    @Test
+    public void customKeywordsOverridePackKeywords() throws IOException {
+        FinancialSmsClassifier.setRulePack(ClassifierRulePack.map(writeTemp(packBytes)));
+
+        assertEquals(FinancialSmsClassifier.Verdict.REJECTED_NO_KEYWORD,
+                FinancialSmsClassifier.classify(MESSAGES[0], new String[]{ "salary" }));
+        assertEquals(FinancialSmsClassifier.Verdict.ACCEPTED,
+                FinancialSmsClassifier.classify("Salary SAR 9,000 on 27/03/2026", new String[]{ "salary" }));
+    }
+
+    @Test
+    public void rejectsCorruptedPack() throws IOException {
+        byte[] corrupted = packBytes.clone();
+        corrupted[corrupted.length / 2] ^= 0x40;
+        try {
+            ClassifierRulePack.map(writeTemp(corrupted));
+            fail("Corrupted pack was accepted");
+        } catch (IOException expected) {
+            assertEquals("Rule pack checksum mismatch", expected.getMessage());
+        }
+    }
+
+    @Test
+    public void installChecksDigestAndVersionBeforeSwapping() throws Exception {
+        try {
+            RulePackStore.install(context, new ByteArrayInputStream(packBytes), sha256(new byte[]{ 1 }));
+            fail("Pack with a wrong digest was installed");
+        } catch (IOException expected) {
+            assertNull(FinancialSmsClassifier.rulePack());
+        }
+
+        ClassifierRulePack installed = RulePackStore.install(
+                context, new ByteArrayInputStream(packBytes), sha256(packBytes));
+        assertSame(installed, FinancialSmsClassifier.rulePack());
+        assertEquals(2, RulePackStore.info(context).getInt("version"));
+
+        try {
+            RulePackStore.install(context, new ByteArrayInputStream(packBytes), sha256(packBytes));
+            fail("Same pack version was installed twice");
+        } catch (IOException expected) {
+            assertSame(installed, FinancialSmsClassifier.rulePack());
+        }
+    }
+
+    private byte[] readResource() throws IOException {
+        try (InputStream in = getClass().getResourceAsStream(PACK_RESOURCE)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] chunk = new byte[4096];
+            int n;
+            while ((n = in.read(chunk)) != -1) {
+                out.write(chunk, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private File writeTemp(byte[] bytes) throws IOException {
+        File file = File.createTempFile("rules", ".xrp", context.getCacheDir());
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(bytes);
+        }
+        return file;
+    }
+
+    private static String sha256(byte[] bytes) throws Exception {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : MessageDigest.getInstance("SHA-256").digest(bytes)) {
+            hex.append(String.format(Locale.US, "%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
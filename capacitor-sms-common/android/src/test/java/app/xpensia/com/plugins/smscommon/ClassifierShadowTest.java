@@ -0,0 +1,169 @@
+package app.xpensia.com.plugins.smscommon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 32)
+public class ClassifierShadowTest {
+
+    private static final String ACCEPTED_BODY = "Purchase of SAR 45.75 at STARBUCKS on 2024-06-12";
+    private static final String NO_DATE = "noDateEngine";
+    private static final String THROWING = "throwingEngine";
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        FinancialSmsClassifier.setRulePack(null);
+        ClassifierEngines.register(new FixedEngine(NO_DATE));
+        ClassifierEngines.register(new ThrowingEngine());
+    }
+
+    @After
+    public void tearDown() {
+        ClassifierShadow.setCandidate(context, null);
+        ClassifierEngines.unregister(NO_DATE);
+        ClassifierEngines.unregister(THROWING);
+    }
+
+    @Test
+    public void disagreementIsRecordedWithoutMessageText() throws JSONException {
+        ClassifierShadow.setCandidate(context, NO_DATE);
+
+        assertEquals(FinancialSmsClassifier.Verdict.ACCEPTED, FinancialSmsClassifier.classify(context, ACCEPTED_BODY));
+
+        ClassifierShadow.awaitIdle();
+        JSONObject report = ClassifierShadow.report(context);
+        assertEquals(ClassifierEngines.REGEX, report.getString("active"));
+        assertEquals(NO_DATE, report.getString("candidate"));
+        assertEquals(1, report.getLong("compared"));
+        assertEquals(1, report.getLong("disagreements"));
+        assertEquals(1, report.getJSONObject("comparedWith").getLong(ClassifierEngines.REGEX));
+        JSONObject sample = report.getJSONArray("samples").getJSONObject(0);
+        assertEquals("accepted", sample.getString("activeVerdict"));
+        assertEquals("noDate", sample.getString("candidateVerdict"));
+        assertEquals(ACCEPTED_BODY.length(), sample.getInt("length"));
+        assertFalse(report.toString().contains("STARBUCKS"));
+    }
+
+    @Test
+    public void samplesAreBoundedAndNewCandidateStartsOver() throws JSONException {
+        ClassifierShadow.setCandidate(context, NO_DATE);
+        int messages = ClassifierShadow.MAX_SAMPLES + 5;
+        for (int i = 0; i < messages; i++) {
+            FinancialSmsClassifier.classify(context, ACCEPTED_BODY);
+            // Waiting for the queue means nothing is dropped.
+            ClassifierShadow.awaitIdle();
+        }
+
+        JSONObject report = ClassifierShadow.report(context);
+        assertEquals(messages, report.getLong("disagreements"));
+        assertEquals(0, report.getLong("dropped"));
+        JSONArray samples = report.getJSONArray("samples");
+        assertEquals(ClassifierShadow.MAX_SAMPLES, samples.length());
+
+        ClassifierShadow.setCandidate(context, NO_DATE);
+        report = ClassifierShadow.report(context);
+        assertEquals(0, report.getLong("compared"));
+        assertEquals(0, report.getJSONArray("samples").length());
+        assertFalse(report.has("latencyRatio"));
+    }
+
+    @Test
+    public void throwingCandidateCountsAsErrorAndNeverChangesVerdict() throws JSONException {
+        ClassifierShadow.setCandidate(context, THROWING);
+
+        assertEquals(FinancialSmsClassifier.Verdict.ACCEPTED, FinancialSmsClassifier.classify(context, ACCEPTED_BODY));
+
+        ClassifierShadow.awaitIdle();
+        JSONObject report = ClassifierShadow.report(context);
+        assertEquals(1, report.getLong("compared"));
+        assertEquals(1, report.getLong("errors"));
+        assertEquals(0, report.getLong("disagreements"));
+    }
+
+    @Test
+    public void reportIsSavedInBatches() throws JSONException {
+        ClassifierShadow.setCandidate(context, NO_DATE);
+        for (int i = 0; i < ClassifierShadow.SAVE_EVERY - 1; i++) {
+            FinancialSmsClassifier.classify(context, ACCEPTED_BODY);
+            ClassifierShadow.awaitIdle();
+        }
+
+        assertEquals(ClassifierShadow.SAVE_EVERY - 1, ClassifierShadow.report(context).getLong("compared"));
+        assertEquals(0, savedReport().getLong("compared"));
+
+        FinancialSmsClassifier.classify(context, ACCEPTED_BODY);
+        ClassifierShadow.awaitIdle();
+        assertEquals(ClassifierShadow.SAVE_EVERY, savedReport().getLong("compared"));
+    }
+
+    @Test
+    public void unknownCandidateIsRejected() throws JSONException {
+        try {
+            ClassifierShadow.setCandidate(context, "missing");
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+        assertNull(ClassifierShadow.candidate(context));
+        assertTrue(ClassifierShadow.report(context).getJSONArray("engines").toString().contains(NO_DATE));
+    }
+
+    private JSONObject savedReport() throws JSONException {
+        return new JSONObject(context.getSharedPreferences("ClassifierShadow", Context.MODE_PRIVATE)
+                .getString("report", "{}"));
+    }
+
+    /** Rejects every message at the date gate. */
+    private static final class FixedEngine implements ClassifierEngine {
+        private final String id;
+
+        FixedEngine(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public String id() {
+            return id;
+        }
+
+        @Override
+        public FinancialSmsClassifier.Verdict evaluate(String body, String normalized, String[] keywords,
+                                                       boolean verbose) {
+            return FinancialSmsClassifier.Verdict.REJECTED_NO_DATE;
+        }
+    }
+
+    private static final class ThrowingEngine implements ClassifierEngine {
+        @Override
+        public String id() {
+            return THROWING;
+        }
+
+        @Override
+        public FinancialSmsClassifier.Verdict evaluate(String body, String normalized, String[] keywords,
+                                                       boolean verbose) {
+            throw new IllegalStateException("broken engine");
+        }
+    }
+}
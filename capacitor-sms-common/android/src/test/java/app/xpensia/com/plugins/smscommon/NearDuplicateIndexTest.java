@@ -0,0 +1,124 @@
+package app.xpensia.com.plugins.smscommon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 32)
+public class NearDuplicateIndexTest {
+
+    private static final long T0 = 1773100000000L;
+    private static final long MINUTE = 60 * 1000;
+    private static final String PURCHASE =
+            "Purchase SAR 45.00 at Starbucks on 09/03/2026 14:05 card *1234 balance SAR 1,200.50";
+
+    private static NearDuplicateIndex.Signature sign(String sender, String body, long at) {
+        return NearDuplicateIndex.signature(sender, body, at, SmsFingerprint.of(sender, body));
+    }
+
+    @Test
+    public void flagsReformattedResendFromAnotherSenderByAmount() {
+        NearDuplicateIndex index = new NearDuplicateIndex();
+        index.findAndAdd(sign("ALRAJHI", PURCHASE, T0));
+
+        NearDuplicateIndex.Match match = index.findAndAdd(
+                sign("RAJHI-ALERT", "شراء بطاقة مدى مبلغ: 45 SAR لدى Starbucks في 09/03/2026 14:05", T0 + MINUTE));
+
+        assertNotNull(match);
+        assertEquals(NearDuplicateIndex.Reason.AMOUNT, match.reason);
+        assertEquals("ALRAJHI", match.earlier.sender);
+    }
+
+    @Test
+    public void flagsSameTextWithDifferentNumberFormattingHoursLater() {
+        NearDuplicateIndex index = new NearDuplicateIndex();
+        index.findAndAdd(sign("ALRAJHI", PURCHASE, T0));
+
+        NearDuplicateIndex.Match match = index.findAndAdd(sign("ALRAJHI",
+                "Purchase  SAR 45 at Starbucks on 09/03/2026 14:05 card *1234 balance SAR 1200.5", T0 + 5 * 60 * MINUTE));
+
+        assertNotNull(match);
+        assertEquals(NearDuplicateIndex.Reason.TEXT, match.reason);
+    }
+
+    @Test
+    public void keepsSeparatePurchasesOfTheSameAmountInTheSameTemplate() {
+        NearDuplicateIndex index = new NearDuplicateIndex();
+        index.findAndAdd(sign("ALRAJHI", PURCHASE, T0));
+        index.findAndAdd(sign("RAJHI-ALERT", "شراء بطاقة مدى مبلغ: 45 SAR لدى Starbucks في 09/03/2026 14:05", T0 + MINUTE));
+
+        assertNull(index.findAndAdd(sign("ALRAJHI",
+                "Purchase SAR 45.00 at Starbucks on 09/03/2026 14:40 card *1234 balance SAR 1,155.50", T0 + 35 * MINUTE)));
+    }
+
+    @Test
+    public void ignoresSameAmountOutsideTheAmountWindow() {
+        NearDuplicateIndex index = new NearDuplicateIndex();
+        index.findAndAdd(sign("ALRAJHI", PURCHASE, T0));
+
+        assertNull(index.findAndAdd(sign("RAJHI-ALERT",
+                "شراء بطاقة مدى مبلغ: 45 SAR لدى Starbucks في 09/03/2026 14:05",
+                T0 + NearDuplicateIndex.AMOUNT_WINDOW_MS + MINUTE)));
+    }
+
+    @Test
+    public void survivesJsonRoundTripAndDropsExpiredEntries() {
+        NearDuplicateIndex index = new NearDuplicateIndex();
+        index.findAndAdd(sign("ALRAJHI", PURCHASE, T0));
+        index.findAndAdd(sign("ALRAJHI", "Transfer SAR 300.00 to Ahmed on 10/03/2026 09:12", T0 + 24 * 60 * MINUTE));
+
+        NearDuplicateIndex restored = NearDuplicateIndex.fromJSON(index.toJSON(), T0 + 24 * 60 * MINUTE);
+        assertEquals(2, restored.size());
+        assertNotNull(restored.find(sign("ALRAJHI", PURCHASE.toUpperCase(), T0 + MINUTE)));
+
+        NearDuplicateIndex expired = NearDuplicateIndex.fromJSON(index.toJSON(),
+                T0 + NearDuplicateIndex.RETENTION_MS + MINUTE);
+        assertEquals(1, expired.size());
+    }
+
+    @Test
+    public void survivesBinaryRoundTripEntryByEntry() throws Exception {
+        NearDuplicateIndex index = new NearDuplicateIndex();
+        index.findAndAdd(sign("ALRAJHI", PURCHASE, T0));
+        index.findAndAdd(sign("ALRAJHI", "Transfer SAR 300.00 to Ahmed on 10/03/2026 09:12", T0 + MINUTE));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (NearDuplicateIndex.Signature entry : index.snapshot()) {
+            NearDuplicateIndex.write(out, entry);
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        List<NearDuplicateIndex.Signature> stored = new ArrayList<>();
+        while (in.available() > 0) {
+            stored.add(NearDuplicateIndex.read(in));
+        }
+
+        NearDuplicateIndex restored = NearDuplicateIndex.of(stored, T0 + MINUTE);
+        assertEquals(2, restored.size());
+        NearDuplicateIndex.Match match = restored.find(sign("RAJHI-ALERT", PURCHASE.toUpperCase(), T0 + 2 * MINUTE));
+        assertNotNull(match);
+        assertEquals("ALRAJHI", match.earlier.sender);
+    }
+
+    @Test
+    public void extractsAmountInMinorUnits() {
+        assertEquals(120050, NearDuplicateIndex.amountMinorUnits("Balance SAR 1,200.50 on 09/03/2026"));
+        assertEquals(4500, NearDuplicateIndex.amountMinorUnits("مبلغ: 45 SAR"));
+        assertEquals(NearDuplicateIndex.NO_AMOUNT, NearDuplicateIndex.amountMinorUnits("No amount here"));
+        assertEquals("1234.5", NearDuplicateIndex.normalizeNumber("1,234.50"));
+        assertEquals("9.3.2026", NearDuplicateIndex.normalizeNumber("09/03/2026"));
+    }
+}
@@ -0,0 +1,63 @@
+package app.xpensia.com.plugins.smscommon;
+
+import static org.junit.Assert.assertEquals;
+
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 32)
+public class RingLogTest {
+
+    @After
+    public void tearDown() {
+        RingLog.setMinLevel(Log.DEBUG);
+    }
+
+    @Test
+    public void dumpKeepsNewestEventsOldestFirstAfterWrapping() throws JSONException {
+        long before = RingLog.dump().getLong("written");
+        int extra = 7;
+        for (int i = 0; i < RingLog.CAPACITY + extra; i++) {
+            RingLog.event(Log.DEBUG, RingLog.Event.PERSISTED, i, 0xabcL);
+        }
+
+        JSONObject dump = RingLog.dump();
+        JSONArray events = dump.getJSONArray("events");
+        assertEquals(before + RingLog.CAPACITY + extra, dump.getLong("written"));
+        assertEquals(RingLog.CAPACITY, events.length());
+
+        JSONObject oldest = events.getJSONObject(0);
+        assertEquals(extra, oldest.getLong("a"));
+        assertEquals("PERSISTED", oldest.getString("event"));
+        assertEquals("PERSIST", oldest.getString("category"));
+        assertEquals(0xabcL, oldest.getLong("b"));
+        assertEquals(RingLog.CAPACITY + extra - 1, events.getJSONObject(events.length() - 1).getLong("a"));
+    }
+
+    @Test
+    public void eventsBelowMinLevelAreNotRecorded() throws JSONException {
+        RingLog.setMinLevel(Log.WARN);
+        long before = RingLog.dump().getLong("written");
+
+        RingLog.event(Log.DEBUG, RingLog.Event.CLASSIFIED, 0, 10);
+        RingLog.event(Log.ERROR, RingLog.Event.NOTIFY_SKIPPED, 5, 1);
+
+        assertEquals(before + 1, RingLog.dump().getLong("written"));
+    }
+
+    @Test
+    public void fingerprintParsesHexAndToleratesEmpty() {
+        assertEquals(0x7f3a01bcL, RingLog.fingerprint("7f3a01bc"));
+        assertEquals(0L, RingLog.fingerprint(""));
+        assertEquals(0L, RingLog.fingerprint(null));
+    }
+}
@@ -0,0 +1,64 @@
+package app.xpensia.com.plugins.smscommon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 32)
+public class SmsSearchIndexTest {
+
+    private SmsSearchIndex index;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase("xpensia_sms_index.db");
+        index = SmsSearchIndex.getInstance(context);
+    }
+
+    @Test
+    public void buildsPrefixMatchExpressionFromUserQuery() {
+        assertEquals("\"star*\" \"sar*\"", SmsSearchIndex.toMatchExpression("  star \"sar*  "));
+        assertNull(SmsSearchIndex.toMatchExpression("  \"* "));
+    }
+
+    @Test
+    public void convertsUtf8ByteOffsetsToCharOffsets() {
+        String text = "شراء SAR 10";
+        // Four Arabic letters (2 bytes each) and a space precede "SAR".
+        assertEquals(5, SmsSearchIndex.utf8ToCharOffset(text, 9));
+    }
+
+    @Test
+    public void mergesBroadcastCopyWithProviderRowAndFindsIt() {
+        long date = 1773100000000L;
+        String body = "Purchase SAR 45.00 at Starbucks on 09/03/2026";
+
+        assertTrue(index.indexMessage(new SmsSearchIndex.Doc(null, "ALRAJHI", body, date, "listener")));
+        assertFalse(index.indexMessage(new SmsSearchIndex.Doc(null, "ALRAJHI", body, date + 1000, "static_receiver")));
+        assertFalse(index.indexMessage(new SmsSearchIndex.Doc(42L, "ALRAJHI", body, date + 2000, "reader")));
+        assertFalse(index.indexMessage(new SmsSearchIndex.Doc(42L, "ALRAJHI", body, date + 2000, "reader")));
+        assertEquals(1, index.count());
+
+        List<SmsSearchIndex.Hit> hits = index.search("starb", 10);
+        assertEquals(1, hits.size());
+        assertEquals(Long.valueOf(42L), hits.get(0).providerId);
+        SmsSearchIndex.Match match = hits.get(0).matches.get(0);
+        assertEquals("body", match.column);
+        assertEquals("Starbucks", body.substring(match.start, match.start + match.length));
+    }
+}
@@ -0,0 +1,155 @@
+package com.xpensia.plugins.smsreader;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compact columnar encoding for large SMS exports, decoded on the JS side by
+ * {@code src/lib/native/smsColumnarExport.ts}. All integers are unsigned
+ * LEB128 varints; dates are zigzag-encoded.
+ *
+ * <pre>
+ * magic       4 bytes  "XSMC"
+ * version     1 byte   1
+ * rowCount    varint
+ * senderCount varint
+ * senders     senderCount × (varint byteLength, UTF-8 bytes)
+ * senderCol   rowCount × varint index into senders
+ * dateCol     rowCount × zigzag varint; first is epoch ms, rest are deltas
+ * bodyCol     rowCount × (varint byteLength, UTF-8 bytes)
+ * </pre>
+ *
+ * The header needs the row and sender counts, so rows are streamed into one
+ * spill file per column and concatenated by {@link #writeTo(File)}; only the
+ * sender dictionary is held in memory. {@link #close()} deletes the spill
+ * files.
+ */
+final class SmsColumnarWriter implements Closeable {
+    static final byte[] MAGIC = { 'X', 'S', 'M', 'C' };
+    static final int VERSION = 1;
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final Map<String, Integer> senderDictionary = new LinkedHashMap<>();
+    private final File[] spillFiles = new File[3];
+    private final OutputStream[] columns = new OutputStream[3];
+    private final OutputStream senderColumn;
+    private final OutputStream dateColumn;
+    private final OutputStream bodyColumn;
+    private long previousDate;
+    private int rowCount;
+
+    /** @param spillDir where the per-column spill files are created */
+    SmsColumnarWriter(File spillDir) throws IOException {
+        try {
+            for (int i = 0; i < columns.length; i++) {
+                spillFiles[i] = File.createTempFile("column" + i + "-", ".spill", spillDir);
+                columns[i] = new BufferedOutputStream(new FileOutputStream(spillFiles[i]), BUFFER_BYTES);
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+        senderColumn = columns[0];
+        dateColumn = columns[1];
+        bodyColumn = columns[2];
+    }
+
+    void add(String sender, long date, String body) throws IOException {
+        String key = sender != null ? sender : "";
+        Integer index = senderDictionary.get(key);
+        if (index == null) {
+            index = senderDictionary.size();
+            senderDictionary.put(key, index);
+        }
+        writeVarint(senderColumn, index);
+
+        writeVarint(dateColumn, zigzag(rowCount == 0 ? date : date - previousDate));
+        previousDate = date;
+
+        writeString(bodyColumn, body != null ? body : "");
+        rowCount++;
+    }
+
+    int rowCount() {
+        return rowCount;
+    }
+
+    int senderCount() {
+        return senderDictionary.size();
+    }
+
+    /**
+     * Writes the encoded export to {@code file}, replacing any existing
+     * content. No rows may be added afterwards.
+     *
+     * @return the number of bytes written
+     */
+    long writeTo(File file) throws IOException {
+        for (OutputStream column : columns) {
+            column.close();
+        }
+        byte[] chunk = new byte[BUFFER_BYTES];
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), BUFFER_BYTES)) {
+            out.write(MAGIC);
+            out.write(VERSION);
+            writeVarint(out, rowCount);
+            writeVarint(out, senderDictionary.size());
+            for (String sender : senderDictionary.keySet()) {
+                writeString(out, sender);
+            }
+            for (File spill : spillFiles) {
+                try (InputStream in = new FileInputStream(spill)) {
+                    int n;
+                    while ((n = in.read(chunk)) != -1) {
+                        out.write(chunk, 0, n);
+                    }
+                }
+            }
+        }
+        return file.length();
+    }
+
+    @Override
+    public void close() {
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i] != null) {
+                try {
+                    columns[i].close();
+                } catch (IOException ignored) {
+                    // The spill file is deleted below either way.
+                }
+            }
+            if (spillFiles[i] != null) {
+                // Missed deletes are swept up by the export directory pruning.
+                spillFiles[i].delete();
+            }
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static void writeString(OutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeVarint(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
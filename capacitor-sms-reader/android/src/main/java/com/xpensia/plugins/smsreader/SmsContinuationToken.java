@@ -0,0 +1,50 @@
+package com.xpensia.plugins.smsreader;
+
+import android.util.Base64;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Opaque resume point for incremental SMS reads. Encodes the last
+ * {@code (date, _id)} key seen by {@code readSmsSince}; rows are walked in
+ * ascending key order so everything after the key is new to the caller.
+ */
+final class SmsContinuationToken {
+    private static final String VERSION = "v1";
+    private static final int FLAGS = Base64.URL_SAFE | Base64.NO_WRAP | Base64.NO_PADDING;
+
+    final long date;
+    final long id;
+
+    SmsContinuationToken(long date, long id) {
+        this.date = date;
+        this.id = id;
+    }
+
+    String encode() {
+        String raw = VERSION + ":" + date + ":" + id;
+        return Base64.encodeToString(raw.getBytes(StandardCharsets.UTF_8), FLAGS);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     */
+    static SmsContinuationToken decode(String token) {
+        String raw;
+        try {
+            raw = new String(Base64.decode(token, FLAGS), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed continuation token", e);
+        }
+
+        String[] parts = raw.split(":");
+        if (parts.length != 3 || !VERSION.equals(parts[0])) {
+            throw new IllegalArgumentException("Unsupported continuation token");
+        }
+        try {
+            return new SmsContinuationToken(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed continuation token", e);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.xpensia.plugins.smsreader;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+/**
+ * Per-sender aggregation of (address, date) rows for summarizeInbox: message
+ * count, first/last date and an optional local-time day or month histogram.
+ * Bodies are never needed.
+ */
+final class SmsInboxSummary {
+    enum Granularity {
+        NONE, DAY, MONTH;
+
+        static Granularity from(String value) {
+            if ("day".equals(value)) {
+                return DAY;
+            }
+            if ("month".equals(value)) {
+                return MONTH;
+            }
+            return NONE;
+        }
+    }
+
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+
+    private static final class SenderStats {
+        final String sender;
+        int count;
+        long firstDate = Long.MAX_VALUE;
+        long lastDate = Long.MIN_VALUE;
+        Map<String, Integer> histogram;
+
+        SenderStats(String sender) {
+            this.sender = sender;
+        }
+    }
+
+    private final Granularity granularity;
+    private final TimeZone timeZone = TimeZone.getDefault();
+    private final SimpleDateFormat bucketFormat;
+    // Formatting is the expensive part; rows cluster heavily by day.
+    private final Map<Long, String> bucketByLocalDay = new HashMap<>();
+    private final Map<String, SenderStats> bySender = new HashMap<>();
+    private int total;
+
+    SmsInboxSummary(Granularity granularity) {
+        this.granularity = granularity;
+        this.bucketFormat = new SimpleDateFormat(granularity == Granularity.MONTH ? "yyyy-MM" : "yyyy-MM-dd", Locale.US);
+        this.bucketFormat.setTimeZone(timeZone);
+    }
+
+    void add(String sender, long date) {
+        String key = sender != null ? sender : "";
+        SenderStats stats = bySender.get(key);
+        if (stats == null) {
+            stats = new SenderStats(key);
+            bySender.put(key, stats);
+        }
+        stats.count++;
+        stats.firstDate = Math.min(stats.firstDate, date);
+        stats.lastDate = Math.max(stats.lastDate, date);
+        total++;
+
+        if (granularity != Granularity.NONE) {
+            if (stats.histogram == null) {
+                stats.histogram = new TreeMap<>();
+            }
+            String bucket = bucketFor(date);
+            Integer count = stats.histogram.get(bucket);
+            stats.histogram.put(bucket, count == null ? 1 : count + 1);
+        }
+    }
+
+    private String bucketFor(long date) {
+        long localDay = Math.floorDiv(date + timeZone.getOffset(date), DAY_MS);
+        String bucket = bucketByLocalDay.get(localDay);
+        if (bucket == null) {
+            bucket = bucketFormat.format(new Date(date));
+            bucketByLocalDay.put(localDay, bucket);
+        }
+        return bucket;
+    }
+
+    /**
+     * @return senders ordered by message count, most active first
+     */
+    JSObject toJSObject() {
+        List<SenderStats> ordered = new ArrayList<>(bySender.values());
+        Collections.sort(ordered, (a, b) -> b.count != a.count
+                ? Integer.compare(b.count, a.count)
+                : a.sender.compareTo(b.sender));
+
+        JSArray senders = new JSArray();
+        for (SenderStats stats : ordered) {
+            JSObject entry = new JSObject();
+            entry.put("sender", stats.sender);
+            entry.put("count", stats.count);
+            entry.put("firstDate", stats.firstDate);
+            entry.put("lastDate", stats.lastDate);
+            if (stats.histogram != null) {
+                JSObject histogram = new JSObject();
+                for (Map.Entry<String, Integer> bucket : stats.histogram.entrySet()) {
+                    histogram.put(bucket.getKey(), bucket.getValue());
+                }
+                entry.put("histogram", histogram);
+            }
+            senders.put(entry);
+        }
+
+        JSObject ret = new JSObject();
+        ret.put("total", total);
+        ret.put("senders", senders);
+        return ret;
+    }
+}
@@ -0,0 +1,346 @@
+package com.xpensia.plugins.smsreader;
+
+import android.content.ContentResolver;
+import android.database.Cursor;
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
+import android.provider.Telephony;
+
+import com.getcapacitor.JSArray;
+
+import app.xpensia.com.plugins.smscommon.FinancialSmsClassifier;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Parallel variant of the readSmsMessages inbox walk, for multi-year ranges.
+ * <p>
+ * A date-only pre-pass counts the rows in range and places partition
+ * boundaries at row-count quantiles, so each partition holds about the same
+ * number of rows however unevenly messages are spread over time. Each
+ * partition is queried and classified on its own worker, newest partition
+ * first. The calling thread merges the partitions in order, so rows reach the
+ * sink in the same DATE DESC order as the sequential walk.
+ * <p>
+ * Workers hand accepted rows to the merger in batches. Rows buffered ahead of
+ * the merge are capped at {@link #MAX_BUFFERED_ROWS}: a worker that is ahead
+ * waits for room, while the partition being merged never waits, so the merge
+ * always makes progress. With financialOnly, the remaining partitions are
+ * cancelled once {@code limit} rows are merged.
+ */
+final class SmsPartitionedScan {
+    static final int MIN_PARTITION_ROWS = 1000;
+    static final int MAX_BUFFERED_ROWS = 4000;
+    private static final int BATCH_ROWS = 64;
+    private static final long WAIT_SLICE_MS = 100;
+
+    private static final String[] PROJECTION = new String[]{
+            Telephony.Sms.ADDRESS,
+            Telephony.Sms.BODY,
+            Telephony.Sms.DATE
+    };
+    private static final String SORT_ORDER = Telephony.Sms.DATE + " DESC";
+    private static final FinancialSmsClassifier.Verdict[] VERDICTS = FinancialSmsClassifier.Verdict.values();
+
+    private static final class Row {
+        final String sender;
+        final String message;
+        final long timestamp;
+
+        Row(String sender, String message, long timestamp) {
+            this.sender = sender;
+            this.message = message;
+            this.timestamp = timestamp;
+        }
+    }
+
+    /** Rows with {@code olderThan < date <= newest}; the last partition has no lower bound. */
+    private static final class Partition {
+        final int index;
+        final long newest;
+        final Long olderThan;
+        final CancellationSignal signal = new CancellationSignal();
+        // Guarded by the scan lock.
+        final ArrayDeque<Row> rows = new ArrayDeque<>();
+        boolean done;
+        Exception error;
+        // Written by the worker only; read after done.
+        int senderSkipped;
+        final int[] verdicts = new int[VERDICTS.length];
+
+        Partition(int index, long newest, Long olderThan) {
+            this.index = index;
+            this.newest = newest;
+            this.olderThan = olderThan;
+        }
+    }
+
+    private final ContentResolver resolver;
+    private final ExecutorService workers;
+    private final SmsReadJob job;
+    private final JSArray senders;
+    private final String[] keywords;
+    private final int limit;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private int buffered;
+    private int head;
+    private final List<Partition> partitions = new ArrayList<>();
+
+    /**
+     * @param keywords classifier keywords when financialOnly, else null
+     * @param limit    with financialOnly, accepted messages to return;
+     *                 otherwise the newest rows to scan (as in the sequential walk)
+     */
+    SmsPartitionedScan(ContentResolver resolver, ExecutorService workers, SmsReadJob job,
+                       JSArray senders, String[] keywords, int limit) {
+        this.resolver = resolver;
+        this.workers = workers;
+        this.job = job;
+        this.senders = senders;
+        this.keywords = keywords;
+        this.limit = limit;
+    }
+
+    static int partitionCount(int rows, int cores) {
+        return Math.max(1, Math.min(2 * cores, rows / MIN_PARTITION_ROWS));
+    }
+
+    /**
+     * Plans partitions over the rows matching {@code selection}, runs them
+     * and merges accepted rows into {@code sink}.
+     *
+     * @return false if the range is too small to split; nothing was handed
+     *         to the sink and the caller should walk sequentially
+     */
+    boolean run(String selection, String[] selectionArgs, SmsReaderPlugin.RowSink sink)
+            throws IOException, InterruptedException {
+        if (!plan(selection, selectionArgs)) {
+            return false;
+        }
+        job.setPartitions(partitions.size());
+        for (Partition partition : partitions) {
+            workers.execute(() -> scan(partition, selection, selectionArgs));
+        }
+        try {
+            merge(sink);
+        } finally {
+            for (Partition partition : partitions) {
+                partition.signal.cancel();
+            }
+            awaitWorkers();
+        }
+        return true;
+    }
+
+    int senderSkipped() {
+        int total = 0;
+        for (Partition partition : partitions) {
+            total += partition.senderSkipped;
+        }
+        return total;
+    }
+
+    int verdictCount(FinancialSmsClassifier.Verdict verdict) {
+        int total = 0;
+        for (Partition partition : partitions) {
+            total += partition.verdicts[verdict.ordinal()];
+        }
+        return total;
+    }
+
+    private boolean plan(String selection, String[] selectionArgs) {
+        try (Cursor cursor = resolver.query(
+                Telephony.Sms.Inbox.CONTENT_URI,
+                new String[]{ Telephony.Sms.DATE },
+                selection,
+                selectionArgs,
+                SORT_ORDER,
+                job.signal
+        )) {
+            int available = cursor != null ? cursor.getCount() : 0;
+            int rows = keywords != null ? available : Math.min(available, limit);
+            int count = partitionCount(rows, Runtime.getRuntime().availableProcessors());
+            if (count < 2) {
+                return false;
+            }
+            int dateIdx = cursor.getColumnIndexOrThrow(Telephony.Sms.DATE);
+            long[] bounds = new long[count];
+            for (int i = 0; i < count; i++) {
+                cursor.moveToPosition((int) ((long) i * rows / count));
+                bounds[i] = cursor.getLong(dateIdx);
+            }
+            Long lowest = null;
+            if (rows < available) {
+                cursor.moveToPosition(rows);
+                lowest = cursor.getLong(dateIdx);
+            }
+            for (int i = 0; i < count; i++) {
+                Long olderThan = i + 1 < count ? Long.valueOf(bounds[i + 1]) : lowest;
+                // Equal bounds (many rows sharing a timestamp) leave an empty partition.
+                if (olderThan == null || olderThan < bounds[i]) {
+                    partitions.add(new Partition(partitions.size(), bounds[i], olderThan));
+                }
+            }
+        }
+        return partitions.size() > 1;
+    }
+
+    private void scan(Partition partition, String selection, String[] selectionArgs) {
+        List<Row> batch = new ArrayList<>(BATCH_ROWS);
+        try {
+            partition.signal.throwIfCanceled();
+            StringBuilder where = new StringBuilder();
+            List<String> args = new ArrayList<>();
+            if (selection != null && !selection.isEmpty()) {
+                where.append('(').append(selection).append(") AND ");
+                for (String arg : selectionArgs != null ? selectionArgs : new String[0]) {
+                    args.add(arg);
+                }
+            }
+            where.append(Telephony.Sms.DATE).append(" <= ?");
+            args.add(String.valueOf(partition.newest));
+            if (partition.olderThan != null) {
+                where.append(" AND ").append(Telephony.Sms.DATE).append(" > ?");
+                args.add(String.valueOf(partition.olderThan));
+            }
+
+            try (Cursor cursor = resolver.query(
+                    Telephony.Sms.Inbox.CONTENT_URI,
+                    PROJECTION,
+                    where.toString(),
+                    args.toArray(new String[0]),
+                    SORT_ORDER,
+                    partition.signal
+            )) {
+                if (cursor != null && cursor.moveToFirst()) {
+                    int addressIdx = cursor.getColumnIndexOrThrow(Telephony.Sms.ADDRESS);
+                    int bodyIdx = cursor.getColumnIndexOrThrow(Telephony.Sms.BODY);
+                    int dateIdx = cursor.getColumnIndexOrThrow(Telephony.Sms.DATE);
+                    do {
+                        partition.signal.throwIfCanceled();
+                        job.onRowScanned();
+                        String sender = cursor.getString(addressIdx);
+                        String message = cursor.getString(bodyIdx);
+                        if (!SmsReaderPlugin.matchesSenders(sender, senders)) {
+                            partition.senderSkipped++;
+                            continue;
+                        }
+                        if (keywords != null) {
+                            FinancialSmsClassifier.Verdict verdict = FinancialSmsClassifier.classify(message, keywords);
+                            partition.verdicts[verdict.ordinal()]++;
+                            if (!verdict.isAccepted()) {
+                                continue;
+                            }
+                        }
+                        batch.add(new Row(sender, message, cursor.getLong(dateIdx)));
+                        if (batch.size() == BATCH_ROWS) {
+                            offer(partition, batch);
+                        }
+                    } while (cursor.moveToNext());
+                }
+            }
+            offer(partition, batch);
+        } catch (OperationCanceledException e) {
+            // Read cancelled or limit reached; the merger tells them apart.
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            lock.lock();
+            try {
+                partition.error = e;
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            lock.lock();
+            try {
+                partition.done = true;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void offer(Partition partition, List<Row> batch) throws InterruptedException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        lock.lock();
+        try {
+            while (buffered >= MAX_BUFFERED_ROWS && partition.index != head) {
+                partition.signal.throwIfCanceled();
+                changed.await(WAIT_SLICE_MS, TimeUnit.MILLISECONDS);
+            }
+            partition.rows.addAll(batch);
+            buffered += batch.size();
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        batch.clear();
+    }
+
+    private void merge(SmsReaderPlugin.RowSink sink) throws IOException, InterruptedException {
+        List<Row> drained = new ArrayList<>();
+        for (Partition partition : partitions) {
+            boolean finished;
+            do {
+                drained.clear();
+                lock.lock();
+                try {
+                    while (partition.rows.isEmpty() && !partition.done) {
+                        job.signal.throwIfCanceled();
+                        changed.await(WAIT_SLICE_MS, TimeUnit.MILLISECONDS);
+                    }
+                    job.signal.throwIfCanceled();
+                    if (partition.error != null) {
+                        throw new IOException("SMS partition scan failed", partition.error);
+                    }
+                    drained.addAll(partition.rows);
+                    buffered -= partition.rows.size();
+                    partition.rows.clear();
+                    // The worker adds its last rows before marking done.
+                    finished = partition.done;
+                    if (finished) {
+                        head = partition.index + 1;
+                    }
+                    changed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                for (Row row : drained) {
+                    sink.accept(row.sender, row.message, row.timestamp);
+                    job.onRowMatched();
+                    if (keywords != null && job.matched() >= limit) {
+                        return;
+                    }
+                }
+            } while (!finished);
+            job.onPartitionMerged();
+        }
+    }
+
+    private void awaitWorkers() throws InterruptedException {
+        lock.lock();
+        try {
+            for (Partition partition : partitions) {
+                // A shut-down executor never runs queued partitions.
+                while (!partition.done && !workers.isShutdown()) {
+                    changed.await(WAIT_SLICE_MS, TimeUnit.MILLISECONDS);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
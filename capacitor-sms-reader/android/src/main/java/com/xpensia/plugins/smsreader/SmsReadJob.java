@@ -0,0 +1,105 @@
+package com.xpensia.plugins.smsreader;
+
+import android.os.CancellationSignal;
+import android.os.SystemClock;
+
+import com.getcapacitor.JSObject;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * State for one SMS read running on the plugin's read executor: the
+ * cancellation signal handed to the content-resolver query, row counters and
+ * throttled progress reporting. Rows may be scanned from several partition
+ * workers at once (see {@link SmsPartitionedScan}); matches are only counted
+ * by the read thread.
+ */
+final class SmsReadJob {
+    interface ProgressListener {
+        void onProgress(SmsReadJob job, boolean done);
+    }
+
+    private static final long PROGRESS_INTERVAL_MS = 250;
+
+    final String readId;
+    final CancellationSignal signal = new CancellationSignal();
+
+    private final ProgressListener listener;
+    private final long startedAt = SystemClock.elapsedRealtime();
+    private final AtomicLong lastProgressAt = new AtomicLong(startedAt);
+    private final AtomicInteger scanned = new AtomicInteger();
+    private volatile int matched;
+    private volatile int partitions;
+    private volatile int partitionsMerged;
+
+    SmsReadJob(String readId, ProgressListener listener) {
+        this.readId = readId;
+        this.listener = listener;
+    }
+
+    /**
+     * Counts a cursor row and aborts the walk if the read was cancelled.
+     *
+     * @throws android.os.OperationCanceledException after {@link #cancel()}
+     */
+    void onRowScanned() {
+        signal.throwIfCanceled();
+        scanned.incrementAndGet();
+        long now = SystemClock.elapsedRealtime();
+        long last = lastProgressAt.get();
+        if (now - last >= PROGRESS_INTERVAL_MS && lastProgressAt.compareAndSet(last, now)) {
+            listener.onProgress(this, false);
+        }
+    }
+
+    void onRowMatched() {
+        matched++;
+    }
+
+    void setPartitions(int count) {
+        partitions = count;
+    }
+
+    void onPartitionMerged() {
+        partitionsMerged++;
+    }
+
+    int partitions() {
+        return partitions;
+    }
+
+    void finish() {
+        listener.onProgress(this, true);
+    }
+
+    void cancel() {
+        signal.cancel();
+    }
+
+    int scanned() {
+        return scanned.get();
+    }
+
+    int matched() {
+        return matched;
+    }
+
+    long elapsedMs() {
+        return SystemClock.elapsedRealtime() - startedAt;
+    }
+
+    JSObject toProgressEvent(boolean done) {
+        JSObject event = new JSObject();
+        event.put("readId", readId);
+        event.put("scanned", scanned.get());
+        event.put("matched", matched);
+        if (partitions > 0) {
+            event.put("partitions", partitions);
+            event.put("partitionsMerged", partitionsMerged);
+        }
+        event.put("elapsedMs", elapsedMs());
+        event.put("done", done);
+        return event;
+    }
+}
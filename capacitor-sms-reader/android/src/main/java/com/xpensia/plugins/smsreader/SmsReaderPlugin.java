@@ -7,7 +7,10 @@ import android.database.Cursor;
 import android.net.Uri;
 import android.provider.Telephony;
 import android.os.Build;
+import android.os.OperationCanceledException;
+import android.util.Log;
 
+import com.getcapacitor.FileUtils;
 import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
 import com.getcapacitor.Plugin;
@@ -20,9 +23,23 @@ import com.getcapacitor.PermissionState;
 
 import org.json.JSONException;
 
+import app.xpensia.com.plugins.smscommon.FinancialSmsClassifier;
+import app.xpensia.com.plugins.smscommon.SmsSearchIndex;
+
+import java.io.File;
+import java.io.IOException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
 
 @CapacitorPlugin(
     name = "SmsReaderPlugin",
@@ -34,6 +51,20 @@ import java.util.Locale;
     }
 )
 public class SmsReaderPlugin extends Plugin {
+    private static final String TAG = "SmsReaderPlugin";
+    private static final int DEFAULT_PAGE_SIZE = 500;
+    private static final String EXPORT_DIR = "sms-export";
+    private static final long EXPORT_MAX_AGE_MS = 60 * 60 * 1000;
+    private static final Pattern READ_ID_PATTERN = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    // Reads run off the plugin call thread so they can be cancelled mid-walk.
+    private final ExecutorService readExecutor = Executors.newSingleThreadExecutor();
+    private final ConcurrentHashMap<String, SmsReadJob> activeReads = new ConcurrentHashMap<>();
+    // Searches only touch the local index, so they never wait behind a read.
+    private final ExecutorService searchExecutor = Executors.newSingleThreadExecutor();
+    // Workers for parallel scans; the merge still runs on the read executor.
+    private final ExecutorService partitionExecutor =
+            Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
 
     @PluginMethod
     public void checkPermission(PluginCall call) {
@@ -75,83 +106,595 @@ public class SmsReaderPlugin extends Plugin {
             call.reject("Permission not granted to read SMS");
             return;
         }
+        submitRead(call, job -> runReadSmsMessages(call, job));
+    }
+
+    private void runReadSmsMessages(PluginCall call, SmsReadJob job) throws IOException, InterruptedException {
+        boolean includeStats = Boolean.TRUE.equals(call.getBoolean("includeStats", false));
+        JSArray messages = new JSArray();
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
+
+        JSObject stats = scanInbox(call, job, (sender, message, timestamp) -> {
+            // Create a JSON object for this message
+            JSObject msg = new JSObject();
+            msg.put("sender", sender);
+            msg.put("message", message);
+            msg.put("date", dateFormat.format(new Date(timestamp)));
+            messages.put(msg);
+        });
+
+        JSObject ret = new JSObject();
+        ret.put("messages", messages);
+        ret.put("readId", job.readId);
+        if (includeStats) {
+            ret.put("stats", stats);
+        }
+        call.resolve(ret);
+    }
+
+    /**
+     * Same selection as readSmsMessages, but rows are written to a columnar
+     * cache file (see {@link SmsColumnarWriter}) and only its location crosses
+     * the bridge. Previous exports older than EXPORT_MAX_AGE_MS are pruned.
+     */
+    @PluginMethod
+    public void exportSmsMessages(PluginCall call) {
+        if (!hasRequiredPermissions()) {
+            call.reject("Permission not granted to read SMS");
+            return;
+        }
+        submitRead(call, job -> runExportSmsMessages(call, job));
+    }
+
+    private void runExportSmsMessages(PluginCall call, SmsReadJob job) throws IOException, InterruptedException {
+        File exportDir = new File(getContext().getCacheDir(), EXPORT_DIR);
+        if (!exportDir.isDirectory() && !exportDir.mkdirs()) {
+            throw new IOException("Unable to create export directory");
+        }
+        pruneExports(exportDir);
+
+        // Named natively; the readId comes from JS and never reaches the path.
+        File file = new File(exportDir, "sms-" + UUID.randomUUID() + ".xsmc");
+        JSObject ret = new JSObject();
+        try (SmsColumnarWriter writer = new SmsColumnarWriter(exportDir)) {
+            JSObject stats = scanInbox(call, job, writer::add);
+            long bytes = writer.writeTo(file);
+
+            ret.put("readId", job.readId);
+            ret.put("format", "xsmc" + SmsColumnarWriter.VERSION);
+            ret.put("path", file.getAbsolutePath());
+            ret.put("url", FileUtils.getPortablePath(getContext(), getBridge().getLocalUrl(), Uri.fromFile(file)));
+            ret.put("count", writer.rowCount());
+            ret.put("senderCount", writer.senderCount());
+            ret.put("bytes", bytes);
+            ret.put("stats", stats);
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            if (file.exists() && !file.delete()) {
+                Log.w(TAG, "Failed to delete partial SMS export " + file.getName());
+            }
+            throw e;
+        }
+        call.resolve(ret);
+    }
+
+    private static void pruneExports(File exportDir) {
+        File[] files = exportDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - EXPORT_MAX_AGE_MS;
+        for (File file : files) {
+            if (file.lastModified() < cutoff && !file.delete()) {
+                Log.w(TAG, "Failed to prune SMS export " + file.getName());
+            }
+        }
+    }
+
+    interface RowSink {
+        void accept(String sender, String message, long timestamp) throws IOException;
+    }
 
+    /**
+     * Walks the inbox newest-first applying the startDate/endDate, limit,
+     * senders and financialOnly options, handing accepted rows to {@code sink}.
+     * With {@code parallel}, ranges large enough to split are scanned by
+     * {@link SmsPartitionedScan} instead; rows arrive in the same order.
+     *
+     * @return scan statistics (scanned, returned, senderSkipped, elapsedMs,
+     *         rejected, and partitions for a parallel scan)
+     */
+    private JSObject scanInbox(PluginCall call, SmsReadJob job, RowSink sink) throws IOException, InterruptedException {
         String startDate = call.getString("startDate");
         String endDate = call.getString("endDate");
         Integer limit = call.getInt("limit", 100);
         JSArray senders = call.getArray("senders");
+        // When financialOnly is set, non-financial rows are rejected natively and
+        // the limit applies to accepted messages rather than scanned rows.
+        boolean financialOnly = Boolean.TRUE.equals(call.getBoolean("financialOnly", false));
 
-        JSObject ret = new JSObject();
-        JSArray messages = new JSArray();
-        
-        try {
-            // Define the columns we want to retrieve
-            String[] projection = new String[]{
-                    Telephony.Sms.ADDRESS,
-                    Telephony.Sms.BODY,
-                    Telephony.Sms.DATE
-            };
-
-            // Create selection criteria if startDate/endDate is provided
-            String selection = "";
-            String[] selectionArgs = null;
-
-            if (startDate != null && endDate != null) {
-                selection = Telephony.Sms.DATE + " BETWEEN ? AND ?";
-                selectionArgs = new String[]{startDate, endDate};
+        String[] keywords = financialOnly ? FinancialSmsClassifier.loadKeywords(getContext()) : null;
+        Map<FinancialSmsClassifier.Verdict, Integer> verdictCounts = new EnumMap<>(FinancialSmsClassifier.Verdict.class);
+        int senderSkipped = 0;
+
+        // Define the columns we want to retrieve
+        String[] projection = new String[]{
+                Telephony.Sms.ADDRESS,
+                Telephony.Sms.BODY,
+                Telephony.Sms.DATE
+        };
+
+        // Create selection criteria if startDate/endDate is provided
+        String selection = "";
+        String[] selectionArgs = null;
+
+        if (startDate != null && endDate != null) {
+            selection = Telephony.Sms.DATE + " BETWEEN ? AND ?";
+            selectionArgs = new String[]{startDate, endDate};
+        }
+
+        if (Boolean.TRUE.equals(call.getBoolean("parallel", false))) {
+            SmsPartitionedScan scan = new SmsPartitionedScan(getContext().getContentResolver(),
+                    partitionExecutor, job, senders, keywords, limit);
+            if (scan.run(selection, selectionArgs, sink)) {
+                senderSkipped = scan.senderSkipped();
+                for (FinancialSmsClassifier.Verdict verdict : FinancialSmsClassifier.Verdict.values()) {
+                    verdictCounts.put(verdict, scan.verdictCount(verdict));
+                }
+                return scanStats(job, senderSkipped, financialOnly, verdictCounts);
             }
+        }
 
-            // Query the SMS content provider
-            Cursor cursor = getContext().getContentResolver().query(
-                    Telephony.Sms.Inbox.CONTENT_URI,
-                    projection,
-                    selection,
-                    selectionArgs,
-                    Telephony.Sms.DATE + " DESC LIMIT " + limit
-            );
+        String sortOrder = financialOnly
+                ? Telephony.Sms.DATE + " DESC"
+                : Telephony.Sms.DATE + " DESC LIMIT " + limit;
 
+        // Query the SMS content provider
+        try (Cursor cursor = getContext().getContentResolver().query(
+                Telephony.Sms.Inbox.CONTENT_URI,
+                projection,
+                selection,
+                selectionArgs,
+                sortOrder,
+                job.signal
+        )) {
             if (cursor != null && cursor.moveToFirst()) {
-                SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
-                
+                int addressIdx = cursor.getColumnIndexOrThrow(Telephony.Sms.ADDRESS);
+                int bodyIdx = cursor.getColumnIndexOrThrow(Telephony.Sms.BODY);
+                int dateIdx = cursor.getColumnIndexOrThrow(Telephony.Sms.DATE);
+
                 do {
-                    String sender = cursor.getString(cursor.getColumnIndexOrThrow(Telephony.Sms.ADDRESS));
-                    String message = cursor.getString(cursor.getColumnIndexOrThrow(Telephony.Sms.BODY));
-                    long timestamp = cursor.getLong(cursor.getColumnIndexOrThrow(Telephony.Sms.DATE));
-                    
+                    job.onRowScanned();
+                    String sender = cursor.getString(addressIdx);
+                    String message = cursor.getString(bodyIdx);
+                    long timestamp = cursor.getLong(dateIdx);
+
                     // Skip if we have a senders filter and this sender is not in the list
-                    if (senders != null && senders.length() > 0) {
-                        boolean senderMatch = false;
-                        for (int i = 0; i < senders.length(); i++) {
-                            try {
-                                String targetSender = senders.getString(i);
-                                if (sender.contains(targetSender)) {
-                                    senderMatch = true;
-                                    break;
-                                }
-                            } catch (JSONException e) {
-                                // Ignore errors in sender matching
-                            }
+                    if (!matchesSenders(sender, senders)) {
+                        senderSkipped++;
+                        continue;
+                    }
+
+                    if (financialOnly) {
+                        FinancialSmsClassifier.Verdict verdict = FinancialSmsClassifier.classify(message, keywords);
+                        Integer count = verdictCounts.get(verdict);
+                        verdictCounts.put(verdict, count == null ? 1 : count + 1);
+                        if (!verdict.isAccepted()) {
+                            continue;
                         }
-                        if (!senderMatch) continue;
                     }
-                    
-                    // Create a JSON object for this message
+
+                    sink.accept(sender, message, timestamp);
+                    job.onRowMatched();
+                } while ((!financialOnly || job.matched() < limit) && cursor.moveToNext());
+            }
+        }
+
+        return scanStats(job, senderSkipped, financialOnly, verdictCounts);
+    }
+
+    private static JSObject scanStats(SmsReadJob job, int senderSkipped, boolean financialOnly,
+                                      Map<FinancialSmsClassifier.Verdict, Integer> verdictCounts) {
+        JSObject stats = new JSObject();
+        stats.put("scanned", job.scanned());
+        stats.put("returned", job.matched());
+        stats.put("senderSkipped", senderSkipped);
+        stats.put("elapsedMs", job.elapsedMs());
+        if (job.partitions() > 0) {
+            stats.put("partitions", job.partitions());
+        }
+        if (financialOnly) {
+            JSObject rejected = new JSObject();
+            for (FinancialSmsClassifier.Verdict verdict : FinancialSmsClassifier.Verdict.values()) {
+                if (!verdict.isAccepted()) {
+                    Integer count = verdictCounts.get(verdict);
+                    rejected.put(verdict.statKey(), count == null ? 0 : count);
+                }
+            }
+            stats.put("rejected", rejected);
+        }
+        return stats;
+    }
+
+    /**
+     * Incremental read in ascending (date, _id) order. Pass the nextToken from
+     * the previous page to resume; without a token the walk starts at startDate
+     * (or the oldest message). The token advances past every scanned row, so
+     * rows filtered out by senders/financialOnly are never rescanned. With
+     * indexForSearch, financial rows scanned on the way also feed the search
+     * index; rows are only classified when one of the two options asks for it.
+     */
+    @PluginMethod
+    public void readSmsSince(PluginCall call) {
+        if (!hasRequiredPermissions()) {
+            call.reject("Permission not granted to read SMS");
+            return;
+        }
+
+        String token = call.getString("token");
+        SmsContinuationToken resumeFrom;
+        try {
+            resumeFrom = token != null && !token.isEmpty() ? SmsContinuationToken.decode(token) : null;
+        } catch (IllegalArgumentException e) {
+            call.reject(e.getMessage(), "INVALID_TOKEN", e);
+            return;
+        }
+
+        submitRead(call, job -> runReadSmsSince(call, job, resumeFrom));
+    }
+
+    private void runReadSmsSince(PluginCall call, SmsReadJob job, SmsContinuationToken resumeFrom) {
+        String startDate = call.getString("startDate");
+        int pageSize = call.getInt("limit", DEFAULT_PAGE_SIZE);
+        JSArray senders = call.getArray("senders");
+        boolean financialOnly = Boolean.TRUE.equals(call.getBoolean("financialOnly", false));
+        boolean indexRows = Boolean.TRUE.equals(call.getBoolean("indexForSearch", false));
+
+        String selection = null;
+        String[] selectionArgs = null;
+        if (resumeFrom != null) {
+            selection = Telephony.Sms.DATE + " > ? OR (" + Telephony.Sms.DATE + " = ? AND " + Telephony.Sms._ID + " > ?)";
+            String date = String.valueOf(resumeFrom.date);
+            selectionArgs = new String[]{date, date, String.valueOf(resumeFrom.id)};
+        } else if (startDate != null) {
+            selection = Telephony.Sms.DATE + " >= ?";
+            selectionArgs = new String[]{startDate};
+        }
+
+        String[] projection = new String[]{
+                Telephony.Sms._ID,
+                Telephony.Sms.THREAD_ID,
+                Telephony.Sms.ADDRESS,
+                Telephony.Sms.BODY,
+                Telephony.Sms.DATE
+        };
+        String sortOrder = Telephony.Sms.DATE + " ASC, " + Telephony.Sms._ID + " ASC LIMIT " + pageSize;
+
+        JSArray messages = new JSArray();
+        boolean classify = financialOnly || indexRows;
+        String[] keywords = classify ? FinancialSmsClassifier.loadKeywords(getContext()) : null;
+        List<SmsSearchIndex.Doc> indexDocs = new ArrayList<>();
+        SmsContinuationToken last = resumeFrom;
+
+        try (Cursor cursor = getContext().getContentResolver().query(
+                Telephony.Sms.Inbox.CONTENT_URI,
+                projection,
+                selection,
+                selectionArgs,
+                sortOrder,
+                job.signal
+        )) {
+            if (cursor != null && cursor.moveToFirst()) {
+                SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
+                int idIdx = cursor.getColumnIndexOrThrow(Telephony.Sms._ID);
+                int threadIdx = cursor.getColumnIndexOrThrow(Telephony.Sms.THREAD_ID);
+                int addressIdx = cursor.getColumnIndexOrThrow(Telephony.Sms.ADDRESS);
+                int bodyIdx = cursor.getColumnIndexOrThrow(Telephony.Sms.BODY);
+                int dateIdx = cursor.getColumnIndexOrThrow(Telephony.Sms.DATE);
+
+                do {
+                    job.onRowScanned();
+                    long id = cursor.getLong(idIdx);
+                    long timestamp = cursor.getLong(dateIdx);
+                    last = new SmsContinuationToken(timestamp, id);
+
+                    String sender = cursor.getString(addressIdx);
+                    String message = cursor.getString(bodyIdx);
+                    boolean financial = classify && FinancialSmsClassifier.classify(message, keywords).isAccepted();
+                    if (financial && indexRows) {
+                        indexDocs.add(new SmsSearchIndex.Doc(id, sender, message, timestamp, "reader"));
+                    }
+                    if (!matchesSenders(sender, senders)) {
+                        continue;
+                    }
+                    if (financialOnly && !financial) {
+                        continue;
+                    }
+
                     JSObject msg = new JSObject();
+                    msg.put("id", id);
+                    msg.put("threadId", cursor.getLong(threadIdx));
                     msg.put("sender", sender);
                     msg.put("message", message);
                     msg.put("date", dateFormat.format(new Date(timestamp)));
                     messages.put(msg);
+                    job.onRowMatched();
                 } while (cursor.moveToNext());
+            }
+        }
+
+        if (!indexDocs.isEmpty()) {
+            indexForSearch(indexDocs);
+        }
+
+        JSObject ret = new JSObject();
+        ret.put("messages", messages);
+        ret.put("readId", job.readId);
+        ret.put("scanned", job.scanned());
+        ret.put("hasMore", job.scanned() >= pageSize);
+        if (last != null) {
+            ret.put("nextToken", last.encode());
+        }
+        call.resolve(ret);
+    }
+
+    /**
+     * Distinct senders with counts, first/last dates and an optional "day" or
+     * "month" histogram. Only address and date are projected; the provider
+     * does not accept GROUP BY through ContentResolver, so rows are grouped here.
+     */
+    @PluginMethod
+    public void summarizeInbox(PluginCall call) {
+        if (!hasRequiredPermissions()) {
+            call.reject("Permission not granted to read SMS");
+            return;
+        }
+        submitRead(call, job -> runSummarizeInbox(call, job));
+    }
+
+    private void runSummarizeInbox(PluginCall call, SmsReadJob job) {
+        String startDate = call.getString("startDate");
+        String endDate = call.getString("endDate");
+        JSArray senders = call.getArray("senders");
+        SmsInboxSummary summary = new SmsInboxSummary(
+                SmsInboxSummary.Granularity.from(call.getString("histogram")));
+
+        String selection = null;
+        String[] selectionArgs = null;
+        if (startDate != null && endDate != null) {
+            selection = Telephony.Sms.DATE + " BETWEEN ? AND ?";
+            selectionArgs = new String[]{startDate, endDate};
+        } else if (startDate != null) {
+            selection = Telephony.Sms.DATE + " >= ?";
+            selectionArgs = new String[]{startDate};
+        }
 
-                cursor.close();
+        try (Cursor cursor = getContext().getContentResolver().query(
+                Telephony.Sms.Inbox.CONTENT_URI,
+                new String[]{ Telephony.Sms.ADDRESS, Telephony.Sms.DATE },
+                selection,
+                selectionArgs,
+                null,
+                job.signal
+        )) {
+            if (cursor != null && cursor.moveToFirst()) {
+                int addressIdx = cursor.getColumnIndexOrThrow(Telephony.Sms.ADDRESS);
+                int dateIdx = cursor.getColumnIndexOrThrow(Telephony.Sms.DATE);
+                do {
+                    job.onRowScanned();
+                    String sender = cursor.getString(addressIdx);
+                    if (!matchesSenders(sender, senders)) {
+                        continue;
+                    }
+                    summary.add(sender, cursor.getLong(dateIdx));
+                    job.onRowMatched();
+                } while (cursor.moveToNext());
             }
-            
-            ret.put("messages", messages);
-            call.resolve(ret);
-            
-        } catch (Exception e) {
-            call.reject("Failed to read SMS messages: " + e.getMessage(), e);
         }
+
+        JSObject ret = summary.toJSObject();
+        ret.put("readId", job.readId);
+        ret.put("elapsedMs", job.elapsedMs());
+        call.resolve(ret);
+    }
+
+    /**
+     * Brings the search index up to date by walking provider rows with an
+     * _id above the index watermark and indexing the financial ones.
+     */
+    @PluginMethod
+    public void updateSearchIndex(PluginCall call) {
+        if (!hasRequiredPermissions()) {
+            call.reject("Permission not granted to read SMS");
+            return;
+        }
+        submitRead(call, job -> runUpdateSearchIndex(call, job));
+    }
+
+    private void runUpdateSearchIndex(PluginCall call, SmsReadJob job) {
+        SmsSearchIndex index = SmsSearchIndex.getInstance(getContext());
+        String[] keywords = FinancialSmsClassifier.loadKeywords(getContext());
+        String[] projection = new String[]{
+                Telephony.Sms._ID,
+                Telephony.Sms.ADDRESS,
+                Telephony.Sms.BODY,
+                Telephony.Sms.DATE
+        };
+        long watermark = index.getProviderWatermark();
+        int indexed = 0;
+        int pageRows;
+
+        do {
+            List<SmsSearchIndex.Doc> docs = new ArrayList<>();
+            pageRows = 0;
+            try (Cursor cursor = getContext().getContentResolver().query(
+                    Telephony.Sms.Inbox.CONTENT_URI,
+                    projection,
+                    Telephony.Sms._ID + " > ?",
+                    new String[]{ String.valueOf(watermark) },
+                    Telephony.Sms._ID + " ASC LIMIT " + DEFAULT_PAGE_SIZE,
+                    job.signal
+            )) {
+                if (cursor != null && cursor.moveToFirst()) {
+                    int idIdx = cursor.getColumnIndexOrThrow(Telephony.Sms._ID);
+                    int addressIdx = cursor.getColumnIndexOrThrow(Telephony.Sms.ADDRESS);
+                    int bodyIdx = cursor.getColumnIndexOrThrow(Telephony.Sms.BODY);
+                    int dateIdx = cursor.getColumnIndexOrThrow(Telephony.Sms.DATE);
+                    do {
+                        job.onRowScanned();
+                        pageRows++;
+                        watermark = cursor.getLong(idIdx);
+                        String message = cursor.getString(bodyIdx);
+                        if (FinancialSmsClassifier.classify(message, keywords).isAccepted()) {
+                            docs.add(new SmsSearchIndex.Doc(watermark, cursor.getString(addressIdx),
+                                    message, cursor.getLong(dateIdx), "reader"));
+                            job.onRowMatched();
+                        }
+                    } while (cursor.moveToNext());
+                }
+            }
+            indexed += index.indexMessages(docs);
+            index.setProviderWatermark(watermark);
+        } while (pageRows == DEFAULT_PAGE_SIZE);
+
+        JSObject ret = new JSObject();
+        ret.put("readId", job.readId);
+        ret.put("scanned", job.scanned());
+        ret.put("indexed", indexed);
+        ret.put("total", index.count());
+        ret.put("elapsedMs", job.elapsedMs());
+        call.resolve(ret);
+    }
+
+    /**
+     * Ranked full-text search over the local index; never queries the provider.
+     * Match ranges are UTF-16 offsets into the hit's sender or body.
+     */
+    @PluginMethod
+    public void searchSms(PluginCall call) {
+        String query = call.getString("query");
+        if (query == null || query.trim().isEmpty()) {
+            call.reject("Missing query");
+            return;
+        }
+        int limit = call.getInt("limit", 50);
+
+        searchExecutor.execute(() -> {
+            try {
+                List<SmsSearchIndex.Hit> hits = SmsSearchIndex.getInstance(getContext()).search(query, limit);
+                SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
+                JSArray results = new JSArray();
+                for (SmsSearchIndex.Hit hit : hits) {
+                    JSObject item = new JSObject();
+                    item.put("docId", hit.docId);
+                    if (hit.providerId != null) {
+                        item.put("id", hit.providerId);
+                    }
+                    item.put("sender", hit.sender);
+                    item.put("message", hit.body);
+                    item.put("date", dateFormat.format(new Date(hit.date)));
+                    item.put("score", hit.score);
+                    JSArray matches = new JSArray();
+                    for (SmsSearchIndex.Match match : hit.matches) {
+                        JSObject range = new JSObject();
+                        range.put("field", "body".equals(match.column) ? "message" : match.column);
+                        range.put("start", match.start);
+                        range.put("length", match.length);
+                        matches.put(range);
+                    }
+                    item.put("matches", matches);
+                    results.put(item);
+                }
+                JSObject ret = new JSObject();
+                ret.put("hits", results);
+                call.resolve(ret);
+            } catch (Exception e) {
+                call.reject("Failed to search SMS: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    private void indexForSearch(List<SmsSearchIndex.Doc> docs) {
+        try {
+            SmsSearchIndex.getInstance(getContext()).indexMessages(docs);
+        } catch (RuntimeException e) {
+            // The index is derived data; a failure must not fail the read.
+            Log.w(TAG, "Failed to index SMS for search", e);
+        }
+    }
+
+    /**
+     * Stop a running read. The provider query is cancelled through its
+     * CancellationSignal and the cursor is closed; the read's own call rejects
+     * with code CANCELLED.
+     */
+    @PluginMethod
+    public void cancelRead(PluginCall call) {
+        String readId = call.getString("readId");
+        SmsReadJob job = readId != null ? activeReads.get(readId) : null;
+        if (job != null) {
+            job.cancel();
+        }
+        JSObject ret = new JSObject();
+        ret.put("cancelled", job != null);
+        call.resolve(ret);
+    }
+
+    private interface ReadTask {
+        void run(SmsReadJob job) throws Exception;
+    }
+
+    private void submitRead(PluginCall call, ReadTask task) {
+        String readId = call.getString("readId");
+        if (readId == null || readId.isEmpty()) {
+            readId = UUID.randomUUID().toString();
+        } else if (!READ_ID_PATTERN.matcher(readId).matches()) {
+            call.reject("readId must be 1-64 characters from [A-Za-z0-9_-]");
+            return;
+        }
+        SmsReadJob job = new SmsReadJob(readId, this::emitReadProgress);
+        // A second read under a running id would make the first uncancellable.
+        if (activeReads.putIfAbsent(readId, job) != null) {
+            call.reject("A read with readId " + readId + " is already running", "READ_ID_IN_USE");
+            return;
+        }
+
+        readExecutor.execute(() -> {
+            try {
+                task.run(job);
+                job.finish();
+            } catch (OperationCanceledException e) {
+                Log.d(TAG, "SMS read cancelled readId=" + job.readId + " scanned=" + job.scanned());
+                call.reject("SMS read cancelled", "CANCELLED");
+            } catch (Exception e) {
+                call.reject("Failed to read SMS messages: " + e.getMessage(), e);
+            } finally {
+                activeReads.remove(job.readId, job);
+            }
+        });
+    }
+
+    private void emitReadProgress(SmsReadJob job, boolean done) {
+        notifyListeners("readProgress", job.toProgressEvent(done));
+    }
+
+    static boolean matchesSenders(String sender, JSArray senders) {
+        if (senders == null || senders.length() == 0) {
+            return true;
+        }
+        if (sender == null) {
+            return false;
+        }
+        for (int i = 0; i < senders.length(); i++) {
+            try {
+                String targetSender = senders.getString(i);
+                if (sender.contains(targetSender)) {
+                    return true;
+                }
+            } catch (JSONException e) {
+                // Ignore errors in sender matching
+            }
+        }
+        return false;
     }
 
     @Override
@@ -177,6 +720,17 @@ public class SmsReaderPlugin extends Plugin {
         savedCall.resolve(ret);
     }
 
+    @Override
+    protected void handleOnDestroy() {
+        for (SmsReadJob job : activeReads.values()) {
+            job.cancel();
+        }
+        readExecutor.shutdownNow();
+        searchExecutor.shutdownNow();
+        partitionExecutor.shutdownNow();
+        super.handleOnDestroy();
+    }
+
     @PermissionCallback
     private void permissionCallback(PluginCall call) {
         PermissionState state = getPermissionState("read_sms");
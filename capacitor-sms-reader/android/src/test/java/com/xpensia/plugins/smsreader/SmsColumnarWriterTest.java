@@ -0,0 +1,132 @@
+package com.xpensia.plugins.smsreader;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Decodes {@link SmsColumnarWriter} output the way smsColumnarExport.ts
+ * does, so a layout change on either side shows up here.
+ */
+public class SmsColumnarWriterTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void roundTripsRowsInOrder() throws IOException {
+        File dir = temp.newFolder("export");
+        File file = new File(dir, "out.xsmc");
+        String[][] rows = {
+                { "ALRAJHI", "1718000000000", "شراء بمبلغ SAR 45.75 في 2024-06-12" },
+                { "STC", "1717999990000", "Your bill is ready" },
+                { "ALRAJHI", "1718000005000", "" },
+                { null, "0", "emoji 💳 and NBSP here" },
+        };
+        long bytes;
+        try (SmsColumnarWriter writer = new SmsColumnarWriter(dir)) {
+            for (String[] row : rows) {
+                writer.add(row[0], Long.parseLong(row[1]), row[2]);
+            }
+            assertEquals(4, writer.rowCount());
+            assertEquals(3, writer.senderCount());
+            bytes = writer.writeTo(file);
+        }
+
+        assertEquals(file.length(), bytes);
+        List<String[]> decoded = decode(Files.readAllBytes(file.toPath()));
+        assertEquals(rows.length, decoded.size());
+        for (int i = 0; i < rows.length; i++) {
+            String sender = rows[i][0] != null ? rows[i][0] : "";
+            assertArrayEquals(new String[] { sender, rows[i][1], rows[i][2] }, decoded.get(i));
+        }
+        // Only the export is left; the column spill files are gone.
+        assertArrayEquals(new String[] { "out.xsmc" }, dir.list());
+    }
+
+    @Test
+    public void writesHeaderOnlyForEmptyExport() throws IOException {
+        File dir = temp.newFolder("empty");
+        File file = new File(dir, "out.xsmc");
+        try (SmsColumnarWriter writer = new SmsColumnarWriter(dir)) {
+            writer.writeTo(file);
+        }
+
+        byte[] expected = { 'X', 'S', 'M', 'C', SmsColumnarWriter.VERSION, 0, 0 };
+        assertArrayEquals(expected, Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    public void closeWithoutWritingRemovesSpillFiles() throws IOException {
+        File dir = temp.newFolder("abandoned");
+        try (SmsColumnarWriter writer = new SmsColumnarWriter(dir)) {
+            writer.add("BANK", 1L, "body");
+        }
+
+        assertEquals(0, dir.list().length);
+    }
+
+    private static List<String[]> decode(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        byte[] magic = new byte[4];
+        in.get(magic);
+        assertArrayEquals(SmsColumnarWriter.MAGIC, magic);
+        assertEquals(SmsColumnarWriter.VERSION, in.get());
+
+        int rowCount = (int) varint(in);
+        String[] senders = new String[(int) varint(in)];
+        for (int i = 0; i < senders.length; i++) {
+            senders[i] = string(in);
+        }
+        String[][] rows = new String[rowCount][3];
+        for (int i = 0; i < rowCount; i++) {
+            rows[i][0] = senders[(int) varint(in)];
+        }
+        long date = 0;
+        for (int i = 0; i < rowCount; i++) {
+            long n = varint(in);
+            long value = (n >>> 1) ^ -(n & 1);
+            date = i == 0 ? value : date + value;
+            rows[i][1] = Long.toString(date);
+        }
+        for (int i = 0; i < rowCount; i++) {
+            rows[i][2] = string(in);
+        }
+        assertEquals("trailing bytes", 0, in.remaining());
+
+        List<String[]> result = new ArrayList<>();
+        for (String[] row : rows) {
+            result.add(row);
+        }
+        return result;
+    }
+
+    private static long varint(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static String string(ByteBuffer in) {
+        byte[] bytes = new byte[(int) varint(in)];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
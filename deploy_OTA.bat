@@ -123,7 +123,17 @@ if errorlevel 1 (
 
 echo.
 echo ==========================
-echo 7) firebase deploy
+echo 7) Build classifier rule pack (public\rules + manifest rulePack)
+echo ==========================
+call node scripts\build-rule-pack.mjs
+if errorlevel 1 (
+  echo Rule pack build failed. Aborting.
+  exit /b 1
+)
+
+echo.
+echo ==========================
+echo 8) firebase deploy
 echo ==========================
 call firebase deploy
 if errorlevel 1 (
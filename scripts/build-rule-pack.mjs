@@ -0,0 +1,290 @@
+#!/usr/bin/env node
+/**
+ * Compiles updates/rules/classifier-rules.json into the binary rule pack read
+ * by ClassifierRulePack (capacitor-sms-common) and records it in the OTA
+ * manifest, so classifier rules ship without an APK release.
+ *
+ * Usage: node scripts/build-rule-pack.mjs [rules.json] [out.xrp] [manifest.json]
+ *
+ * The output is deterministic: rebuilding unchanged rules gives the same
+ * bytes and SHA-256. Bump "version" in the rules file for every change;
+ * devices only install packs newer than the one they have.
+ */
+import { createHash } from 'node:crypto';
+import { mkdirSync, readFileSync, writeFileSync } from 'node:fs';
+import { dirname } from 'node:path';
+
+const RULES = process.argv[2] ?? 'updates/rules/classifier-rules.json';
+const OUT = process.argv[3] ?? 'public/rules/classifier-rules.xrp';
+const MANIFEST = process.argv[4] ?? 'public/manifest.json';
+const PACK_URL = 'https://xpensia-505ac.web.app/rules/classifier-rules.xrp';
+
+// Must match ClassifierRulePack.
+const FORMAT_VERSION = 2;
+const MAGIC = 0x31505258; // "XRP1"
+const HEADER_BYTES = 32;
+const SECTION_ENTRY_BYTES = 12;
+const SECTION_AUTOMATON = 1;
+const SECTION_DATE_GRAMMAR = 2;
+const SECTION_CHAR_SETS = 3;
+const FLAG_KEYWORD = 1;
+const FLAG_OTP = 2;
+const FLAG_PREFIX_CURRENCY = 4;
+const AMOUNT_CODE = 1;
+const AMOUNT_SYMBOL = 2;
+const AMOUNT_PREFIX = 3;
+const ELEMENT_CHARS = 0;
+const ELEMENT_MONTH = 1;
+const ELEMENT_MONTH_WORD = 2;
+const SET_DIGIT = 255;
+const SET_SPACE = 254;
+const UNBOUNDED = 255;
+
+const fail = (message) => {
+  console.error(`[rule-pack] ${message}`);
+  process.exit(1);
+};
+
+// Same normalisation the classifier applies to message text.
+const normalize = (text) => text.normalize('NFC').replace(/\s+/g, ' ').trim().toLowerCase();
+
+const readJson = (file) => JSON.parse(readFileSync(file, 'utf8').replace(/^﻿/, ''));
+
+// ── Automaton ─────────────────────────────────────────────────────────────
+
+function buildAutomaton(rules) {
+  const states = [{ edges: new Map(), fail: 0, flags: 0, kind: 0, length: 0, afterPrefix: false }];
+  const add = (token, apply) => {
+    const text = normalize(token);
+    if (!text) fail(`Empty token in rules`);
+    let state = 0;
+    for (const unit of text.split('').map((c) => c.charCodeAt(0))) {
+      let next = states[state].edges.get(unit);
+      if (next === undefined) {
+        next = states.length;
+        states.push({ edges: new Map(), fail: 0, flags: 0, kind: 0, length: 0, afterPrefix: false });
+        states[state].edges.set(unit, next);
+      }
+      state = next;
+    }
+    apply(states[state], text.length);
+  };
+  const amount = (kind) => (state, length) => {
+    if (state.kind && state.kind !== kind) fail('Token listed as two amount kinds');
+    state.kind = kind;
+    state.length = length;
+  };
+
+  rules.keywords.forEach((t) => add(t, (s) => { s.flags |= FLAG_KEYWORD; }));
+  rules.otpMarkers.forEach((t) => add(t, (s) => { s.flags |= FLAG_OTP; }));
+  rules.currencyCodes.forEach((t) => add(t, amount(AMOUNT_CODE)));
+  rules.currencySymbols.forEach((t) => add(t, amount(AMOUNT_SYMBOL)));
+  rules.amountPrefixes.forEach((t) => add(t, amount(AMOUNT_PREFIX)));
+  rules.prefixCurrencies.forEach((t) =>
+    add(t, (state) => {
+      if (state.kind !== AMOUNT_CODE && state.kind !== AMOUNT_SYMBOL) {
+        fail(`Prefix currency ${t} is not a currency code or symbol`);
+      }
+      state.afterPrefix = true;
+    }),
+  );
+
+  // Breadth-first fail links. A state inherits the flags of its fail chain
+  // and, when it ends no amount token itself, the longest one ending there
+  // together with whether that token may follow an amount prefix.
+  const order = [0];
+  for (let i = 0; i < order.length; i++) {
+    const current = states[order[i]];
+    for (const [unit, child] of [...current.edges].sort((a, b) => a[0] - b[0])) {
+      let f = current.fail;
+      while (order[i] !== 0 && f !== 0 && !states[f].edges.has(unit)) f = states[f].fail;
+      const target = order[i] === 0 ? 0 : states[f].edges.get(unit) ?? 0;
+      const node = states[child];
+      node.fail = target === child ? 0 : target;
+      const inherited = states[node.fail];
+      node.flags |= inherited.flags;
+      if (!node.kind && inherited.kind) {
+        node.kind = inherited.kind;
+        node.length = inherited.length;
+        node.afterPrefix = inherited.afterPrefix;
+      }
+      order.push(child);
+    }
+  }
+
+  // Renumber in breadth-first order so edges of a state are contiguous.
+  const index = new Map(order.map((id, i) => [id, i]));
+  const edges = [];
+  const stateBytes = Buffer.alloc(order.length * 16);
+  order.forEach((id, i) => {
+    const state = states[id];
+    const sorted = [...state.edges].sort((a, b) => a[0] - b[0]);
+    const at = i * 16;
+    stateBytes.writeUInt32LE(edges.length, at);
+    stateBytes.writeUInt16LE(sorted.length, at + 4);
+    stateBytes.writeUInt8(state.flags | (state.afterPrefix ? FLAG_PREFIX_CURRENCY : 0), at + 6);
+    stateBytes.writeUInt8(state.kind, at + 7);
+    stateBytes.writeUInt32LE(index.get(state.fail), at + 8);
+    stateBytes.writeUInt8(state.length, at + 12);
+    for (const [unit, child] of sorted) edges.push([unit, index.get(child)]);
+  });
+  const edgeBytes = Buffer.alloc(edges.length * 8);
+  edges.forEach(([unit, target], i) => {
+    edgeBytes.writeUInt16LE(unit, i * 8);
+    edgeBytes.writeUInt32LE(target, i * 8 + 4);
+  });
+  const head = Buffer.alloc(8);
+  head.writeUInt32LE(order.length, 0);
+  head.writeUInt32LE(edges.length, 4);
+  return Buffer.concat([head, stateBytes, edgeBytes]);
+}
+
+// ── Date grammar ──────────────────────────────────────────────────────────
+
+/**
+ * Compiles one date rule. Supported syntax: \d, \s, [set] (with \- and \s
+ * escapes), <mon> (month abbreviation), <month> (abbreviation plus trailing
+ * letters), literal characters, and the quantifiers ?, *, +, {n}, {n,m}.
+ */
+function compileRule(source, sets) {
+  const elements = [];
+  let i = 0;
+  while (i < source.length) {
+    let element;
+    if (source.startsWith('<mon>', i)) {
+      element = [ELEMENT_MONTH, sets.months, 1, 1];
+      i += 5;
+    } else if (source.startsWith('<month>', i)) {
+      element = [ELEMENT_MONTH_WORD, sets.months, 1, 1];
+      i += 7;
+    } else if (source.startsWith('\\d', i)) {
+      element = [ELEMENT_CHARS, SET_DIGIT, 1, 1];
+      i += 2;
+    } else if (source.startsWith('\\s', i)) {
+      element = [ELEMENT_CHARS, SET_SPACE, 1, 1];
+      i += 2;
+    } else if (source[i] === '[') {
+      const end = source.indexOf(']', i);
+      if (end < 0) fail(`Unclosed [ in date rule ${source}`);
+      const chars = source
+        .slice(i + 1, end)
+        .replace(/\\s/g, ' ')
+        .replace(/\\(.)/g, '$1');
+      element = [ELEMENT_CHARS, sets.intern(chars), 1, 1];
+      i = end + 1;
+    } else {
+      const literal = source[i] === '\\' ? source[++i] : source[i];
+      element = [ELEMENT_CHARS, sets.intern(literal), 1, 1];
+      i += 1;
+    }
+
+    const quantifier = /^(?:\?|\*|\+|\{(\d+)(?:,(\d+))?\})/.exec(source.slice(i));
+    if (quantifier) {
+      if (element[0] !== ELEMENT_CHARS) fail(`Month elements take no quantifier: ${source}`);
+      const [token, min, max] = quantifier;
+      if (token === '?') [element[2], element[3]] = [0, 1];
+      else if (token === '*') [element[2], element[3]] = [0, UNBOUNDED];
+      else if (token === '+') [element[2], element[3]] = [1, UNBOUNDED];
+      else [element[2], element[3]] = [Number(min), Number(max ?? min)];
+      if (element[2] > element[3] || element[3] > UNBOUNDED) fail(`Bad quantifier in ${source}`);
+      i += token.length;
+    }
+    elements.push(element);
+  }
+  if (elements.length === 0 || elements.length > 255) fail(`Bad date rule length: ${source}`);
+  return Buffer.from([elements.length, ...elements.flat()]);
+}
+
+function buildCharSets(list) {
+  const head = Buffer.alloc(4 + list.length * 4);
+  head.writeUInt16LE(list.length, 0);
+  const bodies = [];
+  let offset = head.length;
+  list.forEach((chars, i) => {
+    head.writeUInt32LE(offset, 4 + i * 4);
+    const body = Buffer.alloc(2 + chars.length * 2);
+    body.writeUInt16LE(chars.length, 0);
+    for (let c = 0; c < chars.length; c++) body.writeUInt16LE(chars.charCodeAt(c), 2 + c * 2);
+    bodies.push(body);
+    offset += body.length;
+  });
+  return Buffer.concat([head, ...bodies]);
+}
+
+// ── Pack ──────────────────────────────────────────────────────────────────
+
+function crc32(bytes) {
+  let crc = 0xffffffff;
+  for (const byte of bytes) {
+    crc ^= byte;
+    for (let k = 0; k < 8; k++) crc = (crc >>> 1) ^ (0xedb88320 & -(crc & 1));
+  }
+  return (crc ^ 0xffffffff) >>> 0;
+}
+
+function buildPack(rules) {
+  if (!Number.isInteger(rules.version) || rules.version < 1) fail('"version" must be a positive integer');
+  for (const key of ['keywords', 'otpMarkers', 'currencyCodes', 'currencySymbols', 'amountPrefixes', 'prefixCurrencies', 'months', 'dateRules']) {
+    if (!Array.isArray(rules[key]) || rules[key].length === 0) fail(`"${key}" must be a non-empty array`);
+  }
+  if (rules.months.some((m) => !/^[a-z]{3}$/.test(m))) fail('"months" must be three lower-case letters each');
+
+  // Set 0 is the currency-code prefix set; ClassifierRulePack relies on it.
+  const setList = [rules.codePrefixChars ?? '', rules.months.join('')];
+  const sets = {
+    months: 1,
+    intern(chars) {
+      const found = setList.indexOf(chars);
+      if (found >= 2) return found;
+      setList.push(chars);
+      if (setList.length > 253) fail('Too many date rule char sets');
+      return setList.length - 1;
+    },
+  };
+  const rulesBytes = rules.dateRules.map((rule) => compileRule(rule, sets));
+  const grammarHead = Buffer.alloc(4);
+  grammarHead.writeUInt16LE(rulesBytes.length, 0);
+
+  const sections = [
+    [SECTION_AUTOMATON, buildAutomaton(rules)],
+    [SECTION_DATE_GRAMMAR, Buffer.concat([grammarHead, ...rulesBytes])],
+    [SECTION_CHAR_SETS, buildCharSets(setList)],
+  ];
+
+  const table = Buffer.alloc(sections.length * SECTION_ENTRY_BYTES);
+  let offset = HEADER_BYTES + table.length;
+  const bodies = [];
+  sections.forEach(([id, bytes], i) => {
+    // Keep sections 4-byte aligned.
+    const padded = Buffer.concat([bytes, Buffer.alloc((4 - (bytes.length % 4)) % 4)]);
+    table.writeUInt16LE(id, i * SECTION_ENTRY_BYTES);
+    table.writeUInt32LE(offset, i * SECTION_ENTRY_BYTES + 4);
+    table.writeUInt32LE(bytes.length, i * SECTION_ENTRY_BYTES + 8);
+    bodies.push(padded);
+    offset += padded.length;
+  });
+
+  const body = Buffer.concat([table, ...bodies]);
+  const header = Buffer.alloc(HEADER_BYTES);
+  header.writeUInt32LE(MAGIC, 0);
+  header.writeUInt16LE(FORMAT_VERSION, 4);
+  header.writeUInt16LE(sections.length, 6);
+  header.writeUInt32LE(rules.version, 8);
+  header.writeUInt32LE(HEADER_BYTES + body.length, 12);
+  header.writeUInt32LE(crc32(body), 16);
+  return Buffer.concat([header, body]);
+}
+
+const rules = readJson(RULES);
+const pack = buildPack(rules);
+mkdirSync(dirname(OUT), { recursive: true });
+writeFileSync(OUT, pack);
+const sha256 = createHash('sha256').update(pack).digest('hex');
+console.log(`[rule-pack] ${OUT}: version ${rules.version}, ${pack.length} bytes, sha256 ${sha256}`);
+
+if (MANIFEST !== '-') {
+  const manifest = readJson(MANIFEST);
+  manifest.rulePack = { version: rules.version, formatVersion: FORMAT_VERSION, url: PACK_URL, sha256 };
+  writeFileSync(MANIFEST, `${JSON.stringify(manifest, null, 2)}\n`);
+  console.log(`[rule-pack] Updated ${MANIFEST}`);
+}
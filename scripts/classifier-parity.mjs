@@ -0,0 +1,99 @@
+#!/usr/bin/env node
+/**
+ * Runs the labelled corpus in updates/rules/classifier-golden-corpus.json
+ * through the native FinancialSmsClassifier (built-in rules and the bundled
+ * rule pack, via ClassifierParityTest under Robolectric) and through
+ * messageFilter.ts (via classifierParity.test.ts under vitest), then lists
+ * every message where an engine disagrees with another or with its label,
+ * and the per-message cost of each engine.
+ *
+ * Usage (from the repo root):
+ *   node scripts/classifier-parity.mjs [--skip-java] [--skip-js] [--rounds N]
+ *
+ * Costs come from a desktop JVM and Node, so compare them with each other,
+ * not with device timings. Exits non-zero on any disagreement.
+ */
+import { spawnSync } from 'node:child_process';
+import { existsSync, readFileSync, rmSync } from 'node:fs';
+import { resolve } from 'node:path';
+
+const CORPUS = 'updates/rules/classifier-golden-corpus.json';
+const JS_REPORT = resolve('build/classifier-parity/js.json');
+// Written by ClassifierParityTest; path set in capacitor-sms-common/android/build.gradle.
+const JAVA_REPORT = 'capacitor-sms-common/android/build/classifier-parity/java.json';
+const WINDOWS = process.platform === 'win32';
+
+const args = process.argv.slice(2);
+const skipJava = args.includes('--skip-java');
+const skipJs = args.includes('--skip-js');
+const roundsAt = args.indexOf('--rounds');
+const rounds = roundsAt >= 0 ? Number(args[roundsAt + 1]) : 200;
+
+const fail = (message) => {
+  console.error(`[parity] ${message}`);
+  process.exit(1);
+};
+
+if (!Number.isInteger(rounds) || rounds <= 0) fail(`Invalid --rounds: ${args[roundsAt + 1]}`);
+
+function run(label, command, commandArgs, options) {
+  console.log(`[parity] ${label}: ${command} ${commandArgs.join(' ')}`);
+  const result = spawnSync(command, commandArgs, { stdio: 'inherit', shell: WINDOWS, ...options });
+  if (result.error) fail(`${label} could not start: ${result.error.message}`);
+  // A failing label check still writes its report; the comparison below says why.
+  if (result.status !== 0) console.warn(`[parity] ${label} exited with ${result.status}`);
+}
+
+const reports = [];
+
+if (!skipJs) {
+  rmSync(JS_REPORT, { force: true });
+  run('messageFilter', 'npx', ['vitest', 'run', 'src/lib/smart-paste-engine/__tests__/classifierParity.test.ts'], {
+    env: { ...process.env, CLASSIFIER_PARITY_REPORT: JS_REPORT, CLASSIFIER_PARITY_ROUNDS: String(rounds) },
+  });
+  reports.push(JS_REPORT);
+}
+
+if (!skipJava) {
+  rmSync(JAVA_REPORT, { force: true });
+  // gradlew is not committed as executable, so run it through sh.
+  run('FinancialSmsClassifier', WINDOWS ? 'gradlew.bat' : 'sh', [
+    ...(WINDOWS ? [] : ['gradlew']),
+    ':capacitor-sms-common:cleanTestDebugUnitTest',
+    ':capacitor-sms-common:testDebugUnitTest',
+    '--tests', 'app.xpensia.com.plugins.smscommon.ClassifierParityTest',
+    `-PparityRounds=${rounds}`,
+  ], { cwd: 'android' });
+  reports.push(JAVA_REPORT);
+}
+
+if (reports.length === 0) fail('Nothing to compare: both sides skipped');
+
+const engines = {};
+for (const file of reports) {
+  if (!existsSync(file)) fail(`Missing report ${file}`);
+  Object.assign(engines, JSON.parse(readFileSync(file, 'utf8')).engines);
+}
+const names = Object.keys(engines);
+
+const { messages } = JSON.parse(readFileSync(CORPUS, 'utf8'));
+const disagreements = messages.filter(({ id, expected }) =>
+  names.some((name) => engines[name].verdicts[id] !== expected),
+);
+
+console.log(`\n[parity] ${messages.length} messages, engines: ${names.join(', ')}`);
+for (const { id, expected, body } of disagreements) {
+  const verdicts = names.map((name) => `${name}=${engines[name].verdicts[id] ?? 'missing'}`).join(' ');
+  console.log(`[parity] DISAGREE ${id} expected=${expected} ${verdicts}`);
+  console.log(`         ${JSON.stringify(body)}`);
+}
+
+const baseline = engines.messageFilter?.nsPerMessage;
+for (const name of names) {
+  const { nsPerMessage } = engines[name];
+  const relative = baseline && name !== 'messageFilter' ? ` (${(nsPerMessage / baseline).toFixed(2)}x messageFilter)` : '';
+  console.log(`[parity] ${name}: ${nsPerMessage} ns/message${relative}`);
+}
+
+if (disagreements.length > 0) fail(`${disagreements.length} message(s) disagree`);
+console.log('[parity] All engines agree with the golden corpus');
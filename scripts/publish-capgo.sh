@@ -24,4 +24,8 @@ cp public/www.zip updates/www.zip
 echo "[Capgo] Updating manifest files..."
 node -e "const fs=require('fs');const path=require('path');const files=['public/manifest.json','updates/manifest.json'];const version='${VERSION}';const url='${ZIP_URL}';for (const file of files){let data={version,url};try{data=JSON.parse(fs.readFileSync(file,'utf8'));}catch{};data.version=version;data.url=url;fs.writeFileSync(file,JSON.stringify(data,null,2));}"
 
-echo "[Capgo] Done. Upload public/manifest.json and public/www.zip to hosting."
+echo "[Capgo] Building classifier rule pack..."
+node scripts/build-rule-pack.mjs
+node scripts/build-rule-pack.mjs updates/rules/classifier-rules.json public/rules/classifier-rules.xrp updates/manifest.json
+
+echo "[Capgo] Done. Upload public/manifest.json, public/www.zip and public/rules/ to hosting."
@@ -78,12 +78,13 @@ import { isDefaultCurrencySelectionRequired } from '@/utils/default-currency';
 import SetDefaultCurrency from '@/pages/SetDefaultCurrency';
 import { enqueueSms, getInboxCount } from '@/lib/sms-inbox/smsInboxQueue';
 import { ShareTarget } from '@/plugins/ShareTargetPlugin';
-import { readPendingSharedText, savePendingSharedText } from '@/lib/share-target/pendingSharedText';
+import { readPendingSharedText, stageNextSharedText } from '@/lib/share-target/pendingSharedText';
+import { readSharedFileTransactions } from '@/lib/share-target/sharedFileTransactions';
+import { getStoredTransactions, storeTransactions } from '@/utils/storage-utils';
 
 const HOME_ROUTE = '/home';
 const IMPORT_ROUTE = '/import-transactions';
 const SMS_REVIEW_ROUTE = '/sms-review';
-const SHARE_DEDUPE_WINDOW_MS = 30_000;
 const SMS_STARTUP_IMPORT_DONE_KEY = 'xpensia_sms_startup_import_done';
 
 const TRACE_PREFIX = '[TRACE][APP_ROOT]';
@@ -202,121 +203,122 @@ function AppWrapper() {
       console.log(`${TRACE_PREFIX}[${ts}] ${message}`);
     };
 
-    const recentlyHandledShareRef = { current: new Map<string, number>() };
+    type ShareIntake = 'consumePendingSharedText' | 'sharedTextReceived';
 
-    const buildShareSignature = (text: string, source?: string) => `${text}|${source ?? 'unknown'}`;
+    const stageAndRouteSharedText = async (intake: ShareIntake) => {
+      const staged = await stageNextSharedText();
+      const pending = staged ?? readPendingSharedText();
 
-    const shouldHandleShare = (signature: string, intake: 'consumePendingSharedText' | 'sharedTextReceived') => {
-      const now = Date.now();
-      const dedupeMap = recentlyHandledShareRef.current;
-
-      for (const [key, lastSeenAt] of dedupeMap.entries()) {
-        if (now - lastSeenAt > SHARE_DEDUPE_WINDOW_MS) {
-          dedupeMap.delete(key);
-        }
-      }
-
-      const lastSeenAt = dedupeMap.get(signature) ?? 0;
-      if (now - lastSeenAt <= SHARE_DEDUPE_WINDOW_MS) {
-        logShareFlow('duplicate payload ignored by in-memory dedupe window', {
-          intake,
-          signature,
-          dedupeWindowMs: SHARE_DEDUPE_WINDOW_MS,
-          ageMs: now - lastSeenAt,
-        });
-        return false;
-      }
-
-      dedupeMap.set(signature, now);
-      return true;
-    };
-
-    const persistAndRouteSharedText = (
-      payload: { text?: string; source?: string; receivedAt?: number },
-      intake: 'consumePendingSharedText' | 'sharedTextReceived',
-    ) => {
-      const normalizedText = payload.text?.trim();
-
-
-      if (!normalizedText) {
-        logShareFlow('ignored empty payload', {
-          intake,
-          source: payload.source ?? null,
-          receivedAt: payload.receivedAt ?? null,
-        });
-        return;
-      }
-
-      const signature = buildShareSignature(normalizedText, payload.source);
-      if (!shouldHandleShare(signature, intake)) {
+      if (!pending) {
+        logShareFlow('no shared text to stage', { intake });
         return;
       }
 
-      const existingPending = readPendingSharedText();
-      if (existingPending?.text === normalizedText && (existingPending?.source ?? 'unknown') === (payload.source ?? 'unknown')) {
-        logShareFlow('duplicate payload ignored: same pending shared text already staged', {
-          intake,
-          signature,
-          existingReceivedAt: existingPending?.receivedAt ?? null,
-          incomingReceivedAt: payload.receivedAt ?? null,
-        });
-        return;
-      }
-
-      logShareFlow('payload received', {
-        intake,
-        source: payload.source ?? null,
-        receivedAt: payload.receivedAt ?? null,
-        textLength: normalizedText.length,
-      });
-
-      const stored = savePendingSharedText({
-        text: normalizedText,
-        source: payload.source,
-        receivedAt: payload.receivedAt,
-      });
-
-      if (!stored) {
-        logShareFlow('failed to persist payload', {
+      if (!staged) {
+        // Only a fresh share brings back the staged text; the new one waits natively.
+        if (intake !== 'sharedTextReceived') {
+          return;
+        }
+        logShareFlow('shared text already staged; newer shares stay queued', {
           intake,
-          source: payload.source ?? null,
+          stagedReceivedAt: pending.receivedAt ?? null,
         });
-        return;
       }
 
       const currentPath = window.location.pathname;
       const shouldNavigate = currentPath !== IMPORT_ROUTE;
 
-      logShareFlow('payload persisted', {
+      logShareFlow('payload staged', {
         intake,
+        source: pending.source ?? null,
+        receivedAt: pending.receivedAt ?? null,
+        textLength: pending.text.length,
+        duplicate: Boolean(pending.duplicate),
         shouldNavigate,
         currentPath,
         targetPath: IMPORT_ROUTE,
       });
 
-
-
       if (shouldNavigate) {
         setTimeout(() => navigateRef.current(IMPORT_ROUTE), 300);
       }
     };
 
+    // Shared CSV/TSV files: rows stream natively, then merge like Settings → Import.
+    let fileImportRunning = false;
+    let fileImportRequested = false;
+    const importSharedFile = async (intake: 'consumePendingSharedFile' | 'sharedFileReceived') => {
+      if (fileImportRunning) {
+        // Picked up once the running import finishes.
+        fileImportRequested = true;
+        return;
+      }
+      fileImportRunning = true;
+      try {
+        const { file } = await ShareTarget.consumePendingSharedFile();
+        if (!file) {
+          return;
+        }
+
+        const name = file.name ?? 'the shared file';
+        logShareFlow('shared file received', { intake, mimeType: file.mimeType ?? null, size: file.size ?? null });
+        const { transactions, skipped } = await readSharedFileTransactions(file);
+        logShareFlow('shared file read', { intake, transactions: transactions.length, skipped });
+
+        const existing = getStoredTransactions();
+        const existingIds = new Set(existing.map((txn) => txn.id));
+        const fresh = transactions.filter((txn) => !existingIds.has(txn.id));
+        if (fresh.length === 0) {
+          toast({
+            title: 'Nothing to import',
+            description: `No new transactions were found in ${name}.`,
+          });
+          return;
+        }
+
+        const skippedNote = skipped > 0 ? ` ${skipped} row(s) could not be read and will be skipped.` : '';
+        if (!window.confirm(`Import ${fresh.length} transaction(s) from ${name}?${skippedNote}`)) {
+          return;
+        }
+
+        storeTransactions([...existing, ...fresh]);
+        window.dispatchEvent(new StorageEvent('storage', { key: 'xpensia_transactions' }));
+        toast({
+          title: 'Import successful',
+          description: `${fresh.length} transaction(s) imported from ${name}.`,
+        });
+      } catch (err) {
+        console.warn('[SHARE_TARGET] Error importing shared file', err);
+        toast({
+          variant: 'destructive',
+          title: 'Import failed',
+          description: 'The shared file could not be read. Share it again to retry.',
+        });
+      } finally {
+        fileImportRunning = false;
+        if (fileImportRequested) {
+          fileImportRequested = false;
+          void importSharedFile(intake);
+        }
+      }
+    };
+
     let shareListener: { remove: () => Promise<void> } | null = null;
+    let fileListener: { remove: () => Promise<void> } | null = null;
 
     logShareFlow('share coordinator bootstrap start', {
       pathname: window.location.pathname,
     });
 
-    void ShareTarget.consumePendingSharedText()
-      .then((payload) => {
-        persistAndRouteSharedText(payload, 'consumePendingSharedText');
-      })
-      .catch((err) => {
+    void stageAndRouteSharedText('consumePendingSharedText').catch((err) => {
+      console.warn('[SHARE_TARGET] Error consuming pending shared text', err);
+    });
+
+    // The event is a wake-up; the share itself is drained from the native queue.
+    void ShareTarget.addListener('sharedTextReceived', () => {
+      void stageAndRouteSharedText('sharedTextReceived').catch((err) => {
         console.warn('[SHARE_TARGET] Error consuming pending shared text', err);
       });
-
-    void ShareTarget.addListener('sharedTextReceived', (payload) => {
-      persistAndRouteSharedText(payload, 'sharedTextReceived');
     }).then((listener) => {
       shareListener = listener;
       logShareFlow('sharedTextReceived listener attached');
@@ -324,10 +326,23 @@ function AppWrapper() {
       console.warn('[SHARE_TARGET] Error attaching share listener', err);
     });
 
+    void importSharedFile('consumePendingSharedFile');
+
+    void ShareTarget.addListener('sharedFileReceived', () => {
+      void importSharedFile('sharedFileReceived');
+    }).then((listener) => {
+      fileListener = listener;
+    }).catch((err) => {
+      console.warn('[SHARE_TARGET] Error attaching shared file listener', err);
+    });
+
     return () => {
       if (shareListener) {
         void shareListener.remove();
       }
+      if (fileListener) {
+        void fileListener.remove();
+      }
     };
   }, []);
 
@@ -497,22 +512,37 @@ function AppWrapper() {
 
     const syncNativeInboxAndRoute = async () => {
       try {
-        const drained = await BackgroundSmsListener.drainPersistedMessages();
+        // Headers only: bodies stay native until the review page opens a row.
+        const drained = await BackgroundSmsListener.drainPersistedMessages({ summary: true });
         const messages = Array.isArray(drained?.messages) ? drained.messages : [];
         let enqueued = 0;
         for (const message of messages) {
           const beforeCount = getInboxCount();
           enqueueSms({
             sender: message.sender ?? '',
-            body: message.body ?? '',
+            body: '',
+            bodyRef: message.id,
+            amount: message.amount,
+            currency: message.currency,
             receivedAt: message.receivedAt ? new Date(message.receivedAt).toISOString() : undefined,
             source: message.source === 'static_receiver' ? 'static_receiver' : 'listener',
+            nearDuplicate: message.nearDuplicate
+              ? {
+                sender: message.nearDuplicate.sender,
+                receivedAt: new Date(message.nearDuplicate.receivedAt).toISOString(),
+                reason: message.nearDuplicate.reason,
+              }
+              : undefined,
           });
           if (getInboxCount() > beforeCount) {
             enqueued += 1;
           }
         }
         console.log(`[SMS] Drained persisted native messages: ${messages.length}, enqueued: ${enqueued}`);
+        const traceIds = messages.map((message) => message.trace?.id).filter((id): id is string => !!id);
+        if (traceIds.length > 0) {
+          void BackgroundSmsListener.acknowledgeMessages({ traceIds }).catch(() => undefined);
+        }
       } catch (err) {
         if (import.meta.env.MODE === 'development') {
           console.warn('[SMS] Error draining persisted messages:', err);
@@ -566,22 +596,8 @@ function AppWrapper() {
       if (state.isActive) {
         // Re-check for shared text on resume (warm start from share sheet)
         try {
-          const sharePayload = await ShareTarget.consumePendingSharedText();
-          const hasText = Boolean(sharePayload?.text?.trim());
-          const normalizedText = sharePayload?.text?.trim() ?? '';
-          let stored = false;
-          let willNavigate = false;
-          
-          if (hasText) {
-            stored = savePendingSharedText({
-              text: normalizedText,
-              source: sharePayload.source,
-              receivedAt: sharePayload.receivedAt,
-            });
-            willNavigate = stored && window.location.pathname !== IMPORT_ROUTE;
-          }
-
-
+          const staged = await stageNextSharedText();
+          const willNavigate = Boolean(staged) && window.location.pathname !== IMPORT_ROUTE;
 
           if (willNavigate) {
             console.log('[SHARE_FLOW][RESUME] navigating to Smart Entry from app resume');
@@ -661,12 +677,19 @@ function AppWrapper() {
           
           // Add listener for SMS events with error handling
           try {
-            const listener = await BackgroundSmsListener.addListener('smsReceived', async ({ sender, body }) => {
+            const listener = await BackgroundSmsListener.addListener('smsReceived', async ({ sender, body, id, receivedAt }) => {
               if (import.meta.env.MODE === 'development') {
                 // console.log('[Xpensia SMS] Received from', sender, ':', body);
               }
 
-              enqueueSms({ sender, body, source: 'listener' });
+              // The native ID lets the next summary drain skip this message's header.
+              enqueueSms({
+                sender,
+                body,
+                source: 'listener',
+                nativeId: id,
+                receivedAt: receivedAt ? new Date(receivedAt).toISOString() : undefined,
+              });
 
               const appState = await CapacitorApp.getState();
               if (!appState.isActive) {
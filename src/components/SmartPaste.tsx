@@ -41,6 +41,7 @@ import { useLanguage } from '@/i18n/LanguageContext';
 import { parseFreeformTransaction } from '@/lib/freeform-entry';
 import { nanoid } from 'nanoid';
 import type { InferenceDecisionTrace, InferenceParsingStatus } from '@/types/inference';
+import type { SpokenTransactionHints } from '@/plugins/SpeechToTextPlugin';
 
 const normalizeFieldConfidences = (
   confidences?: Record<string, number>,
@@ -64,6 +65,40 @@ const normalizeFieldConfidences = (
   return normalized;
 };
 
+// --- Spoken input: fill the freeform result from the native parser's hints ---
+// The native parser reads number words across recognizer hypotheses and only
+// reports a currency that was actually spoken, so its fields win wherever the
+// freeform parser fell back to a default.
+const applySpokenHints = (
+  txn: Transaction,
+  fc: Record<string, number>,
+  hints: SpokenTransactionHints,
+): void => {
+  if (!txn.amount) {
+    txn.amount = hints.amount;
+    txn.type = hints.type;
+    fc.amount = hints.confidence;
+    fc.type = hints.confidence;
+  }
+  if (hints.currency) {
+    txn.currency = hints.currency;
+    fc.currency = hints.confidence;
+  }
+  if (hints.merchant && (!txn.vendor || (fc.vendor ?? 0) < hints.confidence)) {
+    txn.title = hints.merchant;
+    txn.vendor = hints.merchant;
+    fc.vendor = hints.confidence;
+  }
+  if (!txn.title) {
+    txn.title = 'Transaction';
+  }
+  if (hints.category && (!txn.category || txn.category === 'Uncategorized')) {
+    txn.category = hints.category;
+    txn.subcategory = hints.subcategory || 'none';
+    fc.category = hints.confidence;
+  }
+};
+
 // --- i18n helper: simple {var} interpolation ---
 const interpolate = (template: string, vars: Record<string, string | number>): string =>
   Object.entries(vars).reduce(
@@ -74,6 +109,8 @@ const interpolate = (template: string, vars: Record<string, string | number>): s
 interface SmartPasteProps {
   senderHint?: string;
   prefillText?: string | null;
+  /** Native parser hints for a spoken `prefillText`. */
+  prefillHints?: SpokenTransactionHints | null;
   onPrefillConsumed?: () => void;
   onTransactionsDetected?: (
     transactions: Transaction[],
@@ -94,6 +131,7 @@ interface SmartPasteProps {
 const SmartPaste = ({
   senderHint,
   prefillText,
+  prefillHints,
   onPrefillConsumed,
   onTransactionsDetected,
 }: SmartPasteProps) => {
@@ -123,12 +161,14 @@ const SmartPaste = ({
   const blockedSharedTextRef = React.useRef<string | null>(null);
   const pendingPrefillConfirmationRef = React.useRef<string | null>(null);
   const consumedPrefillRef = React.useRef<string | null>(null);
+  const spokenHintsRef = React.useRef<SpokenTransactionHints | null>(null);
 
   const { toast } = useToast();
   const navigate = useNavigate();
 
   const { startListening, isListening, isSupported: micSupported } = useSpeechToText({
-    onResult: (transcript) => {
+    onResult: (transcript, hints) => {
+      spokenHintsRef.current = hints ?? null;
       setText((prev) => (prev ? prev + ' ' + transcript : transcript));
     },
   });
@@ -157,6 +197,8 @@ const SmartPaste = ({
   useEffect(() => {
     if (!prefillText?.trim()) {
       blockedSharedTextRef.current = null;
+      // Lets the same text be shared again once this one is consumed.
+      consumedPrefillRef.current = null;
       return;
     }
 
@@ -346,7 +388,11 @@ const SmartPaste = ({
       // --- Fallback path: freeform parser ---
       if (usedFreeform) {
         const freeResult = parseFreeformTransaction(text);
-        if (freeResult.success) {
+        // Hints only describe the input while it is exactly what was heard.
+        const spokenHints = [spokenHintsRef.current, prefillHints].find(
+          (hints) => hints?.text.trim() === text.trim(),
+        );
+        if (freeResult.success || spokenHints) {
           const freeTransaction: Transaction = {
             id: nanoid(),
             title: freeResult.title,
@@ -369,12 +415,17 @@ const SmartPaste = ({
             category: freeResult.fieldConfidences.category,
             currency: freeResult.fieldConfidences.currency,
           };
+          let freeConfidence = freeResult.confidence;
+          if (spokenHints) {
+            applySpokenHints(freeTransaction, freeFC, spokenHints);
+            freeConfidence = Math.max(freeConfidence, spokenHints.confidence);
+          }
 
           setDetectedTransactions([freeTransaction]);
-          setConfidence(freeResult.confidence);
+          setConfidence(freeConfidence);
           setMatchOrigin('freeform');
           setFieldConfidences(freeFC);
-          setParsingStatus(freeResult.confidence >= 0.5 ? 'partial' : 'failed');
+          setParsingStatus(freeConfidence >= 0.5 ? 'partial' : 'failed');
           setMatchedCount(0);
           setTotalTemplates(0);
           setFieldScore(0);
@@ -384,7 +435,7 @@ const SmartPaste = ({
               fieldScore: 0,
               templateScore: 0,
               keywordScore: 0,
-              overallConfidence: freeResult.confidence,
+              overallConfidence: freeConfidence,
             },
             templateSelection: {
               selected: 'structure',
@@ -397,7 +448,7 @@ const SmartPaste = ({
               financialGatePassed: passesStructuredGate,
               parseMode: 'freeform',
               freeformFallbackUsed: true,
-              finalConfidence: freeResult.confidence,
+              finalConfidence: freeConfidence,
               stageTimingsMs: {
                 gate: gateDuration,
               },
@@ -1,12 +1,21 @@
 import React from 'react';
 import { motion, AnimatePresence } from 'framer-motion';
+import { Button } from './button';
 
 interface LoadingOverlayProps {
   isOpen: boolean;
   message?: string;
+  /** Shows a cancel button when set. */
+  onCancel?: () => void;
+  cancelLabel?: string;
 }
 
-const LoadingOverlay: React.FC<LoadingOverlayProps> = ({ isOpen, message = 'Loading...' }) => {
+const LoadingOverlay: React.FC<LoadingOverlayProps> = ({
+  isOpen,
+  message = 'Loading...',
+  onCancel,
+  cancelLabel = 'Cancel',
+}) => {
   return (
     <AnimatePresence>
       {isOpen && (
@@ -20,6 +29,11 @@ const LoadingOverlay: React.FC<LoadingOverlayProps> = ({ isOpen, message = 'Load
           <div className="flex flex-col items-center gap-3 p-6 rounded-lg bg-card border shadow-lg">
             <div className="h-8 w-8 animate-spin rounded-full border-4 border-primary border-t-transparent" />
             <p className="text-sm text-muted-foreground">{message}</p>
+            {onCancel && (
+              <Button variant="outline" size="sm" onClick={onCancel}>
+                {cancelLabel}
+              </Button>
+            )}
           </div>
         </motion.div>
       )}
@@ -1,6 +1,6 @@
 import { useState, useCallback, useRef, useEffect } from 'react';
 import { Capacitor } from '@capacitor/core';
-import { SpeechToText } from '@/plugins/SpeechToTextPlugin';
+import { SpeechToText, type SpokenTransactionHints } from '@/plugins/SpeechToTextPlugin';
 import { useLanguage } from '@/i18n/LanguageContext';
 import { useToast } from '@/hooks/use-toast';
 import type { PluginListenerHandle } from '@capacitor/core';
@@ -23,7 +23,11 @@ interface WebSpeechWindow {
 }
 
 interface UseSpeechToTextOptions {
-  onResult?: (text: string) => void;
+  /**
+   * `hints` come from the native spoken-transaction parser when it heard an
+   * amount; `text` is then the hypothesis the hints were read from.
+   */
+  onResult?: (text: string, hints?: SpokenTransactionHints) => void;
   onPartialResult?: (text: string) => void;
   minConfidence?: number;
 }
@@ -124,7 +128,8 @@ export function useSpeechToText(options: UseSpeechToTextOptions = {}) {
             return;
           }
 
-          onResultRef.current?.(data.text);
+          const hints = data.transaction;
+          onResultRef.current?.(hints?.text || data.text, hints);
           setIsListening(false);
           cleanupListeners();
         } else {
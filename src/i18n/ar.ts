@@ -544,6 +544,8 @@ export const ar: Record<string, string> = {
   'toast.smartEntry.clipboardFailedDesc': 'حاول لصق الرسالة يدويًا.',
   'toast.smartEntry.sharedBlocked': 'لم يتم تحميل النص المشارك',
   'toast.smartEntry.sharedBlockedDesc': 'يحتوي الإدخال الذكي على نص غير محفوظ. امسحه أولاً لاستخدام النص المشارك.',
+  'toast.smartEntry.sharedDuplicate': 'تمت المشاركة مرة أخرى',
+  'toast.smartEntry.sharedDuplicateDesc': 'شاركت هذا النص خلال آخر 24 ساعة. تأكد من أنه لم يُحفظ مسبقًا.',
   'toast.smartEntry.templateFailing': 'فشل التحليل بشكل متكرر — ساعدنا في تحسين هذا القالب',
 
 
@@ -1096,6 +1098,7 @@ export const ar: Record<string, string> = {
   'smsReview.continue': 'متابعة',
   'smsReview.review': 'مراجعة',
   'smsReview.ignore': 'تجاهل',
+  'smsReview.nearDuplicate': 'قد تكون تكرارًا لرسالة من {sender}',
 
   // ProcessVendors
   'vendors.title': 'تصنيف التجار',
@@ -544,6 +544,8 @@ export const en: Record<string, string> = {
   'toast.smartEntry.clipboardFailedDesc': 'Try pasting the message manually.',
   'toast.smartEntry.sharedBlocked': 'Shared text not loaded',
   'toast.smartEntry.sharedBlockedDesc': 'Smart Entry already has unsaved text. Clear it first to use the shared text.',
+  'toast.smartEntry.sharedDuplicate': 'Shared again',
+  'toast.smartEntry.sharedDuplicateDesc': 'You shared this text in the last 24 hours. Check it was not already saved.',
   'toast.smartEntry.templateFailing': 'Parsing failed repeatedly — help us improve this template',
 
 
@@ -1096,6 +1098,7 @@ export const en: Record<string, string> = {
   'smsReview.continue': 'Continue',
   'smsReview.review': 'Review',
   'smsReview.ignore': 'Ignore',
+  'smsReview.nearDuplicate': 'Possible repeat of a message from {sender}',
 
   // ProcessVendors
   'vendors.title': 'Vendor Categorization',
@@ -0,0 +1,60 @@
+import { describe, expect, it } from 'vitest';
+import { decodeSmsColumnarExport } from '@/lib/native/smsColumnarExport';
+
+// Mirrors SmsColumnarWriter.java so the byte layout is pinned on both sides.
+function encode(rows: Array<{ sender: string; date: number; body: string }>): Uint8Array {
+  const out: number[] = [];
+  const varint = (value: number) => {
+    while (value >= 0x80) {
+      out.push((value % 128) | 0x80);
+      value = Math.floor(value / 128);
+    }
+    out.push(value);
+  };
+  const zigzag = (value: number) => varint(value >= 0 ? value * 2 : -value * 2 - 1);
+  const string = (value: string) => {
+    const bytes = new TextEncoder().encode(value);
+    varint(bytes.length);
+    out.push(...bytes);
+  };
+
+  const senders: string[] = [];
+  rows.forEach((row) => {
+    if (!senders.includes(row.sender)) senders.push(row.sender);
+  });
+
+  out.push(...'XSMC'.split('').map((c) => c.charCodeAt(0)), 1);
+  varint(rows.length);
+  varint(senders.length);
+  senders.forEach(string);
+  rows.forEach((row) => varint(senders.indexOf(row.sender)));
+  rows.forEach((row, i) => zigzag(i === 0 ? row.date : row.date - rows[i - 1].date));
+  rows.forEach((row) => string(row.body));
+  return Uint8Array.from(out);
+}
+
+describe('decodeSmsColumnarExport', () => {
+  it('decodes dictionary senders, delta dates and UTF-8 bodies', () => {
+    const rows = [
+      { sender: 'ALRAJHI', date: 1773100000000, body: 'شراء بـSAR 128.75 في 26/3/10' },
+      { sender: 'STCPAY', date: 1773090000000, body: 'Purchase SAR 20 on 09/03/2026' },
+      { sender: 'ALRAJHI', date: 1773095000000, body: '' },
+    ];
+
+    expect(decodeSmsColumnarExport(encode(rows))).toEqual(
+      rows.map((row) => ({
+        sender: row.sender,
+        message: row.body,
+        date: new Date(row.date).toISOString(),
+      }))
+    );
+  });
+
+  it('returns no rows for an empty export', () => {
+    expect(decodeSmsColumnarExport(encode([]))).toEqual([]);
+  });
+
+  it('rejects files without the export magic', () => {
+    expect(() => decodeSmsColumnarExport(Uint8Array.from([0, 1, 2, 3, 1]))).toThrow('Not an SMS export file');
+  });
+});
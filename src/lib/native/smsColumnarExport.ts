@@ -0,0 +1,119 @@
+/**
+ * @file smsColumnarExport.ts
+ * @description Decoder for the columnar SMS export file written by
+ *              SmsReaderPlugin.exportSmsMessages (format "xsmc1").
+ *
+ * @module lib/native/smsColumnarExport
+ *
+ * @responsibilities
+ * 1. Fetch an export by its local WebView URL
+ * 2. Decode the dictionary/delta/length-prefixed columns into SmsMessage rows
+ *
+ * @dependencies
+ * - SmsReaderPlugin.ts: SmsMessage shape
+ *
+ * @review-tags
+ * - @data-contract: must match SmsColumnarWriter.java byte layout
+ *
+ * @review-checklist
+ * - [ ] Magic/version are validated before decoding
+ * - [ ] Dates stay exact (no 32-bit bitwise ops on epoch values)
+ */
+
+import type { SmsMessage } from '@/plugins/SmsReaderPlugin';
+
+const MAGIC = 'XSMC';
+const VERSION = 1;
+
+class ByteReader {
+  private offset = 0;
+  private readonly decoder = new TextDecoder('utf-8');
+
+  constructor(private readonly bytes: Uint8Array) {}
+
+  byte(): number {
+    if (this.offset >= this.bytes.length) {
+      throw new Error('Unexpected end of SMS export');
+    }
+    return this.bytes[this.offset++];
+  }
+
+  /** Unsigned LEB128; arithmetic instead of bit shifts keeps values above 2^31 exact. */
+  varint(): number {
+    let value = 0;
+    let scale = 1;
+    let b: number;
+    do {
+      b = this.byte();
+      value += (b & 0x7f) * scale;
+      scale *= 128;
+    } while (b & 0x80);
+    return value;
+  }
+
+  zigzag(): number {
+    const n = this.varint();
+    return n % 2 === 0 ? n / 2 : -(n + 1) / 2;
+  }
+
+  string(): string {
+    const length = this.varint();
+    if (this.offset + length > this.bytes.length) {
+      throw new Error('Unexpected end of SMS export');
+    }
+    const value = this.decoder.decode(this.bytes.subarray(this.offset, this.offset + length));
+    this.offset += length;
+    return value;
+  }
+}
+
+export function decodeSmsColumnarExport(buffer: ArrayBuffer | Uint8Array): SmsMessage[] {
+  const bytes = buffer instanceof Uint8Array ? buffer : new Uint8Array(buffer);
+  const reader = new ByteReader(bytes);
+
+  const magic = String.fromCharCode(reader.byte(), reader.byte(), reader.byte(), reader.byte());
+  if (magic !== MAGIC) {
+    throw new Error('Not an SMS export file');
+  }
+  const version = reader.byte();
+  if (version !== VERSION) {
+    throw new Error(`Unsupported SMS export version ${version}`);
+  }
+
+  const rowCount = reader.varint();
+  const senderCount = reader.varint();
+  const senders: string[] = new Array(senderCount);
+  for (let i = 0; i < senderCount; i++) {
+    senders[i] = reader.string();
+  }
+
+  const senderIndexes: number[] = new Array(rowCount);
+  for (let i = 0; i < rowCount; i++) {
+    senderIndexes[i] = reader.varint();
+  }
+
+  const dates: number[] = new Array(rowCount);
+  let previous = 0;
+  for (let i = 0; i < rowCount; i++) {
+    previous = i === 0 ? reader.zigzag() : previous + reader.zigzag();
+    dates[i] = previous;
+  }
+
+  const messages: SmsMessage[] = new Array(rowCount);
+  for (let i = 0; i < rowCount; i++) {
+    messages[i] = {
+      sender: senders[senderIndexes[i]] ?? '',
+      message: reader.string(),
+      date: new Date(dates[i]).toISOString(),
+    };
+  }
+  return messages;
+}
+
+export async function loadSmsColumnarExport(url: string): Promise<SmsMessage[]> {
+  const response = await fetch(url);
+  if (!response.ok) {
+    throw new Error(`Failed to load SMS export (${response.status})`);
+  }
+  return decodeSmsColumnarExport(await response.arrayBuffer());
+}
@@ -0,0 +1,75 @@
+import { describe, expect, it } from 'vitest';
+import type { SharedFileColumn } from '@/plugins/ShareTargetPlugin';
+import { TRANSACTION_CSV_COLUMNS } from '@/utils/csv';
+import { parseStatementAmount, rowsToTransactions } from '@/lib/share-target/sharedFileTransactions';
+
+const STATEMENT_COLUMNS: SharedFileColumn[] = [
+  { index: 0, name: 'Date', kind: 'date' },
+  { index: 1, name: 'Description', kind: 'text' },
+  { index: 2, name: 'Amount', kind: 'amount' },
+];
+
+describe('parseStatementAmount', () => {
+  it('reads signs, parentheses, separators and currency codes', () => {
+    expect(parseStatementAmount('-1,250.00')).toEqual({ amount: -1250, currency: undefined });
+    expect(parseStatementAmount('(45.10)')).toEqual({ amount: -45.1, currency: undefined });
+    expect(parseStatementAmount('sar 12')).toEqual({ amount: 12, currency: 'SAR' });
+    expect(parseStatementAmount('12 ر.س')).toEqual({ amount: 12, currency: 'SAR' });
+    expect(parseStatementAmount('n/a')).toBeNull();
+  });
+});
+
+describe('rowsToTransactions', () => {
+  it('maps statement rows by column kind and skips rows it cannot read', () => {
+    const { transactions, skipped } = rowsToTransactions(
+      {
+        columns: STATEMENT_COLUMNS,
+        rows: [
+          ['2024-06-12', 'STARBUCKS RIYADH', '-45.75'],
+          ['2024-06-13', 'Salary', '8000'],
+          ['not a date', 'Broken', '10'],
+        ],
+      },
+      'SAR',
+    );
+
+    expect(skipped).toBe(1);
+    expect(transactions).toHaveLength(2);
+    expect(transactions[0]).toMatchObject({
+      title: 'STARBUCKS RIYADH',
+      amount: -45.75,
+      type: 'expense',
+      date: '2024-06-12',
+      currency: 'SAR',
+      source: 'import',
+    });
+    expect(transactions[1]).toMatchObject({ amount: 8000, type: 'income' });
+  });
+
+  it('maps an Xpensia CSV export by its header', () => {
+    const columns: SharedFileColumn[] = TRANSACTION_CSV_COLUMNS.map((name, index) => ({
+      index,
+      name,
+      kind: 'text',
+    }));
+    const row = TRANSACTION_CSV_COLUMNS.map((column) => {
+      switch (column) {
+        case 'id': return 'txn-1';
+        case 'title': return 'Coffee';
+        case 'amount': return '-12.5';
+        case 'date': return '2024-06-12';
+        case 'type': return 'expense';
+        case 'currency': return 'USD';
+        case 'createdAt': return '2024-06-12T10:00:00.000Z';
+        default: return '';
+      }
+    });
+
+    const { transactions, skipped } = rowsToTransactions({ columns, rows: [row, ['only-one-cell']] }, 'SAR');
+
+    expect(skipped).toBe(1);
+    expect(transactions).toEqual([
+      expect.objectContaining({ id: 'txn-1', title: 'Coffee', amount: -12.5, currency: 'USD' }),
+    ]);
+  });
+});
@@ -1,3 +1,5 @@
+import { Capacitor } from '@capacitor/core';
+import { ShareTarget } from '@/plugins/ShareTargetPlugin';
 import { safeStorage } from '@/utils/safe-storage';
 
 const STORAGE_KEY = 'xpensia_pending_shared_text_v1';
@@ -6,6 +8,8 @@ export interface PendingSharedTextPayload {
   text: string;
   source?: string;
   receivedAt?: number;
+  /** The same text was already shared within the last 24 h. */
+  duplicate?: boolean;
 }
 
 const normalize = (payload: PendingSharedTextPayload): PendingSharedTextPayload | null => {
@@ -18,6 +22,7 @@ const normalize = (payload: PendingSharedTextPayload): PendingSharedTextPayload
     text,
     source: payload.source,
     receivedAt: payload.receivedAt,
+    duplicate: payload.duplicate || undefined,
   };
 };
 
@@ -48,3 +53,38 @@ export const readPendingSharedText = (): PendingSharedTextPayload | null => {
 export const clearPendingSharedText = (): void => {
   safeStorage.removeItem(STORAGE_KEY);
 };
+
+const stageOnce = async (): Promise<PendingSharedTextPayload | null> => {
+  if (Capacitor.getPlatform() !== 'android' || readPendingSharedText()) {
+    return null;
+  }
+
+  const batch = await ShareTarget.consumePendingSharedText();
+  const payload = normalize({
+    text: batch.text ?? '',
+    source: batch.source,
+    receivedAt: batch.receivedAt,
+    duplicate: batch.duplicate,
+  });
+  if (!payload) {
+    return null;
+  }
+
+  safeStorage.setItem(STORAGE_KEY, JSON.stringify(payload));
+  return payload;
+};
+
+let stagingChain: Promise<unknown> = Promise.resolve();
+
+/**
+ * Stages the oldest share still queued natively. Shares are handed over one
+ * at a time: nothing is drained while a staged text waits to be consumed, so
+ * later shares stay queued instead of overwriting it. Calls are serialized.
+ *
+ * @returns the newly staged payload, or null when nothing was staged
+ */
+export const stageNextSharedText = (): Promise<PendingSharedTextPayload | null> => {
+  const next = stagingChain.then(stageOnce);
+  stagingChain = next.catch(() => undefined);
+  return next;
+};
@@ -0,0 +1,39 @@
+/**
+ * @file sharedFileRows.ts
+ * @description Reads a file shared into the app (CSV/TSV/text) page by page
+ *              from the native ShareTarget plugin.
+ *
+ * @module lib/share-target/sharedFileRows
+ *
+ * @responsibilities
+ * 1. Start the native streaming read for a shared file URI
+ * 2. Hand each page of rows to the caller as it arrives
+ * 3. Remove the page listener when the read settles
+ *
+ * @review-checklist
+ * - [ ] Pages are filtered by URI so concurrent reads do not mix
+ * - [ ] Listener is removed on both success and failure
+ */
+
+import { ShareTarget } from '@/plugins/ShareTargetPlugin';
+import type { SharedFileReadResult, SharedFileRowsPage } from '@/plugins/ShareTargetPlugin';
+
+export const DEFAULT_SHARED_FILE_PAGE_SIZE = 200;
+
+export async function readSharedFileRows(
+  uri: string,
+  onPage: (page: SharedFileRowsPage) => void,
+  pageSize: number = DEFAULT_SHARED_FILE_PAGE_SIZE,
+): Promise<SharedFileReadResult> {
+  const handle = await ShareTarget.addListener('sharedFileRows', (page) => {
+    if (page.uri === uri) {
+      onPage(page);
+    }
+  });
+
+  try {
+    return await ShareTarget.readSharedFile({ uri, pageSize });
+  } finally {
+    await handle.remove();
+  }
+}
@@ -0,0 +1,143 @@
+/**
+ * @file sharedFileTransactions.ts
+ * @description Turns a CSV/TSV file shared into the app into transactions as
+ *              its rows stream in from the native ShareTarget plugin.
+ *
+ * @module lib/share-target/sharedFileTransactions
+ *
+ * @responsibilities
+ * 1. Map Xpensia CSV exports by header, like Settings → Import
+ * 2. Map bank statements by the native column profile (date, amount, text)
+ * 3. Count rows that could not be mapped instead of failing the whole file
+ *
+ * @dependencies
+ * - sharedFileRows.ts: paged native read
+ * - csv.ts: transactionFromCsvRecord for exported files
+ * - dateUtils.ts: normalizeDate for statement dates
+ *
+ * @review-checklist
+ * - [ ] Statement amounts keep their sign (negative = expense)
+ * - [ ] Unmappable rows are skipped and counted
+ */
+
+import { v4 as uuidv4 } from 'uuid';
+import type { SharedFile, SharedFileColumn, SharedFileRowsPage } from '@/plugins/ShareTargetPlugin';
+import type { Transaction } from '@/types/transaction';
+import { TRANSACTION_CSV_COLUMNS, transactionFromCsvRecord } from '@/utils/csv';
+import { normalizeDate } from '@/lib/smart-paste-engine/dateUtils';
+import { getCurrencyOrAppFallback } from '@/utils/default-currency';
+import { readSharedFileRows } from './sharedFileRows';
+
+export interface SharedFileTransactions {
+  transactions: Transaction[];
+  /** Data rows that could not be turned into a transaction. */
+  skipped: number;
+}
+
+const isTransactionExport = (columns: SharedFileColumn[]): boolean =>
+  columns.length === TRANSACTION_CSV_COLUMNS.length &&
+  columns.every((column, index) => column.name === TRANSACTION_CSV_COLUMNS[index]);
+
+/**
+ * Reads a statement amount cell such as `-1,250.00`, `(45.10)`, `SAR 12` or
+ * `12 ر.س`. A leading minus or opening parenthesis makes it negative.
+ */
+export const parseStatementAmount = (cell: string): { amount: number; currency?: string } | null => {
+  const match = cell.match(/\d[\d,]*(?:\.\d+)?/);
+  if (!match || match.index === undefined) {
+    return null;
+  }
+
+  const value = Number.parseFloat(match[0].replace(/,/g, ''));
+  if (!Number.isFinite(value)) {
+    return null;
+  }
+
+  const negative = /[-(]/.test(cell.slice(0, match.index));
+  const code = cell.match(/[A-Za-z]{3}/)?.[0]?.toUpperCase() ?? (/ر\.?\s?س/.test(cell) ? 'SAR' : undefined);
+  return { amount: negative ? -value : value, currency: code };
+};
+
+const statementTransaction = (
+  row: string[],
+  columns: SharedFileColumn[],
+  fallbackCurrency: string,
+): Transaction | null => {
+  const dateColumn = columns.find((column) => column.kind === 'date');
+  const amountColumn = columns.find((column) => column.kind === 'amount');
+  if (!dateColumn || !amountColumn) {
+    return null;
+  }
+
+  const date = normalizeDate(row[dateColumn.index] ?? '');
+  const parsed = parseStatementAmount(row[amountColumn.index] ?? '');
+  if (!date || !parsed || parsed.amount === 0) {
+    return null;
+  }
+
+  const title = columns
+    .filter((column) => column.kind === 'text')
+    .map((column) => row[column.index]?.trim())
+    .find((cell) => Boolean(cell));
+
+  return {
+    id: uuidv4(),
+    title: title || 'Imported transaction',
+    amount: parsed.amount,
+    category: 'Uncategorized',
+    date,
+    type: parsed.amount < 0 ? 'expense' : 'income',
+    source: 'import',
+    currency: parsed.currency ?? fallbackCurrency,
+    createdAt: new Date().toISOString(),
+  };
+};
+
+/** Maps one page of rows with the column profile known so far. */
+export const rowsToTransactions = (
+  page: Pick<SharedFileRowsPage, 'rows' | 'columns'>,
+  fallbackCurrency: string,
+): SharedFileTransactions => {
+  const transactions: Transaction[] = [];
+  let skipped = 0;
+  const exported = isTransactionExport(page.columns);
+
+  for (const row of page.rows) {
+    let txn: Transaction | null = null;
+    if (exported) {
+      const record: Record<string, string> = {};
+      TRANSACTION_CSV_COLUMNS.forEach((column, index) => {
+        record[column] = row[index]?.trim() ?? '';
+      });
+      try {
+        txn = transactionFromCsvRecord(record);
+      } catch {
+        txn = null;
+      }
+    } else {
+      txn = statementTransaction(row, page.columns, fallbackCurrency);
+    }
+
+    if (txn) {
+      transactions.push(txn);
+    } else {
+      skipped++;
+    }
+  }
+
+  return { transactions, skipped };
+};
+
+/** Streams a shared file and maps each page as it arrives. */
+export async function readSharedFileTransactions(file: SharedFile): Promise<SharedFileTransactions> {
+  const fallbackCurrency = getCurrencyOrAppFallback();
+  const result: SharedFileTransactions = { transactions: [], skipped: 0 };
+
+  await readSharedFileRows(file.uri, (page) => {
+    const mapped = rowsToTransactions(page, fallbackCurrency);
+    result.transactions.push(...mapped.transactions);
+    result.skipped += mapped.skipped;
+  });
+
+  return result;
+}
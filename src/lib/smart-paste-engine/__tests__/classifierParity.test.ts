@@ -0,0 +1,68 @@
+/// <reference types="node" />
+import { mkdirSync, readFileSync, writeFileSync } from 'node:fs';
+import { dirname, resolve } from 'node:path';
+import { beforeEach, describe, expect, it } from 'vitest';
+import { classifyFinancialMessage, type FilterVerdict } from '../messageFilter';
+
+// Shared with ClassifierParityTest (capacitor-sms-common), which holds the
+// native classifier to the same labels.
+interface GoldenMessage {
+  id: string;
+  body: string;
+  expected: FilterVerdict;
+  note?: string;
+}
+
+const corpus: { messages: GoldenMessage[] } = JSON.parse(
+  readFileSync(resolve(process.cwd(), 'updates/rules/classifier-golden-corpus.json'), 'utf8'),
+);
+
+const ROUNDS = Number(process.env.CLASSIFIER_PARITY_ROUNDS ?? 200);
+const WARM_UP_ROUNDS = 20;
+
+describe('classifier golden corpus (messageFilter)', () => {
+  beforeEach(() => {
+    localStorage.clear();
+  });
+
+  it.each(corpus.messages)('$id → $expected', ({ body, expected }) => {
+    expect(classifyFinancialMessage(body)).toBe(expected);
+  });
+
+  // Timings are reported, not asserted. CLASSIFIER_PARITY_REPORT names the
+  // file scripts/classifier-parity.mjs compares with the native report.
+  it('reports per-message cost', () => {
+    const verdicts: Record<string, FilterVerdict> = {};
+    for (const { id, body } of corpus.messages) {
+      verdicts[id] = classifyFinancialMessage(body);
+    }
+
+    const classifyAll = () => {
+      for (const { body } of corpus.messages) {
+        classifyFinancialMessage(body);
+      }
+    };
+    for (let round = 0; round < WARM_UP_ROUNDS; round++) {
+      classifyAll();
+    }
+    const start = process.hrtime.bigint();
+    for (let round = 0; round < ROUNDS; round++) {
+      classifyAll();
+    }
+    const nsPerMessage = Number(process.hrtime.bigint() - start) / (ROUNDS * corpus.messages.length);
+    console.log(
+      `[PARITY] messageFilter: ${nsPerMessage.toFixed(0)} ns/message over ` +
+        `${corpus.messages.length} messages x ${ROUNDS} rounds`,
+    );
+
+    const reportPath = process.env.CLASSIFIER_PARITY_REPORT;
+    if (reportPath) {
+      mkdirSync(dirname(reportPath), { recursive: true });
+      const report = {
+        messages: corpus.messages.length,
+        engines: { messageFilter: { nsPerMessage: Math.round(nsPerMessage), verdicts } },
+      };
+      writeFileSync(reportPath, JSON.stringify(report, null, 2));
+    }
+  });
+});
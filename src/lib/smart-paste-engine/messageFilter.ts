@@ -8,6 +8,8 @@
  * 1. Load user-defined financial keywords
  * 2. Match keywords, amounts, and dates in SMS text
  * 3. Provide a fallback keyword list for filtering
+ * 4. Report which gate rejected a message (same verdicts as the native
+ *    FinancialSmsClassifier, held to updates/rules/classifier-golden-corpus.json)
  *
  * @storage-keys
  * - xpensia_type_keywords: custom keyword list
@@ -22,19 +24,83 @@
  * @review-checklist
  * - [ ] Keyword list defaults when storage is invalid
  * - [ ] Amount/date regexes cover localized formats
- * - [ ] Text normalization strips whitespace and casing
+ * - [ ] Text normalization collapses whitespace and casing like the native side
+ * - [ ] Gate changes are mirrored in FinancialSmsClassifier.java and the golden corpus
  */
 
 import { safeStorage } from "@/utils/safe-storage";
-export function isFinancialTransactionMessage(text: string): boolean {
-  let storedKeywords: string[] = [];
 
+/** Gate outcome; the values are the native Verdict.statKey() names. */
+export type FilterVerdict = 'accepted' | 'empty' | 'otp' | 'noKeyword' | 'noAmount' | 'noDate';
+
+// Fallback financial keywords — used when user has no stored custom keywords.
+// Kept focused on high-signal transaction terms to avoid false positives.
+const FALLBACK_KEYWORDS = [
+  // Arabic (original)
+  "مبلغ", "حوالة", "رصيد", "بطاقة", "شراء", "تحويل", "دفع", "إيداع",
+  // Arabic (enriched)
+  "عملية", "مشتريات", "سحب", "استلام", "رسوم", "الرسوم", "خصم",
+  "الرصيد", "مدفوعات",
+  // English (aligned with native classifier + common bank SMS terms)
+  "transaction", "purchase", "debit", "debited", "credit", "credited",
+  "withdrawal", "withdraw", "deposit", "deposited", "payment", "paid",
+  "transfer", "transferred", "remittance", "charged", "balance", "fee", "fees",
+];
+
+const OTP_KEYWORDS = [
+  "otp", "verification code", "رمز التحقق", "رمز التفعيل",
+  "one-time", "one time password", "passcode", "pin code",
+  "security code", "auth code", "كلمة المرور", "رمز التأكيد",
+];
+
+// Whitespace runs collapse to one space (not removed), as on the native side,
+// so keywords never match across word boundaries ("got paid" is not "otp").
+const normalize = (str: unknown): string =>
+  typeof str === 'string'
+    ? str.normalize('NFC').replace(/\s+/g, ' ').trim().toLowerCase()
+    : '';
+
+// Port of RegexClassifierEngine.AMOUNT_PATTERN: a currency code needs a
+// non-word character on its outer side, a bare number after مبلغ counts,
+// and an Arabic symbol only counts after the number.
+const CURRENCY_CODES = 'SAR|USD|EGP|AED|BHD|EUR|GBP|JPY|INR|CNY|CAD|AUD';
+const AMOUNT_NUMBER = String.raw`\d{1,3}(?:,\d{3})*(?:[.,]\d{1,2})?`;
+const currencyAmountRegex = new RegExp(
+  [
+    String.raw`(?:^|[^\p{L}\w])(?:ب(?:ـ)?\s*)?(?:${CURRENCY_CODES})[\s:]*${AMOUNT_NUMBER}`,
+    String.raw`${AMOUNT_NUMBER}[\s:]*(?:${CURRENCY_CODES})(?:$|[^\p{L}\w])`,
+    String.raw`${AMOUNT_NUMBER}[\s:]*(?:ر\.?\s?س|ريال|جنيه(?:\s?مصري)?)`,
+    String.raw`مبلغ[\s:]*(?:(?:SAR|USD|EGP|AED|BHD|EUR|GBP|ر\.?\s?س|ريال)[\s:]*)?${AMOUNT_NUMBER}`,
+  ].join('|'),
+  'iu'
+);
+
+const dateRegex = new RegExp(
+  String.raw`(?:في[:\s]*)?(?:on\s*)?(` +
+  [
+    String.raw`\d{1,2}[\/\-.]\d{1,2}[\/\-.]\d{1,4}`,
+    String.raw`\d{4}[\/\-.]\d{1,2}[\/\-.]\d{1,2}`,
+    String.raw`\d{1,2}-(Jan|Feb|Mar|Apr|May|Jun|Jul|Aug|Sep|Oct|Nov|Dec)-\d{2,4}`,
+    String.raw`\d{1,2}\s+(?:Jan|Feb|Mar|Apr|May|Jun|Jul|Aug|Sep|Oct|Nov|Dec)[a-z]*\s+\d{4}`,
+    String.raw`(?:Jan|Feb|Mar|Apr|May|Jun|Jul|Aug|Sep|Oct|Nov|Dec)[a-z]*\s+\d{1,2},?\s+\d{4}`,
+    // Compact bank-style: 09MAR26, 09MAR2026, 09-Mar-26, 09 Mar 26
+    String.raw`\d{2}[\s-]?(?:Jan|Feb|Mar|Apr|May|Jun|Jul|Aug|Sep|Oct|Nov|Dec)[a-z]*[\s-]?\d{2,4}`,
+    String.raw`\d{2}[01]\d{3}`,
+    String.raw`\d{8}`
+  ].join('|') +
+  String.raw`)(?:\s+\d{1,2}:\d{2}(?::\d{2})?)?`,
+  'i'
+);
+
+function loadKeywords(): string[] {
   try {
     const raw = safeStorage.getItem('xpensia_type_keywords');
     if (raw) {
       const parsed = JSON.parse(raw);
       if (Array.isArray(parsed)) {
-        storedKeywords = parsed;
+        if (parsed.length > 0) {
+          return parsed;
+        }
       } else {
         if (import.meta.env.MODE === 'development') {
           console.warn('[MessageFilter] Invalid xpensia_type_keywords format:', parsed);
@@ -46,69 +112,41 @@ export function isFinancialTransactionMessage(text: string): boolean {
       console.warn('Failed to parse xpensia_type_keywords:', e);
     }
   }
+  return FALLBACK_KEYWORDS;
+}
 
-  // Fallback financial keywords — used when user has no stored custom keywords.
-  // Kept focused on high-signal transaction terms to avoid false positives.
-  const fallbackKeywords = [
-    // Arabic (original)
-    "مبلغ", "حوالة", "رصيد", "بطاقة", "شراء", "تحويل", "دفع", "إيداع",
-    // Arabic (enriched)
-    "عملية", "مشتريات", "سحب", "استلام", "رسوم", "الرسوم", "خصم",
-    "الرصيد", "مدفوعات",
-    // English (aligned with native classifier + common bank SMS terms)
-    "transaction", "purchase", "debit", "debited", "credit", "credited",
-    "withdrawal", "withdraw", "deposit", "deposited", "payment", "paid",
-    "transfer", "transferred", "remittance", "charged", "balance", "fee", "fees",
-  ];
-  const financialKeywords = storedKeywords.length > 0 ? storedKeywords : fallbackKeywords;
-
-  const normalize = (str: unknown): string =>
-    typeof str === 'string'
-      ? str.normalize('NFC').replace(/\s+/g, '').trim().toLowerCase()
-      : '';
+/**
+ * Runs the gates in the native order (OTP, keyword, amount, date) and names
+ * the first one that rejects the message.
+ */
+export function classifyFinancialMessage(text: string): FilterVerdict {
+  if (typeof text !== 'string' || text.length === 0) {
+    return 'empty';
+  }
 
   const normalizedText = normalize(text);
 
   // ── OTP exclusion — reject before financial gates ──
-  const otpKeywords = [
-    "otp", "verification code", "رمز التحقق", "رمز التفعيل",
-    "one-time", "one time password", "passcode", "pin code",
-    "security code", "auth code", "كلمة المرور", "رمز التأكيد",
-  ];
-  const isOtp = otpKeywords.some(kw => normalizedText.includes(normalize(kw)));
-  if (isOtp) {
+  if (OTP_KEYWORDS.some(kw => normalizedText.includes(normalize(kw)))) {
     if (import.meta.env.MODE === 'development') {
       console.log('[MessageFilter] Rejected: OTP keyword detected');
     }
-    return false;
+    return 'otp';
   }
 
-  const keywordMatch = financialKeywords.some(keyword =>
-    normalizedText.includes(normalize(keyword))
-  );
-
-  // Keep native parity: branch-1 currency code may include optional Arabic preposition prefix (ب / بـ).
-  const currencyAmountRegex = /(?:مبلغ[:\s]*)?(?:(?:(?:ب(?:ـ)?\s*)?(SAR|USD|EGP|AED|BHD|EUR|GBP|JPY|INR|CNY|CAD|AUD)|ر\.?\s?س|ريال|جنيه\s?مصري|جنيه)[\s:]?((?:\d{1,3},)*\d{1,3}(?:[.,]\d{0,2})?)|((?:\d{1,3},)*\d{1,3}(?:[.,]\d{0,2})?)[\s:]?(SAR|USD|EGP|AED|BHD|EUR|GBP|JPY|INR|CNY|CAD|AUD|ر\.?\s?س|ريال|جنيه\s?مصري|جنيه))/gi;
-  const amountMatch = currencyAmountRegex.test(text);
-
-  const dateRegex = new RegExp(
-    String.raw`(?:في[:\s]*)?(?:on\s*)?(` +
-    [
-      String.raw`\d{1,2}[\/\-.]\d{1,2}[\/\-.]\d{1,4}`,
-      String.raw`\d{4}[\/\-.]\d{1,2}[\/\-.]\d{1,2}`,
-      String.raw`\d{1,2}-(Jan|Feb|Mar|Apr|May|Jun|Jul|Aug|Sep|Oct|Nov|Dec)-\d{2,4}`,
-      String.raw`\d{1,2}\s+(?:Jan|Feb|Mar|Apr|May|Jun|Jul|Aug|Sep|Oct|Nov|Dec)[a-z]*\s+\d{4}`,
-      String.raw`(?:Jan|Feb|Mar|Apr|May|Jun|Jul|Aug|Sep|Oct|Nov|Dec)[a-z]*\s+\d{1,2},?\s+\d{4}`,
-      // Compact bank-style: 09MAR26, 09MAR2026, 09-Mar-26, 09 Mar 26
-      String.raw`\d{2}[\s-]?(?:Jan|Feb|Mar|Apr|May|Jun|Jul|Aug|Sep|Oct|Nov|Dec)[a-z]*[\s-]?\d{2,4}`,
-      String.raw`\d{2}[01]\d{3}`,
-      String.raw`\d{8}`
-    ].join('|') +
-    String.raw`)(?:\s+\d{1,2}:\d{2}(?::\d{2})?)?`,
-    'gi'
-  );
-  const dateMatch = dateRegex.test(text);
-
+  const financialKeywords = loadKeywords();
+  if (!financialKeywords.some(keyword => normalizedText.includes(normalize(keyword)))) {
+    return 'noKeyword';
+  }
+  if (!currencyAmountRegex.test(text)) {
+    return 'noAmount';
+  }
+  if (!dateRegex.test(text)) {
+    return 'noDate';
+  }
+  return 'accepted';
+}
 
-  return keywordMatch && amountMatch && dateMatch;
+export function isFinancialTransactionMessage(text: string): boolean {
+  return classifyFinancialMessage(text) === 'accepted';
 }
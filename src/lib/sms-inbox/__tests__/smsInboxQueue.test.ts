@@ -1,6 +1,7 @@
 import { beforeEach, describe, expect, it } from 'vitest';
 import {
   SMS_INBOX_QUEUE_KEY,
+  attachSmsBody,
   enqueueSms,
   getInbox,
 } from '@/lib/sms-inbox/smsInboxQueue';
@@ -74,4 +75,52 @@ describe('smsInboxQueue dedupe behavior', () => {
 
     expect(getInbox()).toHaveLength(1);
   });
+
+  it('keeps header-only rows apart by native body ID and attaches the body later', () => {
+    const header = {
+      sender: 'ACME-BANK',
+      body: '',
+      receivedAt: '2026-01-15T10:45:30.000Z',
+      source: 'static_receiver' as const,
+      amount: 50,
+      currency: 'USD',
+    };
+
+    enqueueSms({ ...header, bodyRef: 'abc-1' });
+    enqueueSms({ ...header, bodyRef: 'abc-1' });
+    enqueueSms({ ...header, bodyRef: 'def-2' });
+
+    const inbox = getInbox();
+    expect(inbox).toHaveLength(2);
+    expect(inbox[0]).toMatchObject({ body: '', bodyRef: 'abc-1', amount: 50, currency: 'USD' });
+
+    attachSmsBody(inbox[0].id, 'Debit alert: USD 50.00 at Store A');
+    const [opened] = getInbox();
+    expect(opened.body).toBe('Debit alert: USD 50.00 at Store A');
+    expect(opened.bodyRef).toBeUndefined();
+  });
+
+  it('skips the header of a message already enqueued from the live event', () => {
+    enqueueSms({
+      sender: 'ACME-BANK',
+      body: 'Debit alert: USD 50.00 at Store A',
+      receivedAt: '2026-01-15T10:45:30.000Z',
+      source: 'listener',
+      nativeId: 'abc-1',
+    });
+    enqueueSms({
+      sender: 'ACME-BANK',
+      body: '',
+      receivedAt: '2026-01-15T10:45:30.000Z',
+      source: 'listener',
+      bodyRef: 'abc-1',
+      amount: 50,
+      currency: 'USD',
+    });
+
+    const inbox = getInbox();
+    expect(inbox).toHaveLength(1);
+    expect(inbox[0].body).toBe('Debit alert: USD 50.00 at Store A');
+    expect(inbox[0].bodyRef).toBeUndefined();
+  });
 });
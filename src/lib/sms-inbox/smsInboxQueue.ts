@@ -8,14 +8,28 @@ const inboxListeners = new Set<() => void>();
 type SmsInboxStatus = 'new' | 'opened' | 'processed' | 'ignored';
 type SmsInboxSource = 'listener' | 'static_receiver';
 
+/** Native near-duplicate flag: the earlier message this one likely repeats. */
+export interface SmsInboxNearDuplicate {
+  sender: string;
+  receivedAt: string;
+  reason: 'text' | 'amount';
+}
+
 export interface SmsInboxItem {
   id: string;
   sender: string;
+  /** Empty while `bodyRef` is set; fetch it with getMessageBodies. */
   body: string;
   receivedAt: string;
   fingerprint?: string;
   status: SmsInboxStatus;
   source: SmsInboxSource;
+  nearDuplicate?: SmsInboxNearDuplicate;
+  /** Native body ID from a summary drain; cleared once the body is attached. */
+  bodyRef?: string;
+  /** Amount and currency extracted natively, for rows without a body. */
+  amount?: number;
+  currency?: string;
 }
 
 interface EnqueueSmsInput {
@@ -23,6 +37,12 @@ interface EnqueueSmsInput {
   body: string;
   receivedAt?: string;
   source?: SmsInboxSource;
+  nearDuplicate?: SmsInboxNearDuplicate;
+  bodyRef?: string;
+  /** Native message ID of a live event; matches the `bodyRef` of its later header row. */
+  nativeId?: string;
+  amount?: number;
+  currency?: string;
 }
 
 interface GetInboxCountOptions {
@@ -90,7 +110,11 @@ const parseInbox = (rawValue: string | null): SmsInboxItem[] => {
         && typeof item.receivedAt === 'string'
         && (typeof item.fingerprint === 'undefined' || typeof item.fingerprint === 'string')
         && (item.status === 'new' || item.status === 'opened' || item.status === 'processed' || item.status === 'ignored')
-        && (item.source === 'listener' || item.source === 'static_receiver');
+        && (item.source === 'listener' || item.source === 'static_receiver')
+        && (typeof item.nearDuplicate === 'undefined' || (typeof item.nearDuplicate === 'object' && item.nearDuplicate !== null))
+        && (typeof item.bodyRef === 'undefined' || typeof item.bodyRef === 'string')
+        && (typeof item.amount === 'undefined' || typeof item.amount === 'number')
+        && (typeof item.currency === 'undefined' || typeof item.currency === 'string');
     });
   } catch {
     return [];
@@ -122,13 +146,26 @@ const saveInbox = (items: SmsInboxItem[]): void => {
   inboxListeners.forEach((listener) => listener());
 };
 
-export const enqueueSms = ({ sender, body, receivedAt, source = 'listener' }: EnqueueSmsInput): SmsInboxItem[] => {
+export const enqueueSms = ({
+  sender,
+  body,
+  receivedAt,
+  source = 'listener',
+  nearDuplicate,
+  bodyRef,
+  nativeId,
+  amount,
+  currency,
+}: EnqueueSmsInput): SmsInboxItem[] => {
   const nextReceivedAt = normalizeIsoToSecond(receivedAt ?? '') ?? new Date().toISOString();
   const nextReceivedAtMs = new Date(nextReceivedAt).getTime();
 
   const inbox = loadInbox();
   const dedupKey = buildDedupKey(sender, body);
-  const fingerprint = buildFingerprint(sender, body, nextReceivedAt);
+  // Header-only rows were deduped natively; their body ID is unique per message.
+  // A live event carries the same ID, so its row and the later header match.
+  const nativeRef = bodyRef ?? nativeId;
+  const fingerprint = nativeRef ? `native:${nativeRef}` : buildFingerprint(sender, body, nextReceivedAt);
 
   if (fingerprint) {
     const hasExactFingerprintMatch = inbox.some((item) => {
@@ -152,7 +189,7 @@ export const enqueueSms = ({ sender, body, receivedAt, source = 'listener' }: En
     }
   }
 
-  const isDuplicate = inbox.some((item) => {
+  const isDuplicate = !bodyRef && inbox.some((item) => {
     const existingMs = new Date(item.receivedAt).getTime();
     if (!Number.isFinite(existingMs) || !Number.isFinite(nextReceivedAtMs)) {
       return false;
@@ -184,6 +221,10 @@ export const enqueueSms = ({ sender, body, receivedAt, source = 'listener' }: En
       fingerprint: fingerprint ?? undefined,
       status: 'new' as const,
       source,
+      ...(nearDuplicate ? { nearDuplicate } : {}),
+      ...(bodyRef ? { bodyRef } : {}),
+      ...(typeof amount === 'number' ? { amount } : {}),
+      ...(currency ? { currency } : {}),
     },
   ];
 
@@ -235,6 +276,20 @@ export const markSmsStatus = (id: string, status: SmsInboxStatus): SmsInboxItem[
   return nextInbox;
 };
 
+/** Stores a lazily fetched body on its row so later opens need no native call. */
+export const attachSmsBody = (id: string, body: string): SmsInboxItem[] => {
+  const inbox = loadInbox();
+  const nextInbox = inbox.map((item) => {
+    if (item.id !== id) {
+      return item;
+    }
+    const { bodyRef: _bodyRef, ...rest } = item;
+    return { ...rest, body };
+  });
+  saveInbox(nextInbox);
+  return nextInbox;
+};
+
 export const clearInbox = (options: ClearInboxOptions = {}): SmsInboxItem[] => {
   const inbox = loadInbox();
   if (!options.status) {
@@ -175,9 +175,10 @@ const BackgroundSmsListenerWrapper: BackgroundSmsListenerPlugin = {
     }
   },
   
-  drainPersistedMessages: async () => {
+  // One implementation serves both overloads; the native side switches on `summary`.
+  drainPersistedMessages: (async (options?: { summary: true }) => {
     try {
-      const result = await BackgroundSmsListener.drainPersistedMessages();
+      const result = await BackgroundSmsListener.drainPersistedMessages(options as { summary: true });
       return result;
     } catch (err) {
       if (import.meta.env.MODE === 'development') {
@@ -185,6 +186,28 @@ const BackgroundSmsListenerWrapper: BackgroundSmsListenerPlugin = {
       }
       return { messages: [] };
     }
+  }) as BackgroundSmsListenerPlugin['drainPersistedMessages'],
+
+  getMessageBodies: async (options) => {
+    try {
+      return await BackgroundSmsListener.getMessageBodies(options);
+    } catch (err) {
+      if (import.meta.env.MODE === 'development') {
+        console.warn('[SMS] Error fetching message bodies:', err);
+      }
+      return { bodies: {}, missing: options.ids };
+    }
+  },
+
+  acknowledgeMessages: async (options) => {
+    try {
+      return await BackgroundSmsListener.acknowledgeMessages(options);
+    } catch (err) {
+      if (import.meta.env.MODE === 'development') {
+        console.warn('[SMS] Error acknowledging drained messages:', err);
+      }
+      return { acknowledged: 0, traces: [] };
+    }
   },
 
   consumePendingOpenRoute: async () => {
@@ -199,6 +222,90 @@ const BackgroundSmsListenerWrapper: BackgroundSmsListenerPlugin = {
     }
   },
 
+  startProviderObserver: async () => {
+    try {
+      return await BackgroundSmsListener.startProviderObserver();
+    } catch (err) {
+      if (import.meta.env.MODE === 'development') {
+        console.warn('[SMS] Error starting provider observer:', err);
+      }
+      return { running: false };
+    }
+  },
+
+  stopProviderObserver: async () => {
+    try {
+      return await BackgroundSmsListener.stopProviderObserver();
+    } catch (err) {
+      if (import.meta.env.MODE === 'development') {
+        console.warn('[SMS] Error stopping provider observer:', err);
+      }
+      return { running: false };
+    }
+  },
+
+  getIngestionStats: async () => {
+    try {
+      return await BackgroundSmsListener.getIngestionStats();
+    } catch (err) {
+      if (import.meta.env.MODE === 'development') {
+        console.warn('[SMS] Error reading ingestion stats:', err);
+      }
+      return { current: null, totals: null };
+    }
+  },
+
+  dumpNativeLog: async () => {
+    try {
+      return await BackgroundSmsListener.dumpNativeLog();
+    } catch (err) {
+      if (import.meta.env.MODE === 'development') {
+        console.warn('[SMS] Error dumping native log:', err);
+      }
+      return { capacity: 0, written: 0, overwritten: 0, events: [] };
+    }
+  },
+
+  getRulePackInfo: async () => {
+    try {
+      return await BackgroundSmsListener.getRulePackInfo();
+    } catch (err) {
+      if (import.meta.env.MODE === 'development') {
+        console.warn('[SMS] Error reading rule pack info:', err);
+      }
+      return { formatVersion: 0 };
+    }
+  },
+
+  // Errors propagate so the caller can retry on the next manifest check.
+  installRulePack: (options) => BackgroundSmsListener.installRulePack(options),
+
+  getClassifierShadowReport: async () => {
+    try {
+      return await BackgroundSmsListener.getClassifierShadowReport();
+    } catch (err) {
+      if (import.meta.env.MODE === 'development') {
+        console.warn('[SMS] Error reading classifier shadow report:', err);
+      }
+      return {
+        active: 'regex',
+        engines: [],
+        since: 0,
+        compared: 0,
+        disagreements: 0,
+        errors: 0,
+        dropped: 0,
+        activeNanos: 0,
+        candidateNanos: 0,
+        comparedWith: {},
+        samples: [],
+      };
+    }
+  },
+
+  // Errors propagate so an unknown engine ID is reported to the caller.
+  setClassifierShadow: (options) => BackgroundSmsListener.setClassifierShadow(options),
+
   stopListening: async () => {
     try {
       if (import.meta.env.MODE === 'development') {
@@ -56,8 +56,44 @@ const BackgroundSmsListenerWebMock: BackgroundSmsListenerPlugin = {
   
   drainPersistedMessages: async () => ({ messages: [] }),
 
+  getMessageBodies: async ({ ids }) => ({ bodies: {}, missing: ids }),
+
+  acknowledgeMessages: async () => ({ acknowledged: 0, traces: [] }),
+
   consumePendingOpenRoute: async () => ({}),
 
+  startProviderObserver: async () => ({ running: false }),
+
+  stopProviderObserver: async () => ({ running: false }),
+
+  getIngestionStats: async () => ({ current: null, totals: null }),
+
+  dumpNativeLog: async () => ({ capacity: 0, written: 0, overwritten: 0, events: [] }),
+
+  getRulePackInfo: async () => ({ formatVersion: 0 }),
+
+  installRulePack: async () => {
+    throw new Error('Classifier rule packs are only used by the native listener');
+  },
+
+  getClassifierShadowReport: async () => ({
+    active: 'regex',
+    engines: [],
+    since: 0,
+    compared: 0,
+    disagreements: 0,
+    errors: 0,
+    dropped: 0,
+    activeNanos: 0,
+    candidateNanos: 0,
+    comparedWith: {},
+    samples: [],
+  }),
+
+  setClassifierShadow: async () => {
+    throw new Error('Classifier shadow mode is only used by the native listener');
+  },
+
   stopListening: async () => {
     if (import.meta.env.MODE === 'development') {
       // console.log('[SMS-Web] Stopping listening for SMS (simulation)');
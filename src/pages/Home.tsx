@@ -103,8 +103,8 @@ const Home = () => {
   };
 
   const { startListening, isListening, isSupported: micSupported } = useSpeechToText({
-    onResult: (transcript) => {
-      navigate('/import-transactions', { state: { voiceTranscript: transcript } });
+    onResult: (transcript, hints) => {
+      navigate('/import-transactions', { state: { voiceTranscript: transcript, voiceHints: hints } });
     },
   });
 
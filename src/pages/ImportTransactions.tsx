@@ -27,13 +27,20 @@ import { useToast } from '@/hooks/use-toast';
 import { Transaction } from '@/types/transaction';
 import { createInferenceDTOFromDetection } from '@/lib/inference/createInferenceDTOFromDetection';
 import { isAdminMode } from '@/utils/admin-utils';
-import { clearPendingSharedText, readPendingSharedText } from '@/lib/share-target/pendingSharedText';
+import {
+  clearPendingSharedText,
+  readPendingSharedText,
+  stageNextSharedText,
+  type PendingSharedTextPayload,
+} from '@/lib/share-target/pendingSharedText';
+import type { SpokenTransactionHints } from '@/plugins/SpeechToTextPlugin';
 
 
 interface ImportTransactionsLocationState {
   senderHint?: string;
   sender?: string;
   voiceTranscript?: string;
+  voiceHints?: SpokenTransactionHints;
 }
 
 const ImportTransactions = () => {
@@ -43,6 +50,7 @@ const ImportTransactions = () => {
   const { t } = useLanguage();
   const locationState = (location.state as ImportTransactionsLocationState | null) || null;
   const [pendingSharedText, setPendingSharedText] = React.useState<string | null>(null);
+  const warnedDuplicateShareRef = React.useRef<number | null>(null);
 
   const effectiveSenderHint =
     locationState?.senderHint ||
@@ -51,6 +59,18 @@ const ImportTransactions = () => {
     new URLSearchParams(location.search).get('sender') ||
     undefined;
 
+  const showSharedText = React.useCallback((pending: PendingSharedTextPayload) => {
+    setPendingSharedText(pending.text);
+    const receivedAt = pending.receivedAt ?? 0;
+    if (pending.duplicate && warnedDuplicateShareRef.current !== receivedAt) {
+      warnedDuplicateShareRef.current = receivedAt;
+      toast({
+        title: t('toast.smartEntry.sharedDuplicate'),
+        description: t('toast.smartEntry.sharedDuplicateDesc'),
+      });
+    }
+  }, [toast, t]);
+
   const hydratePendingSharedText = React.useCallback(() => {
     // Voice transcript from Home mic takes priority
     if (locationState?.voiceTranscript?.trim()) {
@@ -71,9 +91,9 @@ const ImportTransactions = () => {
     });
 
     if (pending?.text) {
-      setPendingSharedText(pending.text);
+      showSharedText(pending);
     }
-  }, [location.key, toast, locationState?.voiceTranscript]);
+  }, [location.key, showSharedText, locationState?.voiceTranscript]);
 
   React.useEffect(() => {
     hydratePendingSharedText();
@@ -83,7 +103,17 @@ const ImportTransactions = () => {
     console.log('[SHARE_FLOW][IMPORT] handleSharedTextConsumed clearing pending payload');
     clearPendingSharedText();
     setPendingSharedText(null);
-  }, []);
+    // Hand over the next share queued natively, if any.
+    void stageNextSharedText()
+      .then((next) => {
+        if (next) {
+          showSharedText(next);
+        }
+      })
+      .catch((err) => {
+        console.warn('[SHARE_FLOW][IMPORT] failed to stage next shared text', err);
+      });
+  }, [showSharedText]);
 
   const DEBUG_INFERENCE_FLOW = import.meta.env.VITE_DEBUG_INFERENCE_FLOW === 'true';
   const adminEnabled = isAdminMode();
@@ -196,6 +226,7 @@ const ImportTransactions = () => {
             <SmartPaste
               senderHint={effectiveSenderHint}
               prefillText={pendingSharedText}
+              prefillHints={locationState?.voiceHints}
               onPrefillConsumed={handleSharedTextConsumed}
               onTransactionsDetected={handleTransactionsDetected}
             />
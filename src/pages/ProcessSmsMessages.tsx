@@ -17,9 +17,10 @@
  * - [ ] Navigation hooks are wired correctly
  */
 import { safeStorage } from "@/utils/safe-storage";
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import { LoadingOverlay } from '@/components/ui/loading-overlay';
 import { SmsReaderService, SmsEntry } from '@/services/SmsReaderService';
+import type { SmsReadProgress } from '@/plugins/SmsReaderPlugin';
 import { Button } from '@/components/ui/button';
 import { Card } from '@/components/ui/card';
 import { Badge } from '@/components/ui/badge';
@@ -81,6 +82,9 @@ const ProcessSmsMessages: React.FC = () => {
   const [skippedMessages, setSkippedMessages] = useState<ProcessedSmsEntry[]>([]);
   const [filteredMessages, setFilteredMessages] = useState<ProcessedSmsEntry[]>([]);
   const [loading, setLoading] = useState(false);
+  const [readProgress, setReadProgress] = useState<SmsReadProgress | null>(null);
+  // Id of the native read in flight; cleared when it is cancelled.
+  const activeReadIdRef = useRef<string | null>(null);
   const [senders, setSenders] = useState<string[]>([]);
   const [selectedSenders, setSelectedSenders] = useState<string[]>([]);
   const [filter, setFilter] = useState<'all' | 'matched' | 'skipped'>('all');
@@ -204,7 +208,14 @@ const handleReadSms = async () => {
       ? earliestMap
       : defaultStart;
 
-    const smsMessages = await SmsReaderService.readSmsMessages({ startDate });
+    const readId = SmsReaderService.newReadId();
+    activeReadIdRef.current = readId;
+    setReadProgress(null);
+    const smsMessages = await SmsReaderService.readSmsMessages({ startDate, readId, onProgress: setReadProgress });
+    if (activeReadIdRef.current !== readId) {
+      toast({ title: 'Cancelled', description: 'SMS read cancelled' });
+      return;
+    }
 
     const validMessages: ProcessedSmsEntry[] = [];
     const invalidMessages: ProcessedSmsEntry[] = [];
@@ -263,10 +274,19 @@ const handleReadSms = async () => {
     }
     toast({ variant: 'destructive', title: 'Error', description: 'Failed to read SMS messages' });
   } finally {
+    activeReadIdRef.current = null;
+    setReadProgress(null);
     setLoading(false);
   }
 };
 
+const handleCancelRead = () => {
+  const readId = activeReadIdRef.current;
+  if (!readId) return;
+  activeReadIdRef.current = null;
+  void SmsReaderService.cancelRead(readId);
+};
+
 
   const toggleSenderSelect = (sender: string) => {
     if (selectedSenders.includes(sender)) {
@@ -346,7 +366,15 @@ const handleReadSms = async () => {
 
   return (
     <>
-      <LoadingOverlay isOpen={loading} message="Reading SMS..." />
+      <LoadingOverlay
+        isOpen={loading}
+        message={
+          readProgress
+            ? `Reading SMS... ${readProgress.scanned} scanned, ${readProgress.matched} found`
+            : 'Reading SMS...'
+        }
+        onCancel={handleCancelRead}
+      />
     <Layout>
       <div className="pt-4 pb-4">
         <div className="px-2 mb-4">
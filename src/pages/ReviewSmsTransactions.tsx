@@ -51,6 +51,7 @@ import { ToggleGroup, ToggleGroupItem } from '@/components/ui/toggle-group';
 import { Badge } from '@/components/ui/badge';
 import { useNavigate } from 'react-router-dom';
 import { updateSmsSenderImportDates } from '@/utils/storage-utils';
+import { SmsReaderService, type SmsContinuation } from '@/services/SmsReaderService';
 import { learnVendorCategoryRule } from '@/lib/smart-paste-engine/senderCategoryRules';
 import { getCategoriesForType, getSubcategoriesForCategory} from '@/lib/categories-data';
 import { TransactionType, Transaction } from '@/types/transaction';
@@ -111,6 +112,7 @@ interface SmsLocationState {
   messages?: SmsMessage[];
   vendorMap?: Record<string, string>;
   keywordMap?: Array<{ keyword: string; mappings: Array<{ field: string; value: string }> }>;
+  continuation?: SmsContinuation;
 }
 
 type DateConfidence = 'high' | 'low';
@@ -444,6 +446,8 @@ const toggleSkipAll = () => {
       }
     });
     updateSmsSenderImportDates(senderDates);
+    // Every read message is now saved or skipped; later imports resume after them.
+    SmsReaderService.saveContinuation(effectiveState?.continuation);
 
     toast({
       title: 'Saved',
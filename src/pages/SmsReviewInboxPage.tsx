@@ -1,11 +1,13 @@
 import React from 'react';
 import { useLocation, useNavigate } from 'react-router-dom';
 import Layout from '@/components/Layout';
+import { Badge } from '@/components/ui/badge';
 import { Button } from '@/components/ui/button';
 import { Card, CardContent, CardHeader, CardTitle } from '@/components/ui/card';
 import { useToast } from '@/hooks/use-toast';
 import { buildInferenceDTO } from '@/lib/inference/buildInferenceDTO';
-import { getInbox, markSmsStatus, SmsInboxItem, subscribeInbox } from '@/lib/sms-inbox/smsInboxQueue';
+import { attachSmsBody, getInbox, markSmsStatus, SmsInboxItem, subscribeInbox } from '@/lib/sms-inbox/smsInboxQueue';
+import { loadSmsListener } from '@/lib/native/BackgroundSmsListener';
 import { isAdminMode } from '@/utils/admin-utils';
 import { useLanguage } from '@/i18n/LanguageContext';
 import { Skeleton } from '@/components/ui/skeleton';
@@ -21,16 +23,35 @@ interface EnrichedItem {
   loading: boolean;
 }
 
-const formatAmount = (dto: InferenceDTO | null, body: string): string => {
+const formatAmount = (dto: InferenceDTO | null, item: SmsInboxItem): string => {
   if (dto?.transaction?.amount && dto.transaction.amount !== 0) {
     const currency = dto.transaction.currency || '';
     return `${currency} ${dto.transaction.amount.toLocaleString()}`.trim();
   }
+  // Header-only rows carry the natively extracted amount
+  if (typeof item.amount === 'number') {
+    return `${item.currency ?? ''} ${item.amount.toLocaleString()}`.trim();
+  }
   // Fallback: regex from body
-  const match = body.match(/(?:\$|usd\s*)?(\d+[\d,]*(?:\.\d{1,2})?)/i);
+  const match = item.body.match(/(?:\$|usd\s*)?(\d+[\d,]*(?:\.\d{1,2})?)/i);
   return match ? match[0] : '—';
 };
 
+/** Body of a row, fetched from native storage on first open for header-only rows. */
+const resolveBody = async (item: SmsInboxItem): Promise<string> => {
+  if (item.body || !item.bodyRef) {
+    return item.body;
+  }
+  const listener = await loadSmsListener();
+  const result = await listener?.getMessageBodies({ ids: [item.bodyRef] });
+  const body = result?.bodies[item.bodyRef];
+  if (body === undefined) {
+    return '';
+  }
+  attachSmsBody(item.id, body);
+  return body;
+};
+
 const formatDate = (dto: InferenceDTO | null, receivedAt: string): string => {
   if (dto?.transaction?.date) {
     return formatDisplayDate(dto.transaction.date);
@@ -73,9 +94,13 @@ const SmsReviewInboxPage = () => {
     // Set items immediately with loading state
     setEnrichedItems(items.map((item) => ({ item, dto: null, loading: true })));
 
-    // Enrich all in parallel
+    // Enrich rows that already have a body; header-only rows render from
+    // their native amount and fetch the body when opened.
     const enriched = await Promise.all(
       items.map(async (item) => {
+        if (!item.body) {
+          return { item, dto: null, loading: false };
+        }
         try {
           const dto = await buildInferenceDTO({
             rawMessage: item.body,
@@ -109,8 +134,13 @@ const SmsReviewInboxPage = () => {
         hasCachedDto: Boolean(cachedDto),
       });
 
+      const body = cachedDto ? item.body : await resolveBody(item);
+      if (!cachedDto && !body) {
+        throw new Error('SMS body is no longer available');
+      }
+
       const dto = cachedDto ?? await buildInferenceDTO({
-        rawMessage: item.body,
+        rawMessage: body,
         senderHint: item.sender,
         anchorDate: item.receivedAt,
         source: 'sms',
@@ -193,12 +223,17 @@ const SmsReviewInboxPage = () => {
                       <>
                         <p className="font-semibold">{getPayee(dto)}</p>
                         <div className="flex items-center gap-3 text-sm text-muted-foreground">
-                          <span>{formatAmount(dto, item.body)}</span>
+                          <span>{formatAmount(dto, item)}</span>
                           <span>·</span>
                           <span>{formatDate(dto, item.receivedAt)}</span>
                         </div>
                       </>
                     )}
+                    {item.nearDuplicate && (
+                      <Badge variant="outline" className="border-amber-500 text-amber-700 dark:text-amber-400">
+                        {t('smsReview.nearDuplicate').replace('{sender}', item.nearDuplicate.sender)}
+                      </Badge>
+                    )}
                   </div>
                   <div className="flex items-center gap-2">
                     <Button onClick={() => void handleReviewSms(item, dto)}>
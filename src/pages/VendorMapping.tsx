@@ -43,6 +43,7 @@ import { useLocation, useNavigate } from 'react-router-dom';
 import Layout from '@/components/Layout';
 import { ArrowLeft, Trash2, Ban } from 'lucide-react';
 import { updateSmsSenderImportDates, updateSmsSenderVendorMappings } from '@/utils/storage-utils';
+import type { SmsContinuation } from '@/services/SmsReaderService';
 
 interface VendorMappingEntry {
   vendor: string;
@@ -57,6 +58,7 @@ interface VendorLocationState {
   messages?: Array<{ message: string; sender?: string; date?: string }>;
   vendorMap?: Record<string, string>;
   keywordMap?: Array<{ keyword: string; mappings: Array<{ field: string; value: string }> }>;
+  continuation?: SmsContinuation;
 }
 
 const VendorMapping: React.FC = () => {
@@ -287,7 +289,8 @@ const VendorMapping: React.FC = () => {
       state: {
         messages,
         vendorMap,
-        keywordMap: keywordBank
+        keywordMap: keywordBank,
+        continuation: state?.continuation
       }
     });
   };
@@ -1,8 +1,30 @@
 import { Capacitor } from '@capacitor/core';
 
+export interface StartupPhaseTiming {
+  name: string;
+  /** Offset from process start (or from the first phase on API < 24). */
+  startMs: number;
+  /** -1 while the phase is still running. */
+  durationMs: number;
+}
+
+export interface StartupMark {
+  name: string;
+  atMs: number;
+  detail: string;
+}
+
+export interface StartupTimings {
+  origin: 'process_start' | 'first_phase';
+  uptimeMs: number;
+  phases: StartupPhaseTiming[];
+  marks: StartupMark[];
+}
+
 export interface AndroidSettingsPlugin {
   openNotificationSettings(): Promise<void>;
   openAppDetailsSettings(): Promise<void>;
+  getStartupTimings(): Promise<StartupTimings>;
 }
 
 const AndroidSettings = Capacitor.registerPlugin<AndroidSettingsPlugin>('AndroidSettings');
@@ -1,10 +1,178 @@
 import { Capacitor } from '@capacitor/core';
 import type { PluginListenerHandle } from '@capacitor/core';
 
+export interface IngestionStageLatency {
+  count: number;
+  totalUs: number;
+  /** Counts per bucket; bucket i holds samples <= bucketBoundsUs[i], the last is open-ended. */
+  buckets: number[];
+}
+
+/** Stage offsets in ms from `start`; a stage is absent when it did not happen. */
+export interface IngestionTrace {
+  id: string;
+  /** elapsedRealtime in ms when the receiver started handling the SMS. */
+  start: number;
+  stages: Partial<Record<'decode' | 'classify' | 'persist' | 'notify' | 'emit' | 'drain', number>>;
+}
+
+/** Earlier message a drained one likely repeats in another format (second sender ID, resend). */
+export interface NearDuplicateFlag {
+  /** Native fingerprint of the earlier message. */
+  of: string;
+  sender: string;
+  /** Epoch ms when the earlier message was received. */
+  receivedAt: number;
+  /** `text`: same wording and numbers; `amount`: same amount in a different format within 30 minutes. */
+  reason: 'text' | 'amount';
+  /** Hamming distance between the two template SimHashes (0-64). */
+  distance: number;
+}
+
+export interface DrainedMessage {
+  sender: string;
+  body: string;
+  receivedAt?: number;
+  source?: string;
+  trace?: IngestionTrace;
+  nearDuplicate?: NearDuplicateFlag;
+}
+
+/** Summary-drain row: the body stays native until fetched with getMessageBodies. */
+export interface DrainedMessageHeader {
+  /** Key for getMessageBodies. */
+  id: string;
+  sender: string;
+  receivedAt: number;
+  source?: string;
+  /** First amount in the body, in major units. */
+  amount?: number;
+  /** ISO code for that amount, when the message names one. */
+  currency?: string;
+  bodyLength: number;
+  trace?: IngestionTrace;
+  nearDuplicate?: NearDuplicateFlag;
+}
+
+export interface IngestionValues {
+  counters: {
+    received: number;
+    duplicate: number;
+    persisted: number;
+    nearDuplicate: number;
+    notified: number;
+    notifySkipped: number;
+  };
+  /** Classifier verdicts keyed by gate: accepted, empty, otp, noKeyword, noAmount, noDate. */
+  gates: Record<string, number>;
+  bucketBoundsUs: number[];
+  latency: {
+    classify: IngestionStageLatency;
+    persist: IngestionStageLatency;
+    notify: IngestionStageLatency;
+    /** Trace start to acknowledgeMessages. */
+    endToEnd: IngestionStageLatency;
+  };
+}
+
+export interface IngestionSnapshot extends IngestionValues {
+  sessionId: string;
+  startedAt: number;
+  capturedAt: number;
+}
+
+export interface IngestionTotals extends IngestionValues {
+  /** When the totals started accumulating. */
+  since: number;
+  updatedAt: number;
+}
+
+export interface IngestionStats {
+  /** This process; null where no native listener exists (web). */
+  current: IngestionSnapshot | null;
+  /** Cumulative across every process; null until something was recorded. */
+  totals: IngestionTotals | null;
+}
+
+export interface NativeLogEvent {
+  seq: number;
+  /** elapsedRealtime in ms. */
+  t: number;
+  level: number;
+  category: 'INIT' | 'RECEIVER' | 'CLASSIFIER' | 'PERSIST' | 'NOTIFY';
+  event: string;
+  a: number;
+  b: number;
+}
+
+export interface NativeLogDump {
+  capacity: number;
+  written: number;
+  overwritten: number;
+  events: NativeLogEvent[];
+}
+
+/** Classifier rule pack installed on the device (see updates/rules). */
+export interface RulePackInfo {
+  /** Pack format the native engine reads. */
+  formatVersion: number;
+  /** Absent while the built-in rules are in use. */
+  version?: number;
+  /** CRC32 of the pack body, hex. */
+  checksum?: string;
+  sizeBytes?: number;
+}
+
+/** A live message where the shadowed classifier engine disagreed with the active one. */
+export interface ClassifierShadowSample {
+  at: number;
+  /** Engine that decided the message. */
+  active: string;
+  activeVerdict: string;
+  candidateVerdict: string;
+  /** Body length; the text itself is never kept. */
+  length: number;
+}
+
+/** Shadow comparison of a candidate classifier engine since it was set. */
+export interface ClassifierShadowReport {
+  /** Engine deciding live messages, e.g. 'regex' or 'rulePack'. */
+  active: string;
+  /** Registered engine IDs. */
+  engines: string[];
+  /** Absent while shadow mode is off. */
+  candidate?: string;
+  since: number;
+  compared: number;
+  disagreements: number;
+  /** Comparisons where the candidate threw. */
+  errors: number;
+  /** Comparisons skipped because the shadow queue was full. */
+  dropped: number;
+  activeNanos: number;
+  candidateNanos: number;
+  /** candidateNanos / activeNanos; absent until something was compared. */
+  latencyRatio?: number;
+  /** Comparisons per active engine. */
+  comparedWith: Record<string, number>;
+  /** Most recent disagreements, oldest first. */
+  samples: ClassifierShadowSample[];
+}
+
+export interface SmsReceivedEvent {
+  sender: string;
+  body: string;
+  traceId?: string;
+  /** ID of the persisted copy; a later summary drain reports it as the header's `id`. */
+  id?: string;
+  /** Native receive time (epoch ms), sent with `id`. */
+  receivedAt?: number;
+}
+
 export interface BackgroundSmsListenerPlugin {
   addListener(
     eventName: 'smsReceived',
-    listenerFunc: (data: { sender: string; body: string }) => void
+    listenerFunc: (data: SmsReceivedEvent) => void
   ): Promise<PluginListenerHandle>;
 
   checkPermission(): Promise<{ granted: boolean }>;
@@ -12,10 +180,33 @@ export interface BackgroundSmsListenerPlugin {
   requestPermission(): Promise<{ granted: boolean }>;
   startListening(): Promise<void>;
   stopListening(): Promise<void>;
-  drainPersistedMessages(): Promise<{
-    messages: Array<{ sender: string; body: string; receivedAt?: number; source?: string }>;
+  drainPersistedMessages(): Promise<{ messages: DrainedMessage[] }>;
+  /** Headers only; the review list fetches bodies for the rows the user opens. */
+  drainPersistedMessages(options: { summary: true }): Promise<{ messages: DrainedMessageHeader[] }>;
+  /** Bodies of summary-drained rows; evicted or unknown IDs are listed in `missing`. */
+  getMessageBodies(options: { ids: string[] }): Promise<{ bodies: Record<string, string>; missing: string[] }>;
+  /** Closes drained traces once JS has processed them; unknown IDs report endToEndMs -1. */
+  acknowledgeMessages(options: { traceIds: string[] }): Promise<{
+    acknowledged: number;
+    traces: Array<{ traceId: string; endToEndMs: number }>;
   }>;
   consumePendingOpenRoute(): Promise<{ route?: string; source?: string }>;
+  /**
+   * Watch the SMS provider as a fallback source. Requests READ_SMS if needed;
+   * `running` is false when it is denied. Persists across restarts and reboots.
+   */
+  startProviderObserver(): Promise<{ running: boolean }>;
+  stopProviderObserver(): Promise<{ running: boolean }>;
+  getIngestionStats(): Promise<IngestionStats>;
+  /** Binary ingestion event ring (codes and numbers only, no message text). */
+  dumpNativeLog(): Promise<NativeLogDump>;
+  getRulePackInfo(): Promise<RulePackInfo>;
+  /** Downloads, verifies and activates a newer classifier rule pack. */
+  installRulePack(options: { url: string; sha256: string }): Promise<RulePackInfo>;
+  /** Current counts; comparisons still queued natively are not included yet. */
+  getClassifierShadowReport(): Promise<ClassifierShadowReport>;
+  /** Shadows a registered engine on incoming SMS, or stops with null; resets the report. */
+  setClassifierShadow(options: { engine: string | null }): Promise<ClassifierShadowReport>;
 }
 
 const BackgroundSmsListener = Capacitor.registerPlugin<BackgroundSmsListenerPlugin>('BackgroundSmsListener');
@@ -1,12 +1,100 @@
 import { Capacitor } from '@capacitor/core';
 import type { PluginListenerHandle } from '@capacitor/core';
 
+export interface SharedFile {
+  /** content:// URI; readable only while the app session that received it lives. */
+  uri: string;
+  mimeType?: string;
+  name?: string;
+  size?: number;
+  source?: string;
+  receivedAt: number;
+}
+
+export interface SharedFileColumn {
+  index: number;
+  /** Present when the first row was detected as a header. */
+  name?: string;
+  kind: 'date' | 'amount' | 'text' | 'empty';
+}
+
+export interface SharedFileRowsPage {
+  uri: string;
+  page: number;
+  rows: string[][];
+  /** Detected delimiter; empty string for plain text (one cell per line). */
+  delimiter: string;
+  /** Column profile so far; may still change on later pages. */
+  columns: SharedFileColumn[];
+  done: boolean;
+}
+
+export interface SharedFileReadResult {
+  uri: string;
+  rowCount: number;
+  pages: number;
+  delimiter: string;
+  columns: SharedFileColumn[];
+}
+
+/** One candidate message split natively out of a shared text. */
+export interface SharedTextItem {
+  id: string;
+  /** Items split from the same share have the same shareId. */
+  shareId: string;
+  text: string;
+  source?: string;
+  receivedAt: number;
+  fingerprint: string;
+  /** Passed the native FinancialSmsClassifier gates. */
+  financial: boolean;
+  /** Gate result: `accepted`, `empty`, `otp`, `noKeyword`, `noAmount` or `noDate`. */
+  verdict: string;
+  /** Same text was shared or drained within the last 24 h. */
+  duplicate: boolean;
+}
+
+/** The oldest queued share; empty when nothing is queued. */
+export interface SharedTextBatch {
+  items: SharedTextItem[];
+  /** Items from later shares still queued. */
+  remaining: number;
+  /** The share's items, joined. */
+  text?: string;
+  source?: string;
+  receivedAt?: number;
+  /** Every item in the share is a re-share. */
+  duplicate?: boolean;
+}
+
 export interface ShareTargetPlugin {
   addListener(
     eventName: 'sharedTextReceived',
-    listenerFunc: (data: { text: string; source?: string; receivedAt?: number }) => void,
+    listenerFunc: (data: {
+      text: string;
+      source?: string;
+      receivedAt?: number;
+      duplicate?: boolean;
+      items?: SharedTextItem[];
+    }) => void,
+  ): Promise<PluginListenerHandle>;
+  addListener(
+    eventName: 'sharedFileReceived',
+    listenerFunc: (data: SharedFile) => void,
+  ): Promise<PluginListenerHandle>;
+  addListener(
+    eventName: 'sharedFileRows',
+    listenerFunc: (data: SharedFileRowsPage) => void,
   ): Promise<PluginListenerHandle>;
-  consumePendingSharedText(): Promise<{ text?: string; source?: string; receivedAt?: number }>;
+  /** Drains the oldest queued share; call again while `remaining` is non-zero. */
+  consumePendingSharedText(): Promise<SharedTextBatch>;
+  consumePendingSharedFile(): Promise<{ file?: SharedFile }>;
+  /**
+   * Streams the file as `sharedFileRows` pages; resolves after the last page.
+   * Only the URI of the file last shared into the app is accepted; any other
+   * rejects with `NOT_SHARED`.
+   */
+  readSharedFile(options: { uri: string; pageSize?: number }): Promise<SharedFileReadResult>;
 }
 
 const ShareTarget = Capacitor.registerPlugin<ShareTargetPlugin>('ShareTarget');
@@ -1,11 +1,30 @@
 
 import { Capacitor } from '@capacitor/core';
+import type { PluginListenerHandle } from '@capacitor/core';
 
-export interface SmsFilterOptions {
+export interface SmsReadControl {
+  /**
+   * Caller-chosen id used by `cancelRead` and `readProgress` (1-64 of `[A-Za-z0-9_-]`); generated if omitted.
+   * A read started while another with the same id is running rejects with code `READ_ID_IN_USE`.
+   */
+  readId?: string;
+}
+
+export interface SmsFilterOptions extends SmsReadControl {
   startDate?: string;
   endDate?: string;
   limit?: number;
   senders?: string[];
+  /** Reject non-financial messages natively; `limit` then counts accepted messages. */
+  financialOnly?: boolean;
+  /** Return scan and rejection counts alongside the messages. */
+  includeStats?: boolean;
+  /**
+   * Split large date ranges into row-count-balanced partitions scanned on all
+   * cores. Messages come back in the same newest-first order; small ranges
+   * fall back to the sequential walk.
+   */
+  parallel?: boolean;
 }
 
 export interface SmsMessage {
@@ -14,8 +33,116 @@ export interface SmsMessage {
   date: string;
 }
 
+export interface SmsReadStats {
+  scanned: number;
+  returned: number;
+  senderSkipped: number;
+  elapsedMs: number;
+  /** Partitions scanned; present only when a `parallel` read was split. */
+  partitions?: number;
+  /** Present when `financialOnly` was requested, keyed by rejecting gate. */
+  rejected?: {
+    empty: number;
+    otp: number;
+    noKeyword: number;
+    noAmount: number;
+    noDate: number;
+  };
+}
+
 export interface SmsResult {
   messages: SmsMessage[];
+  readId: string;
+  stats?: SmsReadStats;
+}
+
+export interface SmsSinceOptions extends SmsReadControl {
+  /** `nextToken` from the previous page; omit to start at `startDate`. */
+  token?: string;
+  startDate?: string;
+  /** Page size in scanned rows (default 500). */
+  limit?: number;
+  senders?: string[];
+  financialOnly?: boolean;
+  /** Also add financial rows scanned on the way to the search index (default false). */
+  indexForSearch?: boolean;
+}
+
+export interface SmsProviderMessage extends SmsMessage {
+  id: number;
+  threadId: number;
+}
+
+export interface SmsSinceResult {
+  messages: SmsProviderMessage[];
+  readId: string;
+  scanned: number;
+  hasMore: boolean;
+  /** Opaque resume point; absent only when nothing has ever been scanned. */
+  nextToken?: string;
+}
+
+export interface SmsExportResult {
+  readId: string;
+  /** Layout id; "xsmc1" is decoded by lib/native/smsColumnarExport. */
+  format: string;
+  /** Absolute cache-file path. */
+  path: string;
+  /** WebView-fetchable local URL for the same file. */
+  url: string;
+  count: number;
+  senderCount: number;
+  bytes: number;
+  stats: SmsReadStats;
+}
+
+export interface SmsInboxSummaryOptions extends SmsReadControl {
+  startDate?: string;
+  endDate?: string;
+  senders?: string[];
+  /** Adds a local-time histogram per sender keyed `yyyy-MM-dd` or `yyyy-MM`. */
+  histogram?: 'day' | 'month';
+}
+
+export interface SmsSenderSummary {
+  sender: string;
+  count: number;
+  /** Epoch ms. */
+  firstDate: number;
+  lastDate: number;
+  histogram?: Record<string, number>;
+}
+
+export interface SmsInboxSummary {
+  readId: string;
+  total: number;
+  /** Ordered by count, most active first. */
+  senders: SmsSenderSummary[];
+  elapsedMs: number;
+}
+
+export interface SmsSearchHit {
+  /** Local index row id. */
+  docId: number;
+  /** Provider `_id`, absent until the broadcast copy is matched to its provider row. */
+  id?: number;
+  sender: string;
+  message: string;
+  date: string;
+  score: number;
+  /** UTF-16 ranges of matched terms within `sender` or `message`. */
+  matches: Array<{ field: 'sender' | 'message'; start: number; length: number }>;
+}
+
+export interface SmsReadProgress {
+  readId: string;
+  scanned: number;
+  matched: number;
+  elapsedMs: number;
+  done: boolean;
+  /** Present for split `parallel` reads. */
+  partitions?: number;
+  partitionsMerged?: number;
 }
 
 export interface SmsReaderPlugin {
@@ -23,6 +150,27 @@ export interface SmsReaderPlugin {
   checkPermissionWithRationale(): Promise<{ granted: boolean; shouldShowRationale: boolean }>;
   requestPermission(): Promise<{ granted: boolean }>;
   readSmsMessages(options?: SmsFilterOptions): Promise<SmsResult>;
+  readSmsSince(options?: SmsSinceOptions): Promise<SmsSinceResult>;
+  /** Same options as readSmsMessages; rows go to a columnar cache file instead of the bridge. */
+  exportSmsMessages(options?: SmsFilterOptions): Promise<SmsExportResult>;
+  /** Sender counts and date ranges without reading any message bodies. */
+  summarizeInbox(options?: SmsInboxSummaryOptions): Promise<SmsInboxSummary>;
+  /** Indexes financial provider rows above the index watermark. */
+  updateSearchIndex(options?: SmsReadControl): Promise<{
+    readId: string;
+    scanned: number;
+    indexed: number;
+    total: number;
+    elapsedMs: number;
+  }>;
+  /** Ranked prefix search over the local index; does not read the provider. */
+  searchSms(options: { query: string; limit?: number }): Promise<{ hits: SmsSearchHit[] }>;
+  /** Cancels a running read; its pending call rejects with code `CANCELLED`. */
+  cancelRead(options: { readId: string }): Promise<{ cancelled: boolean }>;
+  addListener(
+    eventName: 'readProgress',
+    listenerFunc: (data: SmsReadProgress) => void
+  ): Promise<PluginListenerHandle>;
 }
 
 // Register the plugin
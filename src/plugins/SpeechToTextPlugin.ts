@@ -1,15 +1,94 @@
 import { Capacitor } from '@capacitor/core';
 import type { PluginListenerHandle } from '@capacitor/core';
 
+export interface SpeechStartOptions {
+  locale: string;
+  /** Minimum spacing between partial `speechResult` events. Defaults to 150 ms. */
+  partialIntervalMs?: number;
+  /**
+   * Keep listening after each final result, one utterance per transaction,
+   * until stopListening or idleTimeoutMs without speech. Restarts after
+   * silence or an empty result back off, and six in a row also end the
+   * session as `idle`.
+   * Defaults to false.
+   */
+  continuous?: boolean;
+  /** Continuous mode only. Defaults to 8000 ms. */
+  idleTimeoutMs?: number;
+  /** Attach native transaction hints to the final result. Defaults to true. */
+  parseTransaction?: boolean;
+  /** Parse every N-best hypothesis and keep the best-parsing one. Defaults to false. */
+  parseAlternatives?: boolean;
+}
+
+/** Hints from the on-device spoken-transaction parser. */
+export interface SpokenTransactionHints {
+  amount: number;
+  type: 'expense' | 'income' | 'transfer';
+  /** Only present when a currency was spoken. */
+  currency?: string;
+  merchant?: string;
+  category?: string;
+  subcategory?: string;
+  confidence: number;
+  /** N-best hypothesis the hints were taken from, and its text. */
+  hypothesisIndex: number;
+  text: string;
+}
+
+export interface SpeechResultEvent {
+  text: string;
+  isFinal: boolean;
+  confidence: number;
+  /** Final result only: partials delivered during the utterance. */
+  partialsEmitted?: number;
+  /** Final result only: partials dropped as duplicates, prefixes or throttled. */
+  partialsSuppressed?: number;
+  /** Continuous mode only: 1-based utterance number within the session. */
+  sequence?: number;
+  /** Final result only, when an amount was heard. */
+  transaction?: SpokenTransactionHints;
+}
+
+export interface SpeechStateEvent {
+  /** `ready` per utterance; `session_end` once a continuous session finishes. */
+  status: 'ready' | 'session_end';
+  /** `session_end` only. */
+  reason?: 'stopped' | 'idle' | 'error' | 'restarted';
+  /** `session_end` only: final results delivered in the session. */
+  segments?: number;
+}
+
+export interface SpeechSessionTiming {
+  locale: string;
+  /** True when the recognizer from the previous session was reused. */
+  warm: boolean;
+  /** `result`, `cancelled`, `pending` or the `speechError` code. */
+  outcome: string;
+  readyMs?: number;
+  firstPartialMs?: number;
+  finalMs?: number;
+}
+
+export interface SpeechMetrics {
+  recognizersCreated: number;
+  warmStarts: number;
+  avgReadyMs?: number;
+  avgFinalMs?: number;
+  /** Most recent sessions, oldest first; times are ms since the startListening call. */
+  sessions: SpeechSessionTiming[];
+}
+
 export interface SpeechToTextPlugin {
-  startListening(options: { locale: string }): Promise<void>;
+  startListening(options: SpeechStartOptions): Promise<void>;
   stopListening(): Promise<void>;
   isAvailable(): Promise<{ available: boolean }>;
+  getMetrics(): Promise<SpeechMetrics>;
   checkPermissions(): Promise<{ microphone: string }>;
   requestPermissions(): Promise<{ microphone: string }>;
   addListener(
     eventName: 'speechResult',
-    listenerFunc: (data: { text: string; isFinal: boolean; confidence: number }) => void
+    listenerFunc: (data: SpeechResultEvent) => void
   ): Promise<PluginListenerHandle>;
   addListener(
     eventName: 'speechError',
@@ -17,7 +96,7 @@ export interface SpeechToTextPlugin {
   ): Promise<PluginListenerHandle>;
   addListener(
     eventName: 'speechState',
-    listenerFunc: (data: { status: string }) => void
+    listenerFunc: (data: SpeechStateEvent) => void
   ): Promise<PluginListenerHandle>;
 }
 
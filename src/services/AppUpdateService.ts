@@ -8,6 +8,7 @@
  * 1. Fetch and validate update manifests
  * 2. Download/apply OTA bundles on native platforms
  * 3. Track update metadata and analytics
+ * 4. Install newer classifier rule packs listed in the manifest
  *
  * @storage-keys
  * - xpensia_pending_update_bundle: pending bundle metadata
@@ -16,6 +17,7 @@
  *
  * @dependencies
  * - CapacitorUpdater: Capgo OTA updates
+ * - BackgroundSmsListener: native classifier rule pack install
  * - firebase-analytics.ts: update event logging
  *
  * @review-tags
@@ -33,6 +35,7 @@ import { App } from '@capacitor/app';
 import { safeStorage } from '@/utils/safe-storage';
 import { CapacitorUpdater } from '@capgo/capacitor-updater';
 import { logAnalyticsEvent } from '@/utils/firebase-analytics';
+import getBackgroundSmsListener from '@/native/backgroundSms';
 
 type CapacitorUpdaterType = typeof CapacitorUpdater;
 
@@ -49,6 +52,16 @@ export interface UpdateManifest {
   releaseNotes?: string;
   mandatory?: boolean;
   checksum?: string;
+  /** Classifier rule pack built by scripts/build-rule-pack.mjs. */
+  rulePack?: RulePackManifestEntry;
+}
+
+export interface RulePackManifestEntry {
+  version: number;
+  /** Pack format; devices skip packs their native engine cannot read. */
+  formatVersion: number;
+  url: string;
+  sha256: string;
 }
 
 export interface UpdateStatus {
@@ -327,6 +340,9 @@ class AppUpdateService {
         return { available: false, currentVersion };
       }
 
+      // Rule packs are independent of the web bundle version; never block on them.
+      this.syncRulePack(manifest).catch(() => {});
+
       // Check if native update required
       if (manifest.minimumNativeVersion) {
         try {
@@ -380,6 +396,34 @@ class AppUpdateService {
     }
   }
 
+  /**
+   * Install the manifest's classifier rule pack if it is newer than the
+   * one on the device and in a format the native engine reads.
+   */
+  async syncRulePack(manifest: UpdateManifest): Promise<boolean> {
+    const entry = manifest.rulePack;
+    if (!entry || Capacitor.getPlatform() !== 'android') return false;
+
+    const listener = await getBackgroundSmsListener();
+    if (!listener) return false;
+
+    const installed = await listener.getRulePackInfo();
+    if (entry.formatVersion !== installed.formatVersion) return false;
+    if (installed.version !== undefined && installed.version >= entry.version) return false;
+
+    try {
+      const info = await listener.installRulePack({ url: entry.url, sha256: entry.sha256 });
+      logAnalyticsEvent('ota_rule_pack_installed', {
+        version: info.version,
+        previous_version: installed.version ?? null,
+      });
+      return true;
+    } catch (err) {
+      console.warn('[OTA] Rule pack install failed:', err);
+      return false;
+    }
+  }
+
   /**
    * Check if we have a pending bundle ready to apply
    */
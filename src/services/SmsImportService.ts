@@ -6,7 +6,8 @@
  * @module services/SmsImportService
  *
  * @responsibilities
- * 1. Fetch SMS messages based on sender filters and lookback windows
+ * 1. Fetch SMS messages newer than the last committed incremental read for
+ *    the selected senders, starting at the lookback window the first time
  * 2. Gate auto-import prompts to avoid repeated dialogs
  * 3. Log analytics for import activity and failures
  *
@@ -23,9 +24,10 @@
  * - [ ] Import lock releases on error paths
  * - [ ] Sender selection defaults are handled safely
  * - [ ] Auto-import uses permission date when requested
+ * - [ ] Continuation is committed only once the read messages are handled
  */
 
-import { SmsReaderService, SmsEntry } from './SmsReaderService';
+import { SmsReaderService, SmsEntry, SmsContinuation } from './SmsReaderService';
 import { extractVendorName, inferIndirectFields } from '@/lib/smart-paste-engine/suggestionEngine';
 import { isFinancialTransactionMessage } from '@/lib/smart-paste-engine/messageFilter';
 import { safeStorage } from '@/utils/safe-storage';
@@ -169,6 +171,54 @@ export class SmsImportService {
     return new Date(Math.min(...senderDates.map((date) => date.getTime())));
   }
 
+  /**
+   * Start of the first read for these senders, narrowed by the native inbox
+   * summary (counts and dates only, no bodies) to their earliest message
+   * since startDate. Null when none of them has a message in the window.
+   * Reads that resume from a continuation ignore startDate, so they skip
+   * the summary.
+   */
+  private static async boundFirstRead(senders: string[], startDate: Date): Promise<Date | null> {
+    if (SmsReaderService.getContinuationToken({ senders, financialOnly: true })) {
+      return startDate;
+    }
+
+    const summary = await SmsReaderService.summarizeInbox({ startDate, senders });
+    if (!summary) {
+      return startDate;
+    }
+
+    const firstDates = summary.filter((entry) => entry.count > 0).map((entry) => entry.firstDate);
+    if (firstDates.length === 0) {
+      return null;
+    }
+    return new Date(Math.max(startDate.getTime(), Math.min(...firstDates)));
+  }
+
+  /**
+   * Reads messages past the continuation stored for these senders; startDate
+   * only bounds the first read. The returned continuation must be committed
+   * once the messages are handled (see ReviewSmsTransactions).
+   */
+  private static async readNewMessages(
+    senders: string[],
+    startDate: Date
+  ): Promise<{ messages: SmsEntry[]; continuation?: SmsContinuation }> {
+    const readStart = await this.boundFirstRead(senders, startDate);
+    if (!readStart) {
+      this.logImportDecision('skip_read_empty_window', { senderCount: senders.length });
+      return { messages: [] };
+    }
+
+    const result = await SmsReaderService.readSmsSince({
+      startDate: readStart,
+      senders,
+      financialOnly: true,
+    });
+    const messages = (result?.messages ?? []).map(({ sender, message, date }) => ({ sender, message, date }));
+    return { messages, continuation: result?.continuation };
+  }
+
   private static filterMessagesBySelectedSendersAndCutoff(
     messages: SmsEntry[],
     senders: string[],
@@ -235,8 +285,7 @@ export class SmsImportService {
       const defaultStart = this.getDefaultStartDate();
       const startDate = this.computeScanStartDate(senders, senderMap);
 
-      const messages: SmsEntry[] = await SmsReaderService.readSmsMessages({ startDate, senders });
-      if (!messages || messages.length === 0) return;
+      const { messages, continuation } = await this.readNewMessages(senders, startDate);
 
       const filteredMessages = this.filterMessagesBySelectedSendersAndCutoff(
         messages,
@@ -245,7 +294,10 @@ export class SmsImportService {
         defaultStart
       );
 
-      if (filteredMessages.length === 0) return;
+      if (filteredMessages.length === 0) {
+        SmsReaderService.saveContinuation(continuation);
+        return;
+      }
 
       if (auto && !autoPromptShown) {
         autoPromptShown = true;
@@ -292,7 +344,7 @@ export class SmsImportService {
       }
 
       await logAnalyticsEvent('sms_import_complete');
-      safeNavigate('/vendor-mapping', { state: { messages: filteredMessages, vendorMap, keywordMap } });
+      safeNavigate('/vendor-mapping', { state: { messages: filteredMessages, vendorMap, keywordMap, continuation } });
     } catch (error) {
       if (import.meta.env.MODE === 'development') {
         console.error('[SmsImportService] Failed to auto import SMS messages:', error);
@@ -335,12 +387,10 @@ export class SmsImportService {
 
       // Read messages from selected senders and let checkpoint filtering
       // keep only new messages for each sender.
-      const messages: SmsEntry[] = await SmsReaderService.readSmsMessages({ 
-        startDate, 
-        senders
-      });
+      const { messages, continuation } = await this.readNewMessages(senders, startDate);
 
-      if (!messages || messages.length === 0) {
+      if (messages.length === 0) {
+        SmsReaderService.saveContinuation(continuation);
         safeStorage.setItem(SMS_STARTUP_IMPORT_DONE_KEY, '1');
         console.log('[SMS_IMPORT] startup import complete: 0 fetched -> replace(HOME_ROUTE)', {
           pathnameBefore: sourcePathname ?? window.location.pathname,
@@ -365,6 +415,7 @@ export class SmsImportService {
       );
 
       if (filteredMessages.length === 0) {
+        SmsReaderService.saveContinuation(continuation);
         safeStorage.setItem(SMS_STARTUP_IMPORT_DONE_KEY, '1');
         console.log('[SMS_IMPORT] startup import complete: 0 financial -> replace(HOME_ROUTE)', {
           pathnameBefore: sourcePathname ?? window.location.pathname,
@@ -425,6 +476,7 @@ export class SmsImportService {
           messages: filteredMessages, 
           vendorMap, 
           keywordMap,
+          continuation,
           isAutoImport: true 
         } 
       });
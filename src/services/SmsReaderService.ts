@@ -12,6 +12,7 @@
  *
  * @storage-keys
  * - xpensia_sms_fetch_limit: user-defined SMS fetch limit
+ * - xpensia_sms_continuation_tokens: incremental read resume points, keyed by filter
  *
  * @dependencies
  * - SmsReaderPlugin: native Capacitor plugin
@@ -31,7 +32,7 @@
 import { safeStorage } from "@/utils/safe-storage";
 
 import { Capacitor } from "@capacitor/core";
-import { SmsReader } from "../plugins/SmsReaderPlugin";
+import { SmsReader, SmsProviderMessage, SmsReadProgress, SmsSenderSummary } from "../plugins/SmsReaderPlugin";
 import { subMonths, startOfToday } from 'date-fns';
 import { getSmsLookbackMonths } from '@/lib/env';
 import { SMS_HISTORICAL_IMPORT_ENABLED } from '@/lib/envFlags';
@@ -41,6 +42,13 @@ export interface SmsReadOptions {
   endDate?: Date;
   senders?: string[];
   limit?: number;
+  financialOnly?: boolean;
+  /** Scan large ranges in parallel partitions (see SmsFilterOptions.parallel). */
+  parallel?: boolean;
+  /** Id to pass to cancelRead(); generated when omitted. */
+  readId?: string;
+  /** Native scan progress for this read. */
+  onProgress?: (progress: SmsReadProgress) => void;
 }
 
 export interface SmsEntry {
@@ -49,6 +57,34 @@ export interface SmsEntry {
   date: string; // ISO string
 }
 
+/** A continuation token only resumes reads made with the same filter. */
+export interface SmsReadFilter {
+  senders?: string[];
+  financialOnly?: boolean;
+}
+
+export interface SmsIncrementalReadOptions extends SmsReadFilter {
+  /** Where the first read for this filter starts; ignored once a token exists. */
+  startDate?: Date;
+  /** Upper bound on pages fetched in one call. */
+  maxPages?: number;
+}
+
+export interface SmsContinuation {
+  filterKey: string;
+  token: string;
+}
+
+export interface SmsIncrementalReadResult {
+  messages: SmsProviderMessage[];
+  /** Commit with saveContinuation() once the messages are persisted. */
+  continuation?: SmsContinuation;
+  hasMore: boolean;
+}
+
+const CONTINUATION_TOKENS_KEY = 'xpensia_sms_continuation_tokens';
+const MAX_CONTINUATION_FILTERS = 16;
+
 export interface SmsPermissionStatus {
   granted: boolean;
   shouldShowRationale: boolean;
@@ -187,13 +223,23 @@ export class SmsReaderService {
       // console.log(`[SmsReaderService] Scanning for messages between ${new Date(startDate).toLocaleString()} and ${new Date(endDate).toLocaleString()}`);
     }
 
+    const { senders, financialOnly, parallel, onProgress } = options;
+    const readId = options.readId ?? SmsReaderService.newReadId();
+    const progressListener = onProgress
+      ? await SmsReader.addListener('readProgress', (progress) => {
+          if (progress.readId === readId) onProgress(progress);
+        }).catch(() => undefined)
+      : undefined;
+
     try {
-      const { senders } = options;
       const result = await SmsReader.readSmsMessages({
         senders,
+        financialOnly,
+        parallel,
         startDate: String(startDate),
         endDate: String(endDate),
         limit,
+        readId,
       });
       
       if (!result || !Array.isArray(result.messages)) {
@@ -209,6 +255,144 @@ export class SmsReaderService {
         console.error("[SmsReaderService] Error reading SMS messages:", error);
       }
       return [];
+    } finally {
+      void progressListener?.remove();
+    }
+  }
+
+  /** A fresh id for readSmsMessages, valid for the native readId pattern. */
+  static newReadId(): string {
+    return `read-${Date.now().toString(36)}-${Math.random().toString(36).slice(2, 8)}`;
+  }
+
+  /**
+   * Cancels a running read started with `readId`; that read then resolves
+   * empty. Returns false if no such read was running.
+   */
+  static async cancelRead(readId: string): Promise<boolean> {
+    if (!Capacitor.isNativePlatform()) {
+      return false;
+    }
+
+    try {
+      const result = await SmsReader.cancelRead({ readId });
+      return result?.cancelled === true;
+    } catch (error) {
+      if (import.meta.env.MODE === 'development') {
+        console.error("[SmsReaderService] Error cancelling SMS read:", error);
+      }
+      return false;
+    }
+  }
+
+  /** Stable key for a filter: sender order and duplicates do not matter. */
+  static continuationFilterKey(filter: SmsReadFilter): string {
+    const senders = Array.from(new Set(filter.senders ?? [])).sort();
+    return JSON.stringify([filter.financialOnly ? 'financial' : 'all', senders]);
+  }
+
+  private static readContinuationTokens(): Record<string, string> {
+    try {
+      const parsed = JSON.parse(safeStorage.getItem(CONTINUATION_TOKENS_KEY) || '{}');
+      return parsed && typeof parsed === 'object' ? parsed : {};
+    } catch {
+      return {};
+    }
+  }
+
+  static getContinuationToken(filter: SmsReadFilter): string | null {
+    return SmsReaderService.readContinuationTokens()[SmsReaderService.continuationFilterKey(filter)] ?? null;
+  }
+
+  static saveContinuation(continuation: SmsContinuation | undefined): void {
+    if (!continuation?.token) {
+      return;
+    }
+    const tokens = SmsReaderService.readContinuationTokens();
+    delete tokens[continuation.filterKey];
+    tokens[continuation.filterKey] = continuation.token;
+    // Insertion order is recency; drop the least recently committed filters.
+    const keys = Object.keys(tokens);
+    keys.slice(0, Math.max(0, keys.length - MAX_CONTINUATION_FILTERS)).forEach((key) => delete tokens[key]);
+    safeStorage.setItem(CONTINUATION_TOKENS_KEY, JSON.stringify(tokens));
+  }
+
+  /**
+   * Fetch only messages newer than the token stored for this filter. The
+   * native token advances past rows the filter skipped, so it is never shared
+   * between filters. It is not advanced here: callers commit `continuation`
+   * after persisting the result, so an import abandoned mid-way is read again.
+   */
+  static async readSmsSince(options: SmsIncrementalReadOptions = {}): Promise<SmsIncrementalReadResult> {
+    if (!SMS_HISTORICAL_IMPORT_ENABLED || !Capacitor.isNativePlatform()) {
+      return { messages: [], hasMore: false };
+    }
+
+    const hasPerm = await SmsReaderService.hasPermission();
+    if (!hasPerm) {
+      throw new Error('SMS permission not granted');
+    }
+
+    const filterKey = SmsReaderService.continuationFilterKey(options);
+    const maxPages = options.maxPages ?? 10;
+    let token = SmsReaderService.getContinuationToken(options) ?? undefined;
+    const startDate = token
+      ? undefined
+      : String((options.startDate ?? subMonths(startOfToday(), getSmsLookbackMonths())).getTime());
+    const messages: SmsProviderMessage[] = [];
+    let hasMore = false;
+
+    try {
+      for (let page = 0; page < maxPages; page++) {
+        const result = await SmsReader.readSmsSince({
+          token,
+          startDate,
+          senders: options.senders,
+          financialOnly: options.financialOnly,
+        });
+        messages.push(...(result.messages ?? []));
+        token = result.nextToken ?? token;
+        hasMore = result.hasMore;
+        if (!hasMore) break;
+      }
+    } catch (error) {
+      if (import.meta.env.MODE === 'development') {
+        console.error("[SmsReaderService] Error reading SMS incrementally:", error);
+      }
+      // Pages read so far are still valid; the token covers exactly them.
+      hasMore = true;
+    }
+
+    return { messages, continuation: token ? { filterKey, token } : undefined, hasMore };
+  }
+
+  /**
+   * Distinct senders with message counts and first/last dates, computed
+   * natively without transferring bodies. Used to pick senders and scan
+   * windows before a full read.
+   *
+   * @returns null when no summary is available (web, or the native call
+   *          failed), so callers can tell it apart from an empty window
+   */
+  static async summarizeInbox(
+    options: { startDate?: Date; senders?: string[]; histogram?: 'day' | 'month' } = {}
+  ): Promise<SmsSenderSummary[] | null> {
+    if (!Capacitor.isNativePlatform()) {
+      return null;
+    }
+
+    try {
+      const result = await SmsReader.summarizeInbox({
+        startDate: options.startDate ? String(options.startDate.getTime()) : undefined,
+        senders: options.senders,
+        histogram: options.histogram,
+      });
+      return Array.isArray(result?.senders) ? result.senders : null;
+    } catch (error) {
+      if (import.meta.env.MODE === 'development') {
+        console.error("[SmsReaderService] Error summarizing inbox:", error);
+      }
+      return null;
     }
   }
 }
@@ -21,6 +21,15 @@ vi.mock('@/lib/smart-paste-engine/suggestionEngine');
 vi.mock('@/lib/smart-paste-engine/messageFilter');
 vi.mock('@/utils/sms-permission-storage');
 
+const CONTINUATION = { filterKey: '["financial",["BANK"]]', token: 'next-token' };
+
+const mockReadSince = (messages: Array<{ sender: string; message: string; date: string }>) =>
+  (SmsReaderService.readSmsSince as Mock).mockResolvedValue({
+    messages: messages.map((msg, index) => ({ ...msg, id: index + 1, threadId: 1 })),
+    continuation: CONTINUATION,
+    hasMore: false,
+  });
+
 describe('SmsImportService.checkForNewMessages', () => {
   beforeEach(() => {
     vi.clearAllMocks();
@@ -37,7 +46,7 @@ describe('SmsImportService.checkForNewMessages', () => {
     await SmsImportService.checkForNewMessages(navigate);
 
     expect(navigate).toHaveBeenCalledWith('/process-sms');
-    expect(SmsReaderService.readSmsMessages).not.toHaveBeenCalled();
+    expect(SmsReaderService.readSmsSince).not.toHaveBeenCalled();
   });
 
   it('filters messages by selected senders and per-sender checkpoint', async () => {
@@ -48,7 +57,7 @@ describe('SmsImportService.checkForNewMessages', () => {
       { sender: 'OTHER', message: 'Paid 20 SAR at Dominoes', date: new Date(now).toISOString() }
     ];
 
-    (SmsReaderService.readSmsMessages as Mock).mockResolvedValue(messages);
+    mockReadSince(messages);
     (getSelectedSmsSenders as Mock).mockReturnValue(['BANK']);
     (getSmsSenderImportMap as Mock).mockReturnValue({ BANK: new Date(now - 3600000).toISOString() });
 
@@ -59,9 +68,10 @@ describe('SmsImportService.checkForNewMessages', () => {
 
     await SmsImportService.checkForNewMessages(navigate);
 
-    expect(SmsReaderService.readSmsMessages).toHaveBeenCalledWith({
+    expect(SmsReaderService.readSmsSince).toHaveBeenCalledWith({
       startDate: expect.any(Date),
       senders: ['BANK'],
+      financialOnly: true,
     });
 
     expect(navigate).toHaveBeenCalledWith('/vendor-mapping', {
@@ -77,7 +87,8 @@ describe('SmsImportService.checkForNewMessages', () => {
               { field: 'type', value: 'expense' }
             ]
           }
-        ]
+        ],
+        continuation: CONTINUATION
       }
     });
 
@@ -102,7 +113,7 @@ describe('SmsImportService.checkForNewMessages', () => {
       { sender: 'BANK', message: 'Paid 10 SAR at Starbucks', date: futureDate }
     ];
 
-    (SmsReaderService.readSmsMessages as Mock).mockResolvedValue(messages);
+    mockReadSince(messages);
     (getSelectedSmsSenders as Mock).mockReturnValue(['BANK']);
     (getSmsSenderImportMap as Mock).mockReturnValue({ BANK: new Date(0).toISOString() });
 
@@ -124,10 +135,72 @@ describe('SmsImportService.checkForNewMessages', () => {
   });
 
 
+  it('hands the continuation to review instead of committing it', async () => {
+    mockReadSince([
+      { sender: 'BANK', message: 'Paid 10 SAR at Starbucks', date: new Date().toISOString() },
+    ]);
+    (getSelectedSmsSenders as Mock).mockReturnValue(['BANK']);
+    (getSmsSenderImportMap as Mock).mockReturnValue({ BANK: new Date(0).toISOString() });
+    (extractVendorName as Mock).mockReturnValue('Starbucks');
+    (inferIndirectFields as Mock).mockReturnValue({});
+
+    const navigate = vi.fn();
+    await SmsImportService.checkForNewMessages(navigate);
+
+    const [, navigationPayload] = navigate.mock.calls[0];
+    expect(navigationPayload.state.continuation).toEqual(CONTINUATION);
+    expect(SmsReaderService.saveContinuation).not.toHaveBeenCalled();
+  });
+
+  it('commits the continuation when nothing new passes the filters', async () => {
+    mockReadSince([
+      { sender: 'OTHER', message: 'Paid 20 SAR at Dominoes', date: new Date().toISOString() },
+    ]);
+    (getSelectedSmsSenders as Mock).mockReturnValue(['BANK']);
+
+    const navigate = vi.fn();
+    await SmsImportService.checkForNewMessages(navigate);
+
+    expect(navigate).not.toHaveBeenCalled();
+    expect(SmsReaderService.saveContinuation).toHaveBeenCalledWith(CONTINUATION);
+  });
+
+  it('starts the first read at the earliest message in the inbox summary', async () => {
+    const firstDate = Date.now() - 86400000;
+    (SmsReaderService.summarizeInbox as Mock).mockResolvedValueOnce([
+      { sender: 'BANK', count: 3, firstDate, lastDate: Date.now() },
+    ]);
+    mockReadSince([]);
+    (getSelectedSmsSenders as Mock).mockReturnValue(['BANK']);
+
+    await SmsImportService.checkForNewMessages(vi.fn());
+
+    expect(SmsReaderService.summarizeInbox).toHaveBeenCalledWith({
+      startDate: expect.any(Date),
+      senders: ['BANK'],
+    });
+    expect(SmsReaderService.readSmsSince).toHaveBeenCalledWith({
+      startDate: new Date(firstDate),
+      senders: ['BANK'],
+      financialOnly: true,
+    });
+  });
+
+  it('skips the first read when the summary has no messages from the senders', async () => {
+    (SmsReaderService.summarizeInbox as Mock).mockResolvedValueOnce([]);
+    (getSelectedSmsSenders as Mock).mockReturnValue(['BANK']);
+
+    const navigate = vi.fn();
+    await SmsImportService.checkForNewMessages(navigate);
+
+    expect(SmsReaderService.readSmsSince).not.toHaveBeenCalled();
+    expect(navigate).not.toHaveBeenCalled();
+  });
+
   it('routes to home when permission-date import fetches zero messages', async () => {
     (getSelectedSmsSenders as Mock).mockReturnValue(['BANK']);
     (getSmsSenderImportMap as Mock).mockReturnValue({ BANK: new Date(0).toISOString() });
-    (SmsReaderService.readSmsMessages as Mock).mockResolvedValue([]);
+    mockReadSince([]);
 
     const navigate = vi.fn();
     await SmsImportService.checkForNewMessages(navigate, { usePermissionDate: true });
@@ -139,7 +212,7 @@ describe('SmsImportService.checkForNewMessages', () => {
     const now = new Date().toISOString();
     (getSelectedSmsSenders as Mock).mockReturnValue(['BANK']);
     (getSmsSenderImportMap as Mock).mockReturnValue({ BANK: new Date(0).toISOString() });
-    (SmsReaderService.readSmsMessages as Mock).mockResolvedValue([
+    mockReadSince([
       { sender: 'BANK', message: 'Your OTP is 1234', date: now },
     ]);
     (isFinancialTransactionMessage as Mock).mockReturnValue(false);
@@ -160,7 +233,7 @@ describe('SmsImportService.checkForNewMessages', () => {
       { id: 'BANK', name: 'Bank Provider', pattern: 'bank', isSelected: true }
     ]));
 
-    (SmsReaderService.readSmsMessages as Mock).mockResolvedValue(messages);
+    mockReadSince(messages);
     (getSelectedSmsSenders as Mock).mockReturnValue([]);
     (getSmsSenderImportMap as Mock).mockReturnValue({ BANK: new Date(now - 3600000).toISOString() });
     (extractVendorName as Mock).mockReturnValue('Starbucks');
@@ -177,7 +250,7 @@ describe('SmsImportService.checkForNewMessages', () => {
 
   it('does not auto-create dummy provider IDs when legacy providers do not match senders', async () => {
     const now = Date.now();
-    (SmsReaderService.readSmsMessages as Mock).mockResolvedValue([
+    mockReadSince([
       { sender: 'BANK', message: 'Paid 10 SAR at Starbucks', date: new Date(now).toISOString() },
     ]);
 
@@ -193,7 +266,7 @@ describe('SmsImportService.checkForNewMessages', () => {
 
     expect(setSelectedSmsSenders).not.toHaveBeenCalled();
     expect(navigate).toHaveBeenCalledWith('/process-sms');
-    expect(SmsReaderService.readSmsMessages).not.toHaveBeenCalled();
+    expect(SmsReaderService.readSmsSince).not.toHaveBeenCalled();
 
     safeStorage.removeItem('sms_providers');
   });
@@ -203,7 +276,7 @@ describe('SmsImportService.checkForNewMessages', () => {
       { sender: 'BANK', message: 'Paid 10 SAR at Starbucks', date: new Date().toISOString() },
     ];
 
-    (SmsReaderService.readSmsMessages as Mock).mockResolvedValue(messages);
+    mockReadSince(messages);
     (getSelectedSmsSenders as Mock).mockReturnValue(['BANK']);
     (getSmsSenderImportMap as Mock).mockReturnValue({ BANK: 'not-a-date' });
     (extractVendorName as Mock).mockReturnValue('Starbucks');
@@ -213,9 +286,10 @@ describe('SmsImportService.checkForNewMessages', () => {
 
     await SmsImportService.checkForNewMessages(navigate);
 
-    expect(SmsReaderService.readSmsMessages).toHaveBeenCalledWith({
+    expect(SmsReaderService.readSmsSince).toHaveBeenCalledWith({
       startDate: expect.any(Date),
       senders: ['BANK'],
+      financialOnly: true,
     });
     expect(navigate).toHaveBeenCalledWith('/vendor-mapping', expect.any(Object));
   });
@@ -232,7 +306,7 @@ describe('SmsImportService.checkForNewMessages', () => {
 
     expect(setSelectedSmsSenders).not.toHaveBeenCalled();
     expect(navigate).toHaveBeenCalledWith('/process-sms');
-    expect(SmsReaderService.readSmsMessages).not.toHaveBeenCalled();
+    expect(SmsReaderService.readSmsSince).not.toHaveBeenCalled();
 
     safeStorage.removeItem('smsProviders');
   });
@@ -89,6 +89,57 @@ export const convertTransactionsToCsv = (
   return [headers.join(delimiter), ...rows].join('\n');
 };
 
+/**
+ * Builds a Transaction from one CSV record keyed by TRANSACTION_CSV_COLUMNS.
+ * Throws on missing required fields or an unparseable amount.
+ */
+export const transactionFromCsvRecord = (row: Record<string, string>): Transaction => {
+  const hasMissingRequired = REQUIRED_IMPORT_COLUMNS.some(column => !row[column]);
+  if (hasMissingRequired) {
+    throw new Error('Missing required fields');
+  }
+
+  const parsedAmount = Number.parseFloat(row.amount);
+  if (Number.isNaN(parsedAmount)) {
+    throw new Error('Invalid CSV format');
+  }
+
+  const txn: Transaction = {
+    id: row.id || uuidv4(),
+    title: row.title,
+    amount: parsedAmount,
+    category: row.category || '',
+    date: row.date,
+    type: row.type as TransactionType,
+    source: (row.source as TransactionSource) || 'import',
+    currency: row.currency || 'USD',
+  };
+
+  // Optional base fields
+  if (row.subcategory) txn.subcategory = row.subcategory;
+  if (row.notes) txn.notes = row.notes;
+  if (row.currency) txn.currency = row.currency;
+  if (row.person) txn.person = row.person;
+  if (row.fromAccount) txn.fromAccount = row.fromAccount;
+  if (row.toAccount) txn.toAccount = row.toAccount;
+  if (row.country) txn.country = row.country;
+  if (row.description) txn.description = row.description;
+  if (row.originalCurrency) txn.originalCurrency = row.originalCurrency;
+  if (row.vendor) txn.vendor = row.vendor;
+  if (row.account) txn.account = row.account;
+  if (row.createdAt) txn.createdAt = row.createdAt;
+
+  // FX fields for multi-currency support
+  if (row.baseCurrency) txn.baseCurrency = row.baseCurrency;
+  if (row.amountInBase) txn.amountInBase = Number.parseFloat(row.amountInBase);
+  if (row.fxRateToBase) txn.fxRateToBase = Number.parseFloat(row.fxRateToBase);
+  if (row.fxSource) txn.fxSource = row.fxSource as FxSource;
+  if (row.fxLockedAt) txn.fxLockedAt = row.fxLockedAt;
+  if (row.fxPair) txn.fxPair = row.fxPair;
+
+  return txn;
+};
+
 /**
  * Parse a CSV string into an array of Transaction objects.
  * Only rows containing the required fields are returned.
@@ -175,50 +226,7 @@ export const parseCsvTransactions = (fileData: string): Transaction[] => {
       row[h] = values[idx];
     });
 
-    const hasMissingRequired = REQUIRED_IMPORT_COLUMNS.some(column => !row[column]);
-    if (hasMissingRequired) {
-      throw new Error('Missing required fields');
-    }
-
-    const parsedAmount = Number.parseFloat(row.amount);
-    if (Number.isNaN(parsedAmount)) {
-      throw new Error('Invalid CSV format');
-    }
-
-    const txn: Transaction = {
-      id: row.id || uuidv4(),
-      title: row.title,
-      amount: parsedAmount,
-      category: row.category || '',
-      date: row.date,
-      type: row.type as TransactionType,
-      source: (row.source as TransactionSource) || 'import',
-      currency: row.currency || 'USD',
-    };
-
-    // Optional base fields
-    if (row.subcategory) txn.subcategory = row.subcategory;
-    if (row.notes) txn.notes = row.notes;
-    if (row.currency) txn.currency = row.currency;
-    if (row.person) txn.person = row.person;
-    if (row.fromAccount) txn.fromAccount = row.fromAccount;
-    if (row.toAccount) txn.toAccount = row.toAccount;
-    if (row.country) txn.country = row.country;
-    if (row.description) txn.description = row.description;
-    if (row.originalCurrency) txn.originalCurrency = row.originalCurrency;
-    if (row.vendor) txn.vendor = row.vendor;
-    if (row.account) txn.account = row.account;
-    if (row.createdAt) txn.createdAt = row.createdAt;
-
-    // FX fields for multi-currency support
-    if (row.baseCurrency) txn.baseCurrency = row.baseCurrency;
-    if (row.amountInBase) txn.amountInBase = Number.parseFloat(row.amountInBase);
-    if (row.fxRateToBase) txn.fxRateToBase = Number.parseFloat(row.fxRateToBase);
-    if (row.fxSource) txn.fxSource = row.fxSource as FxSource;
-    if (row.fxLockedAt) txn.fxLockedAt = row.fxLockedAt;
-    if (row.fxPair) txn.fxPair = row.fxPair;
-
-    transactions.push(txn);
+    transactions.push(transactionFromCsvRecord(row));
   }
 
   return transactions;